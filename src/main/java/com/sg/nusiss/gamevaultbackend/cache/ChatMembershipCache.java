@@ -0,0 +1,171 @@
+package com.sg.nusiss.gamevaultbackend.cache;
+
+import com.sg.nusiss.gamevaultbackend.entity.conversation.Conversation;
+import com.sg.nusiss.gamevaultbackend.repository.conversation.ConversationRepository;
+import com.sg.nusiss.gamevaultbackend.repository.conversation.MemberRepository;
+import com.sg.nusiss.gamevaultbackend.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 群聊状态与成员关系的进程内缓存
+ * 聊天读写路径据此做权限预检，避免每条消息都查询 conversations / members 表。
+ * ConversationService 在加人、移除成员、解散群聊后调用 evict，事务提交后本地失效并通过 Redis 频道通知其他节点。
+ *
+ * 注意：缓存只用于快速拒绝和读路径；发送消息时的最终校验由分配序号的 UPDATE 在数据库中完成，
+ * 因此即使缓存短暂过期，已被移除的成员也无法发出消息。
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ChatMembershipCache implements MessageListener {
+
+    // 跨节点失效通知频道，消息体为 "{conversationId}"
+    public static final String INVALIDATION_CHANNEL = "chat:membership:invalidate";
+
+    private final ConversationRepository conversationRepository;
+    private final MemberRepository memberRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // 最多缓存的群聊数量（LRU 淘汰）
+    private static final int MAX_ENTRIES = 10_000;
+    // 兜底有效期：即使失效通知丢失，最多 1 分钟后也会重新加载
+    private static final long TTL_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Map<Long, ConversationEntry> conversations = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, ConversationEntry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    // 每次失效递增；加载前记录，写回时不一致则放弃写回，避免并发加载把失效前的旧数据放回缓存
+    private final AtomicLong epoch = new AtomicLong();
+
+    /**
+     * 获取群聊状态（active | dissolved），群聊不存在时返回 empty
+     */
+    public Optional<String> getStatus(Long conversationId) {
+        ConversationEntry entry = lookup(conversationId);
+        if (entry != null) {
+            return Optional.of(entry.status);
+        }
+
+        long loadEpoch = epoch.get();
+        Optional<Conversation> conversation = conversationRepository.findById(conversationId);
+        conversation.ifPresent(conv -> store(conversationId, new ConversationEntry(conv.getStatus()), loadEpoch));
+        return conversation.map(Conversation::getStatus);
+    }
+
+    /**
+     * 判断用户是否为群聊的活跃成员
+     */
+    public boolean isActiveMember(Long conversationId, Long userId) {
+        ConversationEntry entry = lookup(conversationId);
+        if (entry != null) {
+            Boolean cached = entry.members.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        long loadEpoch = epoch.get();
+        boolean active = memberRepository.findByConversationIdAndUserIdAndIsActive(conversationId, userId, true)
+                .isPresent();
+        if (entry != null && epoch.get() == loadEpoch) {
+            entry.members.put(userId, active);
+        }
+        return active;
+    }
+
+    /**
+     * 群聊状态或成员变更后使缓存失效（事务提交后执行，并广播到其他节点）
+     */
+    public void evict(Long conversationId) {
+        if (conversationId == null) {
+            return;
+        }
+
+        TransactionUtils.afterCommit(() -> evictAndPublish(conversationId));
+    }
+
+    /**
+     * 仅清除本节点缓存
+     */
+    public void evictLocal(Long conversationId) {
+        epoch.incrementAndGet();
+        synchronized (conversations) {
+            conversations.remove(conversationId);
+        }
+    }
+
+    /**
+     * 接收其他节点的失效通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            evictLocal(Long.valueOf(body.trim()));
+        } catch (NumberFormatException e) {
+            log.warn("无法识别的成员缓存失效通知: {}", body);
+        }
+    }
+
+    private void evictAndPublish(Long conversationId) {
+        evictLocal(conversationId);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.valueOf(conversationId));
+        } catch (Exception e) {
+            // 通知失败时其他节点依靠 TTL 兜底
+            log.error("广播成员缓存失效失败 - 群聊ID: {}", conversationId, e);
+        }
+    }
+
+    private ConversationEntry lookup(Long conversationId) {
+        synchronized (conversations) {
+            ConversationEntry entry = conversations.get(conversationId);
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - entry.loadedAt > TTL_MS) {
+                conversations.remove(conversationId);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void store(Long conversationId, ConversationEntry entry, long loadEpoch) {
+        synchronized (conversations) {
+            if (epoch.get() == loadEpoch) {
+                conversations.put(conversationId, entry);
+            }
+        }
+    }
+
+    /**
+     * 单个群聊的缓存：状态 + 已查询过的成员关系
+     */
+    private static final class ConversationEntry {
+        private final String status;
+        private final long loadedAt = System.currentTimeMillis();
+        private final Map<Long, Boolean> members = new ConcurrentHashMap<>();
+
+        private ConversationEntry(String status) {
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.sg.nusiss.gamevaultbackend.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 聊天消息缓存专用的紧凑二进制序列化器（仅用于 chat:messages:* 列表）
+ *
+ * 格式：MAGIC(1) + VERSION(1) + 字段存在位图(varint) + 按固定顺序写出的非空字段。
+ * 整数使用 varint，字符串为 varint 长度 + UTF-8，不写类名和字段名。
+ * 旧版本写入的 JSON 条目（以 '{' 开头）仍可读取，随缓存重建或过期自然淘汰。
+ * 无法解码的条目（损坏或无法解析的旧格式）按 null 返回并记录告警，不抛异常，
+ * 以免列表中一条坏数据导致整页读取失败；调用方会过滤 null 元素。
+ */
+@Slf4j
+public class ChatMessageRedisSerializer implements RedisSerializer<MessageResponse> {
+
+    static final byte MAGIC = (byte) 0xC7;
+    static final byte VERSION_1 = 1;
+
+    /**
+     * 列表头部的“历史起点”标记，不是消息：存在时表示缓存列表包含会话的全部消息。
+     * 编码为 MAGIC + 版本 0，只按引用比较，不要修改它的字段
+     */
+    public static final MessageResponse HISTORY_START = new MessageResponse();
+    private static final byte VERSION_HISTORY_START = 0;
+
+    // 字段存在位（顺序即写出顺序，新增字段只能追加在末尾并提升版本号）
+    private static final int F_ID = 1;
+    private static final int F_CONVERSATION_ID = 1 << 1;
+    private static final int F_SENDER_ID = 1 << 2;
+    private static final int F_RECEIVER_ID = 1 << 3;
+    private static final int F_SEQ = 1 << 4;
+    private static final int F_SENDER_USERNAME = 1 << 5;
+    private static final int F_SENDER_EMAIL = 1 << 6;
+    private static final int F_CONTENT = 1 << 7;
+    private static final int F_CHAT_TYPE = 1 << 8;
+    private static final int F_MESSAGE_TYPE = 1 << 9;
+    private static final int F_CREATED_AT = 1 << 10;
+    private static final int F_ATTACHMENT = 1 << 11;
+
+    // 附件字段存在位
+    private static final int A_FILE_ID = 1;
+    private static final int A_FILE_NAME = 1 << 1;
+    private static final int A_FILE_SIZE = 1 << 2;
+    private static final int A_FILE_TYPE = 1 << 3;
+    private static final int A_FILE_EXT = 1 << 4;
+    private static final int A_ACCESS_URL = 1 << 5;
+    private static final int A_THUMBNAIL_URL = 1 << 6;
+
+    // 兼容旧 JSON 条目（GenericJackson2JsonRedisSerializer 写入）
+    private final ObjectMapper legacyMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Override
+    public byte[] serialize(MessageResponse message) throws SerializationException {
+        if (message == null) {
+            return new byte[0];
+        }
+        if (message == HISTORY_START) {
+            return new byte[]{MAGIC, VERSION_HISTORY_START};
+        }
+
+        Writer out = new Writer();
+        out.write(MAGIC);
+        out.write(VERSION_1);
+
+        MessageResponse.FileAttachment attachment = message.getAttachment();
+        int flags = flag(message.getId(), F_ID)
+                | flag(message.getConversationId(), F_CONVERSATION_ID)
+                | flag(message.getSenderId(), F_SENDER_ID)
+                | flag(message.getReceiverId(), F_RECEIVER_ID)
+                | flag(message.getSeq(), F_SEQ)
+                | flag(message.getSenderUsername(), F_SENDER_USERNAME)
+                | flag(message.getSenderEmail(), F_SENDER_EMAIL)
+                | flag(message.getContent(), F_CONTENT)
+                | flag(message.getChatType(), F_CHAT_TYPE)
+                | flag(message.getMessageType(), F_MESSAGE_TYPE)
+                | flag(message.getCreatedAt(), F_CREATED_AT)
+                | flag(attachment, F_ATTACHMENT);
+        out.writeVarLong(flags);
+
+        if (message.getId() != null) out.writeVarLong(message.getId());
+        if (message.getConversationId() != null) out.writeVarLong(message.getConversationId());
+        if (message.getSenderId() != null) out.writeVarLong(message.getSenderId());
+        if (message.getReceiverId() != null) out.writeVarLong(message.getReceiverId());
+        if (message.getSeq() != null) out.writeVarLong(message.getSeq());
+        if (message.getSenderUsername() != null) out.writeString(message.getSenderUsername());
+        if (message.getSenderEmail() != null) out.writeString(message.getSenderEmail());
+        if (message.getContent() != null) out.writeString(message.getContent());
+        if (message.getChatType() != null) out.writeString(message.getChatType());
+        if (message.getMessageType() != null) out.writeString(message.getMessageType());
+        if (message.getCreatedAt() != null) {
+            out.writeVarLong(message.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+            out.writeVarLong(message.getCreatedAt().getNano());
+        }
+
+        if (attachment != null) {
+            int attachmentFlags = flag(attachment.getFileId(), A_FILE_ID)
+                    | flag(attachment.getFileName(), A_FILE_NAME)
+                    | flag(attachment.getFileSize(), A_FILE_SIZE)
+                    | flag(attachment.getFileType(), A_FILE_TYPE)
+                    | flag(attachment.getFileExt(), A_FILE_EXT)
+                    | flag(attachment.getAccessUrl(), A_ACCESS_URL)
+                    | flag(attachment.getThumbnailUrl(), A_THUMBNAIL_URL);
+            out.writeVarLong(attachmentFlags);
+
+            if (attachment.getFileId() != null) out.writeString(attachment.getFileId());
+            if (attachment.getFileName() != null) out.writeString(attachment.getFileName());
+            if (attachment.getFileSize() != null) out.writeVarLong(attachment.getFileSize());
+            if (attachment.getFileType() != null) out.writeString(attachment.getFileType());
+            if (attachment.getFileExt() != null) out.writeString(attachment.getFileExt());
+            if (attachment.getAccessUrl() != null) out.writeString(attachment.getAccessUrl());
+            if (attachment.getThumbnailUrl() != null) out.writeString(attachment.getThumbnailUrl());
+        }
+
+        return out.toByteArray();
+    }
+
+    @Override
+    public MessageResponse deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        // 旧 JSON 条目
+        if (bytes[0] != MAGIC) {
+            return readLegacyJson(bytes);
+        }
+
+        if (bytes.length == 2 && bytes[1] == VERSION_HISTORY_START) {
+            return HISTORY_START;
+        }
+
+        if (bytes.length < 2 || bytes[1] != VERSION_1) {
+            log.warn("无法识别的聊天缓存版本: {}", bytes.length < 2 ? "?" : bytes[1]);
+            return null;
+        }
+
+        try {
+            Reader in = new Reader(bytes, 2);
+            int flags = (int) in.readVarLong();
+
+            MessageResponse.MessageResponseBuilder builder = MessageResponse.builder();
+            if ((flags & F_ID) != 0) builder.id(in.readVarLong());
+            if ((flags & F_CONVERSATION_ID) != 0) builder.conversationId(in.readVarLong());
+            if ((flags & F_SENDER_ID) != 0) builder.senderId(in.readVarLong());
+            if ((flags & F_RECEIVER_ID) != 0) builder.receiverId(in.readVarLong());
+            if ((flags & F_SEQ) != 0) builder.seq(in.readVarLong());
+            if ((flags & F_SENDER_USERNAME) != 0) builder.senderUsername(in.readString());
+            if ((flags & F_SENDER_EMAIL) != 0) builder.senderEmail(in.readString());
+            if ((flags & F_CONTENT) != 0) builder.content(in.readString());
+            if ((flags & F_CHAT_TYPE) != 0) builder.chatType(in.readString());
+            if ((flags & F_MESSAGE_TYPE) != 0) builder.messageType(in.readString());
+            if ((flags & F_CREATED_AT) != 0) {
+                long epochSecond = in.readVarLong();
+                int nano = (int) in.readVarLong();
+                builder.createdAt(LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC));
+            }
+
+            if ((flags & F_ATTACHMENT) != 0) {
+                int attachmentFlags = (int) in.readVarLong();
+                MessageResponse.FileAttachment.FileAttachmentBuilder attachment = MessageResponse.FileAttachment.builder();
+                if ((attachmentFlags & A_FILE_ID) != 0) attachment.fileId(in.readString());
+                if ((attachmentFlags & A_FILE_NAME) != 0) attachment.fileName(in.readString());
+                if ((attachmentFlags & A_FILE_SIZE) != 0) attachment.fileSize(in.readVarLong());
+                if ((attachmentFlags & A_FILE_TYPE) != 0) attachment.fileType(in.readString());
+                if ((attachmentFlags & A_FILE_EXT) != 0) attachment.fileExt(in.readString());
+                if ((attachmentFlags & A_ACCESS_URL) != 0) attachment.accessUrl(in.readString());
+                if ((attachmentFlags & A_THUMBNAIL_URL) != 0) attachment.thumbnailUrl(in.readString());
+                builder.attachment(attachment.build());
+            }
+
+            return builder.build();
+        } catch (RuntimeException e) {
+            log.warn("聊天缓存解码失败，已跳过该条目: {}", e.toString());
+            return null;
+        }
+    }
+
+    private MessageResponse readLegacyJson(byte[] bytes) {
+        try {
+            return legacyMapper.readValue(bytes, MessageResponse.class);
+        } catch (Exception e) {
+            log.warn("旧版聊天缓存解析失败，已跳过该条目: {}", e.toString());
+            return null;
+        }
+    }
+
+    private static int flag(Object value, int bit) {
+        return value != null ? bit : 0;
+    }
+
+    /**
+     * 写缓冲：varint 与长度前缀字符串
+     */
+    private static final class Writer extends ByteArrayOutputStream {
+
+        Writer() {
+            super(128);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            write(utf8, 0, utf8.length);
+        }
+    }
+
+    /**
+     * 读游标
+     */
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        long readVarLong() {
+            long result = 0;
+            int shift = 0;
+            while (shift < 64) {
+                byte b = buf[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+            }
+            throw new IllegalStateException("varint 过长");
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+    }
+}
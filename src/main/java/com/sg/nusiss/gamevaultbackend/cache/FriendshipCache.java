@@ -0,0 +1,134 @@
+package com.sg.nusiss.gamevaultbackend.cache;
+
+import com.sg.nusiss.gamevaultbackend.repository.friend.FriendshipRepository;
+import com.sg.nusiss.gamevaultbackend.util.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 好友关系的进程内缓存
+ * 打开私聊、翻阅私聊历史时据此做权限校验，避免每次都查询 friendships 表。
+ * FriendService 在建立或删除好友关系后调用 evict，事务提交后本地失效并通过 Redis 频道通知其他节点。
+ *
+ * 注意：只用于读路径；发送私聊消息仍直接查询数据库。
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class FriendshipCache implements MessageListener {
+
+    // 跨节点失效通知频道，消息体为 "{userId}:{friendId}"
+    public static final String INVALIDATION_CHANNEL = "chat:friendship:invalidate";
+
+    private final FriendshipRepository friendshipRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    // 最多缓存的好友对数量（LRU 淘汰）
+    private static final int MAX_ENTRIES = 50_000;
+    // 兜底有效期：即使失效通知丢失，最多 1 分钟后也会重新加载
+    private static final long TTL_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Map<String, Entry> friendships = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    // 每次失效递增；加载前记录，写回时不一致则放弃写回，避免并发加载把失效前的旧数据放回缓存
+    private final AtomicLong epoch = new AtomicLong();
+
+    /**
+     * 判断 friendId 是否为 userId 的有效好友
+     */
+    public boolean isActiveFriend(Long userId, Long friendId) {
+        String key = key(userId, friendId);
+        synchronized (friendships) {
+            Entry entry = friendships.get(key);
+            if (entry != null) {
+                if (System.currentTimeMillis() - entry.loadedAt <= TTL_MS) {
+                    return entry.active;
+                }
+                friendships.remove(key);
+            }
+        }
+
+        long loadEpoch = epoch.get();
+        boolean active = friendshipRepository.findByUserIdAndFriendIdAndIsActive(userId, friendId, true).isPresent();
+        synchronized (friendships) {
+            if (epoch.get() == loadEpoch) {
+                friendships.put(key, new Entry(active));
+            }
+        }
+        return active;
+    }
+
+    /**
+     * 好友关系变更后使两个方向的缓存失效（事务提交后执行，并广播到其他节点）
+     */
+    public void evict(Long userId1, Long userId2) {
+        if (userId1 == null || userId2 == null) {
+            return;
+        }
+
+        TransactionUtils.afterCommit(() -> evictAndPublish(userId1, userId2));
+    }
+
+    /**
+     * 仅清除本节点缓存
+     */
+    public void evictLocal(Long userId1, Long userId2) {
+        epoch.incrementAndGet();
+        synchronized (friendships) {
+            friendships.remove(key(userId1, userId2));
+            friendships.remove(key(userId2, userId1));
+        }
+    }
+
+    /**
+     * 接收其他节点的失效通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            String[] ids = body.trim().split(":");
+            evictLocal(Long.valueOf(ids[0]), Long.valueOf(ids[1]));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            log.warn("无法识别的好友缓存失效通知: {}", body);
+        }
+    }
+
+    private void evictAndPublish(Long userId1, Long userId2) {
+        evictLocal(userId1, userId2);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, key(userId1, userId2));
+        } catch (Exception e) {
+            // 通知失败时其他节点依靠 TTL 兜底
+            log.error("广播好友缓存失效失败 - 用户: {}, 好友: {}", userId1, userId2, e);
+        }
+    }
+
+    private static String key(Long userId, Long friendId) {
+        return userId + ":" + friendId;
+    }
+
+    private static final class Entry {
+        private final boolean active;
+        private final long loadedAt = System.currentTimeMillis();
+
+        private Entry(boolean active) {
+            this.active = active;
+        }
+    }
+}
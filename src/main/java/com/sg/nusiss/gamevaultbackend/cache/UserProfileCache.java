@@ -0,0 +1,158 @@
+package com.sg.nusiss.gamevaultbackend.cache;
+
+import com.sg.nusiss.gamevaultbackend.entity.auth.User;
+import com.sg.nusiss.gamevaultbackend.repository.auth.UserRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内用户资料缓存
+ * 聊天消息组装时按发送者批量解析用户名/邮箱，避免每条消息单独查询 users 表。
+ * 用户资料变更（ProfileController / AuthController）后需调用 evict 使缓存失效。
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class UserProfileCache {
+
+    private final UserRepository userRepository;
+
+    // 最多缓存的用户数量（LRU 淘汰）
+    private static final int MAX_ENTRIES = 10_000;
+    // 缓存有效期
+    private static final long TTL_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private final Map<Long, UserProfile> profiles = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, UserProfile> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * 获取单个用户资料（未命中时查询数据库）
+     */
+    public Optional<UserProfile> get(Long userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+
+        UserProfile cached = lookup(userId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        return userRepository.findById(userId).map(this::store);
+    }
+
+    /**
+     * 批量获取用户资料：命中部分直接返回，未命中部分用一次 IN 查询补齐
+     */
+    public Map<Long, UserProfile> getAll(Collection<Long> userIds) {
+        Map<Long, UserProfile> result = new HashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long userId : userIds) {
+            if (userId == null || result.containsKey(userId)) {
+                continue;
+            }
+            UserProfile cached = lookup(userId);
+            if (cached != null) {
+                result.put(userId, cached);
+            } else {
+                missing.add(userId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            List<User> users = userRepository.findAllById(missing);
+            for (User user : users) {
+                result.put(user.getUserId(), store(user));
+            }
+            log.debug("批量加载用户资料 - 请求: {}, 未命中: {}, 查到: {}",
+                    userIds.size(), missing.size(), users.size());
+        }
+
+        return result;
+    }
+
+    /**
+     * 用户资料变更后使缓存失效
+     */
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        synchronized (profiles) {
+            profiles.remove(userId);
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        synchronized (profiles) {
+            profiles.clear();
+        }
+    }
+
+    private UserProfile lookup(Long userId) {
+        synchronized (profiles) {
+            UserProfile cached = profiles.get(userId);
+            if (cached == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - cached.getLoadedAt() > TTL_MS) {
+                profiles.remove(userId);
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    private UserProfile store(User user) {
+        UserProfile profile = new UserProfile(
+                user.getUserId(),
+                user.getUsername(),
+                user.getEmail(),
+                user.getNickname(),
+                user.getAvatarUrl(),
+                System.currentTimeMillis()
+        );
+        synchronized (profiles) {
+            profiles.put(profile.getUserId(), profile);
+        }
+        return profile;
+    }
+
+    /**
+     * 缓存中的用户资料快照（不持有 JPA 实体）
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class UserProfile {
+        private final Long userId;
+        private final String username;
+        private final String email;
+        private final String nickname;
+        private final String avatarUrl;
+        private final long loadedAt;
+    }
+}
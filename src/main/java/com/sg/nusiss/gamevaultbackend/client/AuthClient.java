@@ -3,6 +3,7 @@ package com.sg.nusiss.gamevaultbackend.client;
 import com.sg.nusiss.gamevaultbackend.dto.shopping.UserDTO;
 import com.sg.nusiss.gamevaultbackend.security.auth.JwtUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -16,10 +17,11 @@ public class AuthClient {
      */
     public UserDTO getCurrentUser(String token) {
         try {
+            Jwt jwt = jwtUtil.decode(token);
             UserDTO user = new UserDTO();
-            user.setUserId(jwtUtil.getUserId(token));
-            user.setUsername(jwtUtil.getUsername(token));
-            user.setEmail(jwtUtil.getEmail(token));
+            user.setUserId(JwtUtil.userIdOf(jwt));
+            user.setUsername(jwt.getSubject());
+            user.setEmail(JwtUtil.emailOf(jwt));
             return user;
         } catch (Exception e) {
             // fallback，防止 token 错误时崩溃
@@ -3,11 +3,18 @@ package com.sg.nusiss.gamevaultbackend.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sg.nusiss.gamevaultbackend.cache.ChatMembershipCache;
+import com.sg.nusiss.gamevaultbackend.cache.FriendshipCache;
+import com.sg.nusiss.gamevaultbackend.cache.ChatMessageRedisSerializer;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -62,4 +69,34 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * 聊天消息缓存专用模板：紧凑二进制编码，不写类型信息（仅供 MessageCacheService 使用）
+     */
+    @Bean
+    public RedisTemplate<String, MessageResponse> chatMessageRedisTemplate(RedisConnectionFactory factory) {
+        RedisTemplate<String, MessageResponse> template = new RedisTemplate<>();
+        template.setConnectionFactory(factory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new ChatMessageRedisSerializer());
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    /**
+     * Redis 订阅容器：接收其他节点发出的群成员、好友关系缓存失效通知，以及 redis 模式下的 WebSocket 跨节点广播
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory factory,
+                                                                       ChatMembershipCache chatMembershipCache,
+                                                                       FriendshipCache friendshipCache,
+                                                                       ObjectProvider<WebSocketRedisBridge> webSocketRedisBridge) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        container.addMessageListener(chatMembershipCache, new ChannelTopic(ChatMembershipCache.INVALIDATION_CHANNEL));
+        container.addMessageListener(friendshipCache, new ChannelTopic(FriendshipCache.INVALIDATION_CHANNEL));
+        webSocketRedisBridge.ifAvailable(bridge ->
+                container.addMessageListener(bridge, new ChannelTopic(bridge.getChannel())));
+        return container;
+    }
+
 }
@@ -1,5 +1,6 @@
 package com.sg.nusiss.gamevaultbackend.config;
 
+import com.sg.nusiss.gamevaultbackend.service.forum.ForumContentLikeService;
 import com.sg.nusiss.gamevaultbackend.service.forum.ViewTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +20,9 @@ public class ScheduledTaskConfig {
     
     @Autowired
     private ViewTracker viewTracker;
+
+    @Autowired
+    private ForumContentLikeService contentLikeService;
     
     /**
      * 每10分钟清理一次过期的浏览记录
@@ -38,5 +42,17 @@ public class ScheduledTaskConfig {
             logger.error("清理过期浏览记录失败", e);
         }
     }
-}
 
+    /**
+     * 点赞数对账：启动后先执行一次（补齐历史数据），之后默认每6小时一次
+     */
+    @Scheduled(initialDelayString = "${forum.counters.reconcile-initial-delay-ms:60000}",
+            fixedDelayString = "${forum.counters.reconcile-interval-ms:21600000}")
+    public void reconcileLikeCounts() {
+        try {
+            contentLikeService.reconcileLikeCounts();
+        } catch (Exception e) {
+            logger.error("点赞数对账失败", e);
+        }
+    }
+}
@@ -1,12 +1,22 @@
 package com.sg.nusiss.gamevaultbackend.config;
 
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @ClassName WebSocketConfig
@@ -18,13 +28,50 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @Configuration
 @EnableWebSocketMessageBroker
 @RequiredArgsConstructor
+@Slf4j
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final WebSocketAuthInterceptor authInterceptor;
+    private final ObjectProvider<WebSocketRedisBridge> redisBridge;
+    private final WebSocketProperties webSocketProperties;
+    private final WebSocketMetrics webSocketMetrics;
+
+    // 本配置创建的通道线程池，停机时关闭
+    private final List<ThreadPoolTaskExecutor> channelExecutors = new ArrayList<>();
+
+    // simple：单节点内存 broker；relay：外部 STOMP broker（RabbitMQ / ActiveMQ）；redis：本地 broker + Redis 跨节点转发
+    @Value("${app.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${app.websocket.broker.relay-host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.broker.relay-port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.broker.relay-login:guest}")
+    private String relayLogin;
+
+    @Value("${app.websocket.broker.relay-passcode:guest}")
+    private String relayPasscode;
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            // 订阅保存在外部 broker，各节点共享；用户目的地通过广播在节点间解析
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+        } else {
+            config.enableSimpleBroker("/topic", "/queue");
+            redisBridge.ifAvailable(bridge -> config.configureBrokerChannel().interceptors(bridge));
+        }
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
     }
@@ -39,5 +86,54 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
         registration.interceptors(authInterceptor);
+
+        WebSocketProperties.ChannelPool inbound = webSocketProperties.getInbound();
+        boolean virtualThreads = inbound.isVirtualThreads();
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            // SimpleAsyncTaskExecutor 在 Java 21 以下开启虚拟线程会直接报错，退回线程池
+            log.warn("当前 Java {} 不支持虚拟线程，入站通道改用线程池", Runtime.version().feature());
+            virtualThreads = false;
+        }
+        if (virtualThreads) {
+            // 入站处理多为阻塞的数据库 / Redis 调用，虚拟线程不受固定线程数限制
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ws-inbound-");
+            executor.setVirtualThreads(true);
+            registration.executor(executor);
+        } else {
+            registration.executor(channelExecutor("inbound", inbound));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.executor(channelExecutor("outbound", webSocketProperties.getOutbound()));
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // 慢客户端的消息在会话自己的缓冲区中排队，超过时间或缓冲上限即关闭该会话，不会占住出站线程
+        WebSocketProperties.Transport transport = webSocketProperties.getTransport();
+        registration.setSendTimeLimit(transport.getSendTimeLimitMs())
+                .setSendBufferSizeLimit(transport.getSendBufferSizeLimit())
+                .setMessageSizeLimit(transport.getMessageSizeLimit())
+                .addDecoratorFactory(webSocketMetrics::decorate);
+    }
+
+    private ThreadPoolTaskExecutor channelExecutor(String channel, WebSocketProperties.ChannelPool pool) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pool.getCorePoolSize());
+        executor.setMaxPoolSize(Math.max(pool.getCorePoolSize(), pool.getMaxPoolSize()));
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("ws-" + channel + "-");
+        webSocketMetrics.monitor(channel, executor);
+        executor.initialize();
+        channelExecutors.add(executor);
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdownChannelExecutors() {
+        channelExecutors.forEach(ThreadPoolTaskExecutor::shutdown);
     }
 }
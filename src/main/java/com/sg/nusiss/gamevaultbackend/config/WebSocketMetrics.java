@@ -0,0 +1,108 @@
+package com.sg.nusiss.gamevaultbackend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * STOMP 管道指标
+ * - websocket.channel.queue.size / websocket.channel.active：入站、出站线程池的排队数与活跃线程数
+ * - websocket.channel.rejected：线程池队列已满被拒绝的消息数
+ * - websocket.sessions.active：当前 WebSocket 会话数
+ * - websocket.sessions.slow.closed：发送超时或缓冲区溢出被关闭的慢会话数
+ */
+@Component
+@Slf4j
+public class WebSocketMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final Counter slowSessionsClosed;
+
+    public WebSocketMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.slowSessionsClosed = Counter.builder("websocket.sessions.slow.closed")
+                .description("因发送超时或缓冲区溢出被关闭的会话数")
+                .register(meterRegistry);
+        Gauge.builder("websocket.sessions.active", activeSessions, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 注册线程池排队数/活跃线程数指标，并统计被拒绝的任务
+     */
+    public void monitor(String channel, ThreadPoolTaskExecutor executor) {
+        Counter rejected = Counter.builder("websocket.channel.rejected").tag("channel", channel).register(meterRegistry);
+        executor.setRejectedExecutionHandler(new CountingAbortPolicy(channel, rejected));
+
+        Gauge.builder("websocket.channel.queue.size", executor, e -> queueSize(e))
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("websocket.channel.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .tag("channel", channel)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 包装 WebSocket 处理器，统计会话数和被关闭的慢会话
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                activeSessions.incrementAndGet();
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                activeSessions.decrementAndGet();
+                if (closeStatus.equalsCode(CloseStatus.SESSION_NOT_RELIABLE)) {
+                    slowSessionsClosed.increment();
+                    log.warn("慢会话已被关闭 - sessionId: {}", session.getId());
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    private static int queueSize(ThreadPoolTaskExecutor executor) {
+        try {
+            return executor.getQueueSize();
+        } catch (IllegalStateException e) {
+            // 线程池尚未初始化
+            return 0;
+        }
+    }
+
+    /**
+     * 计数后按 AbortPolicy 拒绝
+     */
+    private static final class CountingAbortPolicy implements RejectedExecutionHandler {
+        private final String channel;
+        private final Counter rejected;
+
+        private CountingAbortPolicy(String channel, Counter rejected) {
+            this.channel = channel;
+            this.rejected = rejected;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            rejected.increment();
+            throw new RejectedExecutionException("WebSocket " + channel + " 线程池已满 - 排队: " + executor.getQueue().size());
+        }
+    }
+}
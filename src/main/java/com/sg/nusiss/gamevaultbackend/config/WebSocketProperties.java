@@ -0,0 +1,67 @@
+package com.sg.nusiss.gamevaultbackend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * STOMP 管道的线程池与传输层限制
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "app.websocket")
+public class WebSocketProperties {
+
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 客户端入站消息（SEND / SUBSCRIBE 等）处理线程池
+     */
+    private ChannelPool inbound = new ChannelPool(CORES * 2, CORES * 4, 1_000);
+
+    /**
+     * 向客户端推送消息的线程池
+     */
+    private ChannelPool outbound = new ChannelPool(CORES * 2, CORES * 4, 10_000);
+
+    /**
+     * 单个会话的传输层限制
+     */
+    private Transport transport = new Transport();
+
+    @Data
+    public static class ChannelPool {
+        private int corePoolSize;
+        private int maxPoolSize;
+        private int queueCapacity;
+        /**
+         * 使用虚拟线程（每条消息一个虚拟线程，忽略上面的线程池参数；仅对入站通道生效，需要 Java 21+，否则退回线程池）
+         */
+        private boolean virtualThreads = false;
+
+        public ChannelPool() {
+        }
+
+        public ChannelPool(int corePoolSize, int maxPoolSize, int queueCapacity) {
+            this.corePoolSize = corePoolSize;
+            this.maxPoolSize = maxPoolSize;
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    @Data
+    public static class Transport {
+        /**
+         * 单次发送允许的最长时间（毫秒），超过且缓冲区也已满时关闭该会话
+         */
+        private int sendTimeLimitMs = 5_000;
+        /**
+         * 单个会话待发送消息的缓冲上限（字节），慢客户端积压超过该值时关闭会话
+         */
+        private int sendBufferSizeLimit = 512 * 1024;
+        /**
+         * 入站 STOMP 消息最大字节数（文件走 HTTP 上传，聊天消息不需要更大）
+         */
+        private int messageSizeLimit = 64 * 1024;
+    }
+}
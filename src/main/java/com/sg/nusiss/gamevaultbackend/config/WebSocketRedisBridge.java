@@ -0,0 +1,114 @@
+package com.sg.nusiss.gamevaultbackend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.UUID;
+
+/**
+ * 多节点 WebSocket 广播桥（app.websocket.broker.mode=redis 时启用）
+ * 每个节点仍使用本地 SimpleBroker 管理订阅；应用通过 SimpMessagingTemplate 发往 /topic 的消息在进入 brokerChannel 时
+ * 同时发布到 Redis 频道，其他节点收到后投递给本地订阅者。转发的消息带 RELAYED_HEADER，不会被再次发布。
+ *
+ * 只转发 /topic 目的地；/queue 下的用户会话目的地由各节点自行解析，不做转发。
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.websocket.broker.mode", havingValue = "redis")
+public class WebSocketRedisBridge implements ChannelInterceptor, MessageListener {
+
+    static final String RELAYED_HEADER = "x-relayed-from";
+    private static final String TOPIC_PREFIX = "/topic/";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    // brokerChannel 由 WebSocket 配置创建，延迟获取以避免循环依赖
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+
+    @Value("${app.websocket.broker.redis-channel:ws:broadcast}")
+    private String channel;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * 本节点发出的广播：原样交给本地 broker，同时发布到 Redis
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel messageChannel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                || message.getHeaders().containsKey(RELAYED_HEADER)) {
+            return message;
+        }
+
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null || !destination.startsWith(TOPIC_PREFIX) || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+
+        MimeType contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE, MimeType.class);
+        try {
+            Envelope envelope = new Envelope(nodeId, destination, contentType != null ? contentType.toString() : null, payload);
+            stringRedisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(envelope));
+        } catch (Exception e) {
+            // 发布失败只影响其他节点，本节点订阅者照常收到
+            log.error("发布跨节点广播失败 - destination: {}", destination, e);
+        }
+        return message;
+    }
+
+    /**
+     * 其他节点发出的广播：投递给本节点的订阅者
+     */
+    @Override
+    public void onMessage(org.springframework.data.redis.connection.Message message, byte[] pattern) {
+        Envelope envelope;
+        try {
+            envelope = objectMapper.readValue(message.getBody(), Envelope.class);
+        } catch (Exception e) {
+            log.warn("无法识别的跨节点广播", e);
+            return;
+        }
+        if (nodeId.equals(envelope.origin())) {
+            return;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(envelope.destination());
+        if (envelope.contentType() != null) {
+            accessor.setContentType(MimeTypeUtils.parseMimeType(envelope.contentType()));
+        }
+        accessor.setHeader(RELAYED_HEADER, envelope.origin());
+        accessor.setLeaveMutable(true);
+
+        messagingTemplate.getObject().send(envelope.destination(),
+                MessageBuilder.createMessage(envelope.payload(), accessor.getMessageHeaders()));
+    }
+
+    /**
+     * Redis 中传输的广播：来源节点 + 目的地 + 内容类型 + 已序列化的消息体
+     */
+    record Envelope(String origin, String destination, String contentType, byte[] payload) {
+    }
+}
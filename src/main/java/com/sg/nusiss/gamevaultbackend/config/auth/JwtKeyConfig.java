@@ -4,6 +4,7 @@ import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.sg.nusiss.gamevaultbackend.security.auth.CachingJwtDecoder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.converter.RsaKeyConverters;
@@ -42,10 +43,11 @@ public class JwtKeyConfig {
     }
 
     // Self-validation for this service (/me etc.)
+    // Verified tokens are cached so repeated requests with the same token skip RS256 verification
     @Bean
     public JwtDecoder jwtDecoder(RSAKey rsa) {
         try {
-            return NimbusJwtDecoder.withPublicKey(rsa.toRSAPublicKey()).build();
+            return new CachingJwtDecoder(NimbusJwtDecoder.withPublicKey(rsa.toRSAPublicKey()).build());
         } catch (JOSEException e) {
             // Wrap as unchecked exception to avoid continuing throws in bean method
             throw new IllegalStateException("Failed to create JwtDecoder from RSAKey", e);
@@ -1,5 +1,6 @@
 package com.sg.nusiss.gamevaultbackend.controller.auth;
 
+import com.sg.nusiss.gamevaultbackend.cache.UserProfileCache;
 import com.sg.nusiss.gamevaultbackend.dto.auth.LoginReq;
 import com.sg.nusiss.gamevaultbackend.dto.auth.RegisterReq;
 import com.sg.nusiss.gamevaultbackend.dto.settings.ChangePasswordReq;
@@ -24,9 +25,12 @@ public class AuthController {
     private final UserRepository repo;
     private final BCryptPasswordEncoder encoder;
     private final JwtUtil jwt;
+    private final UserProfileCache userProfileCache;
 
-    public AuthController(UserRepository repo, BCryptPasswordEncoder encoder, JwtUtil jwt) {
+    public AuthController(UserRepository repo, BCryptPasswordEncoder encoder, JwtUtil jwt,
+                          UserProfileCache userProfileCache) {
         this.repo = repo; this.encoder = encoder; this.jwt = jwt;
+        this.userProfileCache = userProfileCache;
     }
 
     @PostMapping("/register")
@@ -220,6 +224,8 @@ public class AuthController {
         // Update email
         user.setEmail(req.getNewEmail());
         repo.save(user);
+        // Sender email is shown in chat messages, drop the cached profile
+        userProfileCache.evict(userId);
 
         return Map.of(
                 "message", "Email changed successfully",
@@ -63,6 +63,18 @@ public class ConversationController {
         return ResultUtils.success(conversations);
     }
 
+    /**
+     * Mark conversations as read (advance read cursors in bulk)
+     */
+    @PostMapping("/read")
+    public BaseResponse<List<ReadCursorResponse>> markRead(@RequestBody MarkReadRequest request) {
+        Long userId = SecurityUtils.getCurrentUserId();
+
+        List<ReadCursorResponse> cursors = conversationService.markRead(userId, request.getCursors());
+
+        return ResultUtils.success(cursors);
+    }
+
     /**
      * dissolve conversation (only owner can do)
      * */
@@ -99,12 +111,26 @@ public class ConversationController {
      * 添加成员到群聊
      */
     @PostMapping("/{conversationId}/members/add")
-    public BaseResponse<Void> addMembers(
+    public BaseResponse<List<AddMemberResponse>> addMembers(
             @PathVariable Long conversationId,
             @RequestBody AddMembersRequest request) {
 
         Long currentUserId = SecurityUtils.getCurrentUserId();
-        conversationService.addMembers(conversationId, request.getUserIds(), currentUserId);
-        return ResultUtils.success(null);
+        List<AddMemberResponse> results =
+                conversationService.addMembers(conversationId, request.getUserIds(), currentUserId);
+        return ResultUtils.success(results);
+    }
+
+    /**
+     * 移除群成员（仅群主）
+     */
+    @PostMapping("/{conversationId}/members/remove")
+    public BaseResponse<RemoveMemberResponse> removeMember(
+            @PathVariable Long conversationId,
+            @RequestBody RemoveMemberRequest request) {
+
+        Long currentUserId = SecurityUtils.getCurrentUserId();
+        conversationService.removeMember(conversationId, request.getUserId(), currentUserId);
+        return ResultUtils.success(new RemoveMemberResponse("成员已移除"));
     }
 }
@@ -9,6 +9,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import com.sg.nusiss.gamevaultbackend.annotation.forum.RequireForumAuth;
+import com.sg.nusiss.gamevaultbackend.dto.forum.ForumCursorPage;
 import com.sg.nusiss.gamevaultbackend.dto.forum.PostDTO;
 import com.sg.nusiss.gamevaultbackend.dto.forum.PostResponseDTO;
 import com.sg.nusiss.gamevaultbackend.entity.forum.ForumContent;
@@ -75,6 +76,35 @@ public class ForumPostController {
         }
     }
 
+    /**
+     * 获取帖子列表（游标分页）
+     * GET /api/forum/posts/cursor?cursor=&size=20&withTotal=false
+     * 首页不传 cursor，之后传上一页返回的 nextCursor；withTotal=true 时附带近似总数
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<?> getPostFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            HttpServletRequest request) {
+        logger.info("获取帖子列表(游标) - 每页大小: {}", size);
+
+        Long userId = (Long) request.getAttribute("userId");
+
+        try {
+            ForumCursorPage<ForumContent> page = postService.getPostFeed(cursor, size, withTotal, userId);
+            return getCursorResponseEntity("posts", convertToResponseDTOs(page.getItems()), page, size);
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("参数错误: {}", e.getMessage());
+            return createErrorResponse("参数错误", e.getMessage(), HttpStatus.BAD_REQUEST);
+
+        } catch (Exception e) {
+            logger.error("获取帖子列表失败", e);
+            return createErrorResponse("获取帖子列表失败", e.getMessage());
+        }
+    }
+
     /**
      * 根据ID获取帖子详情
      */
@@ -196,6 +226,35 @@ public class ForumPostController {
         }
     }
 
+    /**
+     * 搜索帖子（按相关度排序，游标分页）
+     * GET /api/forum/posts/search/cursor?keyword=&cursor=&size=20&withTotal=false
+     * 首页不传 cursor，之后传上一页返回的 nextCursor；withTotal=true 时附带命中总数
+     */
+    @GetMapping("/search/cursor")
+    public ResponseEntity<?> searchPostsByCursor(
+            @RequestParam String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            HttpServletRequest request) {
+
+        logger.info("搜索帖子(游标) - 关键词: {}", keyword);
+        Long userId = (Long) request.getAttribute("userId");
+        try {
+            ForumCursorPage<ForumContent> page = postService.searchPostsRanked(keyword, cursor, size, withTotal, userId);
+            return getCursorResponseEntity("posts", convertToResponseDTOs(page.getItems()), page, size);
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("参数错误: {}", e.getMessage());
+            return createErrorResponse("参数错误", e.getMessage(), HttpStatus.BAD_REQUEST);
+
+        } catch (Exception e) {
+            logger.error("搜索帖子失败", e);
+            return createErrorResponse("搜索帖子失败", e.getMessage());
+        }
+    }
+
     /**
      * 删除帖子
      */
@@ -255,6 +314,36 @@ public class ForumPostController {
         }
     }
 
+    /**
+     * 获取用户的帖子列表（游标分页）
+     * GET /api/forum/posts/user/{userId}/cursor?cursor=&size=20&withTotal=false
+     */
+    @GetMapping("/user/{userId}/cursor")
+    public ResponseEntity<?> getUserPostFeed(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            HttpServletRequest request) {
+        Long currentUserId = (Long) request.getAttribute("userId");
+
+        logger.info("获取用户帖子(游标) - 用户ID: {}", userId);
+
+        try {
+            ForumCursorPage<ForumContent> page =
+                    postService.getPostFeedByAuthorId(userId, cursor, size, withTotal, currentUserId);
+            return getCursorResponseEntity("posts", convertToResponseDTOs(page.getItems()), page, size);
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("参数错误: {}", e.getMessage());
+            return createErrorResponse("参数错误", e.getMessage(), HttpStatus.BAD_REQUEST);
+
+        } catch (Exception e) {
+            logger.error("获取用户帖子失败", e);
+            return createErrorResponse("获取用户帖子失败", e.getMessage());
+        }
+    }
+
     @NotNull
     private ResponseEntity<?> getResponseEntity(@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size, List<ForumContent> posts, int totalCount) {
         List<PostResponseDTO> postDTOs = convertToResponseDTOs(posts);
@@ -694,28 +783,13 @@ public class ForumPostController {
             // 为每个回复添加作者信息和点赞状态
             List<Map<String, Object>> replyDTOs = new ArrayList<>();
             for (ForumContent reply : replies) {
-                ForumUser author = getUserSafely(reply.getAuthorId());
-
                 // 检查当前用户是否已点赞该回复
                 boolean isLiked = false;
                 if (currentUserId != null) {
                     isLiked = contentLikeService.isLiked(reply.getContentId(), currentUserId);
                 }
 
-                Map<String, Object> dto = new HashMap<>();
-                dto.put("replyId", reply.getContentId());
-                dto.put("body", reply.getBody());
-                dto.put("bodyPlain", reply.getBodyPlain());
-                dto.put("authorId", reply.getAuthorId());
-                dto.put("authorName", author != null ? author.getUsername() : null);
-                dto.put("authorNickname", author != null ? author.getNickname() : null);
-                dto.put("authorAvatarUrl", author != null ? author.getAvatarUrl() : null);
-                dto.put("likeCount", reply.getLikeCount() != null ? reply.getLikeCount() : 0);
-                dto.put("isLiked", isLiked); // 🔥 添加点赞状态
-                dto.put("createdDate", reply.getCreatedDate());
-                dto.put("updatedDate", reply.getUpdatedDate());
-
-                replyDTOs.add(dto);
+                replyDTOs.add(convertToReplyDTO(reply, isLiked));
             }
 
             Map<String, Object> response = new HashMap<>();
@@ -733,6 +807,42 @@ public class ForumPostController {
         }
     }
 
+    /**
+     * 获取帖子的回复列表（游标分页，按时间正序）
+     * GET /api/forum/posts/{postId}/replies/cursor?cursor=&size=20&withTotal=false
+     * 点赞状态随回复批量查询
+     */
+    @GetMapping("/{postId}/replies/cursor")
+    @RequireForumAuth(required = false)
+    public ResponseEntity<?> getReplyFeed(
+            @PathVariable Long postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            HttpServletRequest request) {
+
+        logger.info("获取回复列表(游标) - 帖子ID: {}, 每页: {}", postId, size);
+        Long currentUserId = (Long) request.getAttribute("userId");
+
+        try {
+            ForumCursorPage<ForumContent> page = postService.getReplyFeed(postId, cursor, size, withTotal, currentUserId);
+
+            List<Map<String, Object>> replyDTOs = new ArrayList<>();
+            for (ForumContent reply : page.getItems()) {
+                replyDTOs.add(convertToReplyDTO(reply, Boolean.TRUE.equals(reply.getIsLikedByCurrentUser())));
+            }
+            return getCursorResponseEntity("replies", replyDTOs, page, size);
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("参数错误: {}", e.getMessage());
+            return createErrorResponse("参数错误", e.getMessage(), HttpStatus.BAD_REQUEST);
+
+        } catch (Exception e) {
+            logger.error("获取回复列表失败", e);
+            return createErrorResponse("获取回复列表失败", e.getMessage());
+        }
+    }
+
     /**
      * 删除回复
      * DELETE /api/forum/posts/{postId}/replies/{replyId}
@@ -931,6 +1041,42 @@ public class ForumPostController {
         return postDTOs;
     }
 
+    /**
+     * 转换回复为响应结构
+     */
+    private Map<String, Object> convertToReplyDTO(ForumContent reply, boolean isLiked) {
+        ForumUser author = getUserSafely(reply.getAuthorId());
+
+        Map<String, Object> dto = new HashMap<>();
+        dto.put("replyId", reply.getContentId());
+        dto.put("body", reply.getBody());
+        dto.put("bodyPlain", reply.getBodyPlain());
+        dto.put("authorId", reply.getAuthorId());
+        dto.put("authorName", author != null ? author.getUsername() : null);
+        dto.put("authorNickname", author != null ? author.getNickname() : null);
+        dto.put("authorAvatarUrl", author != null ? author.getAvatarUrl() : null);
+        dto.put("likeCount", reply.getLikeCount() != null ? reply.getLikeCount() : 0);
+        dto.put("isLiked", isLiked); // 🔥 添加点赞状态
+        dto.put("createdDate", reply.getCreatedDate());
+        dto.put("updatedDate", reply.getUpdatedDate());
+        return dto;
+    }
+
+    /**
+     * 游标分页响应：totalCount 只在请求 withTotal 时返回
+     */
+    private ResponseEntity<?> getCursorResponseEntity(String itemsKey, List<?> items, ForumCursorPage<?> page, int size) {
+        Map<String, Object> response = new HashMap<>();
+        response.put(itemsKey, items);
+        response.put("nextCursor", page.getNextCursor());
+        response.put("hasMore", page.isHasMore());
+        response.put("pageSize", size);
+        if (page.getTotal() != null) {
+            response.put("totalCount", page.getTotal());
+        }
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * 安全获取用户信息
      */
@@ -0,0 +1,31 @@
+package com.sg.nusiss.gamevaultbackend.controller.presence;
+
+import com.sg.nusiss.gamevaultbackend.common.BaseResponse;
+import com.sg.nusiss.gamevaultbackend.common.ResultUtils;
+import com.sg.nusiss.gamevaultbackend.dto.presence.request.PresenceQueryRequest;
+import com.sg.nusiss.gamevaultbackend.dto.presence.response.PresenceResponse;
+import com.sg.nusiss.gamevaultbackend.security.auth.SecurityUtils;
+import com.sg.nusiss.gamevaultbackend.service.presence.PresenceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 在线状态
+ */
+@RestController
+@RequestMapping("/api/presence")
+@RequiredArgsConstructor
+public class PresenceController {
+
+    private final PresenceService presenceService;
+
+    /**
+     * 批量查询在线状态（好友列表、群成员列表一次请求），非好友且不在同一群聊的用户一律显示离线
+     */
+    @PostMapping("/query")
+    public BaseResponse<List<PresenceResponse>> queryPresence(@RequestBody PresenceQueryRequest request) {
+        return ResultUtils.success(presenceService.getPresence(SecurityUtils.getCurrentUserId(), request.getUserIds()));
+    }
+}
@@ -1,5 +1,6 @@
 package com.sg.nusiss.gamevaultbackend.controller.settings;
 
+import com.sg.nusiss.gamevaultbackend.cache.UserProfileCache;
 import com.sg.nusiss.gamevaultbackend.dto.settings.UpdateProfileReq;
 import com.sg.nusiss.gamevaultbackend.entity.auth.User;
 import com.sg.nusiss.gamevaultbackend.repository.auth.UserRepository;
@@ -21,10 +22,13 @@ public class ProfileController {
 
     private final UserRepository userRepository;
     private final FileUploadService fileUploadService;
+    private final UserProfileCache userProfileCache;
 
-    public ProfileController(UserRepository userRepository, FileUploadService fileUploadService) {
+    public ProfileController(UserRepository userRepository, FileUploadService fileUploadService,
+                             UserProfileCache userProfileCache) {
         this.userRepository = userRepository;
         this.fileUploadService = fileUploadService;
+        this.userProfileCache = userProfileCache;
     }
 
     /**
@@ -99,6 +103,7 @@ public class ProfileController {
             }
             
             userRepository.save(user);
+            userProfileCache.evict(userId);
             
             Map<String, Object> result = new HashMap<>();
             result.put("message", "用户资料更新成功");
@@ -140,6 +145,7 @@ public class ProfileController {
             String oldAvatarUrl = user.getAvatarUrl();
             user.setAvatarUrl(avatarUrl);
             userRepository.save(user);
+            userProfileCache.evict(userId);
             
             // 删除旧头像文件
             if (oldAvatarUrl != null && !oldAvatarUrl.isEmpty()) {
@@ -186,6 +192,7 @@ public class ProfileController {
                 // 清空数据库中的头像URL
                 user.setAvatarUrl(null);
                 userRepository.save(user);
+                userProfileCache.evict(userId);
             }
             
             Map<String, Object> result = new HashMap<>();
@@ -1,22 +1,29 @@
 package com.sg.nusiss.gamevaultbackend.controller.websocket;
 
+import com.sg.nusiss.gamevaultbackend.dto.message.request.AckRequest;
 import com.sg.nusiss.gamevaultbackend.dto.message.request.SendMessageRequest;
 import com.sg.nusiss.gamevaultbackend.dto.message.request.SendPrivateMessageRequest;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.CatchUpResponse;
 import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse;
 import com.sg.nusiss.gamevaultbackend.dto.websocket.ChatMessageDto;
+import com.sg.nusiss.gamevaultbackend.dto.websocket.TypingRequest;
+import com.sg.nusiss.gamevaultbackend.service.message.ChatBroadcastService;
+import com.sg.nusiss.gamevaultbackend.service.message.MessageDeliveryService;
 import com.sg.nusiss.gamevaultbackend.service.message.MessageService;
 import com.sg.nusiss.gamevaultbackend.service.message.PrivateMessageService;
+import com.sg.nusiss.gamevaultbackend.service.presence.PresenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 
 import java.security.Principal;
+import java.util.List;
 
 @Controller
 @Slf4j
@@ -25,7 +32,9 @@ public class ChatWebSocketController {
 
     private final MessageService messageService;
     private final PrivateMessageService privateMessageService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ChatBroadcastService chatBroadcastService;
+    private final PresenceService presenceService;
+    private final MessageDeliveryService messageDeliveryService;
 
     @MessageMapping("/chat.sendMessage")
     public void sendMessage(@Payload SendMessageRequest request, Principal principal) {
@@ -46,37 +55,8 @@ public class ChatWebSocketController {
 
             MessageResponse response = messageService.sendMessage(request, senderId);
 
-            // 直接构建，类型匹配
-            ChatMessageDto.ChatMessageDtoBuilder builder = ChatMessageDto.builder()
-                    .id(response.getId())
-                    .conversationId(response.getConversationId())
-                    .senderId(response.getSenderId())
-                    .senderUsername(response.getSenderUsername())
-                    .senderEmail(response.getSenderEmail())
-                    .content(response.getContent())
-                    .messageType(response.getMessageType())
-                    .timestamp(response.getCreatedAt()); // LocalDateTime -> LocalDateTime
-
-            if (response.getAttachment() != null) {
-                builder.attachment(
-                        ChatMessageDto.FileAttachment.builder()
-                                .fileId(response.getAttachment().getFileId())
-                                .fileName(response.getAttachment().getFileName())
-                                .fileSize(response.getAttachment().getFileSize())
-                                .fileType(response.getAttachment().getFileType())
-                                .fileExt(response.getAttachment().getFileExt())
-                                .accessUrl(response.getAttachment().getAccessUrl())
-                                .thumbnailUrl(response.getAttachment().getThumbnailUrl())
-                                .build()
-                );
-            }
-
-            ChatMessageDto chatMessage = builder.build();
-
-            messagingTemplate.convertAndSend(
-                    "/topic/chat/" + request.getConversationId(),
-                    chatMessage
-            );
+            chatBroadcastService.broadcast(ChatMessageDto.from(response),
+                    "/topic/chat/" + request.getConversationId());
 
             log.info("消息已广播 - 群聊ID: {}, 消息ID: {}",
                     request.getConversationId(), response.getId());
@@ -105,42 +85,10 @@ public class ChatWebSocketController {
 
             MessageResponse response = privateMessageService.sendPrivateMessage(request, senderId);
 
-            // 直接构建，类型匹配
-            ChatMessageDto.ChatMessageDtoBuilder builder = ChatMessageDto.builder()
-                    .id(response.getId())
-                    .senderId(response.getSenderId())
-                    .receiverId(response.getReceiverId())
-                    .senderUsername(response.getSenderUsername())
-                    .senderEmail(response.getSenderEmail())
-                    .content(response.getContent())
-                    .messageType(response.getMessageType())
-                    .timestamp(response.getCreatedAt()); // LocalDateTime -> LocalDateTime
-
-            if (response.getAttachment() != null) {
-                builder.attachment(
-                        ChatMessageDto.FileAttachment.builder()
-                                .fileId(response.getAttachment().getFileId())
-                                .fileName(response.getAttachment().getFileName())
-                                .fileSize(response.getAttachment().getFileSize())
-                                .fileType(response.getAttachment().getFileType())
-                                .fileExt(response.getAttachment().getFileExt())
-                                .accessUrl(response.getAttachment().getAccessUrl())
-                                .thumbnailUrl(response.getAttachment().getThumbnailUrl())
-                                .build()
-                );
-            }
-
-            ChatMessageDto chatMessage = builder.build();
-
-            messagingTemplate.convertAndSend(
+            // 接收方和发送方共用同一份序列化结果
+            chatBroadcastService.broadcast(ChatMessageDto.from(response),
                     "/topic/private/" + request.getReceiverId(),
-                    chatMessage
-            );
-
-            messagingTemplate.convertAndSend(
-                    "/topic/private/" + senderId,
-                    chatMessage
-            );
+                    "/topic/private/" + senderId);
 
             log.info("私聊消息已发送");
 
@@ -149,6 +97,47 @@ public class ChatWebSocketController {
         }
     }
 
+    /**
+     * 正在输入：合并后按广播周期推送到 /topic/chat/{conversationId}
+     */
+    @MessageMapping("/chat.typing")
+    public void typing(@Payload TypingRequest request, Principal principal) {
+        Long userId = extractUserIdFromPrincipal(principal);
+        if (userId == null) {
+            return;
+        }
+        presenceService.typing(request.getConversationId(), userId, !Boolean.FALSE.equals(request.getTyping()));
+    }
+
+    /**
+     * 确认消息已送达
+     */
+    @MessageMapping("/chat.ack")
+    public void ack(@Payload AckRequest request, Principal principal) {
+        Long userId = extractUserIdFromPrincipal(principal);
+        if (userId == null) {
+            return;
+        }
+        try {
+            messageDeliveryService.ack(userId, request.getAcks());
+        } catch (Exception e) {
+            log.error("处理送达确认失败 - 用户ID: {}", userId, e);
+        }
+    }
+
+    /**
+     * 重连补齐：结果只发回请求的会话（/user/queue/chat.catchUp）
+     */
+    @MessageMapping("/chat.catchUp")
+    @SendToUser(destinations = "/queue/chat.catchUp", broadcast = false)
+    public CatchUpResponse catchUp(Principal principal) {
+        Long userId = extractUserIdFromPrincipal(principal);
+        if (userId == null) {
+            return new CatchUpResponse(List.of());
+        }
+        return messageDeliveryService.catchUp(userId);
+    }
+
     private Long extractUserIdFromPrincipal(Principal principal) {
         if (principal instanceof JwtAuthenticationToken) {
             JwtAuthenticationToken jwtAuth = (JwtAuthenticationToken) principal;
@@ -0,0 +1,20 @@
+package com.sg.nusiss.gamevaultbackend.dto.conversation.request;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量已读回执请求
+ */
+@Data
+public class MarkReadRequest {
+    private List<ReadCursor> cursors;
+
+    @Data
+    public static class ReadCursor {
+        private Long conversationId;
+        // 已读到的消息序号，为空表示已读到最新
+        private Long seq;
+    }
+}
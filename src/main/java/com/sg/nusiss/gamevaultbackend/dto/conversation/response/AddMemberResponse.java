@@ -2,15 +2,25 @@ package com.sg.nusiss.gamevaultbackend.dto.conversation.response;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
  * @ClassName AddMemberResponse
  * @Author HUANG ZHENJIA
  * @Date 2025/9/30
- * @Description
+ * @Description 批量加人时每个被邀请用户的处理结果
  */
 @Data
 @AllArgsConstructor
+@NoArgsConstructor
 public class AddMemberResponse {
+    public static final String ADDED = "added";
+    public static final String ALREADY_MEMBER = "already_member";
+    public static final String USER_NOT_FOUND = "user_not_found";
+    public static final String NOT_FRIEND = "not_friend";
+
+    private Long userId;
+    // 新加入时为新成员记录ID，其余情况为 null
     private Long memberId;
+    private String status;
 }
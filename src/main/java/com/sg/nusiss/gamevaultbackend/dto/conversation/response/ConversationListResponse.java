@@ -26,5 +26,30 @@ public class ConversationListResponse {
     // 可选字段
     private String lastMessage;
     private LocalDateTime lastMessageTime;
+    private Long lastMessageSenderId;
     private Integer unreadCount;
+
+    // 群聊当前最大消息序号 / 当前用户已读到的序号（用于已读回执）
+    private Long lastSeq;
+    private Long lastReadSeq;
+
+    /**
+     * JPQL 构造器投影（MemberRepository.findConversationListByUserId）
+     * nextSeq 为群聊下一条消息的序号，lastReadSeq 为空（旧数据）时按 0 处理
+     */
+    public ConversationListResponse(Long id, String title, Long ownerId, LocalDateTime createdAt, String status,
+                                    String lastMessage, LocalDateTime lastMessageTime, Long lastMessageSenderId,
+                                    Long nextSeq, Long lastReadSeq) {
+        this.id = id;
+        this.title = title;
+        this.ownerId = ownerId;
+        this.createdAt = createdAt;
+        this.status = status;
+        this.lastMessage = lastMessage;
+        this.lastMessageTime = lastMessageTime;
+        this.lastMessageSenderId = lastMessageSenderId;
+        this.lastSeq = (nextSeq != null ? nextSeq : 1L) - 1;
+        this.lastReadSeq = lastReadSeq != null ? lastReadSeq : 0L;
+        this.unreadCount = (int) Math.min(Integer.MAX_VALUE, Math.max(0L, this.lastSeq - this.lastReadSeq));
+    }
 }
@@ -0,0 +1,17 @@
+package com.sg.nusiss.gamevaultbackend.dto.conversation.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 已读游标推进结果
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReadCursorResponse {
+    private Long conversationId;
+    private Long lastReadSeq;
+    private Integer unreadCount;
+}
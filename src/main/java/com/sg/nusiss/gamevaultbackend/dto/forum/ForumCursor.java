@@ -0,0 +1,96 @@
+package com.sg.nusiss.gamevaultbackend.dto.forum;
+
+import lombok.Getter;
+import com.sg.nusiss.gamevaultbackend.entity.forum.ForumContent;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * 论坛游标分页的位置
+ * 由上一页最后一条内容的 (created_date, content_id) 组成，content_id 用于区分同一时刻创建的内容；
+ * 搜索结果按相关度排序时改为 (search_rank, content_id)。
+ * 对外以不透明字符串传递：Base64URL("创建时间微秒:内容ID") 或 Base64URL("r相关度位模式:内容ID")
+ */
+@Getter
+public class ForumCursor {
+
+    private final LocalDateTime createdDate;
+    private final Long contentId;
+    private final Float rank;
+
+    public ForumCursor(LocalDateTime createdDate, Long contentId) {
+        this(createdDate, contentId, null);
+    }
+
+    private ForumCursor(LocalDateTime createdDate, Long contentId, Float rank) {
+        this.createdDate = createdDate;
+        this.contentId = contentId;
+        this.rank = rank;
+    }
+
+    /**
+     * 按相关度排序的游标
+     */
+    public static ForumCursor ofRank(Float rank, Long contentId) {
+        return new ForumCursor(null, contentId, rank);
+    }
+
+    /**
+     * 以某条内容作为下一页的起点
+     */
+    public static ForumCursor of(ForumContent content) {
+        return new ForumCursor(content.getCreatedDate(), content.getContentId());
+    }
+
+    /**
+     * 以某条搜索结果作为下一页的起点
+     */
+    public static ForumCursor ofSearchResult(ForumContent content) {
+        return ofRank(content.getSearchRank(), content.getContentId());
+    }
+
+    /**
+     * 编码为对外传递的游标字符串（数据库时间精度为微秒，相关度按 float 位模式保存，避免精度丢失）
+     */
+    public String encode() {
+        if (rank != null) {
+            String raw = "r" + Integer.toHexString(Float.floatToIntBits(rank)) + ":" + contentId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        Instant instant = createdDate.toInstant(ZoneOffset.UTC);
+        long micros = Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+        String raw = micros + ":" + contentId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串，空值表示从第一页开始
+     */
+    public static ForumCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            long contentId = Long.parseLong(raw.substring(separator + 1));
+            if (raw.startsWith("r")) {
+                float rank = Float.intBitsToFloat(Integer.parseUnsignedInt(raw.substring(1, separator), 16));
+                if (Float.isNaN(rank)) {
+                    throw new IllegalArgumentException("分页游标无效");
+                }
+                return ofRank(rank, contentId);
+            }
+            long micros = Long.parseLong(raw.substring(0, separator));
+            LocalDateTime createdDate = LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                    (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+            return new ForumCursor(createdDate, contentId);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("分页游标无效");
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.sg.nusiss.gamevaultbackend.dto.forum;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 游标分页结果
+ * hasMore 为 true 时 nextCursor 指向本页最后一条，作为下一页请求的 cursor 参数；
+ * total 只在请求时返回，可能是近似值
+ */
+@Getter
+public class ForumCursorPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+    private final boolean hasMore;
+    private final Integer total;
+
+    public ForumCursorPage(List<T> items, String nextCursor, boolean hasMore, Integer total) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+        this.total = total;
+    }
+}
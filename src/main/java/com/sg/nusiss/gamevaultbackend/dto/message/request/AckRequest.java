@@ -0,0 +1,26 @@
+package com.sg.nusiss.gamevaultbackend.dto.message.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 消息送达确认（批量）
+ * 群聊确认到序号 seq（填 conversationId），私聊确认到消息 ID messageId（填 peerId）
+ */
+@Data
+public class AckRequest {
+    private List<Ack> acks;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Ack {
+        private Long conversationId;
+        private Long seq;
+        private Long peerId;
+        private Long messageId;
+    }
+}
@@ -0,0 +1,36 @@
+package com.sg.nusiss.gamevaultbackend.dto.message.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 重连补齐结果：只包含送达游标之后的消息，没有新消息的群聊 / 私聊不出现
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatchUpResponse {
+    private List<Batch> batches;
+
+    /**
+     * 单个群聊或私聊的未送达消息，按从旧到新排列
+     * hasMore 为 true 时继续通过 /sync（群聊）或 /private/{friendId}/history?after=（私聊）拉取
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Batch {
+        private String chatType;
+        private Long conversationId;
+        private Long peerId;
+        private List<MessageResponse> messages;
+        private boolean hasMore;
+        // 群聊当前最大序号
+        private Long latestSeq;
+    }
+}
@@ -0,0 +1,32 @@
+package com.sg.nusiss.gamevaultbackend.dto.message.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 聊天记录导出的单行数据（JPQL 构造器投影，senderUsername 在导出时批量补齐）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageExportRow {
+
+    private Long id;
+    private Long seq;
+    private Long senderId;
+    private String senderUsername;
+    private String messageType;
+    private String content;
+    private String fileName;
+    private Long fileSize;
+    private String accessUrl;
+    private LocalDateTime createdAt;
+
+    public MessageExportRow(Long id, Long seq, Long senderId, String messageType, String content,
+                            String fileName, Long fileSize, String accessUrl, LocalDateTime createdAt) {
+        this(id, seq, senderId, null, messageType, content, fileName, fileSize, accessUrl, createdAt);
+    }
+}
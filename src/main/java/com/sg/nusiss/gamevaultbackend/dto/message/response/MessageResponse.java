@@ -26,6 +26,7 @@ public class MessageResponse {
     private Long conversationId;
     private Long senderId;
     private Long receiverId;
+    private Long seq;
     private String senderUsername;
     private String senderEmail;
     private String content;
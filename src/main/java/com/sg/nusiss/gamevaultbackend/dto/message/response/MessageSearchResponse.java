@@ -0,0 +1,43 @@
+package com.sg.nusiss.gamevaultbackend.dto.message.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 聊天记录搜索结果（按消息ID从新到旧）
+ * hasMore 为 true 时以 nextBefore 作为 before 参数继续翻页
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSearchResponse {
+    private List<Hit> hits;
+    private boolean hasMore;
+    private Long nextBefore;
+
+    /**
+     * 单条命中消息
+     * snippet 已做 HTML 转义，命中的词用 <mark></mark> 包裹
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Hit {
+        private Long messageId;
+        private String chatType;
+        private Long conversationId;
+        // 私聊时为对方用户ID
+        private Long peerId;
+        private Long seq;
+        private Long senderId;
+        private String senderUsername;
+        private String snippet;
+        private LocalDateTime createdAt;
+    }
+}
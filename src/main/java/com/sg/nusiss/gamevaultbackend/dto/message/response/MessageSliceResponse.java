@@ -0,0 +1,38 @@
+package com.sg.nusiss.gamevaultbackend.dto.message.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页的消息切片
+ * messages 按从旧到新排列；继续向上翻页时以 oldestId 作为 before，拉取新消息时以 newestId 作为 after
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSliceResponse {
+    private List<MessageResponse> messages;
+    // 翻页方向上是否还有更多消息
+    private boolean hasMore;
+    private Long oldestId;
+    private Long newestId;
+    // 按序号同步时返回群聊当前最大序号，客户端据此判断是否还有缺口
+    private Long latestSeq;
+
+    /**
+     * 由已按从旧到新排列的消息构建切片
+     */
+    public static MessageSliceResponse of(List<MessageResponse> messages, boolean hasMore) {
+        return MessageSliceResponse.builder()
+                .messages(messages)
+                .hasMore(hasMore)
+                .oldestId(messages.isEmpty() ? null : messages.get(0).getId())
+                .newestId(messages.isEmpty() ? null : messages.get(messages.size() - 1).getId())
+                .build();
+    }
+}
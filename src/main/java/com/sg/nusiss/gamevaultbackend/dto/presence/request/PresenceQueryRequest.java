@@ -0,0 +1,13 @@
+package com.sg.nusiss.gamevaultbackend.dto.presence.request;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量查询在线状态请求（好友列表、群成员列表一次查询）
+ */
+@Data
+public class PresenceQueryRequest {
+    private List<Long> userIds;
+}
@@ -0,0 +1,20 @@
+package com.sg.nusiss.gamevaultbackend.dto.presence.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户在线状态
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PresenceResponse {
+    private Long userId;
+    private Boolean online;
+    // 最近一次心跳时间，从未上线或记录已过期时为 null
+    private LocalDateTime lastActiveAt;
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse;
 
 import java.time.LocalDateTime;
 
@@ -24,6 +25,7 @@ public class ChatMessageDto {
     private Long conversationId;
     private Long senderId;
     private Long receiverId;
+    private Long seq;
     private String senderUsername;
     private String senderEmail;
     private String content;
@@ -32,6 +34,34 @@ public class ChatMessageDto {
 
     private FileAttachment attachment;
 
+    /**
+     * 由消息响应构建推送内容（群聊与私聊共用）
+     */
+    public static ChatMessageDto from(MessageResponse response) {
+        MessageResponse.FileAttachment file = response.getAttachment();
+        return ChatMessageDto.builder()
+                .id(response.getId())
+                .conversationId(response.getConversationId())
+                .senderId(response.getSenderId())
+                .receiverId(response.getReceiverId())
+                .seq(response.getSeq())
+                .senderUsername(response.getSenderUsername())
+                .senderEmail(response.getSenderEmail())
+                .content(response.getContent())
+                .messageType(response.getMessageType())
+                .timestamp(response.getCreatedAt())
+                .attachment(file == null ? null : FileAttachment.builder()
+                        .fileId(file.getFileId())
+                        .fileName(file.getFileName())
+                        .fileSize(file.getFileSize())
+                        .fileType(file.getFileType())
+                        .fileExt(file.getFileExt())
+                        .accessUrl(file.getAccessUrl())
+                        .thumbnailUrl(file.getThumbnailUrl())
+                        .build())
+                .build();
+    }
+
     @Data
     @Builder
     @NoArgsConstructor
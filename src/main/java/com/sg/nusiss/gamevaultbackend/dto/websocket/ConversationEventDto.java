@@ -0,0 +1,28 @@
+package com.sg.nusiss.gamevaultbackend.dto.websocket;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 推送到 /topic/chat/{conversationId} 的群聊状态事件
+ * messageType 目前只有 "dissolved"，客户端收到后关闭会话并退订
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ConversationEventDto {
+    public static final String TYPE_DISSOLVED = "dissolved";
+
+    private String messageType;
+    private Long conversationId;
+    private Long operatorId;
+    private String reason;
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,30 @@
+package com.sg.nusiss.gamevaultbackend.dto.websocket;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 推送到 /topic/chat/{conversationId} 的在线状态 / 正在输入事件
+ * messageType 为 "presence" 或 "typing"，与聊天消息共用同一字段区分类型
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PresenceEventDto {
+    public static final String TYPE_PRESENCE = "presence";
+    public static final String TYPE_TYPING = "typing";
+
+    private String messageType;
+    private Long conversationId;
+    private Long userId;
+    private Boolean online;
+    private Boolean typing;
+    private LocalDateTime timestamp;
+}
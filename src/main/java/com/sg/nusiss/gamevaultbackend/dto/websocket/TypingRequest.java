@@ -0,0 +1,12 @@
+package com.sg.nusiss.gamevaultbackend.dto.websocket;
+
+import lombok.Data;
+
+/**
+ * 正在输入状态上报（/app/chat.typing）
+ */
+@Data
+public class TypingRequest {
+    private Long conversationId;
+    private Boolean typing;
+}
@@ -48,6 +48,16 @@ public class Conversation {
     @Builder.Default
     private Long nextSeq = 1L;
 
+    // 最后一条消息摘要（发送消息时与序号在同一条 UPDATE 中维护，会话列表无需查询 messages 表）
+    @Column(name = "last_message_preview", length = 200)
+    private String lastMessagePreview;
+
+    @Column(name = "last_message_sender_id")
+    private Long lastMessageSenderId;
+
+    @Column(name = "last_message_at")
+    private LocalDateTime lastMessageAt;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
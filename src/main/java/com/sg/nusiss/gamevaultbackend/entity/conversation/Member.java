@@ -60,6 +60,11 @@ public class Member {
     @Column(name = "leave_reason", length = 100)
     private String leaveReason;
 
+    // 已读游标：已读到的最大消息序号（未读数 = 群聊最大序号 - lastReadSeq）
+    @Column(name = "last_read_seq")
+    @Builder.Default
+    private Long lastReadSeq = 0L;
+
     @PrePersist
     protected void onJoin() {
         if (this.joinedAt == null) {
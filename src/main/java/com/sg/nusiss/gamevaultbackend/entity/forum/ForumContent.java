@@ -27,6 +27,7 @@ public class ForumContent {
     private Integer viewCount;
     private Integer replyCount;
     private Boolean isLikedByCurrentUser;
+    private Float searchRank;    // 全文搜索相关度，仅搜索结果有值
     // 默认构造函数
     public ForumContent() {}
 
@@ -170,6 +171,14 @@ public class ForumContent {
         isLikedByCurrentUser = likedByCurrentUser;
     }
 
+    public Float getSearchRank() {
+        return searchRank;
+    }
+
+    public void setSearchRank(Float searchRank) {
+        this.searchRank = searchRank;
+    }
+
     // 业务方法
     public boolean isPost() {
         return "post".equals(this.contentType);
@@ -19,6 +19,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "messages", indexes = {
         @Index(name = "idx_messages_conversation", columnList = "conversation_id"),
+        @Index(name = "idx_messages_conversation_id_id", columnList = "conversation_id, id"),
+        @Index(name = "idx_messages_conversation_seq", columnList = "conversation_id, seq", unique = true),
         @Index(name = "idx_messages_sender", columnList = "sender_id"),
         @Index(name = "idx_messages_receiver", columnList = "receiver_id"),
         @Index(name = "idx_messages_file_id", columnList = "file_id"),
@@ -43,6 +45,12 @@ public class Message {
     @Column(name = "receiver_id")
     private Long receiverId;
 
+    /**
+     * 群聊内单调递增的消息序号（由 conversations.next_seq 分配，私聊为空）
+     */
+    @Column(name = "seq")
+    private Long seq;
+
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
 
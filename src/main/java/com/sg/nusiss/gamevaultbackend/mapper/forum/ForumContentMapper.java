@@ -3,6 +3,7 @@ package com.sg.nusiss.gamevaultbackend.mapper.forum;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import com.sg.nusiss.gamevaultbackend.entity.forum.ForumContent;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -48,13 +49,23 @@ public interface ForumContentMapper {
      */
     int countActivePosts();
 
+    /**
+     * 查询活跃帖子（游标分页，按创建时间倒序）
+     * @param cursorDate 上一页最后一条的创建时间，为null时从第一页开始
+     * @param cursorId 上一页最后一条的内容ID
+     * @param limit 限制数量
+     */
+    List<ForumContent> findActivePostsByCursor(@Param("cursorDate") LocalDateTime cursorDate,
+                                               @Param("cursorId") Long cursorId,
+                                               @Param("limit") int limit);
+
     /**
      * 根据作者ID查询帖子
      */
     List<ForumContent> findPostsByAuthor(@Param("authorId") Long authorId);
 
     /**
-     * 搜索帖子（按标题和内容）
+     * 搜索帖子（全文检索标题和内容，按时间倒序）
      * @param keyword 搜索关键词
      * @param offset 偏移量
      * @param limit 限制数量
@@ -63,6 +74,18 @@ public interface ForumContentMapper {
                               @Param("offset") int offset,
                               @Param("limit") int limit);
 
+    /**
+     * 搜索帖子（全文检索，按相关度倒序，游标分页）
+     * @param keyword 搜索关键词
+     * @param cursorRank 上一页最后一条的相关度，为null时从第一页开始
+     * @param cursorId 上一页最后一条的内容ID
+     * @param limit 限制数量
+     */
+    List<ForumContent> searchPostsRanked(@Param("keyword") String keyword,
+                                         @Param("cursorRank") Float cursorRank,
+                                         @Param("cursorId") Long cursorId,
+                                         @Param("limit") int limit);
+
     /**
      * 统计搜索结果数量
      */
@@ -87,6 +110,18 @@ public interface ForumContentMapper {
      */
     int countChildren(@Param("parentId") Long parentId);
 
+    /**
+     * 查询子内容（回复）- 游标分页，按创建时间正序
+     * @param parentId 父内容ID
+     * @param cursorDate 上一页最后一条的创建时间，为null时从第一页开始
+     * @param cursorId 上一页最后一条的内容ID
+     * @param limit 限制数量
+     */
+    List<ForumContent> findChildrenByCursor(@Param("parentId") Long parentId,
+                                            @Param("cursorDate") LocalDateTime cursorDate,
+                                            @Param("cursorId") Long cursorId,
+                                            @Param("limit") int limit);
+
     // ==================== 统计相关 ====================
 
     /**
@@ -130,5 +165,24 @@ public interface ForumContentMapper {
      * 统计用户的活跃帖子数（未删除）
      */
     int countActiveByAuthorId(@Param("authorId") Long authorId);
+
+    /**
+     * 查询用户的活跃帖子（未删除）- 游标分页，按创建时间倒序
+     * @param authorId 作者ID
+     * @param cursorDate 上一页最后一条的创建时间，为null时从第一页开始
+     * @param cursorId 上一页最后一条的内容ID
+     * @param limit 限制数量
+     */
+    List<ForumContent> selectActiveByAuthorIdByCursor(@Param("authorId") Long authorId,
+                                                      @Param("cursorDate") LocalDateTime cursorDate,
+                                                      @Param("cursorId") Long cursorId,
+                                                      @Param("limit") int limit);
+
+    /**
+     * 按内容ID顺序分批读取活跃内容ID（点赞数对账使用）
+     * @param afterId 上一批最后一个内容ID
+     * @param limit 每批数量
+     */
+    List<Long> findActiveContentIdsAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
 }
 
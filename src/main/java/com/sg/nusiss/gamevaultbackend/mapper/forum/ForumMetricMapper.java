@@ -24,12 +24,20 @@ public interface ForumMetricMapper {
      * 增加统计值
      * @param contentId 内容ID
      * @param metricName 统计类型名称（view_count, like_count等）
-     * @param increment 增加数量
+     * @param increment 增加数量（可为负数，结果不小于 0）
      */
     int incrementMetric(@Param("contentId") Long contentId,
                         @Param("metricName") String metricName,
                         @Param("increment") int increment);
 
+    /**
+     * 批量增加统计值（一条语句写入多个内容，已不存在的内容被忽略）
+     * @param deltas 每项的 contentId 为内容ID，metricValue 为增量
+     * @param metricName 统计类型名称
+     */
+    int batchIncrementMetric(@Param("deltas") List<ContentMetric> deltas,
+                             @Param("metricName") String metricName);
+
     /**
      * 设置统计值
      */
@@ -37,6 +45,14 @@ public interface ForumMetricMapper {
                        @Param("metricName") String metricName,
                        @Param("value") int value);
 
+    /**
+     * 按关系表重算一批内容的计数，只改写与实际值不一致的行
+     * @return 修正的行数
+     */
+    int syncCountsFromRelations(@Param("contentIds") List<Long> contentIds,
+                                @Param("metricName") String metricName,
+                                @Param("relationType") Long relationType);
+
     // ==================== 查询操作 ====================
 
     /**
@@ -2,7 +2,12 @@ package com.sg.nusiss.gamevaultbackend.repository.conversation;
 
 import com.sg.nusiss.gamevaultbackend.entity.conversation.Conversation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 
 /**
  * @ClassName ConversationRepository
@@ -13,4 +18,40 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface ConversationRepository extends JpaRepository<Conversation, Long> {
     Conversation findByUuid(String uuid);
+
+    /**
+     * 原子分配群聊消息序号：一条语句内递增 next_seq、刷新最后一条消息摘要，并把发送者（?3）自己的已读游标推进到新序号
+     * 仅当群聊为 active 且发送者是活跃成员时才更新，这是发送权限的最终校验；返回新序号，返回 null 表示无权发送。
+     * UPDATE 持有行锁直到事务提交，同一群聊并发发送时序号按提交顺序串行分配，回滚时序号、摘要和游标一并回退
+     */
+    @Transactional
+    @Query(value = "WITH sender AS (" +
+            "SELECT id FROM members WHERE conversation_id = ?1 AND user_id = ?3 AND is_active = true" +
+            "), allocated AS (" +
+            "UPDATE conversations SET next_seq = next_seq + 1, last_message_preview = ?2, " +
+            "last_message_sender_id = ?3, last_message_at = ?4 " +
+            "WHERE id = ?1 AND status = 'active' AND EXISTS (SELECT 1 FROM sender) " +
+            "RETURNING next_seq - 1 AS seq" +
+            "), read_cursor AS (" +
+            "UPDATE members SET last_read_seq = allocated.seq FROM allocated " +
+            "WHERE members.id IN (SELECT id FROM sender) " +
+            "AND (members.last_read_seq IS NULL OR members.last_read_seq < allocated.seq)" +
+            ") SELECT seq FROM allocated", nativeQuery = true)
+    Long allocateSeqForMember(Long conversationId, String lastMessagePreview,
+                              Long lastMessageSenderId, LocalDateTime lastMessageAt);
+
+    /**
+     * 读取群聊当前的下一个消息序号（不加载整个实体）
+     */
+    @Query("SELECT c.nextSeq FROM Conversation c WHERE c.id = ?1")
+    Long findNextSeqById(Long conversationId);
+
+    /**
+     * 解散群聊：只更新状态与解散信息，不回写整行，避免覆盖并发发送写入的 next_seq 和最后一条消息摘要
+     * 仅当群聊仍为 active 时才更新，返回 0 表示已被并发解散
+     */
+    @Modifying
+    @Query("UPDATE Conversation c SET c.status = 'dissolved', c.dissolvedAt = ?2, c.dissolvedBy = ?3, " +
+            "c.dissolvedReason = ?4, c.updatedAt = ?2 WHERE c.id = ?1 AND c.status = 'active'")
+    int dissolve(Long conversationId, LocalDateTime dissolvedAt, Long dissolvedBy, String dissolvedReason);
 }
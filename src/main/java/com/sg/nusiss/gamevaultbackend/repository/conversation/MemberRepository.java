@@ -1,13 +1,18 @@
 package com.sg.nusiss.gamevaultbackend.repository.conversation;
 
 
+import com.sg.nusiss.gamevaultbackend.dto.conversation.response.ConversationListResponse;
+import com.sg.nusiss.gamevaultbackend.dto.conversation.response.MemberResponse;
 import com.sg.nusiss.gamevaultbackend.entity.conversation.Member;
 import com.sg.nusiss.gamevaultbackend.entity.conversation.Conversation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,6 +39,60 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     @Query("SELECT m FROM Member m WHERE m.user.userId = ?1")
     List<Member> findByUserId(Long userId);
 
+    /**
+     * 查询用户在活跃群聊中的活跃成员记录（同时取回群聊，避免逐个懒加载；已退出或已解散的不返回）
+     */
+    @Query("SELECT m FROM Member m JOIN FETCH m.conversation c " +
+            "WHERE m.user.userId = ?1 AND m.isActive = true AND c.status = 'active'")
+    List<Member> findActiveByUserIdWithConversation(Long userId);
+
+    /**
+     * 批量查询多个用户所在的活跃群聊，只投影 (userId, conversationId)，不加载实体（在线状态广播使用）
+     */
+    @Query("SELECT m.user.userId, c.id FROM Member m JOIN m.conversation c " +
+            "WHERE m.user.userId IN ?1 AND m.isActive = true AND c.status = 'active'")
+    List<Object[]> findActiveConversationIdsByUserIds(Collection<Long> userIds);
+
+    /**
+     * 群聊列表：用户的活跃成员记录与群聊一次连接查询，直接投影为响应DTO，不加载实体
+     */
+    @Query("SELECT new com.sg.nusiss.gamevaultbackend.dto.conversation.response.ConversationListResponse(" +
+            "c.id, c.title, c.ownerId, c.createdAt, c.status, c.lastMessagePreview, c.lastMessageAt, " +
+            "c.lastMessageSenderId, c.nextSeq, m.lastReadSeq) " +
+            "FROM Member m JOIN m.conversation c WHERE m.user.userId = ?1 AND m.isActive = true ORDER BY m.id")
+    List<ConversationListResponse> findConversationListByUserId(Long userId);
+
+    /**
+     * 成员列表：活跃成员与用户表一次连接查询，直接投影为响应DTO，不加载实体
+     */
+    @Query("SELECT new com.sg.nusiss.gamevaultbackend.dto.conversation.response.MemberResponse(" +
+            "u.userId, u.username, u.email, m.role, m.joinedAt) " +
+            "FROM Member m JOIN m.user u WHERE m.conversation.id = ?1 AND m.isActive = true ORDER BY m.id")
+    List<MemberResponse> findMemberListByConversationId(Long conversationId);
+
+    /**
+     * 查询用户在指定群聊中的活跃成员记录（批量已读回执使用）
+     */
+    @Query("SELECT m FROM Member m JOIN FETCH m.conversation " +
+            "WHERE m.user.userId = ?1 AND m.conversation.id IN ?2 AND m.isActive = true")
+    List<Member> findActiveByUserIdAndConversationIds(Long userId, Collection<Long> conversationIds);
+
+    /**
+     * 推进已读游标（只前进不后退），发送消息时将发送者自己的游标推进到新消息
+     */
+    @Modifying
+    @Query("UPDATE Member m SET m.lastReadSeq = ?3 WHERE m.conversation.id = ?1 AND m.user.userId = ?2 " +
+            "AND m.isActive = true AND (m.lastReadSeq IS NULL OR m.lastReadSeq < ?3)")
+    int advanceLastReadSeq(Long conversationId, Long userId, Long seq);
+
+    /**
+     * 批量停用群聊的所有活跃成员（解散群聊时用），一条 UPDATE 完成，返回受影响的成员数
+     */
+    @Modifying
+    @Query("UPDATE Member m SET m.isActive = false, m.leftAt = ?2, m.leaveReason = ?3 " +
+            "WHERE m.conversation.id = ?1 AND m.isActive = true")
+    int deactivateAllByConversationId(Long conversationId, LocalDateTime leftAt, String leaveReason);
+
     /**
      * 检查用户是否在某个群聊中
      */
@@ -63,4 +122,14 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     @Query("SELECT m FROM Member m WHERE m.user.userId = ?1 AND m.isActive = ?2")
     List<Member> findByUserIdAndIsActive(Long userId, Boolean isActive);
 
+    /** 批量检查成员关系：返回 userIds 中已是该群聊活跃成员的用户ID */
+    @Query("SELECT m.user.userId FROM Member m WHERE m.conversation.id = ?1 AND m.user.userId IN ?2 AND m.isActive = true")
+    List<Long> findActiveUserIds(Long conversationId, Collection<Long> userIds);
+
+    /** 查询 userIds 中与该用户同在某个活跃群聊中的用户ID（双方均为活跃成员） */
+    @Query("SELECT DISTINCT o.user.userId FROM Member m JOIN m.conversation c, Member o " +
+            "WHERE o.conversation = c AND m.user.userId = ?1 AND m.isActive = true AND c.status = 'active' " +
+            "AND o.user.userId IN ?2 AND o.isActive = true")
+    List<Long> findCoMemberUserIds(Long userId, Collection<Long> userIds);
+
 }
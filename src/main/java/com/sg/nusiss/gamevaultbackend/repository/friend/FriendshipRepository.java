@@ -4,6 +4,7 @@ import com.sg.nusiss.gamevaultbackend.entity.friend.Friendship;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,4 +26,8 @@ public interface FriendshipRepository extends JpaRepository<Friendship, Long> {
     @Query("SELECT f FROM Friendship f WHERE " +
             "f.userId = ?1 AND f.friendId = ?2 AND f.isActive = true")
     Optional<Friendship> findActiveFriendship(Long userId, Long friendId);
+
+    // 批量检查好友关系：返回 friendIds 中与 userId 为活跃好友的ID
+    @Query("SELECT f.friendId FROM Friendship f WHERE f.userId = ?1 AND f.friendId IN ?2 AND f.isActive = true")
+    List<Long> findActiveFriendIds(Long userId, Collection<Long> friendIds);
 }
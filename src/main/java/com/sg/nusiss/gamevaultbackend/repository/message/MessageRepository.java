@@ -1,12 +1,18 @@
 package com.sg.nusiss.gamevaultbackend.repository.message;
 
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageExportRow;
 import com.sg.nusiss.gamevaultbackend.entity.message.Message;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * @ClassName MessageRepository
@@ -25,16 +31,43 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     Page<Message> findByConversationId(Long conversationId, Pageable pageable);
 
     /**
-     * 查询群聊的所有消息（不分页，用于导出）
+     * 流式读取群聊的所有消息（用于导出）
+     * 投影为 DTO，不进入持久化上下文；配合只读事务按 fetchSize 分批从游标读取，内存占用与消息总数无关。
+     * 调用方必须处于事务中并关闭返回的 Stream。
      */
-    @Query("SELECT m FROM Message m WHERE m.conversationId = ?1 AND m.isDeleted = false ORDER BY m.createdAt ASC")
-    List<Message> findAllByConversationId(Long conversationId);
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.sg.nusiss.gamevaultbackend.dto.message.response.MessageExportRow(" +
+            "m.id, m.seq, m.senderId, m.messageType, m.content, m.fileName, m.fileSize, m.accessUrl, m.createdAt) " +
+            "FROM Message m WHERE m.conversationId = ?1 AND m.isDeleted = false ORDER BY m.id ASC")
+    Stream<MessageExportRow> streamForExport(Long conversationId);
 
     /**
-     * 查询某条消息之前的历史消息（向上翻页）
+     * 查询群聊最新消息（游标分页首屏，按 id 倒序，不做 COUNT）
      */
-    @Query("SELECT m FROM Message m WHERE m.conversationId = ?1 AND m.id < ?2 AND m.isDeleted = false ORDER BY m.createdAt DESC")
-    Page<Message> findHistoryBeforeMessage(Long conversationId, Long messageId, Pageable pageable);
+    @Query("SELECT m FROM Message m WHERE m.conversationId = ?1 AND m.isDeleted = false ORDER BY m.id DESC")
+    Slice<Message> findLatestByConversationId(Long conversationId, Pageable pageable);
+
+    /**
+     * 查询某条消息之前的历史消息（向上翻页，走 (conversation_id, id) 索引）
+     */
+    @Query("SELECT m FROM Message m WHERE m.conversationId = ?1 AND m.id < ?2 AND m.isDeleted = false ORDER BY m.id DESC")
+    Slice<Message> findHistoryBeforeMessage(Long conversationId, Long messageId, Pageable pageable);
+
+    /**
+     * 查询某条消息之后的新消息（向下追加，按 id 正序）
+     */
+    @Query("SELECT m FROM Message m WHERE m.conversationId = ?1 AND m.id > ?2 AND m.isDeleted = false ORDER BY m.id ASC")
+    Slice<Message> findHistoryAfterMessage(Long conversationId, Long messageId, Pageable pageable);
+
+    /**
+     * 按序号区间 (afterSeq, toSeq] 查询群聊消息（断线重连补齐 / 缺口检测，走 (conversation_id, seq) 唯一索引）
+     */
+    @Query("SELECT m FROM Message m WHERE m.conversationId = ?1 AND m.seq > ?2 AND m.seq <= ?3 " +
+            "AND m.isDeleted = false ORDER BY m.seq ASC")
+    Slice<Message> findBySeqRange(Long conversationId, Long afterSeq, Long toSeq, Pageable pageable);
 
     // 私聊消息查询（双向）
     @Query("SELECT m FROM Message m WHERE m.chatType = 'private' AND " +
@@ -42,6 +75,22 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
             "AND m.isDeleted = false ORDER BY m.createdAt DESC")
     Page<Message> findPrivateMessages(Long userId1, Long userId2, Pageable pageable);
 
+    // 私聊游标分页（?1 = 较小的用户ID, ?2 = 较大的用户ID，匹配 idx_messages_private_pair 表达式索引）
+    @Query(value = "SELECT * FROM messages WHERE chat_type = 'private' " +
+            "AND LEAST(sender_id, receiver_id) = ?1 AND GREATEST(sender_id, receiver_id) = ?2 " +
+            "AND is_deleted = false ORDER BY id DESC LIMIT ?3", nativeQuery = true)
+    List<Message> findLatestPrivateMessages(Long lowUserId, Long highUserId, int limit);
+
+    @Query(value = "SELECT * FROM messages WHERE chat_type = 'private' " +
+            "AND LEAST(sender_id, receiver_id) = ?1 AND GREATEST(sender_id, receiver_id) = ?2 " +
+            "AND id < ?3 AND is_deleted = false ORDER BY id DESC LIMIT ?4", nativeQuery = true)
+    List<Message> findPrivateMessagesBefore(Long lowUserId, Long highUserId, Long messageId, int limit);
+
+    @Query(value = "SELECT * FROM messages WHERE chat_type = 'private' " +
+            "AND LEAST(sender_id, receiver_id) = ?1 AND GREATEST(sender_id, receiver_id) = ?2 " +
+            "AND id > ?3 AND is_deleted = false ORDER BY id ASC LIMIT ?4", nativeQuery = true)
+    List<Message> findPrivateMessagesAfter(Long lowUserId, Long highUserId, Long messageId, int limit);
+
     // 获取私聊的最后一条消息
     @Query("SELECT m FROM Message m WHERE m.chatType = 'private' AND " +
             "((m.senderId = ?1 AND m.receiverId = ?2) OR (m.senderId = ?2 AND m.receiverId = ?1)) " +
@@ -0,0 +1,112 @@
+package com.sg.nusiss.gamevaultbackend.security.auth;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 已验证 JWT 的进程内缓存
+ * 同一个 token 在有效期内重复出现时（每个 REST 请求、论坛拦截器、WebSocket CONNECT）直接返回上次验证通过的结果，
+ * 跳过 RS256 验签。缓存以 token 的 SHA-256 为键，条目在 token 的 exp 与 maxTtl 中较早者过期，验证失败的 token 不缓存。
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+    private static final Duration DEFAULT_MAX_TTL = Duration.ofMinutes(10);
+
+    private final JwtDecoder delegate;
+    private final long maxTtlMillis;
+    private final Clock clock;
+
+    private final Map<String, CachedJwt> cache;
+
+    public CachingJwtDecoder(JwtDecoder delegate) {
+        this(delegate, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_TTL, Clock.systemUTC());
+    }
+
+    public CachingJwtDecoder(JwtDecoder delegate, int maxEntries, Duration maxTtl, Clock clock) {
+        this.delegate = delegate;
+        this.maxTtlMillis = maxTtl.toMillis();
+        this.clock = clock;
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedJwt> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        if (token == null || token.isEmpty()) {
+            return delegate.decode(token);
+        }
+
+        String key = hash(token);
+        long now = clock.millis();
+
+        synchronized (cache) {
+            CachedJwt cached = cache.get(key);
+            if (cached != null) {
+                if (cached.expiresAt > now && cached.jwt.getTokenValue().equals(token)) {
+                    return cached.jwt;
+                }
+                cache.remove(key);
+            }
+        }
+
+        Jwt jwt = delegate.decode(token);
+
+        Instant exp = jwt.getExpiresAt();
+        long expiresAt = now + maxTtlMillis;
+        if (exp != null) {
+            expiresAt = Math.min(expiresAt, exp.toEpochMilli());
+        }
+        if (expiresAt > now) {
+            synchronized (cache) {
+                cache.put(key, new CachedJwt(jwt, expiresAt));
+            }
+        }
+        return jwt;
+    }
+
+    /**
+     * 当前缓存条目数
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    private record CachedJwt(Jwt jwt, long expiresAt) {
+    }
+}
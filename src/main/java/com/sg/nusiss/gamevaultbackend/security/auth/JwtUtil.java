@@ -46,6 +46,11 @@ public class JwtUtil {
                 .getTokenValue();
     }
 
+    /** Verify and decode once; callers needing several claims should use this instead of the getters below */
+    public Jwt decode(String token) {
+        return decoder.decode(token);
+    }
+
     /** Read username (sub) */
     public String getUsername(String token) {
         return decoder.decode(token).getSubject();
@@ -53,11 +58,19 @@ public class JwtUtil {
 
     /** Optional: read uid/email for convenience when needed */
     public Long getUserId(String token) {
-        Object v = decoder.decode(token).getClaims().get("uid");
-        return (v instanceof Number) ? ((Number) v).longValue() : null;
+        return userIdOf(decoder.decode(token));
     }
     public String getEmail(String token) {
-        Object v = decoder.decode(token).getClaims().get("email");
+        return emailOf(decoder.decode(token));
+    }
+
+    public static Long userIdOf(Jwt jwt) {
+        Object v = jwt.getClaims().get("uid");
+        return (v instanceof Number) ? ((Number) v).longValue() : null;
+    }
+
+    public static String emailOf(Jwt jwt) {
+        Object v = jwt.getClaims().get("email");
         return v != null ? v.toString() : null;
     }
 
@@ -71,7 +84,7 @@ public class JwtUtil {
             
             Jwt jwt = decoder.decode(token);
             String username = jwt.getSubject();
-            Long userId = getUserId(token);
+            Long userId = userIdOf(jwt);
             
             if (username != null && userId != null) {
                 return new TokenInfo(true, userId, username);
@@ -1,11 +1,14 @@
 package com.sg.nusiss.gamevaultbackend.service.forum;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.sg.nusiss.gamevaultbackend.constant.forum.ForumRelationType;
 import com.sg.nusiss.gamevaultbackend.entity.forum.UserContentRelation;
 import com.sg.nusiss.gamevaultbackend.mapper.forum.ForumContentLikeMapper;
+import com.sg.nusiss.gamevaultbackend.mapper.forum.ForumContentMapper;
 import com.sg.nusiss.gamevaultbackend.mapper.forum.ForumMetricMapper;
 
 import java.time.LocalDateTime;
@@ -18,18 +21,26 @@ import java.util.Map;
  *
  * 工作原理：
  * 1. 插入/删除 user_content_relations 记录
- * 2. 数据库触发器自动更新 content_metrics 表的 like_count
- * 3. 通过 MetricMapper 查询最新的统计数据
+ * 2. 在同一事务中对 content_metrics 表的 like_count 增减 1（列表和详情直接读取该计数）
+ * 3. 定时对账任务按关系表重算 like_count，修正并发或历史数据造成的偏差
  */
 @Service
 public class ForumContentLikeService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ForumContentLikeService.class);
+
+    // 每条对账语句处理的内容数
+    static final int SYNC_BATCH_SIZE = 1000;
+
     @Autowired
     private ForumContentLikeMapper contentLikeMapper;
 
     @Autowired
     private ForumMetricMapper metricMapper;
 
+    @Autowired
+    private ForumContentMapper contentMapper;
+
     /**
      * 点赞内容
      * @param contentId 内容ID
@@ -54,7 +65,10 @@ public class ForumContentLikeService {
 
         int inserted = contentLikeMapper.insert(relation);
 
-        // 数据库触发器会自动更新 content_metrics 表
+        // 只有确实插入了关系才增加计数（并发重复点赞时 ON CONFLICT 不插入）
+        if (inserted > 0) {
+            metricMapper.incrementMetric(contentId, "like_count", 1);
+        }
         return inserted > 0;
     }
 
@@ -79,7 +93,9 @@ public class ForumContentLikeService {
         // 删除点赞关系
         int deleted = contentLikeMapper.deleteByUserAndContentAndType(userId, contentId, ForumRelationType.LIKE);
 
-        // 数据库触发器会自动更新 content_metrics 表
+        if (deleted > 0) {
+            metricMapper.incrementMetric(contentId, "like_count", -1);
+        }
         return deleted > 0;
     }
 
@@ -217,16 +233,47 @@ public class ForumContentLikeService {
 
     /**
      * 批量同步点赞数
+     * 每 SYNC_BATCH_SIZE 个内容一条语句完成统计与写回，返回被修正的计数行数
      */
     @Transactional
-    public void batchSyncLikeCounts(List<Long> contentIds) {
+    public int batchSyncLikeCounts(List<Long> contentIds) {
         if (contentIds == null || contentIds.isEmpty()) {
-            return;
+            return 0;
         }
 
-        for (Long contentId : contentIds) {
-            syncLikeCount(contentId);
+        int corrected = 0;
+        for (int from = 0; from < contentIds.size(); from += SYNC_BATCH_SIZE) {
+            List<Long> batch = contentIds.subList(from, Math.min(from + SYNC_BATCH_SIZE, contentIds.size()));
+            corrected += metricMapper.syncCountsFromRelations(batch, "like_count", ForumRelationType.LIKE);
         }
+        return corrected;
+    }
+
+    /**
+     * 对账全部活跃内容的点赞数
+     * 按主键分批推进，每批一个短事务，不会长时间持有大量行锁。
+     * 与点赞并发的那一批可能写回旧值，下一轮对账会再次修正
+     */
+    public int reconcileLikeCounts() {
+        long lastId = 0L;
+        int scanned = 0;
+        int corrected = 0;
+
+        while (true) {
+            List<Long> contentIds = contentMapper.findActiveContentIdsAfter(lastId, SYNC_BATCH_SIZE);
+            if (contentIds.isEmpty()) {
+                break;
+            }
+            corrected += metricMapper.syncCountsFromRelations(contentIds, "like_count", ForumRelationType.LIKE);
+            scanned += contentIds.size();
+            lastId = contentIds.get(contentIds.size() - 1);
+            if (contentIds.size() < SYNC_BATCH_SIZE) {
+                break;
+            }
+        }
+
+        logger.info("点赞数对账完成 - 检查内容数: {}, 修正数: {}", scanned, corrected);
+        return corrected;
     }
 
     /**
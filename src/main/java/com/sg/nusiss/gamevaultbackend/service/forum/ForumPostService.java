@@ -6,6 +6,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.sg.nusiss.gamevaultbackend.config.forum.ForumPaginationConfig;
+import com.sg.nusiss.gamevaultbackend.dto.forum.ForumCursor;
+import com.sg.nusiss.gamevaultbackend.dto.forum.ForumCursorPage;
 import com.sg.nusiss.gamevaultbackend.entity.forum.ForumContent;
 import com.sg.nusiss.gamevaultbackend.mapper.forum.ForumContentMapper;
 import com.sg.nusiss.gamevaultbackend.mapper.forum.ForumMetricMapper;
@@ -13,6 +15,7 @@ import com.sg.nusiss.gamevaultbackend.mapper.forum.ForumMetricMapper;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -24,6 +27,12 @@ public class ForumPostService {
 
     private static final Logger logger = LoggerFactory.getLogger(ForumPostService.class);
 
+    // 帖子总数缓存时间：游标分页只需要近似总数，避免每次翻页都 COUNT 全部帖子
+    static final long POST_COUNT_CACHE_MILLIS = 60_000L;
+
+    private volatile int cachedPostCount;
+    private volatile long cachedPostCountAt;
+
     @Autowired
     private ForumContentMapper contentMapper;
 
@@ -33,6 +42,9 @@ public class ForumPostService {
     @Autowired
     private ForumContentLikeService contentLikeService;
 
+    @Autowired
+    private ViewCountBuffer viewCountBuffer;
+
     /**
      * 创建新帖子
      */
@@ -125,6 +137,34 @@ public class ForumPostService {
         return contentMapper.countActivePosts();
     }
 
+    /**
+     * 获取帖子流（游标分页）
+     * 按 (created_date, content_id) 倒序从游标位置继续读取，翻页深度不影响查询代价，也不需要每页 COUNT
+     */
+    public ForumCursorPage<ForumContent> getPostFeed(String cursor, int size, boolean withTotal, Long currentUserId) {
+        ForumCursor position = ForumCursor.decode(cursor);
+        if (size <= 0 || size > 100) size = 20;
+
+        List<ForumContent> rows = contentMapper.findActivePostsByCursor(
+                position != null ? position.getCreatedDate() : null,
+                position != null ? position.getContentId() : null,
+                size + 1);
+        Integer total = withTotal ? getApproximatePostCount() : null;
+        return toCursorPage(rows, size, total, currentUserId, ForumCursor::of);
+    }
+
+    /**
+     * 近似帖子总数（最多缓存 POST_COUNT_CACHE_MILLIS）
+     */
+    public int getApproximatePostCount() {
+        long now = System.currentTimeMillis();
+        if (now - cachedPostCountAt > POST_COUNT_CACHE_MILLIS) {
+            cachedPostCount = contentMapper.countActivePosts();
+            cachedPostCountAt = now;
+        }
+        return cachedPostCount;
+    }
+
     /**
      * 搜索帖子
      */
@@ -157,6 +197,31 @@ public class ForumPostService {
         return posts;
     }
 
+    /**
+     * 搜索帖子（按相关度排序，游标分页）
+     * 标题命中的权重高于正文，相关度相同时按内容ID倒序；游标为上一页最后一条的 (相关度, 内容ID)
+     */
+    public ForumCursorPage<ForumContent> searchPostsRanked(String keyword, String cursor, int size,
+                                                           boolean withTotal, Long currentUserId) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            throw new IllegalArgumentException("搜索关键词不能为空");
+        }
+        ForumCursor position = ForumCursor.decode(cursor);
+        if (position != null && position.getRank() == null) {
+            throw new IllegalArgumentException("分页游标无效");
+        }
+        if (size <= 0 || size > 100) size = 20;
+
+        String trimmed = keyword.trim();
+        List<ForumContent> rows = contentMapper.searchPostsRanked(
+                trimmed,
+                position != null ? position.getRank() : null,
+                position != null ? position.getContentId() : null,
+                size + 1);
+        Integer total = withTotal ? contentMapper.countSearchPosts(trimmed) : null;
+        return toCursorPage(rows, size, total, currentUserId, ForumCursor::ofSearchResult);
+    }
+
     /**
      * 统计搜索结果数量
      */
@@ -169,20 +234,14 @@ public class ForumPostService {
 
     /**
      * 增加帖子浏览量
+     * 调用方已加载过帖子，这里不再查询；浏览量先在内存中累加，由 ViewCountBuffer 定时批量写入
      */
     public void incrementViewCount(Long postId) {
         if (postId == null) {
             throw new IllegalArgumentException("帖子ID不能为空");
         }
 
-        // 验证帖子存在
-        ForumContent post = contentMapper.findById(postId);
-        if (post == null || !post.isPost()) {
-            throw new RuntimeException("帖子不存在");
-        }
-
-        // 增加浏览量
-        metricMapper.incrementMetric(postId, "view_count", 1);
+        viewCountBuffer.increment(postId);
     }
 
 
@@ -279,11 +338,7 @@ public class ForumPostService {
         // 查询帖子列表（SQL查询已经包含了统计数据：view_count, like_count, reply_count）
         List<ForumContent> posts = contentMapper.selectActiveByAuthorId(authorId, offset, size);
 
-        // 不需要再次获取统计数据，因为SQL查询已经通过JOIN获取了正确的数据
-        // SQL中使用了：
-        // - like_count: 从 user_content_relations 表实时统计
-        // - view_count: 从 content_metrics 表获取
-        // - reply_count: 从 content_metrics 表获取
+        // 不需要再次获取统计数据，view_count、like_count、reply_count 都由 SQL 从 content_metrics 表直接读取
 
         // 如果用户登录了，批量查询点赞状态
         if (currentUserId != null && !posts.isEmpty()) {
@@ -304,6 +359,27 @@ public class ForumPostService {
         return posts;
     }
 
+    /**
+     * 获取作者的活跃帖子流（游标分页）
+     * 需要总数时使用精确计数，单个作者的帖子数由 idx_contents_author_feed 覆盖
+     */
+    public ForumCursorPage<ForumContent> getPostFeedByAuthorId(Long authorId, String cursor, int size,
+                                                              boolean withTotal, Long currentUserId) {
+        if (authorId == null) {
+            throw new IllegalArgumentException("作者ID不能为空");
+        }
+
+        ForumCursor position = ForumCursor.decode(cursor);
+        if (size <= 0 || size > 100) size = 20;
+
+        List<ForumContent> rows = contentMapper.selectActiveByAuthorIdByCursor(authorId,
+                position != null ? position.getCreatedDate() : null,
+                position != null ? position.getContentId() : null,
+                size + 1);
+        Integer total = withTotal ? contentMapper.countActiveByAuthorId(authorId) : null;
+        return toCursorPage(rows, size, total, currentUserId, ForumCursor::of);
+    }
+
     /**
      * 统计作者的活跃帖子数（未删除）
      */
@@ -379,19 +455,34 @@ public class ForumPostService {
 
         int offset = page * size;
 
-        // 🔥 修复：传入 offset 和 size
-        List<ForumContent> replies = contentMapper.findChildren(postId, offset, size);
-
-        // 为每个回复加载统计数据（如果 SQL 没有 JOIN）
-        for (ForumContent reply : replies) {
-            if (reply.getLikeCount() == null) {
-                Integer likeCount = metricMapper.getMetricValue(reply.getContentId(), "like_count");
-                reply.setLikeCount(likeCount != null ? likeCount : 0);
-            }
+        // 🔥 修复：传入 offset 和 size（SQL 已带出统计数据）
+        return contentMapper.findChildren(postId, offset, size);
+    }
+    /**
+     * 获取帖子的回复楼层（游标分页，按时间正序）
+     * 需要总数时读取父帖维护的 reply_count，不再 COUNT 回复
+     */
+    public ForumCursorPage<ForumContent> getReplyFeed(Long postId, String cursor, int size,
+                                                     boolean withTotal, Long currentUserId) {
+        if (postId == null) {
+            throw new IllegalArgumentException("帖子ID不能为空");
         }
 
-        return replies;
+        ForumCursor position = ForumCursor.decode(cursor);
+        if (size <= 0 || size > 100) size = 20;
+
+        List<ForumContent> rows = contentMapper.findChildrenByCursor(postId,
+                position != null ? position.getCreatedDate() : null,
+                position != null ? position.getContentId() : null,
+                size + 1);
+        Integer total = null;
+        if (withTotal) {
+            Integer replyCount = metricMapper.getMetricValue(postId, "reply_count");
+            total = replyCount != null ? replyCount : 0;
+        }
+        return toCursorPage(rows, size, total, currentUserId, ForumCursor::of);
     }
+
     /**
      * 统计某帖子的回复总数
      */
@@ -437,5 +528,32 @@ public class ForumPostService {
             logger.error("初始化回复统计数据失败: {}", e.getMessage());
         }
     }
-}
 
+    /**
+     * 多查询的一条用于判断是否还有下一页；同时批量设置当前用户的点赞状态
+     */
+    private ForumCursorPage<ForumContent> toCursorPage(List<ForumContent> rows, int size, Integer total,
+                                                       Long currentUserId,
+                                                       Function<ForumContent, ForumCursor> cursorOf) {
+        boolean hasMore = rows.size() > size;
+        List<ForumContent> items = hasMore ? rows.subList(0, size) : rows;
+
+        if (currentUserId != null && !items.isEmpty()) {
+            List<Long> contentIds = items.stream()
+                    .map(ForumContent::getContentId)
+                    .collect(Collectors.toList());
+
+            Map<Long, Boolean> likeStatus = contentLikeService
+                    .batchCheckLikeStatus(currentUserId, contentIds);
+
+            items.forEach(item ->
+                    item.setIsLikedByCurrentUser(
+                            likeStatus.getOrDefault(item.getContentId(), false)
+                    )
+            );
+        }
+
+        String nextCursor = hasMore ? cursorOf.apply(items.get(items.size() - 1)).encode() : null;
+        return new ForumCursorPage<>(items, nextCursor, hasMore, total);
+    }
+}
@@ -0,0 +1,159 @@
+package com.sg.nusiss.gamevaultbackend.service.forum;
+
+import com.sg.nusiss.gamevaultbackend.entity.forum.ContentMetric;
+import com.sg.nusiss.gamevaultbackend.mapper.forum.ForumMetricMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 浏览量缓冲
+ * 浏览只在内存中累加（每个帖子一个 LongAdder，热门帖子并发累加也不会互相阻塞），
+ * 定时把累计增量合并成多行 upsert 写入 content_metrics，每个帖子每个周期只更新一次统计行。
+ * 写入失败的增量放回缓冲，下次重试；应用正常关闭前会再写入一次。
+ * 累加与移除空闲计数器都不加锁：移除后如果仍有浏览落在旧计数器上，由发现它的一方转回缓冲。
+ */
+@Service
+public class ViewCountBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ViewCountBuffer.class);
+
+    // 每条 upsert 语句最多包含的帖子数
+    static final int FLUSH_BATCH_SIZE = 500;
+
+    @Autowired
+    private ForumMetricMapper metricMapper;
+
+    // 连续这么多个周期没有新增浏览的帖子才从缓冲中移除，避免间歇有浏览的帖子反复创建计数器
+    static final int EVICT_AFTER_IDLE_FLUSHES = 3;
+
+    private final Map<Long, Counter> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次浏览
+     */
+    public void increment(Long postId) {
+        add(postId, 1);
+    }
+
+    private void add(Long postId, long views) {
+        Counter counter = pending.computeIfAbsent(postId, id -> new Counter());
+        counter.views.add(views);
+        // 累加前后计数器被移除：落在旧计数器上的浏览不会再被写入，转回缓冲
+        if (pending.get(postId) != counter) {
+            reclaim(postId, counter);
+        }
+    }
+
+    /**
+     * 取走已移除计数器中残留的浏览并放回缓冲。
+     * 写入线程（移除后检查）与累加线程（累加后发现已移除）都可能调用，take 互斥，残留只会被取走一次
+     */
+    private void reclaim(Long postId, Counter removed) {
+        long views = removed.take();
+        if (views != 0) {
+            add(postId, views);
+        }
+    }
+
+    /**
+     * 尚未写入数据库的帖子数（用于监控）
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 将累计的浏览量写入数据库，返回写入的帖子数
+     */
+    @Scheduled(fixedDelayString = "${forum.views.flush-interval-ms:5000}")
+    public synchronized int flush() {
+        List<ContentMetric> deltas = drain();
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        int written = 0;
+        for (int from = 0; from < deltas.size(); from += FLUSH_BATCH_SIZE) {
+            List<ContentMetric> batch = deltas.subList(from, Math.min(from + FLUSH_BATCH_SIZE, deltas.size()));
+            try {
+                metricMapper.batchIncrementMetric(batch, "view_count");
+                written += batch.size();
+            } catch (Exception e) {
+                logger.error("写入浏览量失败，增量保留到下次写入 - 帖子数: {}", batch.size(), e);
+                for (ContentMetric delta : batch) {
+                    add(delta.getContentId(), delta.getMetricValue());
+                }
+            }
+        }
+        logger.debug("浏览量写入完成 - 帖子数: {}", written);
+        return written;
+    }
+
+    @PreDestroy
+    public synchronized void flushOnShutdown() {
+        int remaining = pending.size();
+        if (remaining > 0) {
+            logger.info("应用关闭，写入剩余浏览量 - 帖子数: {}", remaining);
+            flush();
+        }
+    }
+
+    /**
+     * 取出全部增量并清零，按帖子ID排序（多个节点同时写入时加锁顺序一致，避免死锁）。
+     * 连续 EVICT_AFTER_IDLE_FLUSHES 个周期没有新增浏览的帖子从缓冲中移除
+     */
+    private List<ContentMetric> drain() {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Map.Entry<Long, Counter> entry : pending.entrySet()) {
+            Counter counter = entry.getValue();
+            long count = counter.take();
+            if (count > 0) {
+                counts.merge(entry.getKey(), count, Long::sum);
+                counter.idleFlushes = 0;
+            } else if (++counter.idleFlushes >= EVICT_AFTER_IDLE_FLUSHES
+                    && pending.remove(entry.getKey(), counter)) {
+                // 取值到移除之间可能有新的浏览，移除后再检查一次
+                reclaim(entry.getKey(), counter);
+            }
+        }
+
+        List<ContentMetric> deltas = new ArrayList<>(counts.size());
+        counts.forEach((postId, count) ->
+                deltas.add(new ContentMetric(postId, null, (int) Math.min(count, Integer.MAX_VALUE))));
+        deltas.sort((a, b) -> Long.compare(a.getContentId(), b.getContentId()));
+        return deltas;
+    }
+
+    /**
+     * 单个帖子的计数器：累加使用 LongAdder 不加锁，idleFlushes 只由写入线程访问
+     */
+    private static final class Counter {
+        private final LongAdder views = new LongAdder();
+        private int idleFlushes;
+
+        /**
+         * 取走计数器当前的值。
+         * 不用 sumThenReset：它与并发累加不是原子的，读取和清零之间的累加会丢失；
+         * 这里只减去已读到的值，并发累加留在计数器中下次写入。
+         * 取值之间互斥（只在写入与回收时发生，累加不受影响），同一份浏览不会被取走两次
+         */
+        private synchronized long take() {
+            long count = views.sum();
+            if (count != 0) {
+                views.add(-count);
+            }
+            return count;
+        }
+    }
+}
@@ -1,24 +1,69 @@
 package com.sg.nusiss.gamevaultbackend.service.forum;
 
+import com.sg.nusiss.gamevaultbackend.util.forum.LongHashSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 /**
  * 浏览记录追踪器
  * 用于防止短时间内重复计数浏览量
+ *
+ * 本地模式：用户与帖子打包成一个 long 作为键，按时间分桶保存在原始 long 哈希集合中：
+ * 每个桶覆盖 1 分钟，保留最近 6 个桶，整桶过期，无需逐条扫描；
+ * 记录数超过上限时提前丢弃最旧的桶，内存不会随流量无限增长（代价是窗口暂时缩短）。
+ * 键按哈希分到多个分段，每段独立加锁。
+ *
+ * Redis 模式（forum.view-tracker.mode=redis）：SET NX + 过期时间，多个节点共享同一个 5 分钟窗口；
+ * Redis 不可用时退回本地模式。
  */
 @Service
 public class ViewTracker {
-    
-    // 存储格式: "userId_postId" -> lastViewTime
-    // 如果userId为null，使用sessionId
-    private final Map<String, Long> viewRecords = new ConcurrentHashMap<>();
-    
+
+    private static final Logger logger = LoggerFactory.getLogger(ViewTracker.class);
+
+    static final String REDIS_KEY_PREFIX = "forum:view:";
+
     // 时间窗口：5分钟内不重复计数
     private static final long VIEW_WINDOW_MS = TimeUnit.MINUTES.toMillis(5);
-    
+
+    // 每个桶覆盖的时间，窗口由 WINDOW_BUCKETS 个完整的桶加上当前桶组成，实际去重时间在 5~6 分钟之间
+    static final long BUCKET_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final int WINDOW_BUCKETS = (int) (VIEW_WINDOW_MS / BUCKET_MS);
+
+    private static final int STRIPES = 64;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final boolean redisMode;
+    private final LongSupplier clock;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    @Autowired
+    public ViewTracker(StringRedisTemplate stringRedisTemplate,
+                       @Value("${forum.view-tracker.mode:local}") String mode,
+                       @Value("${forum.view-tracker.max-entries:2000000}") int maxEntries) {
+        this(stringRedisTemplate, "redis".equalsIgnoreCase(mode), maxEntries, System::currentTimeMillis);
+    }
+
+    ViewTracker(StringRedisTemplate stringRedisTemplate, boolean redisMode, int maxEntries, LongSupplier clock) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisMode = redisMode;
+        this.clock = clock;
+        int perStripe = Math.max(1, maxEntries / STRIPES);
+        long now = clock.getAsLong();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe, now);
+        }
+    }
+
     /**
      * 检查是否应该增加浏览量
      * @param userId 用户ID（可能为null，未登录用户）
@@ -27,44 +72,164 @@ public class ViewTracker {
      * @return true如果应该增加浏览量，false如果在时间窗口内已浏览过
      */
     public boolean shouldIncrementView(Long userId, String sessionId, Long postId) {
-        String key = buildKey(userId, sessionId, postId);
-        long currentTime = System.currentTimeMillis();
-        
-        Long lastViewTime = viewRecords.get(key);
-        
-        // 如果从未浏览过，或者超过时间窗口
-        if (lastViewTime == null || (currentTime - lastViewTime) > VIEW_WINDOW_MS) {
-            viewRecords.put(key, currentTime);
-            return true;
+        long key = buildKey(userId, sessionId, postId);
+
+        if (redisMode) {
+            try {
+                Boolean first = stringRedisTemplate.opsForValue()
+                        .setIfAbsent(REDIS_KEY_PREFIX + Long.toHexString(key), "1", Duration.ofMillis(VIEW_WINDOW_MS));
+                return !Boolean.FALSE.equals(first);
+            } catch (Exception e) {
+                logger.warn("Redis 浏览去重失败，使用本地记录 - 帖子ID: {}", postId, e);
+            }
         }
-        
-        // 在时间窗口内，不增加浏览量
-        return false;
+
+        return stripeOf(key).markIfAbsent(key, clock.getAsLong());
     }
-    
+
     /**
      * 构建缓存key
+     * 用户ID在 31 位、帖子ID在 32 位以内时无损打包（高位用户、低 32 位帖子），
+     * 否则以及未登录用户使用哈希，碰撞只会让极少数浏览不被计数
      */
-    private String buildKey(Long userId, String sessionId, Long postId) {
-        String userIdentifier = userId != null ? "user_" + userId : "session_" + sessionId;
-        return userIdentifier + "_post_" + postId;
+    static long buildKey(Long userId, String sessionId, Long postId) {
+        long post = postId != null ? postId : 0L;
+        if (userId != null) {
+            if ((userId >>> 31) == 0 && (post >>> 32) == 0) {
+                return (userId << 32) | post;
+            }
+            return mix(mix(userId) ^ post) & Long.MAX_VALUE;
+        }
+        long session = 1125899906842597L;
+        if (sessionId != null) {
+            for (byte b : sessionId.getBytes(StandardCharsets.UTF_8)) {
+                session = 31 * session + b;
+            }
+        }
+        // 最高位置 1，与打包后的登录用户键（最高位为 0）区分
+        return mix(session ^ mix(post)) | Long.MIN_VALUE;
     }
-    
+
     /**
      * 清理过期记录（可选，由定时任务调用）
+     * 访问时也会按时间轮转，这里处理长时间没有访问的分段
      */
     public void cleanExpiredRecords() {
-        long currentTime = System.currentTimeMillis();
-        viewRecords.entrySet().removeIf(entry -> 
-            (currentTime - entry.getValue()) > VIEW_WINDOW_MS
-        );
+        long now = clock.getAsLong();
+        for (Stripe stripe : stripes) {
+            stripe.rotate(now);
+        }
     }
-    
+
     /**
      * 获取当前记录数（用于监控）
      */
     public int getRecordCount() {
-        return viewRecords.size();
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            total += stripe.size();
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
     }
-}
 
+    /**
+     * 当前占用的哈希表字节数（用于监控）
+     */
+    public long getTableBytes() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            total += stripe.tableBytes();
+        }
+        return total;
+    }
+
+    private Stripe stripeOf(long key) {
+        // 与 LongHashSet 内部使用不同的混合，避免同一分段的键挤在相同的槽位上
+        return stripes[(int) ((key * 0x9E3779B97F4A7C15L) >>> 58)];
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 一个分段：环形的时间桶，buckets[current] 为当前桶
+     */
+    private static final class Stripe {
+
+        private final LongHashSet[] buckets = new LongHashSet[WINDOW_BUCKETS + 1];
+        private final int maxEntries;
+        private int current;
+        private long currentStart;
+        private int size;
+
+        Stripe(int maxEntries, long now) {
+            this.maxEntries = maxEntries;
+            this.currentStart = now - now % BUCKET_MS;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongHashSet();
+            }
+        }
+
+        synchronized boolean markIfAbsent(long key, long now) {
+            rotate(now);
+            for (LongHashSet bucket : buckets) {
+                if (bucket.contains(key)) {
+                    return false;
+                }
+            }
+            if (size >= maxEntries) {
+                evictOldest();
+            }
+            buckets[current].add(key);
+            size++;
+            return true;
+        }
+
+        synchronized void rotate(long now) {
+            long elapsed = (now - currentStart) / BUCKET_MS;
+            if (elapsed <= 0) {
+                return;
+            }
+            // 超过整个环时全部清空
+            int steps = (int) Math.min(elapsed, buckets.length);
+            for (int i = 0; i < steps; i++) {
+                current = (current + 1) % buckets.length;
+                size -= buckets[current].size();
+                buckets[current].clear();
+            }
+            currentStart += elapsed * BUCKET_MS;
+        }
+
+        /**
+         * 达到上限：丢弃最旧的非空桶，只剩当前桶时清空当前桶
+         */
+        private void evictOldest() {
+            for (int i = 1; i <= buckets.length; i++) {
+                LongHashSet bucket = buckets[(current + i) % buckets.length];
+                if (!bucket.isEmpty()) {
+                    size -= bucket.size();
+                    bucket.clear();
+                    return;
+                }
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long tableBytes() {
+            long total = 0;
+            for (LongHashSet bucket : buckets) {
+                total += bucket.tableBytes();
+            }
+            return total;
+        }
+    }
+}
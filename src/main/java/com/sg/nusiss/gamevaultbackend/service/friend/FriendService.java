@@ -1,5 +1,6 @@
 package com.sg.nusiss.gamevaultbackend.service.friend;
 
+import com.sg.nusiss.gamevaultbackend.cache.FriendshipCache;
 import com.sg.nusiss.gamevaultbackend.common.ErrorCode;
 import com.sg.nusiss.gamevaultbackend.dto.friend.response.FriendRequestResponse;
 import com.sg.nusiss.gamevaultbackend.dto.friend.response.FriendResponse;
@@ -33,6 +34,7 @@ public class FriendService {
     private final UserRepository userRepository;
     private final FriendRequestRepository friendRequestRepository;
     private final FriendshipRepository friendshipRepository;
+    private final FriendshipCache friendshipCache;
 
     /**
      * 搜索用户
@@ -182,6 +184,8 @@ public class FriendService {
 
         friendshipRepository.save(friendship1);
         friendshipRepository.save(friendship2);
+
+        friendshipCache.evict(userId1, userId2);
     }
 
     /**
@@ -231,6 +235,8 @@ public class FriendService {
 
         friendshipRepository.save(friendship1);
         friendshipRepository.save(friendship2);
+
+        friendshipCache.evict(userId, friendId);
     }
 
     /**
@@ -0,0 +1,54 @@
+package com.sg.nusiss.gamevaultbackend.service.message;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+
+/**
+ * 聊天事件广播
+ * 每个事件只通过 SimpMessagingTemplate 的消息转换器序列化一次，得到的 byte[] 被所有目的地共用；
+ * SimpleBroker 向各订阅会话投递、跨节点转发时也直接复用这份字节，不再逐次转换 DTO。
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ChatBroadcastService {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    /**
+     * 将同一个事件发送到一个或多个目的地
+     */
+    public void broadcast(Object payload, String... destinations) {
+        Message<?> serialized = messagingTemplate.getMessageConverter().toMessage(payload, null);
+        if (serialized == null || !(serialized.getPayload() instanceof byte[] body)) {
+            // 转换器无法输出字节时退回逐个目的地转换
+            log.warn("无法预序列化广播内容，逐个发送 - 类型: {}", payload.getClass().getSimpleName());
+            for (String destination : destinations) {
+                messagingTemplate.convertAndSend(destination, payload);
+            }
+            return;
+        }
+
+        MimeType contentType = serialized.getHeaders().get(MessageHeaders.CONTENT_TYPE, MimeType.class);
+        for (String destination : destinations) {
+            messagingTemplate.send(destination, MessageBuilder.createMessage(body, headers(contentType)));
+        }
+    }
+
+    private static MessageHeaders headers(MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        if (contentType != null) {
+            accessor.setContentType(contentType);
+        }
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
+}
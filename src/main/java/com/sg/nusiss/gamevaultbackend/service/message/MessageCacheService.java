@@ -1,12 +1,19 @@
 package com.sg.nusiss.gamevaultbackend.service.message;
 
+import com.sg.nusiss.gamevaultbackend.cache.ChatMessageRedisSerializer;
 import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -21,15 +28,64 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class MessageCacheService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisTemplate<String, MessageResponse> chatMessageRedisTemplate;
 
     // Redis key 前缀
     private static final String MESSAGE_CACHE_PREFIX = "chat:messages:";
-    // 每个群聊缓存最近多少条消息
-    private static final int CACHE_SIZE = 100;
+    // 私聊 key 前缀，后接 {较小用户ID}:{较大用户ID}
+    private static final String PRIVATE_CACHE_PREFIX = "chat:private:";
+    // 每个群聊 / 私聊缓存最近多少条消息
+    static final int CACHE_SIZE = 100;
     // 缓存过期时间（天）
     private static final long CACHE_EXPIRE_DAYS = 7;
 
+    /**
+     * 追加单条消息：RPUSH + LTRIM + EXPIRE 在一个脚本内完成（一次往返，原子执行）
+     * ARGV[1] = 保留条数, ARGV[2] = 过期秒数, ARGV[3] = 消息
+     */
+    static final RedisScript<Long> APPEND_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('RPUSH', KEYS[1], ARGV[3]) " +
+            "redis.call('LTRIM', KEYS[1], -tonumber(ARGV[1]), -1) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+            "return 1",
+            Long.class);
+
+    /**
+     * 整体替换缓存：DEL + RPUSH(全部) + EXPIRE 原子执行，读方不会看到空列表或半个列表
+     * ARGV[1] = 过期秒数, ARGV[2..n] = 消息（从旧到新）；缓存包含全部历史时 ARGV[2] 为历史起点标记，
+     * 之后追加导致裁剪时标记随最旧的条目一起被 LTRIM 移除
+     */
+    static final RedisScript<Long> REPLACE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('DEL', KEYS[1]) " +
+            "redis.call('RPUSH', KEYS[1], unpack(ARGV, 2)) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+            "return #ARGV - 1",
+            Long.class);
+
+    private static final long CACHE_EXPIRE_SECONDS = TimeUnit.DAYS.toSeconds(CACHE_EXPIRE_DAYS);
+    private static final RedisSerializer<Long> RESULT_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    /**
+     * 缓存中最新一页的读取结果
+     * messages 从旧到新；complete 为 true 表示会话中没有比 messages 更早的消息
+     */
+    public record CachedPage(List<MessageResponse> messages, boolean complete) {
+
+        /**
+         * 能否直接作为最新一页返回：凑满一页，或者缓存已包含全部历史
+         */
+        public boolean servable(int limit) {
+            return complete || messages.size() >= limit;
+        }
+
+        /**
+         * 更早的消息是否可能存在（凑满一页但没读到历史起点时按存在处理）
+         */
+        public boolean hasMore() {
+            return !complete;
+        }
+    }
+
     /**
      * 获取 Redis key
      */
@@ -37,24 +93,19 @@ public class MessageCacheService {
         return MESSAGE_CACHE_PREFIX + conversationId;
     }
 
+    /**
+     * 私聊 key：按 (较小用户ID, 较大用户ID) 规范化，双方读写同一个列表
+     */
+    private String getPrivateCacheKey(Long userId1, Long userId2) {
+        return PRIVATE_CACHE_PREFIX + Math.min(userId1, userId2) + ":" + Math.max(userId1, userId2);
+    }
+
     /**
      * 缓存单条消息
      */
     public void cacheMessage(MessageResponse message) {
         try {
-            String key = getCacheKey(message.getConversationId());
-
-            // 添加到列表末尾（最新消息）
-            redisTemplate.opsForList().rightPush(key, message);
-
-            // 保持列表长度
-            Long size = redisTemplate.opsForList().size(key);
-            if (size != null && size > CACHE_SIZE) {
-                redisTemplate.opsForList().leftPop(key);
-            }
-
-            // 设置过期时间
-            redisTemplate.expire(key, CACHE_EXPIRE_DAYS, TimeUnit.DAYS);
+            append(getCacheKey(message.getConversationId()), message);
 
             log.debug("消息已缓存 - 群聊ID: {}, 消息ID: {}",
                     message.getConversationId(), message.getId());
@@ -69,29 +120,7 @@ public class MessageCacheService {
      */
     public List<MessageResponse> getCachedMessages(Long conversationId, int limit) {
         try {
-            String key = getCacheKey(conversationId);
-
-            Long size = redisTemplate.opsForList().size(key);
-            if (size == null || size == 0) {
-                return new ArrayList<>();
-            }
-
-            // 获取最后 limit 条
-            long start = Math.max(0, size - limit);
-            List<Object> cached = redisTemplate.opsForList().range(key, start, -1);
-
-            if (cached == null || cached.isEmpty()) {
-                return new ArrayList<>();
-            }
-
-            // 转换类型
-            List<MessageResponse> messages = new ArrayList<>();
-            for (Object obj : cached) {
-                if (obj instanceof MessageResponse) {
-                    messages.add((MessageResponse) obj);
-                }
-            }
-
+            List<MessageResponse> messages = range(getCacheKey(conversationId), limit);
             log.debug("从缓存获取消息 - 群聊ID: {}, 数量: {}", conversationId, messages.size());
             return messages;
         } catch (Exception e) {
@@ -100,33 +129,36 @@ public class MessageCacheService {
         }
     }
 
+    /**
+     * 读取最新一页并判断是否还有更早的消息
+     */
+    public CachedPage getCachedPage(Long conversationId, int limit) {
+        try {
+            return rangePage(getCacheKey(conversationId), limit);
+        } catch (Exception e) {
+            log.error("获取缓存消息失败", e);
+            return new CachedPage(new ArrayList<>(), false);
+        }
+    }
+
     /**
      * 批量缓存消息（初始化缓存用）
      */
     public void batchCacheMessages(Long conversationId, List<MessageResponse> messages) {
+        batchCacheMessages(conversationId, messages, false);
+    }
+
+    /**
+     * 批量缓存消息，complete 为 true 表示 messages 已是会话的全部消息（空会话也会缓存）
+     */
+    public void batchCacheMessages(Long conversationId, List<MessageResponse> messages, boolean complete) {
         try {
-            if (messages == null || messages.isEmpty()) {
+            if (messages == null || (messages.isEmpty() && !complete)) {
                 return;
             }
 
-            String key = getCacheKey(conversationId);
-
-            // 清空旧缓存
-            redisTemplate.delete(key);
-
-            // 只缓存最近的消息
-            int start = Math.max(0, messages.size() - CACHE_SIZE);
-            List<MessageResponse> toCache = messages.subList(start, messages.size());
-
-            // 批量添加
-            for (MessageResponse msg : toCache) {
-                redisTemplate.opsForList().rightPush(key, msg);
-            }
-
-            // 设置过期时间
-            redisTemplate.expire(key, CACHE_EXPIRE_DAYS, TimeUnit.DAYS);
-
-            log.info("批量缓存消息 - 群聊ID: {}, 数量: {}", conversationId, toCache.size());
+            int count = replace(getCacheKey(conversationId), messages, complete);
+            log.info("批量缓存消息 - 群聊ID: {}, 数量: {}", conversationId, count);
         } catch (Exception e) {
             log.error("批量缓存消息失败", e);
         }
@@ -138,10 +170,182 @@ public class MessageCacheService {
     public void clearCache(Long conversationId) {
         try {
             String key = getCacheKey(conversationId);
-            redisTemplate.delete(key);
+            chatMessageRedisTemplate.delete(key);
             log.info("清除缓存 - 群聊ID: {}", conversationId);
         } catch (Exception e) {
             log.error("清除缓存失败", e);
         }
     }
+
+    /**
+     * 缓存单条私聊消息
+     */
+    public void cachePrivateMessage(MessageResponse message) {
+        try {
+            append(getPrivateCacheKey(message.getSenderId(), message.getReceiverId()), message);
+
+            log.debug("私聊消息已缓存 - 发送者: {}, 接收者: {}, 消息ID: {}",
+                    message.getSenderId(), message.getReceiverId(), message.getId());
+        } catch (Exception e) {
+            log.error("缓存私聊消息失败", e);
+        }
+    }
+
+    /**
+     * 获取缓存的最近私聊消息
+     */
+    public List<MessageResponse> getCachedPrivateMessages(Long userId1, Long userId2, int limit) {
+        try {
+            List<MessageResponse> messages = range(getPrivateCacheKey(userId1, userId2), limit);
+            log.debug("从缓存获取私聊消息 - 用户: {}, {}, 数量: {}", userId1, userId2, messages.size());
+            return messages;
+        } catch (Exception e) {
+            log.error("获取缓存私聊消息失败", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 读取私聊最新一页并判断是否还有更早的消息
+     */
+    public CachedPage getCachedPrivatePage(Long userId1, Long userId2, int limit) {
+        try {
+            return rangePage(getPrivateCacheKey(userId1, userId2), limit);
+        } catch (Exception e) {
+            log.error("获取缓存私聊消息失败", e);
+            return new CachedPage(new ArrayList<>(), false);
+        }
+    }
+
+    /**
+     * 批量缓存私聊消息（首屏从数据库加载后回填）
+     */
+    public void batchCachePrivateMessages(Long userId1, Long userId2, List<MessageResponse> messages) {
+        batchCachePrivateMessages(userId1, userId2, messages, false);
+    }
+
+    /**
+     * 批量缓存私聊消息，complete 为 true 表示 messages 已是双方的全部消息（空会话也会缓存）
+     */
+    public void batchCachePrivateMessages(Long userId1, Long userId2, List<MessageResponse> messages,
+                                          boolean complete) {
+        try {
+            if (messages == null || (messages.isEmpty() && !complete)) {
+                return;
+            }
+
+            int count = replace(getPrivateCacheKey(userId1, userId2), messages, complete);
+            log.info("批量缓存私聊消息 - 用户: {}, {}, 数量: {}", userId1, userId2, count);
+        } catch (Exception e) {
+            log.error("批量缓存私聊消息失败", e);
+        }
+    }
+
+    /**
+     * 清除私聊缓存
+     */
+    public void clearPrivateCache(Long userId1, Long userId2) {
+        try {
+            chatMessageRedisTemplate.delete(getPrivateCacheKey(userId1, userId2));
+            log.info("清除私聊缓存 - 用户: {}, {}", userId1, userId2);
+        } catch (Exception e) {
+            log.error("清除私聊缓存失败", e);
+        }
+    }
+
+    /**
+     * 添加到列表末尾（最新消息），裁剪长度并续期，一次往返
+     */
+    private void append(String key, MessageResponse message) {
+        chatMessageRedisTemplate.execute(APPEND_SCRIPT, RedisSerializer.byteArray(), RESULT_SERIALIZER,
+                Collections.singletonList(key),
+                toArg(CACHE_SIZE), toArg(CACHE_EXPIRE_SECONDS), serializeMessage(message));
+    }
+
+    /**
+     * 清空旧缓存、批量写入、设置过期时间在同一脚本内原子完成，只保留最近 CACHE_SIZE 条
+     * 全部消息都放得下时在最前面写入历史起点标记
+     */
+    private int replace(String key, List<MessageResponse> messages, boolean complete) {
+        int start = Math.max(0, messages.size() - CACHE_SIZE);
+        List<MessageResponse> toCache = messages.subList(start, messages.size());
+        int offset = complete && start == 0 ? 2 : 1;
+
+        Object[] args = new Object[toCache.size() + offset];
+        args[0] = toArg(CACHE_EXPIRE_SECONDS);
+        if (offset == 2) {
+            args[1] = serializeMessage(ChatMessageRedisSerializer.HISTORY_START);
+        }
+        for (int i = 0; i < toCache.size(); i++) {
+            args[i + offset] = serializeMessage(toCache.get(i));
+        }
+
+        chatMessageRedisTemplate.execute(REPLACE_SCRIPT, RedisSerializer.byteArray(), RESULT_SERIALIZER,
+                Collections.singletonList(key), args);
+        return toCache.size();
+    }
+
+    /**
+     * 读取最后 limit 条：负下标直接定位，无需先 LLEN
+     */
+    private List<MessageResponse> range(String key, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        List<MessageResponse> cached = chatMessageRedisTemplate.opsForList().range(key, -limit, -1);
+        if (cached == null || cached.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 过滤无法解码的条目和历史起点标记
+        List<MessageResponse> messages = new ArrayList<>(cached.size());
+        for (MessageResponse message : cached) {
+            if (message != null && message != ChatMessageRedisSerializer.HISTORY_START) {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * 多读一条：读到 limit + 1 条消息说明还有更早的消息，读到历史起点标记说明没有
+     */
+    private CachedPage rangePage(String key, int limit) {
+        if (limit <= 0) {
+            return new CachedPage(new ArrayList<>(), false);
+        }
+
+        List<MessageResponse> cached = chatMessageRedisTemplate.opsForList().range(key, -(limit + 1L), -1);
+        if (cached == null || cached.isEmpty()) {
+            return new CachedPage(new ArrayList<>(), false);
+        }
+
+        boolean complete = cached.get(0) == ChatMessageRedisSerializer.HISTORY_START;
+        List<MessageResponse> messages = new ArrayList<>(cached.size());
+        for (MessageResponse message : cached) {
+            if (message == null) {
+                // 有条目无法解码：这一页不完整，交给数据库重建
+                complete = false;
+            } else if (message != ChatMessageRedisSerializer.HISTORY_START) {
+                messages.add(message);
+            }
+        }
+        if (messages.size() > limit) {
+            return new CachedPage(new ArrayList<>(messages.subList(messages.size() - limit, messages.size())), false);
+        }
+        return new CachedPage(messages, complete);
+    }
+
+    /**
+     * 脚本参数统一以原始字节传入：消息使用模板的值序列化器（ChatMessageRedisSerializer），与 LRANGE 读取时保持一致
+     */
+    @SuppressWarnings("unchecked")
+    private byte[] serializeMessage(MessageResponse message) {
+        return ((RedisSerializer<MessageResponse>) chatMessageRedisTemplate.getValueSerializer()).serialize(message);
+    }
+
+    private static byte[] toArg(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
 }
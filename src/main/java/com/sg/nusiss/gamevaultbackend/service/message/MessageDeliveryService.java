@@ -0,0 +1,260 @@
+package com.sg.nusiss.gamevaultbackend.service.message;
+
+import com.sg.nusiss.gamevaultbackend.common.ErrorCode;
+import com.sg.nusiss.gamevaultbackend.dto.message.request.AckRequest;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.CatchUpResponse;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse;
+import com.sg.nusiss.gamevaultbackend.entity.conversation.Conversation;
+import com.sg.nusiss.gamevaultbackend.entity.conversation.Member;
+import com.sg.nusiss.gamevaultbackend.entity.message.Message;
+import com.sg.nusiss.gamevaultbackend.exception.BusinessException;
+import com.sg.nusiss.gamevaultbackend.repository.conversation.MemberRepository;
+import com.sg.nusiss.gamevaultbackend.repository.message.MessageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息送达游标与重连补齐
+ * 客户端收到消息后确认（ack）：群聊确认到序号，私聊确认到消息 ID，游标保存在 Redis HASH chat:delivery:{userId}。
+ * 私聊发送时在双方的 chat:dm:latest:{userId}（ZSET，成员为对方用户ID，分数为最新消息ID）中登记，
+ * 补齐时无需遍历好友列表即可找出有新消息的私聊。
+ *
+ * 补齐只返回游标之后的消息：群聊一次查询成员记录，用 next_seq 与游标比较；
+ * 能被 Redis 最近消息缓存完整覆盖时直接从缓存返回，否则按序号 / ID 区间查询数据库。
+ * 每个群聊 / 私聊最多返回 CATCH_UP_LIMIT 条，其余由客户端通过同步接口继续拉取。
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MessageDeliveryService {
+
+    static final String CURSOR_PREFIX = "chat:delivery:";
+    static final String DM_LATEST_PREFIX = "chat:dm:latest:";
+
+    // 每个群聊 / 私聊单次补齐的最大条数
+    static final int CATCH_UP_LIMIT = 50;
+    // 单次确认的最大条目数
+    static final int MAX_ACKS = 200;
+
+    private static final long CURSOR_EXPIRE_SECONDS = TimeUnit.DAYS.toSeconds(30);
+
+    /**
+     * 游标只前进：ARGV[1] = 过期秒数, ARGV[2..n] = 字段, 值 交替
+     */
+    static final RedisScript<Long> ACK_SCRIPT = new DefaultRedisScript<>(
+            "local advanced = 0 " +
+            "for i = 2, #ARGV, 2 do " +
+            "  local current = tonumber(redis.call('HGET', KEYS[1], ARGV[i]) or '0') " +
+            "  if tonumber(ARGV[i + 1]) > current then " +
+            "    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) advanced = advanced + 1 " +
+            "  end " +
+            "end " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+            "return advanced", Long.class);
+
+    /**
+     * 私聊登记：KEYS = 发送者、接收者的 latest 集合；ARGV = 消息ID, 接收者ID, 发送者ID, 过期秒数
+     */
+    static final RedisScript<Long> RECORD_PRIVATE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2]) " +
+            "redis.call('ZADD', KEYS[2], ARGV[1], ARGV[3]) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[4]) " +
+            "redis.call('EXPIRE', KEYS[2], ARGV[4]) " +
+            "return 1", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MemberRepository memberRepository;
+    private final MessageRepository messageRepository;
+    private final MessageCacheService messageCacheService;
+    private final MessageResponseAssembler messageResponseAssembler;
+
+    /**
+     * 登记一条私聊消息（发送成功后调用，失败不影响发送）
+     */
+    public void recordPrivateMessage(Long senderId, Long receiverId, Long messageId) {
+        try {
+            stringRedisTemplate.execute(RECORD_PRIVATE_SCRIPT,
+                    List.of(DM_LATEST_PREFIX + senderId, DM_LATEST_PREFIX + receiverId),
+                    messageId.toString(), receiverId.toString(), senderId.toString(),
+                    String.valueOf(CURSOR_EXPIRE_SECONDS));
+        } catch (Exception e) {
+            log.error("登记私聊消息失败 - 发送者: {}, 接收者: {}", senderId, receiverId, e);
+        }
+    }
+
+    /**
+     * 批量确认送达，返回实际前进的游标数
+     */
+    public int ack(Long userId, List<AckRequest.Ack> acks) {
+        if (acks == null || acks.isEmpty()) {
+            return 0;
+        }
+        if (acks.size() > MAX_ACKS) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "单次最多确认 " + MAX_ACKS + " 条");
+        }
+
+        List<String> args = new ArrayList<>(acks.size() * 2 + 1);
+        args.add(String.valueOf(CURSOR_EXPIRE_SECONDS));
+        for (AckRequest.Ack ack : acks) {
+            if (ack.getConversationId() != null && ack.getSeq() != null && ack.getSeq() > 0) {
+                args.add(groupField(ack.getConversationId()));
+                args.add(ack.getSeq().toString());
+            } else if (ack.getPeerId() != null && ack.getMessageId() != null && ack.getMessageId() > 0) {
+                args.add(privateField(ack.getPeerId()));
+                args.add(ack.getMessageId().toString());
+            } else {
+                throw new BusinessException(ErrorCode.PARAMS_ERROR, "确认条目缺少 conversationId/seq 或 peerId/messageId");
+            }
+        }
+
+        Long advanced = stringRedisTemplate.execute(ACK_SCRIPT, List.of(CURSOR_PREFIX + userId), args.toArray());
+        return advanced != null ? advanced.intValue() : 0;
+    }
+
+    /**
+     * 重连补齐：返回所有群聊和私聊中送达游标之后的消息
+     */
+    public CatchUpResponse catchUp(Long userId) {
+        Map<Object, Object> cursors = stringRedisTemplate.opsForHash().entries(CURSOR_PREFIX + userId);
+        List<CatchUpResponse.Batch> batches = new ArrayList<>();
+
+        // 1. 群聊：一次查询活跃群聊中的成员记录（含群聊），无新消息的直接跳过
+        for (Member member : memberRepository.findActiveByUserIdWithConversation(userId)) {
+            Conversation conversation = member.getConversation();
+            long latestSeq = conversation.getNextSeq() - 1;
+            // 从未确认过的群聊以已读游标为起点
+            long cursor = cursorOf(cursors, groupField(conversation.getId()),
+                    member.getLastReadSeq() != null ? member.getLastReadSeq() : 0L);
+            if (latestSeq > cursor) {
+                batches.add(groupBatch(conversation.getId(), cursor, latestSeq));
+            }
+        }
+
+        // 2. 私聊：只检查最新消息ID大于游标的会话
+        Set<ZSetOperations.TypedTuple<String>> peers =
+                stringRedisTemplate.opsForZSet().rangeWithScores(DM_LATEST_PREFIX + userId, 0, -1);
+        if (peers != null) {
+            for (ZSetOperations.TypedTuple<String> peer : peers) {
+                if (peer.getValue() == null || peer.getScore() == null) {
+                    continue;
+                }
+                Long peerId = Long.valueOf(peer.getValue());
+                long cursor = cursorOf(cursors, privateField(peerId), 0L);
+                if (peer.getScore().longValue() > cursor) {
+                    batches.add(privateBatch(userId, peerId, cursor));
+                }
+            }
+        }
+
+        log.info("重连补齐 - 用户ID: {}, 有新消息的会话数: {}", userId, batches.size());
+        return new CatchUpResponse(batches);
+    }
+
+    /**
+     * 群聊补齐：缓存中最早一条的序号不大于 cursor + 1 时，缓存覆盖了全部缺失消息
+     */
+    private CatchUpResponse.Batch groupBatch(Long conversationId, long cursor, long latestSeq) {
+        List<MessageResponse> messages;
+        boolean hasMore;
+
+        List<MessageResponse> cached = messageCacheService.getCachedMessages(conversationId, MessageCacheService.CACHE_SIZE);
+        if (!cached.isEmpty() && cached.get(0).getSeq() != null && cached.get(0).getSeq() <= cursor + 1) {
+            List<MessageResponse> missing = new ArrayList<>();
+            for (MessageResponse message : cached) {
+                if (message.getSeq() != null && message.getSeq() > cursor) {
+                    missing.add(message);
+                }
+            }
+            hasMore = missing.size() > CATCH_UP_LIMIT;
+            messages = hasMore ? new ArrayList<>(missing.subList(0, CATCH_UP_LIMIT)) : missing;
+        } else {
+            Slice<Message> slice = messageRepository.findBySeqRange(conversationId, cursor, latestSeq,
+                    PageRequest.of(0, CATCH_UP_LIMIT));
+            messages = messageResponseAssembler.toResponses(slice.getContent(), "group");
+            hasMore = slice.hasNext();
+        }
+
+        return CatchUpResponse.Batch.builder()
+                .chatType("group")
+                .conversationId(conversationId)
+                .messages(messages)
+                .hasMore(hasMore)
+                .latestSeq(latestSeq)
+                .build();
+    }
+
+    /**
+     * 私聊补齐：缓存是最近消息的连续后缀，最早一条的 ID 不大于游标时即完整覆盖；
+     * 从未确认过的私聊只返回最近 CATCH_UP_LIMIT 条
+     */
+    private CatchUpResponse.Batch privateBatch(Long userId, Long peerId, long cursor) {
+        List<MessageResponse> messages;
+        boolean hasMore;
+
+        List<MessageResponse> cached = messageCacheService.getCachedPrivateMessages(userId, peerId,
+                MessageCacheService.CACHE_SIZE);
+        boolean covered = !cached.isEmpty() && (cursor == 0 || cached.get(0).getId() <= cursor);
+
+        if (covered) {
+            List<MessageResponse> missing = new ArrayList<>();
+            for (MessageResponse message : cached) {
+                if (message.getId() > cursor) {
+                    missing.add(message);
+                }
+            }
+            hasMore = missing.size() > CATCH_UP_LIMIT;
+            if (!hasMore) {
+                messages = missing;
+            } else if (cursor == 0) {
+                messages = new ArrayList<>(missing.subList(missing.size() - CATCH_UP_LIMIT, missing.size()));
+            } else {
+                messages = new ArrayList<>(missing.subList(0, CATCH_UP_LIMIT));
+            }
+        } else {
+            Long lowUserId = Math.min(userId, peerId);
+            Long highUserId = Math.max(userId, peerId);
+            List<Message> rows = cursor == 0
+                    ? messageRepository.findLatestPrivateMessages(lowUserId, highUserId, CATCH_UP_LIMIT + 1)
+                    : messageRepository.findPrivateMessagesAfter(lowUserId, highUserId, cursor, CATCH_UP_LIMIT + 1);
+            hasMore = rows.size() > CATCH_UP_LIMIT;
+            if (hasMore) {
+                rows = rows.subList(0, CATCH_UP_LIMIT);
+            }
+            messages = messageResponseAssembler.toResponses(rows, "private");
+            if (cursor == 0) {
+                // 最新一页为倒序，反转为从旧到新
+                Collections.reverse(messages);
+            }
+        }
+
+        return CatchUpResponse.Batch.builder()
+                .chatType("private")
+                .peerId(peerId)
+                .messages(messages)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    private static long cursorOf(Map<Object, Object> cursors, String field, long defaultValue) {
+        Object value = cursors != null ? cursors.get(field) : null;
+        return value != null ? Long.parseLong(value.toString()) : defaultValue;
+    }
+
+    private static String groupField(Long conversationId) {
+        return "g" + conversationId;
+    }
+
+    private static String privateField(Long peerId) {
+        return "p" + peerId;
+    }
+}
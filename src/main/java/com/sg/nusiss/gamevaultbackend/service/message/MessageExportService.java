@@ -0,0 +1,213 @@
+package com.sg.nusiss.gamevaultbackend.service.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sg.nusiss.gamevaultbackend.cache.ChatMembershipCache;
+import com.sg.nusiss.gamevaultbackend.cache.UserProfileCache;
+import com.sg.nusiss.gamevaultbackend.common.ErrorCode;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageExportRow;
+import com.sg.nusiss.gamevaultbackend.exception.BusinessException;
+import com.sg.nusiss.gamevaultbackend.repository.message.MessageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 群聊聊天记录导出
+ * 通过只读事务中的流式查询逐批读取消息，每攒满 CHUNK_SIZE 条批量解析一次发送者用户名后直接写入输出流，
+ * 内存中最多只保留一个批次，与群聊消息总数无关。
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MessageExportService {
+
+    private final MessageRepository messageRepository;
+    private final ChatMembershipCache chatMembershipCache;
+    private final UserProfileCache userProfileCache;
+
+    // 每批解析发送者资料的消息条数
+    static final int CHUNK_SIZE = 500;
+
+    private static final String CSV_HEADER =
+            "id,seq,sender_id,sender_username,message_type,content,file_name,file_size,access_url,created_at";
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        NDJSON("ndjson", "application/x-ndjson"),
+        CSV("csv", "text/csv");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "不支持的导出格式: " + value);
+        }
+    }
+
+    /**
+     * 导出前校验：群聊存在且当前用户是活跃成员（在开始写响应之前调用，便于返回正常的错误响应）
+     */
+    public void checkExportAccess(Long conversationId, Long userId) {
+        if (chatMembershipCache.getStatus(conversationId).isEmpty()) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "群聊不存在");
+        }
+        if (!chatMembershipCache.isActiveMember(conversationId, userId)) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "您不在该群聊中");
+        }
+    }
+
+    /**
+     * 将群聊消息按从旧到新写入输出流，返回导出条数
+     *
+     * @param gzip 是否使用 gzip 压缩输出
+     */
+    @Transactional(readOnly = true)
+    public long export(Long conversationId, Format format, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long count = 0;
+        List<MessageExportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        try (Stream<MessageExportRow> rows = messageRepository.streamForExport(conversationId)) {
+            for (MessageExportRow row : (Iterable<MessageExportRow>) rows::iterator) {
+                chunk.add(row);
+                if (chunk.size() == CHUNK_SIZE) {
+                    count += writeChunk(chunk, format, writer);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        count += writeChunk(chunk, format, writer);
+
+        writer.flush();
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+
+        log.info("导出聊天记录完成 - 群聊ID: {}, 格式: {}, gzip: {}, 数量: {}", conversationId, format, gzip, count);
+        return count;
+    }
+
+    /**
+     * 批量补齐发送者用户名后写出一个批次并清空
+     */
+    private int writeChunk(List<MessageExportRow> chunk, Format format, Writer writer) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> senderIds = new HashSet<>();
+        for (MessageExportRow row : chunk) {
+            senderIds.add(row.getSenderId());
+        }
+        Map<Long, UserProfileCache.UserProfile> profiles = userProfileCache.getAll(senderIds);
+
+        try {
+            for (MessageExportRow row : chunk) {
+                UserProfileCache.UserProfile profile = profiles.get(row.getSenderId());
+                row.setSenderUsername(profile != null ? profile.getUsername() : "未知用户");
+                if (format == Format.CSV) {
+                    writeCsvLine(row, writer);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int written = chunk.size();
+        chunk.clear();
+        return written;
+    }
+
+    private void writeCsvLine(MessageExportRow row, Writer writer) throws IOException {
+        writer.write(String.valueOf(row.getId()));
+        writer.write(',');
+        writer.write(row.getSeq() != null ? String.valueOf(row.getSeq()) : "");
+        writer.write(',');
+        writer.write(String.valueOf(row.getSenderId()));
+        writer.write(',');
+        writer.write(csv(row.getSenderUsername()));
+        writer.write(',');
+        writer.write(csv(row.getMessageType()));
+        writer.write(',');
+        writer.write(csv(row.getContent()));
+        writer.write(',');
+        writer.write(csv(row.getFileName()));
+        writer.write(',');
+        writer.write(row.getFileSize() != null ? String.valueOf(row.getFileSize()) : "");
+        writer.write(',');
+        writer.write(csv(row.getAccessUrl()));
+        writer.write(',');
+        writer.write(row.getCreatedAt() != null ? row.getCreatedAt().toString() : "");
+        writer.write('\n');
+    }
+
+    /**
+     * CSV 字段转义：包含逗号、引号或换行时加双引号，内部引号加倍
+     */
+    static String csv(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+}
@@ -0,0 +1,94 @@
+package com.sg.nusiss.gamevaultbackend.service.message;
+
+import com.sg.nusiss.gamevaultbackend.cache.UserProfileCache;
+import com.sg.nusiss.gamevaultbackend.cache.UserProfileCache.UserProfile;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse;
+import com.sg.nusiss.gamevaultbackend.entity.message.Message;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 消息响应组装器
+ * 群聊与私聊共用：一页消息先收集去重后的发送者ID，一次性解析用户资料，再逐条构建 MessageResponse。
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MessageResponseAssembler {
+
+    private final UserProfileCache userProfileCache;
+
+    /**
+     * 转换单条消息（发送消息时使用）
+     */
+    public MessageResponse toResponse(Message message, String chatType) {
+        UserProfile sender = userProfileCache.get(message.getSenderId()).orElse(null);
+        return buildResponse(message, sender, chatType);
+    }
+
+    /**
+     * 批量转换消息（历史消息分页使用），发送者资料只查询一次
+     */
+    public List<MessageResponse> toResponses(List<Message> messages, String chatType) {
+        List<MessageResponse> responses = new ArrayList<>(messages.size());
+        if (messages.isEmpty()) {
+            return responses;
+        }
+
+        Set<Long> senderIds = new LinkedHashSet<>();
+        for (Message message : messages) {
+            senderIds.add(message.getSenderId());
+        }
+
+        Map<Long, UserProfile> senders = userProfileCache.getAll(senderIds);
+
+        for (Message message : messages) {
+            responses.add(buildResponse(message, senders.get(message.getSenderId()), chatType));
+        }
+        return responses;
+    }
+
+    /**
+     * 构建响应对象（包含文件附件）
+     */
+    private MessageResponse buildResponse(Message message, UserProfile sender, String chatType) {
+        MessageResponse.MessageResponseBuilder responseBuilder = MessageResponse.builder()
+                .id(message.getId())
+                .conversationId(message.getConversationId())
+                .senderId(message.getSenderId())
+                .receiverId(message.getReceiverId())
+                .seq(message.getSeq())
+                .senderUsername(sender != null ? sender.getUsername() : "未知用户")
+                .senderEmail(sender != null ? sender.getEmail() : "")
+                .content(message.getContent())
+                .messageType(message.getMessageType())
+                .chatType(chatType)
+                .createdAt(message.getCreatedAt());
+
+        // 如果是文件消息，添加附件信息
+        if ("file".equals(message.getMessageType()) && message.getFileId() != null) {
+            MessageResponse.FileAttachment attachment = MessageResponse.FileAttachment.builder()
+                    .fileId(message.getFileId())
+                    .fileName(message.getFileName())
+                    .fileSize(message.getFileSize())
+                    .fileType(message.getFileType())
+                    .fileExt(message.getFileExt())
+                    .accessUrl(message.getAccessUrl())
+                    .thumbnailUrl(message.getThumbnailUrl())
+                    .build();
+
+            responseBuilder.attachment(attachment);
+            log.debug("构建文件附件 - fileId: {}, fileName: {}, accessUrl: {}",
+                    message.getFileId(), message.getFileName(), message.getAccessUrl());
+        }
+
+        return responseBuilder.build();
+    }
+}
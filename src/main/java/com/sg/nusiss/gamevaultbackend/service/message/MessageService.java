@@ -1,13 +1,13 @@
 package com.sg.nusiss.gamevaultbackend.service.message;
 
+import com.sg.nusiss.gamevaultbackend.cache.ChatMembershipCache;
 import com.sg.nusiss.gamevaultbackend.common.ErrorCode;
 import com.sg.nusiss.gamevaultbackend.dto.message.request.SendMessageRequest;
 import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse;
-import com.sg.nusiss.gamevaultbackend.entity.auth.User;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageSliceResponse;
 import com.sg.nusiss.gamevaultbackend.entity.conversation.Conversation;
 import com.sg.nusiss.gamevaultbackend.entity.message.Message;
 import com.sg.nusiss.gamevaultbackend.exception.BusinessException;
-import com.sg.nusiss.gamevaultbackend.repository.auth.UserRepository;
 import com.sg.nusiss.gamevaultbackend.repository.conversation.ConversationRepository;
 import com.sg.nusiss.gamevaultbackend.repository.conversation.MemberRepository;
 import com.sg.nusiss.gamevaultbackend.repository.message.MessageRepository;
@@ -16,12 +16,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -31,27 +33,35 @@ public class MessageService {
     private final MessageRepository messageRepository;
     private final ConversationRepository conversationRepository;
     private final MemberRepository memberRepository;
-    private final UserRepository userRepository;
+    private final MessageResponseAssembler messageResponseAssembler;
     private final MessageCacheService messageCacheService;
+    private final ChatMembershipCache chatMembershipCache;
+    private final MessageWriteBehindService messageWriteBehindService;
+    private final PlatformTransactionManager transactionManager;
+
+    // 游标分页单页最大条数
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    // 会话列表消息摘要最大长度
+    private static final int PREVIEW_LENGTH = 100;
 
     /**
      * 发送消息（同步到 MySQL + Redis）
+     * 不在方法上开启事务：异步落库模式下发送路径不占用数据库连接，同步模式只在分配序号 + 写入消息时开启事务
      */
-    @Transactional
     public MessageResponse sendMessage(SendMessageRequest request, Long senderId) {
-        // 1. 验证群聊存在
-        Conversation conversation = conversationRepository.findById(request.getConversationId())
+        // 1. 验证群聊存在（走成员缓存预检，最终以分配序号时的数据库校验为准）
+        String status = chatMembershipCache.getStatus(request.getConversationId())
                 .orElseThrow(() -> new BusinessException(ErrorCode.NOT_FOUND_ERROR, "群聊不存在"));
 
         // 2. 检查群聊是否已解散
-        if ("dissolved".equals(conversation.getStatus())) {
+        if ("dissolved".equals(status)) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "群聊已解散，无法发送消息");
         }
 
         // 3. 验证发送者是群成员
-        memberRepository.findByConversationIdAndUserIdAndIsActive(
-                request.getConversationId(), senderId, true
-        ).orElseThrow(() -> new BusinessException(ErrorCode.NO_AUTH_ERROR, "您不在该群聊中"));
+        if (!chatMembershipCache.isActiveMember(request.getConversationId(), senderId)) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "您不在该群聊中");
+        }
 
         // 4. 验证消息内容（文件消息可以没有文本内容）
         if ("text".equals(request.getMessageType()) &&
@@ -59,13 +69,16 @@ public class MessageService {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "消息内容不能为空");
         }
 
+        LocalDateTime now = LocalDateTime.now();
+        String preview = buildPreview(request);
+
         // 构建消息实体
         Message.MessageBuilder messageBuilder = Message.builder()
                 .conversationId(request.getConversationId())
                 .senderId(senderId)
                 .content(request.getContent() != null ? request.getContent().trim() : "")
                 .messageType(request.getMessageType() != null ? request.getMessageType() : "text")
-                .createdAt(LocalDateTime.now())
+                .createdAt(now)
                 .isDeleted(false);
 
         // 如果是文件消息，添加文件字段
@@ -82,10 +95,23 @@ public class MessageService {
             log.info("保存文件消息 - fileId: {}, fileName: {}", request.getFileId(), request.getFileName());
         }
 
-        Message message = messageRepository.save(messageBuilder.build());
+        Message message = messageBuilder.build();
+
+        if (messageWriteBehindService.isEnabled()) {
+            // 5a. 异步落库：预分配ID和序号，写入日志后立即返回供广播，摘要与已读游标随批次写入
+            messageWriteBehindService.assignIdAndSeq(message);
+            messageWriteBehindService.submit(message, preview);
+        } else {
+            // 5b. 分配群聊内消息序号，同时刷新群聊的最后一条消息摘要和发送者自己的已读游标
+            Message unsaved = message;
+            message = new TransactionTemplate(transactionManager).execute(tx -> {
+                unsaved.setSeq(allocateSeq(request.getConversationId(), preview, senderId, now));
+                return messageRepository.save(unsaved);
+            });
+        }
 
         // 转换为响应对象
-        MessageResponse response = convertToResponse(message);
+        MessageResponse response = messageResponseAssembler.toResponse(message, "group");
 
         log.info("转换后的响应 - messageType: {}, hasAttachment: {}, attachment: {}",
                 response.getMessageType(),
@@ -95,8 +121,8 @@ public class MessageService {
         // 缓存到 Redis
         messageCacheService.cacheMessage(response);
 
-        log.info("消息已发送并同步 - 群聊ID: {}, 发送者: {}, 消息ID: {}, 类型: {}",
-                request.getConversationId(), senderId, message.getId(), message.getMessageType());
+        log.info("消息已发送并同步 - 群聊ID: {}, 发送者: {}, 消息ID: {}, 序号: {}, 类型: {}",
+                request.getConversationId(), senderId, message.getId(), message.getSeq(), message.getMessageType());
 
         return response;
     }
@@ -105,15 +131,10 @@ public class MessageService {
      * 获取群聊历史消息（优先从 Redis 读取）
      */
     public List<MessageResponse> getMessages(Long conversationId, Long currentUserId, int page, int size) {
-        // 1. 验证群聊存在
-        conversationRepository.findById(conversationId)
-                .orElseThrow(() -> new BusinessException(ErrorCode.NOT_FOUND_ERROR, "群聊不存在"));
+        // 1. 验证群聊存在且用户是群成员（走成员缓存）
+        checkReadAccess(conversationId, currentUserId);
 
-        // 2. 验证用户是群成员
-        memberRepository.findByConversationIdAndUserIdAndIsActive(conversationId, currentUserId, true)
-                .orElseThrow(() -> new BusinessException(ErrorCode.NO_AUTH_ERROR, "您不在该群聊中"));
-
-        // 3. 第一页优先从 Redis 读取
+        // 2. 第一页优先从 Redis 读取
         if (page == 0) {
             List<MessageResponse> cachedMessages = messageCacheService.getCachedMessages(conversationId, size);
 
@@ -123,18 +144,17 @@ public class MessageService {
             }
         }
 
-        // 4. Redis 没有或不够，从 MySQL 查询
+        // 3. Redis 没有或不够，从 MySQL 查询
         Pageable pageable = PageRequest.of(page, size);
         Page<Message> messagePage = messageRepository.findByConversationId(conversationId, pageable);
 
-        List<MessageResponse> messages = messagePage.getContent().stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        // 批量组装：整页只解析一次发送者资料
+        List<MessageResponse> messages = messageResponseAssembler.toResponses(messagePage.getContent(), "group");
 
         // 反转顺序（从旧到新）
-        java.util.Collections.reverse(messages);
+        Collections.reverse(messages);
 
-        // 5. 第一页数据缓存到 Redis
+        // 4. 第一页数据缓存到 Redis
         if (page == 0 && !messages.isEmpty()) {
             messageCacheService.batchCacheMessages(conversationId, messages);
         }
@@ -144,41 +164,145 @@ public class MessageService {
     }
 
     /**
-     * 转换为响应对象（包含文件附件）
+     * 游标分页获取群聊历史消息
+     * beforeId / afterId 二选一，都为空时返回最新一页；基于 (conversation_id, id) 索引的 Slice 查询，不做 COUNT，
+     * 翻页深度不影响耗时
      */
-    private MessageResponse convertToResponse(Message message) {
-        User sender = userRepository.findById(message.getSenderId())
-                .orElse(null);
-
-        MessageResponse.MessageResponseBuilder responseBuilder = MessageResponse.builder()
-                .id(message.getId())
-                .conversationId(message.getConversationId())
-                .senderId(message.getSenderId())
-                .receiverId(message.getReceiverId())
-                .senderUsername(sender != null ? sender.getUsername() : "未知用户")
-                .senderEmail(sender != null ? sender.getEmail() : "")
-                .content(message.getContent())
-                .messageType(message.getMessageType())
-                .chatType("group")
-                .createdAt(message.getCreatedAt());
-
-        // 如果是文件消息，添加附件信息
-        if ("file".equals(message.getMessageType()) && message.getFileId() != null) {
-            MessageResponse.FileAttachment attachment = MessageResponse.FileAttachment.builder()
-                    .fileId(message.getFileId())
-                    .fileName(message.getFileName())
-                    .fileSize(message.getFileSize())
-                    .fileType(message.getFileType())
-                    .fileExt(message.getFileExt())
-                    .accessUrl(message.getAccessUrl())
-                    .thumbnailUrl(message.getThumbnailUrl())
-                    .build();
-
-            responseBuilder.attachment(attachment);
-            log.info("构建文件附件 - fileId: {}, fileName: {}, accessUrl: {}",
-                    message.getFileId(), message.getFileName(), message.getAccessUrl());
-        }
-
-        return responseBuilder.build();
+    public MessageSliceResponse getMessagesByCursor(Long conversationId, Long currentUserId,
+                                                    Long beforeId, Long afterId, int size) {
+        // 1. 验证群聊存在且用户是群成员（走成员缓存）
+        checkReadAccess(conversationId, currentUserId);
+
+        if (beforeId != null && afterId != null) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "before 和 after 不能同时指定");
+        }
+
+        int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        Pageable pageable = PageRequest.of(0, limit);
+
+        // 2. 向下追加新消息（按 id 正序，无需反转）
+        if (afterId != null) {
+            Slice<Message> slice = messageRepository.findHistoryAfterMessage(conversationId, afterId, pageable);
+            List<MessageResponse> messages = messageResponseAssembler.toResponses(slice.getContent(), "group");
+            return MessageSliceResponse.of(messages, slice.hasNext());
+        }
+
+        // 3. 最新一页优先从 Redis 读取
+        if (beforeId == null) {
+            MessageCacheService.CachedPage cached = messageCacheService.getCachedPage(conversationId, limit);
+            if (cached.servable(limit)) {
+                log.info("从 Redis 返回消息 - 群聊ID: {}, 数量: {}", conversationId, cached.messages().size());
+                return MessageSliceResponse.of(cached.messages(), cached.hasMore());
+            }
+        }
+
+        // 4. 向上翻页（按 id 倒序取出后反转为从旧到新）
+        Slice<Message> slice = beforeId != null
+                ? messageRepository.findHistoryBeforeMessage(conversationId, beforeId, pageable)
+                : messageRepository.findLatestByConversationId(conversationId, pageable);
+
+        List<MessageResponse> messages = messageResponseAssembler.toResponses(slice.getContent(), "group");
+        Collections.reverse(messages);
+
+        if (beforeId == null) {
+            messageCacheService.batchCacheMessages(conversationId, messages, !slice.hasNext());
+        }
+
+        log.info("游标分页返回消息 - 群聊ID: {}, before: {}, after: {}, 数量: {}",
+                conversationId, beforeId, afterId, messages.size());
+        return MessageSliceResponse.of(messages, slice.hasNext());
+    }
+
+    /**
+     * 按消息序号同步群聊消息（断线重连补齐、缺口检测）
+     * 返回序号区间 (afterSeq, toSeq] 内的消息，按序号正序；toSeq 为空时同步到最新。
+     * 已删除的消息不返回，因此序号可能不连续，客户端应以 latestSeq 判断是否已追平。
+     */
+    public MessageSliceResponse syncMessages(Long conversationId, Long currentUserId,
+                                             Long afterSeq, Long toSeq, int size) {
+        // 1. 验证群聊存在
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.NOT_FOUND_ERROR, "群聊不存在"));
+
+        // 2. 验证用户是群成员
+        if (!chatMembershipCache.isActiveMember(conversationId, currentUserId)) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "您不在该群聊中");
+        }
+
+        long latestSeq = conversation.getNextSeq() - 1;
+        long from = afterSeq != null ? Math.max(afterSeq, 0L) : 0L;
+        long to = toSeq != null ? Math.min(toSeq, latestSeq) : latestSeq;
+
+        if (from >= to) {
+            MessageSliceResponse empty = MessageSliceResponse.of(Collections.emptyList(), false);
+            empty.setLatestSeq(latestSeq);
+            return empty;
+        }
+
+        int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        Slice<Message> slice = messageRepository.findBySeqRange(conversationId, from, to, PageRequest.of(0, limit));
+
+        List<MessageResponse> messages = messageResponseAssembler.toResponses(slice.getContent(), "group");
+        MessageSliceResponse response = MessageSliceResponse.of(messages, slice.hasNext());
+        response.setLatestSeq(latestSeq);
+
+        log.info("按序号同步消息 - 群聊ID: {}, 区间: ({}, {}], 数量: {}", conversationId, from, to, messages.size());
+        return response;
+    }
+
+    /**
+     * 分配群聊内下一个消息序号（一条 UPDATE ... RETURNING 完成，与消息写入处于同一事务）
+     */
+    private Long allocateSeq(Long conversationId, String preview, Long senderId, LocalDateTime sentAt) {
+        Long seq = conversationRepository.allocateSeqForMember(conversationId, preview, senderId, sentAt);
+        if (seq == null) {
+            // 缓存已过期（成员被移除 / 群聊解散），清除本地缓存并按数据库最新状态给出具体原因
+            chatMembershipCache.evictLocal(conversationId);
+            throw sendRejected(conversationId, senderId);
+        }
+        return seq;
+    }
+
+    /**
+     * 发送被数据库校验拒绝时，重新查询以返回准确的错误
+     */
+    private BusinessException sendRejected(Long conversationId, Long senderId) {
+        Conversation conversation = conversationRepository.findById(conversationId).orElse(null);
+        if (conversation == null) {
+            return new BusinessException(ErrorCode.NOT_FOUND_ERROR, "群聊不存在");
+        }
+        if ("dissolved".equals(conversation.getStatus())) {
+            return new BusinessException(ErrorCode.OPERATION_ERROR, "群聊已解散，无法发送消息");
+        }
+        if (memberRepository.findByConversationIdAndUserIdAndIsActive(conversationId, senderId, true).isEmpty()) {
+            return new BusinessException(ErrorCode.NO_AUTH_ERROR, "您不在该群聊中");
+        }
+        return new BusinessException(ErrorCode.OPERATION_ERROR, "发送失败，请重试");
+    }
+
+    /**
+     * 读路径权限校验（走成员缓存）
+     */
+    private void checkReadAccess(Long conversationId, Long userId) {
+        if (chatMembershipCache.getStatus(conversationId).isEmpty()) {
+            throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "群聊不存在");
+        }
+        if (!chatMembershipCache.isActiveMember(conversationId, userId)) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "您不在该群聊中");
+        }
+    }
+
+    /**
+     * 会话列表展示用的消息摘要
+     */
+    private static String buildPreview(SendMessageRequest request) {
+        if ("file".equals(request.getMessageType())) {
+            return "[文件] " + (request.getFileName() != null ? request.getFileName() : "");
+        }
+        String content = request.getContent() != null ? request.getContent().trim() : "";
+        if (content.codePointCount(0, content.length()) <= PREVIEW_LENGTH) {
+            return content;
+        }
+        return content.substring(0, content.offsetByCodePoints(0, PREVIEW_LENGTH));
     }
-}
\ No newline at end of file
+}
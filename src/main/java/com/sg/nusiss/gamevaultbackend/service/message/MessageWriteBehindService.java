@@ -0,0 +1,628 @@
+package com.sg.nusiss.gamevaultbackend.service.message;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sg.nusiss.gamevaultbackend.cache.ChatMembershipCache;
+import com.sg.nusiss.gamevaultbackend.common.ErrorCode;
+import com.sg.nusiss.gamevaultbackend.entity.message.Message;
+import com.sg.nusiss.gamevaultbackend.exception.BusinessException;
+import com.sg.nusiss.gamevaultbackend.repository.conversation.ConversationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 群聊消息异步落库（write-behind，可选模式，app.chat.write-behind.enabled=true 时启用）
+ *
+ * 发送路径不再等待数据库：
+ * 1. 消息ID从 messages 的序列按块预取，群聊序号由 Redis 计数器分配（首次使用时以 conversations.next_seq 为下限）；
+ * 2. 消息先写入 Redis Stream 日志（chat:messages:journal），写入成功即可广播；
+ * 3. 再进入有界队列，由后台线程每 flush-interval-ms 毫秒或攒够 batch-size 条时用 JDBC batch 批量写入，
+ *    同一批次内顺带推进 conversations 的序号/最后消息摘要和发送者的已读游标，提交后删除对应日志；
+ * 4. 队列满时发送线程在 offer-timeout-ms 内等待，仍无空位则在当前线程直接落库（背压）；
+ * 5. 启动时重放日志中尚未删除的消息，写入按消息ID幂等（ON CONFLICT DO NOTHING），进程崩溃不丢消息。
+ *
+ * 发送权限：发送时走 ChatMembershipCache 预检，落库时 INSERT ... SELECT ... WHERE EXISTS 再按数据库校验一次，
+ * 群聊已解散或发送者已不是活跃成员的消息不会写入（计入 chat.write_behind.rejected，并清除该群聊的消息缓存）。
+ *
+ * 失败处理：连接、超时等错误整批退避重试；约束类错误（DataIntegrityViolationException，如计数器丢失后
+ * (conversation_id, seq) 冲突）按二分拆批定位到具体消息，将其移入死信日志（chat:messages:journal:dead）
+ * 并计入 chat.write_behind.dead_letter，其余消息照常写入，不阻塞落库线程。
+ *
+ * 注意：
+ * - 预检缓存过期到落库之间（最多 flush-interval-ms）已被移除的成员发出的消息仍会先被广播，但不会落库；
+ * - 落库有最多 flush-interval-ms 的延迟，最新消息由 Redis 消息缓存提供，按序号同步接口以已落库的 next_seq 为准；
+ * - 多节点时ID按块预取，不同节点的消息ID顺序可能与序号顺序略有差异，消息顺序以 seq 为准；
+ * - 日志的持久性取决于 Redis 的 AOF 配置（建议 appendfsync everysec 或 always）。
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MessageWriteBehindService {
+
+    static final String JOURNAL_KEY = "chat:messages:journal";
+    static final String DEAD_LETTER_KEY = "chat:messages:journal:dead";
+    static final String SEQ_KEY_PREFIX = "chat:seq:";
+
+    // 计数器低于数据库下限（Key 丢失或切换模式后数据库已前进）时先抬高，再递增
+    static final RedisScript<Long> SEED_AND_INCR_SCRIPT = new DefaultRedisScript<>(
+            "local cur = redis.call('GET', KEYS[1]) " +
+                    "if not cur or tonumber(cur) < tonumber(ARGV[1]) then redis.call('SET', KEYS[1], ARGV[1]) end " +
+                    "return redis.call('INCR', KEYS[1])", Long.class);
+
+    // 计数器存在时递增，不存在返回 -1（由调用方从数据库重新取下限）
+    static final RedisScript<Long> INCR_IF_EXISTS_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return redis.call('INCR', KEYS[1]) end " +
+                    "return -1", Long.class);
+
+    // 落库时按数据库再校验一次发送权限：群聊为 active 且发送者是活跃成员才写入
+    private static final String INSERT_MESSAGE_SQL =
+            "INSERT INTO messages (id, conversation_id, sender_id, receiver_id, seq, content, chat_type, message_type, " +
+                    "file_id, file_name, file_size, file_type, file_ext, access_url, thumbnail_url, created_at, is_deleted) " +
+                    "SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ? WHERE EXISTS (" +
+                    "SELECT 1 FROM members mb JOIN conversations c ON c.id = mb.conversation_id " +
+                    "WHERE mb.conversation_id = ? AND mb.user_id = ? AND mb.is_active = true AND c.status = 'active') " +
+                    "ON CONFLICT (id) DO NOTHING";
+
+    private static final String EXISTING_IDS_SQL = "SELECT id FROM messages WHERE id IN (%s)";
+
+    // 只在本批次的序号更新时才覆盖摘要，重放旧日志不会回退
+    private static final String UPDATE_CONVERSATION_SQL =
+            "UPDATE conversations SET next_seq = ? + 1, last_message_preview = ?, last_message_sender_id = ?, " +
+                    "last_message_at = ? WHERE id = ? AND next_seq <= ?";
+
+    private static final String ADVANCE_READ_SQL =
+            "UPDATE members SET last_read_seq = ? WHERE conversation_id = ? AND user_id = ? AND is_active = true " +
+                    "AND (last_read_seq IS NULL OR last_read_seq < ?)";
+
+    private static final String RESERVE_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('messages', 'id')) FROM generate_series(1, ?)";
+
+    private static final long MAX_RETRY_BACKOFF_MS = 30_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ConversationRepository conversationRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ChatMembershipCache chatMembershipCache;
+    private final MessageCacheService messageCacheService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.chat.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.chat.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.chat.write-behind.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${app.chat.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.chat.write-behind.offer-timeout-ms:100}")
+    private long offerTimeoutMs;
+
+    @Value("${app.chat.write-behind.id-block-size:100}")
+    private int idBlockSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    // 本节点已按数据库下限校准过的群聊计数器（超过上限时整体清空，之后按需重新校准）
+    private static final int MAX_SEEDED_CONVERSATIONS = 100_000;
+    private final Set<Long> seededConversations = ConcurrentHashMap.newKeySet();
+    // 预取的消息ID
+    private final Deque<Long> reservedIds = new ArrayDeque<>();
+
+    private BlockingQueue<PendingMessage> queue;
+    private ExecutorService flusher;
+    private volatile boolean running;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("chat.write_behind.queue.size", queue, BlockingQueue::size)
+                .register(meterRegistry);
+        recover();
+
+        running = true;
+        flusher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "chat-write-behind");
+            thread.setDaemon(false);
+            return thread;
+        });
+        flusher.execute(this::runFlusher);
+        log.info("群聊消息异步落库已启用 - batchSize: {}, flushIntervalMs: {}, queueCapacity: {}",
+                batchSize, flushIntervalMs, queueCapacity);
+    }
+
+    /**
+     * 优雅停机：停止接收新批次，刷完队列后退出；未刷完的消息仍在日志中，下次启动重放
+     */
+    @PreDestroy
+    void stop() {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("异步落库线程未在 30 秒内退出，剩余 {} 条消息将在下次启动时从日志重放", queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 为消息预先分配ID和群聊序号（不访问数据库，ID块用尽或计数器首次使用时除外）
+     */
+    public void assignIdAndSeq(Message message) {
+        message.setSeq(nextSeq(message.getConversationId()));
+        message.setId(nextId());
+    }
+
+    /**
+     * 提交消息：写入日志后入队；返回时消息已可靠保存，可以立即广播
+     *
+     * @param preview 会话列表使用的消息摘要
+     */
+    public void submit(Message message, String preview) {
+        PendingMessage pending = new PendingMessage(journal(message, preview), message, preview);
+
+        boolean accepted;
+        try {
+            accepted = queue.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+
+        if (!accepted) {
+            // 背压：队列已满，由发送线程自己落库
+            log.warn("异步落库队列已满，同步写入 - 群聊ID: {}, 消息ID: {}", message.getConversationId(), message.getId());
+            persistOnCallerThread(pending);
+        }
+    }
+
+    /**
+     * 发送线程直接落库：数据库拒绝或约束冲突时向发送者返回错误（此时消息尚未广播）。
+     * 连接、超时等错误同样返回失败，并删除该消息的日志，避免下次启动时重放一条发送者已被告知失败的消息
+     */
+    private void persistOnCallerThread(PendingMessage pending) {
+        int rejected;
+        try {
+            rejected = persist(List.of(pending));
+        } catch (DataIntegrityViolationException e) {
+            deadLetter(pending, e);
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "消息发送失败，请重试");
+        } catch (RuntimeException e) {
+            Message m = pending.message();
+            log.error("同步落库失败，消息作废 - 群聊ID: {}, 消息ID: {}, 序号: {}",
+                    m.getConversationId(), m.getId(), m.getSeq(), e);
+            deleteJournal(List.of(pending));
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "消息发送失败，请重试");
+        }
+        if (rejected > 0) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "您不在该群聊中");
+        }
+    }
+
+    /**
+     * 取出当前队列中最多 batchSize 条消息并落库，返回写入条数
+     */
+    int flushOnce() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        queue.drainTo(batch, batchSize);
+        if (!batch.isEmpty()) {
+            persistIsolating(batch);
+        }
+        return batch.size();
+    }
+
+    /**
+     * 重放日志中尚未删除的消息（只处理启动时已存在的条目）
+     */
+    void recover() {
+        List<MapRecord<String, Object, Object>> last =
+                stringRedisTemplate.opsForStream().reverseRange(JOURNAL_KEY, Range.unbounded(), Limit.limit().count(1));
+        if (last == null || last.isEmpty()) {
+            return;
+        }
+
+        String upperId = last.get(0).getId().getValue();
+        Range.Bound<String> lower = Range.Bound.unbounded();
+        int replayed = 0;
+        while (true) {
+            Range<String> range = Range.of(lower, Range.Bound.inclusive(upperId));
+            List<MapRecord<String, Object, Object>> records = stringRedisTemplate.opsForStream()
+                    .range(JOURNAL_KEY, range, Limit.limit().count(batchSize));
+            if (records == null || records.isEmpty()) {
+                break;
+            }
+
+            List<PendingMessage> batch = new ArrayList<>(records.size());
+            for (MapRecord<String, Object, Object> record : records) {
+                PendingMessage pending = fromJournal(record);
+                if (pending != null) {
+                    batch.add(pending);
+                } else {
+                    stringRedisTemplate.opsForStream().delete(JOURNAL_KEY, record.getId());
+                }
+            }
+            if (!batch.isEmpty()) {
+                // 启动时数据库不可用则直接失败，不带着未落库的日志继续分配序号
+                persistIsolating(batch);
+            }
+            replayed += batch.size();
+
+            String lastId = records.get(records.size() - 1).getId().getValue();
+            if (records.size() < batchSize || lastId.equals(upperId)) {
+                break;
+            }
+            lower = Range.Bound.exclusive(lastId);
+        }
+        log.info("已从日志重放未落库的群聊消息 - 数量: {}", replayed);
+    }
+
+    private void runFlusher() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingMessage first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 攒够 batchSize 条或距第一条已过 flushIntervalMs 即写入
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                persistWithRetry(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+
+        // 停机前刷完剩余消息
+        try {
+            while (flushOnce() > 0) {
+                // continue
+            }
+        } catch (Exception e) {
+            log.error("停机刷新失败，剩余消息将在下次启动时从日志重放", e);
+        }
+    }
+
+    /**
+     * 后台线程落库：暂时性错误整批退避重试，约束类错误拆批隔离后写入其余消息
+     */
+    private void persistWithRetry(List<PendingMessage> batch) throws InterruptedException {
+        long backoff = 100;
+        while (true) {
+            try {
+                persistIsolating(batch);
+                return;
+            } catch (Exception e) {
+                if (!running) {
+                    log.error("停机中落库失败，{} 条消息保留在日志中等待重放", batch.size(), e);
+                    return;
+                }
+                log.error("批量落库失败，{} ms 后重试 - 数量: {}", backoff, batch.size(), e);
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MS);
+            }
+        }
+    }
+
+    /**
+     * 写入一批消息；遇到约束类错误时二分拆批，定位到单条后移入死信日志，其余消息照常写入。
+     * 暂时性错误直接抛出，由调用方决定重试或失败
+     */
+    void persistIsolating(List<PendingMessage> batch) {
+        try {
+            persist(batch);
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() == 1) {
+                deadLetter(batch.get(0), e);
+                return;
+            }
+            int mid = batch.size() / 2;
+            persistIsolating(batch.subList(0, mid));
+            persistIsolating(batch.subList(mid, batch.size()));
+        }
+    }
+
+    /**
+     * 在一个事务内批量写入消息、推进群聊序号/摘要与发送者已读游标，提交后删除日志；
+     * 返回被数据库权限校验拒绝（未写入）的消息数
+     */
+    int persist(List<PendingMessage> batch) {
+        List<PendingMessage> rejected = new ArrayList<>();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            int[][] counts = jdbcTemplate.batchUpdate(INSERT_MESSAGE_SQL, batch, batch.size(), (ps, pending) -> {
+                Message m = pending.message();
+                ps.setLong(1, m.getId());
+                ps.setObject(2, m.getConversationId(), Types.BIGINT);
+                ps.setLong(3, m.getSenderId());
+                ps.setObject(4, m.getReceiverId(), Types.BIGINT);
+                ps.setObject(5, m.getSeq(), Types.BIGINT);
+                ps.setString(6, m.getContent());
+                ps.setString(7, m.getChatType());
+                ps.setString(8, m.getMessageType());
+                ps.setString(9, m.getFileId());
+                ps.setString(10, m.getFileName());
+                ps.setObject(11, m.getFileSize(), Types.BIGINT);
+                ps.setString(12, m.getFileType());
+                ps.setString(13, m.getFileExt());
+                ps.setString(14, m.getAccessUrl());
+                ps.setString(15, m.getThumbnailUrl());
+                ps.setTimestamp(16, Timestamp.valueOf(m.getCreatedAt()));
+                ps.setObject(17, m.getIsDeleted(), Types.BOOLEAN);
+                ps.setObject(18, m.getConversationId(), Types.BIGINT);
+                ps.setLong(19, m.getSenderId());
+            });
+            rejected.addAll(findRejected(batch, counts));
+            Set<Long> rejectedIds = new HashSet<>();
+            rejected.forEach(pending -> rejectedIds.add(pending.message().getId()));
+
+            // 每个群聊只保留本批次序号最大的消息用于摘要，每个发送者只推进到其最大序号；被拒绝的消息不参与
+            Map<Long, PendingMessage> latestByConversation = new HashMap<>();
+            Map<List<Long>, Long> readCursors = new HashMap<>();
+            for (PendingMessage pending : batch) {
+                if (rejectedIds.contains(pending.message().getId())) {
+                    continue;
+                }
+                Message message = pending.message();
+                latestByConversation.merge(message.getConversationId(), pending,
+                        (a, b) -> a.message().getSeq() >= b.message().getSeq() ? a : b);
+                readCursors.merge(List.of(message.getConversationId(), message.getSenderId()), message.getSeq(), Math::max);
+            }
+
+            List<PendingMessage> latest = new ArrayList<>(latestByConversation.values());
+            if (!latest.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_CONVERSATION_SQL, latest, latest.size(), (ps, pending) -> {
+                    Message m = pending.message();
+                    ps.setLong(1, m.getSeq());
+                    ps.setString(2, pending.preview());
+                    ps.setLong(3, m.getSenderId());
+                    ps.setTimestamp(4, Timestamp.valueOf(m.getCreatedAt()));
+                    ps.setLong(5, m.getConversationId());
+                    ps.setLong(6, m.getSeq());
+                });
+            }
+
+            List<Map.Entry<List<Long>, Long>> cursors = new ArrayList<>(readCursors.entrySet());
+            if (!cursors.isEmpty()) {
+                jdbcTemplate.batchUpdate(ADVANCE_READ_SQL, cursors, cursors.size(), (ps, cursor) -> {
+                    ps.setLong(1, cursor.getValue());
+                    ps.setLong(2, cursor.getKey().get(0));
+                    ps.setLong(3, cursor.getKey().get(1));
+                    ps.setLong(4, cursor.getValue());
+                });
+            }
+        });
+
+        deleteJournal(batch);
+
+        if (!rejected.isEmpty()) {
+            onRejected(rejected);
+        }
+
+        log.debug("批量落库完成 - 消息数: {}, 拒绝数: {}", batch.size(), rejected.size());
+        return rejected.size();
+    }
+
+    /**
+     * 影响 0 行的插入可能是重放的重复消息（已存在），也可能是权限校验未通过；按ID回查区分
+     */
+    private List<PendingMessage> findRejected(List<PendingMessage> batch, int[][] counts) {
+        List<PendingMessage> notInserted = new ArrayList<>();
+        int index = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                if (count == 0) {
+                    notInserted.add(batch.get(index));
+                }
+                index++;
+            }
+        }
+        if (notInserted.isEmpty()) {
+            return notInserted;
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(notInserted.size(), "?"));
+        Set<Long> existing = new HashSet<>(jdbcTemplate.queryForList(String.format(EXISTING_IDS_SQL, placeholders),
+                Long.class, notInserted.stream().map(p -> p.message().getId()).toArray()));
+        notInserted.removeIf(pending -> existing.contains(pending.message().getId()));
+        return notInserted;
+    }
+
+    /**
+     * 数据库拒绝的消息：已广播但不会落库，清除群聊成员缓存和消息缓存，避免继续放行和残留在最近消息中
+     */
+    private void onRejected(List<PendingMessage> rejected) {
+        Counter.builder("chat.write_behind.rejected")
+                .description("落库时未通过成员校验而丢弃的群聊消息数")
+                .register(meterRegistry)
+                .increment(rejected.size());
+        Set<Long> conversationIds = new HashSet<>();
+        for (PendingMessage pending : rejected) {
+            Message m = pending.message();
+            log.warn("消息未通过落库时的成员校验，已丢弃 - 群聊ID: {}, 发送者: {}, 消息ID: {}",
+                    m.getConversationId(), m.getSenderId(), m.getId());
+            conversationIds.add(m.getConversationId());
+        }
+        for (Long conversationId : conversationIds) {
+            chatMembershipCache.evictLocal(conversationId);
+            messageCacheService.clearCache(conversationId);
+        }
+    }
+
+    /**
+     * 约束类错误无法通过重试恢复：移入死信日志保留原始内容，从日志中删除，不再阻塞后续批次
+     */
+    private void deadLetter(PendingMessage pending, DataIntegrityViolationException e) {
+        Message m = pending.message();
+        log.error("消息落库违反约束，已移入死信日志 - 群聊ID: {}, 消息ID: {}, 序号: {}",
+                m.getConversationId(), m.getId(), m.getSeq(), e);
+        Counter.builder("chat.write_behind.dead_letter")
+                .description("违反约束被移入死信日志的群聊消息数")
+                .register(meterRegistry)
+                .increment();
+
+        // 序号冲突通常意味着 Redis 计数器落后于数据库，下一次分配时重新以数据库为下限校准
+        seededConversations.remove(m.getConversationId());
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put("m", toJson(m));
+        fields.put("p", pending.preview() != null ? pending.preview() : "");
+        fields.put("e", String.valueOf(e.getMostSpecificCause().getMessage()));
+        stringRedisTemplate.opsForStream().add(StreamRecords.string(fields).withStreamKey(DEAD_LETTER_KEY));
+        deleteJournal(List.of(pending));
+    }
+
+    private void deleteJournal(List<PendingMessage> batch) {
+        RecordId[] journalIds = batch.stream()
+                .map(PendingMessage::journalId)
+                .filter(Objects::nonNull)
+                .toArray(RecordId[]::new);
+        if (journalIds.length == 0) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForStream().delete(JOURNAL_KEY, journalIds);
+        } catch (Exception e) {
+            // 写入幂等，日志残留只会在下次启动时被重复跳过
+            log.warn("删除落库日志失败 - 数量: {}", journalIds.length, e);
+        }
+    }
+
+    private Long nextSeq(Long conversationId) {
+        String key = SEQ_KEY_PREFIX + conversationId;
+        if (seededConversations.contains(conversationId)) {
+            Long seq = stringRedisTemplate.execute(INCR_IF_EXISTS_SCRIPT, List.of(key));
+            if (seq != null && seq > 0) {
+                return seq;
+            }
+        }
+
+        // 首次使用或计数器丢失：以数据库中已分配的最大序号为下限
+        Long nextSeq = conversationRepository.findNextSeqById(conversationId);
+        long floor = nextSeq != null ? nextSeq - 1 : 0L;
+        Long seq = stringRedisTemplate.execute(SEED_AND_INCR_SCRIPT, List.of(key), String.valueOf(floor));
+        if (seq == null) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "分配消息序号失败");
+        }
+        if (seededConversations.size() >= MAX_SEEDED_CONVERSATIONS) {
+            seededConversations.clear();
+        }
+        seededConversations.add(conversationId);
+        return seq;
+    }
+
+    private Long nextId() {
+        synchronized (reservedIds) {
+            if (reservedIds.isEmpty()) {
+                reservedIds.addAll(jdbcTemplate.queryForList(RESERVE_IDS_SQL, Long.class, idBlockSize));
+            }
+            return reservedIds.poll();
+        }
+    }
+
+    private String toJson(Message message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "消息序列化失败");
+        }
+    }
+
+    private RecordId journal(Message message, String preview) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("m", toJson(message));
+        fields.put("p", preview != null ? preview : "");
+        RecordId id = stringRedisTemplate.opsForStream()
+                .add(StreamRecords.string(fields).withStreamKey(JOURNAL_KEY));
+        if (id == null) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "消息发送失败，请重试");
+        }
+        return id;
+    }
+
+    private PendingMessage fromJournal(MapRecord<String, Object, Object> record) {
+        Object json = record.getValue().get("m");
+        try {
+            Message message = objectMapper.readValue(String.valueOf(json), Message.class);
+            Object preview = record.getValue().get("p");
+            return new PendingMessage(record.getId(), message, preview != null ? String.valueOf(preview) : "");
+        } catch (JsonProcessingException e) {
+            log.error("无法解析的落库日志，已跳过 - id: {}", record.getId(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 待落库消息：日志ID + 消息 + 摘要
+     */
+    record PendingMessage(RecordId journalId, Message message, String preview) {
+    }
+}
@@ -1,8 +1,10 @@
 package com.sg.nusiss.gamevaultbackend.service.message;
 
+import com.sg.nusiss.gamevaultbackend.cache.FriendshipCache;
 import com.sg.nusiss.gamevaultbackend.common.ErrorCode;
 import com.sg.nusiss.gamevaultbackend.dto.message.request.SendPrivateMessageRequest;
 import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageSliceResponse;
 import com.sg.nusiss.gamevaultbackend.entity.auth.User;
 import com.sg.nusiss.gamevaultbackend.entity.message.Message;
 import com.sg.nusiss.gamevaultbackend.exception.BusinessException;
@@ -18,8 +20,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -29,6 +31,13 @@ public class PrivateMessageService {
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
     private final FriendshipRepository friendshipRepository;
+    private final FriendshipCache friendshipCache;
+    private final MessageResponseAssembler messageResponseAssembler;
+    private final MessageCacheService messageCacheService;
+    private final MessageDeliveryService messageDeliveryService;
+
+    // 游标分页单页最大条数
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
 
     /**
      * 发送私聊消息
@@ -79,65 +88,109 @@ public class PrivateMessageService {
                 senderId, request.getReceiverId(), message.getId(), message.getMessageType());
 
         // 5. 转换为响应对象
-        return convertToResponse(message);
+        MessageResponse response = messageResponseAssembler.toResponse(message, "private");
+
+        // 6. 追加到私聊最近消息缓存
+        messageCacheService.cachePrivateMessage(response);
+
+        // 7. 登记到双方的私聊最新消息集合，供重连补齐使用
+        messageDeliveryService.recordPrivateMessage(senderId, request.getReceiverId(), message.getId());
+
+        return response;
     }
 
     /**
      * 获取私聊历史消息
      */
     public List<MessageResponse> getPrivateMessages(Long userId, Long friendId, int page, int size) {
-        // 验证是好友关系
-        friendshipRepository.findByUserIdAndFriendIdAndIsActive(userId, friendId, true)
-                .orElseThrow(() -> new BusinessException(ErrorCode.NO_AUTH_ERROR, "只能查看好友的聊天记录"));
+        // 验证是好友关系（进程内缓存，好友关系变更时失效）
+        if (!friendshipCache.isActiveFriend(userId, friendId)) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "只能查看好友的聊天记录");
+        }
+
+        // 第一页优先从 Redis 读取；缓存含历史起点标记时，不足一页的短会话也直接返回
+        if (page == 0) {
+            MessageCacheService.CachedPage cached = messageCacheService.getCachedPrivatePage(userId, friendId, size);
+            if (cached.servable(size)) {
+                log.info("从 Redis 返回私聊消息 - 用户: {}, 好友: {}, 数量: {}", userId, friendId, cached.messages().size());
+                return cached.messages();
+            }
+        }
 
         Pageable pageable = PageRequest.of(page, size);
         Page<Message> messagePage = messageRepository.findPrivateMessages(userId, friendId, pageable);
 
-        List<MessageResponse> messages = messagePage.getContent().stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        // 批量组装：整页只解析一次发送者资料
+        List<MessageResponse> messages = messageResponseAssembler.toResponses(messagePage.getContent(), "private");
 
         // 反转顺序（从旧到新）
-        java.util.Collections.reverse(messages);
+        Collections.reverse(messages);
+
+        // 第一页数据缓存到 Redis；没有下一页时标记为完整历史
+        if (page == 0) {
+            messageCacheService.batchCachePrivateMessages(userId, friendId, messages, !messagePage.hasNext());
+        }
 
         log.info("获取私聊历史 - 用户: {}, 好友: {}, 数量: {}", userId, friendId, messages.size());
         return messages;
     }
 
     /**
-     * 转换为响应对象（包含文件附件）
+     * 游标分页获取私聊历史消息
+     * 按 (较小用户ID, 较大用户ID) 规范化会话对，走 idx_messages_private_pair 索引，不做 COUNT
      */
-    private MessageResponse convertToResponse(Message message) {
-        User sender = userRepository.findById(message.getSenderId())
-                .orElse(null);
-
-        MessageResponse.MessageResponseBuilder responseBuilder = MessageResponse.builder()
-                .id(message.getId())
-                .conversationId(message.getConversationId())
-                .senderId(message.getSenderId())
-                .receiverId(message.getReceiverId())
-                .senderUsername(sender != null ? sender.getUsername() : "未知用户")
-                .senderEmail(sender != null ? sender.getEmail() : "")
-                .content(message.getContent())
-                .messageType(message.getMessageType())
-                .chatType("private")
-                .createdAt(message.getCreatedAt());
-
-        // 如果是文件消息，添加附件信息
-        if ("file".equals(message.getMessageType()) && message.getFileId() != null) {
-            MessageResponse.FileAttachment attachment = MessageResponse.FileAttachment.builder()
-                    .fileId(message.getFileId())
-                    .fileName(message.getFileName())
-                    .fileSize(message.getFileSize())
-                    .fileType(message.getFileType())
-                    .fileExt(message.getFileExt())
-                    .accessUrl(message.getAccessUrl())
-                    .thumbnailUrl(message.getThumbnailUrl())
-                    .build();
-
-            responseBuilder.attachment(attachment);
+    public MessageSliceResponse getPrivateMessagesByCursor(Long userId, Long friendId,
+                                                           Long beforeId, Long afterId, int size) {
+        // 验证是好友关系（进程内缓存，好友关系变更时失效）
+        if (!friendshipCache.isActiveFriend(userId, friendId)) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "只能查看好友的聊天记录");
+        }
+
+        if (beforeId != null && afterId != null) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "before 和 after 不能同时指定");
+        }
+
+        int limit = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        Long lowUserId = Math.min(userId, friendId);
+        Long highUserId = Math.max(userId, friendId);
+
+        // 最新一页优先从 Redis 读取
+        if (beforeId == null && afterId == null) {
+            MessageCacheService.CachedPage cached = messageCacheService.getCachedPrivatePage(userId, friendId, limit);
+            if (cached.servable(limit)) {
+                log.info("从 Redis 返回私聊消息 - 用户: {}, 好友: {}, 数量: {}", userId, friendId, cached.messages().size());
+                return MessageSliceResponse.of(cached.messages(), cached.hasMore());
+            }
+        }
+
+        // 多取一条用于判断是否还有更多
+        List<Message> rows;
+        if (afterId != null) {
+            rows = messageRepository.findPrivateMessagesAfter(lowUserId, highUserId, afterId, limit + 1);
+        } else if (beforeId != null) {
+            rows = messageRepository.findPrivateMessagesBefore(lowUserId, highUserId, beforeId, limit + 1);
+        } else {
+            rows = messageRepository.findLatestPrivateMessages(lowUserId, highUserId, limit + 1);
+        }
+
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+
+        List<MessageResponse> messages = messageResponseAssembler.toResponses(rows, "private");
+
+        // 向上翻页结果为倒序，反转为从旧到新
+        if (afterId == null) {
+            Collections.reverse(messages);
+        }
+
+        if (beforeId == null && afterId == null) {
+            messageCacheService.batchCachePrivateMessages(userId, friendId, messages, !hasMore);
         }
 
-        return responseBuilder.build();
+        log.info("游标分页获取私聊 - 用户: {}, 好友: {}, before: {}, after: {}, 数量: {}",
+                userId, friendId, beforeId, afterId, messages.size());
+        return MessageSliceResponse.of(messages, hasMore);
     }
-}
\ No newline at end of file
+}
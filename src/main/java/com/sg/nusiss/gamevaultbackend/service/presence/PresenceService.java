@@ -0,0 +1,327 @@
+package com.sg.nusiss.gamevaultbackend.service.presence;
+
+import com.sg.nusiss.gamevaultbackend.cache.ChatMembershipCache;
+import com.sg.nusiss.gamevaultbackend.cache.FriendshipCache;
+import com.sg.nusiss.gamevaultbackend.common.ErrorCode;
+import com.sg.nusiss.gamevaultbackend.dto.presence.response.PresenceResponse;
+import com.sg.nusiss.gamevaultbackend.dto.websocket.PresenceEventDto;
+import com.sg.nusiss.gamevaultbackend.exception.BusinessException;
+import com.sg.nusiss.gamevaultbackend.repository.conversation.MemberRepository;
+import com.sg.nusiss.gamevaultbackend.security.auth.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 在线状态与正在输入
+ * STOMP 会话建立 / 断开事件驱动在线状态：本节点用并发 Map 记录 sessionId -> userId 和每个用户的本地会话数；
+ * 跨节点状态放在 Redis：HASH 记录每个用户在所有节点上的会话总数，ZSET 以最近心跳时间为分数。
+ * 总会话数 0 -> 1 时广播上线，1 -> 0 时广播下线；节点宕机留下的记录由心跳过期清理并补发下线。
+ *
+ * 广播不逐次发送：状态变化先写入待广播 Map（同一用户 / 同一群聊同一用户只保留最后一次），
+ * 由定时任务每个周期统一推送到 /topic/chat/{conversationId}，每个用户每个周期最多一次。
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class PresenceService {
+
+    // userId -> 全部节点上的会话数
+    static final String SESSIONS_KEY = "chat:presence:sessions";
+    // userId -> 最近心跳时间（毫秒）
+    static final String HEARTBEAT_KEY = "chat:presence:heartbeat";
+
+    // 单次批量查询的最大用户数
+    static final int MAX_QUERY_SIZE = 500;
+
+    // 会话数 +1 并刷新心跳，返回新的会话数
+    static final RedisScript<Long> CONNECT_SCRIPT = new DefaultRedisScript<>(
+            "local c = redis.call('HINCRBY', KEYS[1], ARGV[1], 1) " +
+            "redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1]) " +
+            "return c", Long.class);
+
+    // 会话数 -1，归零时删除两处记录，返回剩余会话数
+    static final RedisScript<Long> DISCONNECT_SCRIPT = new DefaultRedisScript<>(
+            "local c = redis.call('HINCRBY', KEYS[1], ARGV[1], -1) " +
+            "if c <= 0 then redis.call('HDEL', KEYS[1], ARGV[1]) redis.call('ZREM', KEYS[2], ARGV[1]) end " +
+            "return c", Long.class);
+
+    // 清理心跳早于 ARGV[1] 的用户（所在节点已宕机），返回被清理的用户 ID
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> EXPIRE_SCRIPT = new DefaultRedisScript<>(
+            "local stale = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[1]) " +
+            "for _, u in ipairs(stale) do redis.call('HDEL', KEYS[1], u) redis.call('ZREM', KEYS[2], u) end " +
+            "return stale", List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MemberRepository memberRepository;
+    private final ChatMembershipCache chatMembershipCache;
+    private final FriendshipCache friendshipCache;
+
+    // 心跳超过该时长未刷新视为离线，应大于心跳间隔的两倍
+    @Value("${app.presence.online-ttl-ms:90000}")
+    private long onlineTtlMs = 90_000;
+
+    // 本节点：sessionId -> userId，userId -> 本地会话数
+    private final Map<String, Long> sessionUsers = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> localSessionCounts = new ConcurrentHashMap<>();
+
+    // 待广播：userId -> 是否在线；(群聊, 用户) -> 是否正在输入
+    private final Map<Long, Boolean> pendingPresence = new ConcurrentHashMap<>();
+    private final Map<TypingKey, Boolean> pendingTyping = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onSessionConnected(SessionConnectedEvent event) {
+        Long userId = userIdOf(event.getUser());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (userId != null && sessionId != null) {
+            connected(sessionId, userId);
+        }
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        disconnected(event.getSessionId());
+    }
+
+    /**
+     * 记录一个新会话；同一 sessionId 重复通知时忽略
+     */
+    public void connected(String sessionId, Long userId) {
+        if (sessionUsers.putIfAbsent(sessionId, userId) != null) {
+            return;
+        }
+        localSessionCounts.computeIfAbsent(userId, k -> new AtomicInteger()).incrementAndGet();
+
+        try {
+            Long total = stringRedisTemplate.execute(CONNECT_SCRIPT, List.of(SESSIONS_KEY, HEARTBEAT_KEY),
+                    userId.toString(), String.valueOf(System.currentTimeMillis()));
+            if (total != null && total == 1) {
+                pendingPresence.put(userId, true);
+            }
+        } catch (Exception e) {
+            log.warn("记录在线状态失败 - 用户ID: {}", userId, e);
+        }
+    }
+
+    /**
+     * 移除会话；用户在所有节点上都没有会话时标记下线
+     */
+    public void disconnected(String sessionId) {
+        Long userId = sessionUsers.remove(sessionId);
+        if (userId == null) {
+            return;
+        }
+        localSessionCounts.computeIfPresent(userId, (k, count) -> count.decrementAndGet() <= 0 ? null : count);
+
+        try {
+            Long remaining = stringRedisTemplate.execute(DISCONNECT_SCRIPT, List.of(SESSIONS_KEY, HEARTBEAT_KEY),
+                    userId.toString());
+            if (remaining != null && remaining <= 0) {
+                pendingPresence.put(userId, false);
+            }
+        } catch (Exception e) {
+            log.warn("移除在线状态失败 - 用户ID: {}", userId, e);
+        }
+    }
+
+    /**
+     * 正在输入：只记录最新状态，由下一次广播周期统一推送
+     */
+    public void typing(Long conversationId, Long userId, boolean typing) {
+        if (conversationId == null || !chatMembershipCache.isActiveMember(conversationId, userId)) {
+            return;
+        }
+        pendingTyping.put(new TypingKey(conversationId, userId), typing);
+    }
+
+    /**
+     * 批量查询在线状态，一次 ZMSCORE 完成
+     * 只返回当前用户本人、好友以及同在某个活跃群聊中的用户的真实状态，其他用户一律显示离线且不带最近活跃时间
+     */
+    public List<PresenceResponse> getPresence(Long currentUserId, Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        if (ids.size() > MAX_QUERY_SIZE) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "单次最多查询 " + MAX_QUERY_SIZE + " 个用户");
+        }
+
+        List<Long> visible = visibleUserIds(currentUserId, ids);
+        Map<Long, Double> scores = new HashMap<>();
+        boolean redisAvailable = true;
+        if (!visible.isEmpty()) {
+            try {
+                List<Double> values = stringRedisTemplate.opsForZSet().score(HEARTBEAT_KEY,
+                        visible.stream().map(String::valueOf).toArray());
+                for (int i = 0; i < visible.size(); i++) {
+                    if (values.get(i) != null) {
+                        scores.put(visible.get(i), values.get(i));
+                    }
+                }
+            } catch (Exception e) {
+                // Redis 不可用时退回本节点已知的会话
+                log.warn("查询在线状态失败，使用本节点会话", e);
+                redisAvailable = false;
+            }
+        }
+
+        Set<Long> visibleSet = new HashSet<>(visible);
+        long cutoff = System.currentTimeMillis() - onlineTtlMs;
+        List<PresenceResponse> result = new ArrayList<>(ids.size());
+        for (Long userId : ids) {
+            if (!visibleSet.contains(userId)) {
+                result.add(new PresenceResponse(userId, false, null));
+                continue;
+            }
+            if (!redisAvailable) {
+                result.add(new PresenceResponse(userId, localSessionCounts.containsKey(userId), null));
+                continue;
+            }
+            Double score = scores.get(userId);
+            boolean online = score != null && score.longValue() >= cutoff;
+            result.add(new PresenceResponse(userId, online, score != null ? toDateTime(score.longValue()) : null));
+        }
+        return result;
+    }
+
+    /**
+     * 筛出当前用户有权查看在线状态的用户：本人、同在活跃群聊中的成员（一次查询）、其余再逐个查好友缓存
+     */
+    private List<Long> visibleUserIds(Long currentUserId, List<Long> ids) {
+        if (currentUserId == null) {
+            return List.of();
+        }
+        Set<Long> visible = new HashSet<>();
+        List<Long> others = ids.stream().filter(id -> !id.equals(currentUserId)).toList();
+        if (others.size() < ids.size()) {
+            visible.add(currentUserId);
+        }
+        if (!others.isEmpty()) {
+            visible.addAll(memberRepository.findCoMemberUserIds(currentUserId, others));
+        }
+        for (Long userId : others) {
+            if (!visible.contains(userId) && friendshipCache.isActiveFriend(currentUserId, userId)) {
+                visible.add(userId);
+            }
+        }
+        return ids.stream().filter(visible::contains).toList();
+    }
+
+    /**
+     * 心跳：一次 ZADD 刷新本节点所有在线用户，并清理已宕机节点留下的记录
+     */
+    @Scheduled(fixedRateString = "${app.presence.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        try {
+            if (!localSessionCounts.isEmpty()) {
+                Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+                for (Long userId : localSessionCounts.keySet()) {
+                    tuples.add(new DefaultTypedTuple<>(userId.toString(), (double) now));
+                }
+                stringRedisTemplate.opsForZSet().add(HEARTBEAT_KEY, tuples);
+            }
+
+            List<?> stale = stringRedisTemplate.execute(EXPIRE_SCRIPT, List.of(SESSIONS_KEY, HEARTBEAT_KEY),
+                    String.valueOf(now - onlineTtlMs));
+            if (stale != null) {
+                for (Object userId : stale) {
+                    pendingPresence.put(Long.valueOf(userId.toString()), false);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("刷新在线心跳失败", e);
+        }
+    }
+
+    /**
+     * 推送本周期内合并后的在线状态和正在输入事件
+     */
+    @Scheduled(fixedDelayString = "${app.presence.broadcast-interval-ms:1000}")
+    public void flushBroadcasts() {
+        LocalDateTime now = LocalDateTime.now();
+
+        for (TypingKey key : pendingTyping.keySet()) {
+            Boolean typing = pendingTyping.remove(key);
+            if (typing == null) {
+                continue;
+            }
+            send(key.conversationId(), PresenceEventDto.builder()
+                    .messageType(PresenceEventDto.TYPE_TYPING)
+                    .conversationId(key.conversationId())
+                    .userId(key.userId())
+                    .typing(typing)
+                    .timestamp(now)
+                    .build());
+        }
+
+        // 先取出本周期的全部状态变化，再一次查询所有相关用户的活跃群聊
+        Map<Long, Boolean> presence = new HashMap<>();
+        for (Long userId : pendingPresence.keySet()) {
+            Boolean online = pendingPresence.remove(userId);
+            if (online != null) {
+                presence.put(userId, online);
+            }
+        }
+        if (presence.isEmpty()) {
+            return;
+        }
+        try {
+            for (Object[] row : memberRepository.findActiveConversationIdsByUserIds(presence.keySet())) {
+                Long userId = (Long) row[0];
+                Long conversationId = (Long) row[1];
+                send(conversationId, PresenceEventDto.builder()
+                        .messageType(PresenceEventDto.TYPE_PRESENCE)
+                        .conversationId(conversationId)
+                        .userId(userId)
+                        .online(presence.get(userId))
+                        .timestamp(now)
+                        .build());
+            }
+        } catch (Exception e) {
+            log.warn("广播在线状态失败 - 用户数: {}", presence.size(), e);
+        }
+    }
+
+    private void send(Long conversationId, PresenceEventDto event) {
+        messagingTemplate.convertAndSend("/topic/chat/" + conversationId, event);
+    }
+
+    private static Long userIdOf(Principal principal) {
+        if (principal instanceof JwtAuthenticationToken jwtAuth) {
+            return JwtUtil.userIdOf(jwtAuth.getToken());
+        }
+        return null;
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    record TypingKey(Long conversationId, Long userId) {
+    }
+}
@@ -0,0 +1,130 @@
+package com.sg.nusiss.gamevaultbackend.util.forum;
+
+/**
+ * long 值的开放寻址哈希集合（线性探测）
+ * 直接存储在 long[] 中，没有装箱和节点对象，每个元素约 11~21 字节。
+ * 只支持添加和整体清空，不是线程安全的，由调用方加锁。
+ */
+public final class LongHashSet {
+
+    private static final int MIN_CAPACITY = 16;
+
+    // 0 作为空槽标记，值 0 单独记录
+    private long[] table;
+    private boolean containsZero;
+    private int size;
+    private int resizeThreshold;
+
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongHashSet(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * 添加元素，已存在时返回 false
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int mask = table.length - 1;
+        int index = slot(value, mask);
+        while (table[index] != 0) {
+            if (table[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = value;
+        if (++size > resizeThreshold) {
+            resize(table.length * 2);
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) {
+            return containsZero;
+        }
+
+        int mask = table.length - 1;
+        int index = slot(value, mask);
+        while (table[index] != 0) {
+            if (table[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 清空并释放扩容出的空间
+     */
+    public void clear() {
+        allocate(MIN_CAPACITY);
+        containsZero = false;
+        size = 0;
+    }
+
+    /**
+     * 当前占用的数组字节数（用于监控）
+     */
+    public long tableBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    private void resize(int capacity) {
+        long[] old = table;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value != 0) {
+                int index = slot(value, mask);
+                while (table[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = value;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity];
+        // 负载因子 0.75
+        resizeThreshold = capacity - (capacity >>> 2);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long needed = Math.max(MIN_CAPACITY, (long) Math.ceil(expectedSize / 0.75));
+        return (int) Math.min(1L << 30, Long.highestOneBit(needed - 1) << 1);
+    }
+
+    private static int slot(long value, int mask) {
+        // Murmur3 fmix64，打散连续ID
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
@@ -170,6 +170,10 @@ CREATE INDEX IF NOT EXISTS idx_contents_parent ON contents(parent_id);
 CREATE INDEX IF NOT EXISTS idx_contents_status ON contents(status);
 CREATE INDEX IF NOT EXISTS idx_contents_created ON contents(created_date DESC);
 CREATE INDEX IF NOT EXISTS idx_contents_type_status ON contents(content_type, status);
+-- 帖子流 / 作者帖子流 / 回复楼层按 (created_date, content_id) 游标分页，部分索引只包含列表会读到的行
+CREATE INDEX IF NOT EXISTS idx_contents_post_feed ON contents(created_date DESC, content_id DESC) WHERE content_type = 'post' AND status = 'active';
+CREATE INDEX IF NOT EXISTS idx_contents_author_feed ON contents(author_id, created_date DESC, content_id DESC) WHERE content_type = 'post' AND status = 'active';
+CREATE INDEX IF NOT EXISTS idx_contents_reply_thread ON contents(parent_id, created_date, content_id) WHERE status = 'active';
 
 -- 属性查询索引
 CREATE INDEX IF NOT EXISTS idx_content_attrs_content ON content_attributes(content_id);
@@ -183,6 +187,64 @@ CREATE INDEX IF NOT EXISTS idx_content_metrics_metric ON content_metrics(metric_
 CREATE INDEX IF NOT EXISTS idx_relations_user ON user_content_relations(user_id);
 CREATE INDEX IF NOT EXISTS idx_relations_content ON user_content_relations(content_id);
 CREATE INDEX IF NOT EXISTS idx_relations_type ON user_content_relations(relation_type_id);
+-- 按内容统计某类关系（点赞数对账）时只扫描索引
+CREATE INDEX IF NOT EXISTS idx_relations_content_type ON user_content_relations(content_id, relation_type_id);
+
+-- 聊天消息索引（messages 表由 JPA 建表，这里补充注解无法表达的表达式索引）
+-- 私聊按 (较小用户ID, 较大用户ID, id) 做游标分页
+CREATE INDEX IF NOT EXISTS idx_messages_private_pair ON messages (LEAST(sender_id, receiver_id), GREATEST(sender_id, receiver_id), id) WHERE chat_type = 'private';
+
+-- 聊天记录全文搜索：汉字后插入分隔符 chr(3)，使中文按单字分词（查询中连续汉字会组成短语），其余文本按 simple 配置分词
+-- 修改该函数后需要重建 messages 与 contents 的 search_tsv 列，已存储的值不会自动更新
+CREATE OR REPLACE FUNCTION chat_search_text(t TEXT)
+RETURNS TEXT AS $$
+    SELECT regexp_replace(coalesce(t, ''), '([\u3400-\u9fff\uf900-\ufaff])', '\1' || chr(3), 'g');
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE;
+
+-- 生成列在插入 / 更新时由数据库维护，JPA 与批量写入均无需感知
+ALTER TABLE messages ADD COLUMN IF NOT EXISTS search_tsv tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', chat_search_text(content))) STORED;
+CREATE INDEX IF NOT EXISTS idx_messages_search_tsv ON messages USING GIN (search_tsv) WHERE is_deleted = false;
+
+-- 论坛帖子全文搜索：沿用 chat_search_text 的分词规则，标题权重 A 高于正文 B
+ALTER TABLE contents ADD COLUMN IF NOT EXISTS search_tsv tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', chat_search_text(title)), 'A') ||
+        setweight(to_tsvector('simple', chat_search_text(body_plain)), 'B')
+    ) STORED;
+CREATE INDEX IF NOT EXISTS idx_contents_search_tsv ON contents USING GIN (search_tsv) WHERE content_type = 'post' AND status = 'active';
+
+-- 群聊消息序号回填（一次性迁移）：仍有未分配序号的群聊消息时才执行，此后每次启动只做一次索引探测
+-- 尚未分配过序号的群聊按 id 顺序补齐 seq，并只把这些群聊的 conversations.next_seq 推进到已用最大序号之后
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM messages WHERE seq IS NULL AND conversation_id IS NOT NULL LIMIT 1) THEN
+        WITH filled AS (
+            UPDATE messages m SET seq = s.rn
+            FROM (
+                SELECT id, ROW_NUMBER() OVER (PARTITION BY conversation_id ORDER BY id) AS rn
+                FROM messages
+                WHERE conversation_id IS NOT NULL
+                  AND conversation_id NOT IN (SELECT conversation_id FROM messages WHERE seq IS NOT NULL AND conversation_id IS NOT NULL)
+            ) s
+            WHERE m.id = s.id AND m.seq IS NULL
+            RETURNING m.conversation_id, m.seq
+        )
+        UPDATE conversations c SET next_seq = f.max_seq + 1
+        FROM (SELECT conversation_id, MAX(seq) AS max_seq FROM filled GROUP BY conversation_id) f
+        WHERE c.id = f.conversation_id AND c.next_seq <= f.max_seq;
+    END IF;
+END $$;
+
+-- 已读游标回填（一次性迁移）：新增列前的成员视为已读到当前最新消息，避免所有群聊历史都显示为未读、重连补齐时整段重放
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM members WHERE last_read_seq IS NULL LIMIT 1) THEN
+        UPDATE members m SET last_read_seq = c.next_seq - 1
+        FROM conversations c
+        WHERE m.conversation_id = c.id AND m.last_read_seq IS NULL;
+    END IF;
+END $$;
 
 -- ================================================================
 -- 4. 创建触发器
@@ -0,0 +1,127 @@
+package com.sg.nusiss.gamevaultbackend.cache;
+
+import com.sg.nusiss.gamevaultbackend.entity.conversation.Conversation;
+import com.sg.nusiss.gamevaultbackend.entity.conversation.Member;
+import com.sg.nusiss.gamevaultbackend.repository.conversation.ConversationRepository;
+import com.sg.nusiss.gamevaultbackend.repository.conversation.MemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatMembershipCacheTest {
+
+    @Mock
+    private ConversationRepository conversationRepository;
+
+    @Mock
+    private MemberRepository memberRepository;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @InjectMocks
+    private ChatMembershipCache chatMembershipCache;
+
+    private Conversation conversation;
+
+    @BeforeEach
+    void setUp() {
+        conversation = Conversation.builder().id(1L).ownerId(1L).status("active").build();
+    }
+
+    @Test
+    void testStatusAndMembership_CachedAfterFirstLoad() {
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(conversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(1L, 2L, true))
+                .thenReturn(Optional.of(new Member()));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("active", chatMembershipCache.getStatus(1L).orElseThrow());
+            assertTrue(chatMembershipCache.isActiveMember(1L, 2L));
+        }
+
+        verify(conversationRepository, times(1)).findById(1L);
+        verify(memberRepository, times(1)).findByConversationIdAndUserIdAndIsActive(1L, 2L, true);
+    }
+
+    @Test
+    void testNonMember_CachedAsNegative() {
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(conversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(1L, 9L, true)).thenReturn(Optional.empty());
+
+        chatMembershipCache.getStatus(1L);
+        assertFalse(chatMembershipCache.isActiveMember(1L, 9L));
+        assertFalse(chatMembershipCache.isActiveMember(1L, 9L));
+
+        verify(memberRepository, times(1)).findByConversationIdAndUserIdAndIsActive(1L, 9L, true);
+    }
+
+    @Test
+    void testMissingConversation_NotCached() {
+        when(conversationRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertTrue(chatMembershipCache.getStatus(1L).isEmpty());
+        assertTrue(chatMembershipCache.getStatus(1L).isEmpty());
+
+        verify(conversationRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testEvict_OutsideTransaction_ReloadsAndBroadcasts() {
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(conversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(1L, 2L, true))
+                .thenReturn(Optional.of(new Member()))
+                .thenReturn(Optional.empty());
+
+        chatMembershipCache.getStatus(1L);
+        assertTrue(chatMembershipCache.isActiveMember(1L, 2L));
+
+        // 成员被移除
+        chatMembershipCache.evict(1L);
+
+        chatMembershipCache.getStatus(1L);
+        assertFalse(chatMembershipCache.isActiveMember(1L, 2L));
+        verify(stringRedisTemplate).convertAndSend(ChatMembershipCache.INVALIDATION_CHANNEL, "1");
+        verify(conversationRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testOnMessage_RemoteInvalidationEvictsLocalEntry() {
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(conversation));
+        chatMembershipCache.getStatus(1L);
+
+        chatMembershipCache.onMessage(
+                new DefaultMessage(ChatMembershipCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                        "1".getBytes(StandardCharsets.UTF_8)), null);
+        chatMembershipCache.getStatus(1L);
+
+        verify(conversationRepository, times(2)).findById(1L);
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    void testLoadRacingWithEviction_DoesNotStoreStaleEntry() {
+        // 加载过程中发生失效：旧数据不应写回缓存
+        when(conversationRepository.findById(1L)).thenAnswer(invocation -> {
+            chatMembershipCache.evictLocal(1L);
+            return Optional.of(conversation);
+        });
+
+        chatMembershipCache.getStatus(1L);
+        chatMembershipCache.getStatus(1L);
+
+        verify(conversationRepository, times(2)).findById(1L);
+    }
+}
@@ -0,0 +1,144 @@
+package com.sg.nusiss.gamevaultbackend.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChatMessageRedisSerializerTest {
+
+    private final ChatMessageRedisSerializer serializer = new ChatMessageRedisSerializer();
+
+    private MessageResponse textMessage() {
+        return MessageResponse.builder()
+                .id(123456L)
+                .conversationId(42L)
+                .senderId(7L)
+                .seq(1001L)
+                .senderUsername("测试用户")
+                .senderEmail("test@example.com")
+                .content("你好，今晚一起开黑吗？")
+                .chatType("group")
+                .messageType("text")
+                .createdAt(LocalDateTime.of(2025, 10, 5, 20, 30, 15, 123_456_789))
+                .build();
+    }
+
+    private MessageResponse fileMessage() {
+        return MessageResponse.builder()
+                .id(99L)
+                .senderId(7L)
+                .receiverId(8L)
+                .content("")
+                .chatType("private")
+                .messageType("file")
+                .createdAt(LocalDateTime.of(2025, 10, 5, 20, 30))
+                .attachment(MessageResponse.FileAttachment.builder()
+                        .fileId("f-001")
+                        .fileName("截图.png")
+                        .fileSize(204_800L)
+                        .fileType("image")
+                        .fileExt("png")
+                        .accessUrl("https://cdn.example.com/chat/f-001.png")
+                        .build())
+                .build();
+    }
+
+    @Test
+    void testRoundTrip_TextMessage() {
+        MessageResponse original = textMessage();
+
+        MessageResponse decoded = serializer.deserialize(serializer.serialize(original));
+
+        assertEquals(original, decoded);
+        assertNull(decoded.getReceiverId());
+        assertNull(decoded.getAttachment());
+    }
+
+    @Test
+    void testRoundTrip_FileMessageWithAttachment() {
+        MessageResponse original = fileMessage();
+
+        MessageResponse decoded = serializer.deserialize(serializer.serialize(original));
+
+        assertEquals(original, decoded);
+        assertNull(decoded.getAttachment().getThumbnailUrl());
+    }
+
+    @Test
+    void testSerialize_SmallerThanJson() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer(objectMapper);
+
+        MessageResponse message = textMessage();
+        int jsonBytes = json.serialize(message).length;
+        int binaryBytes = serializer.serialize(message).length;
+
+        // 不写字段名、类名，时间与ID使用 varint
+        assertTrue(binaryBytes * 2 < jsonBytes,
+                "二进制编码应不足 JSON 的一半: binary=" + binaryBytes + ", json=" + jsonBytes);
+    }
+
+    @Test
+    void testDeserialize_LegacyJsonEntry() {
+        // 旧版 RedisConfig 的 GenericJackson2JsonRedisSerializer 写入的条目
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        byte[] legacy = new GenericJackson2JsonRedisSerializer(objectMapper).serialize(fileMessage());
+
+        MessageResponse decoded = serializer.deserialize(legacy);
+
+        assertEquals(fileMessage(), decoded);
+    }
+
+    @Test
+    void testDeserialize_LegacyJsonWithTypeProperty() {
+        byte[] legacy = ("{\"@class\":\"com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse\","
+                + "\"id\":5,\"conversationId\":1,\"content\":\"hi\",\"createdAt\":\"2025-10-05T20:30:00\"}").getBytes();
+
+        MessageResponse decoded = serializer.deserialize(legacy);
+
+        assertEquals(5L, decoded.getId());
+        assertEquals("hi", decoded.getContent());
+        assertEquals(LocalDateTime.of(2025, 10, 5, 20, 30), decoded.getCreatedAt());
+    }
+
+    @Test
+    void testDeserialize_UnknownVersion_ReturnsNull() {
+        assertNull(serializer.deserialize(new byte[]{ChatMessageRedisSerializer.MAGIC, 99, 0}));
+    }
+
+    @Test
+    void testRoundTrip_HistoryStartMarker() {
+        byte[] bytes = serializer.serialize(ChatMessageRedisSerializer.HISTORY_START);
+
+        assertEquals(2, bytes.length);
+        assertSame(ChatMessageRedisSerializer.HISTORY_START, serializer.deserialize(bytes));
+        // 没有任何字段的普通消息不会被当成标记
+        assertNotSame(ChatMessageRedisSerializer.HISTORY_START, serializer.deserialize(serializer.serialize(new MessageResponse())));
+    }
+
+    @Test
+    void testDeserialize_Truncated_ReturnsNull() {
+        byte[] bytes = serializer.serialize(textMessage());
+        byte[] truncated = java.util.Arrays.copyOf(bytes, bytes.length - 5);
+
+        assertNull(serializer.deserialize(truncated), "损坏的条目应跳过而不是抛异常");
+    }
+
+    @Test
+    void testDeserialize_UnparseableLegacyJson_ReturnsNull() {
+        byte[] corrupt = "{\"id\":".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+
+        assertNull(serializer.deserialize(corrupt), "无法解析的旧 JSON 条目应跳过而不是抛异常");
+    }
+}
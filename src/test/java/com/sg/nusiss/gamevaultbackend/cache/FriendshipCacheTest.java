@@ -0,0 +1,91 @@
+package com.sg.nusiss.gamevaultbackend.cache;
+
+import com.sg.nusiss.gamevaultbackend.entity.friend.Friendship;
+import com.sg.nusiss.gamevaultbackend.repository.friend.FriendshipRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FriendshipCacheTest {
+
+    @Mock
+    private FriendshipRepository friendshipRepository;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @InjectMocks
+    private FriendshipCache friendshipCache;
+
+    @Test
+    void testIsActiveFriend_CachedAfterFirstLoad() {
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(1L, 2L, true))
+                .thenReturn(Optional.of(new Friendship()));
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(friendshipCache.isActiveFriend(1L, 2L));
+        }
+
+        verify(friendshipRepository, times(1)).findByUserIdAndFriendIdAndIsActive(1L, 2L, true);
+    }
+
+    @Test
+    void testNotFriend_CachedAsNegative() {
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(1L, 3L, true)).thenReturn(Optional.empty());
+
+        assertFalse(friendshipCache.isActiveFriend(1L, 3L));
+        assertFalse(friendshipCache.isActiveFriend(1L, 3L));
+
+        verify(friendshipRepository, times(1)).findByUserIdAndFriendIdAndIsActive(1L, 3L, true);
+    }
+
+    @Test
+    void testEvict_ReloadsBothDirectionsAndPublishes() {
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(1L, 2L, true))
+                .thenReturn(Optional.of(new Friendship()), Optional.empty());
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(2L, 1L, true))
+                .thenReturn(Optional.of(new Friendship()), Optional.empty());
+
+        assertTrue(friendshipCache.isActiveFriend(1L, 2L));
+        assertTrue(friendshipCache.isActiveFriend(2L, 1L));
+
+        // 删除好友后失效（无事务时立即执行）
+        friendshipCache.evict(1L, 2L);
+
+        assertFalse(friendshipCache.isActiveFriend(1L, 2L));
+        assertFalse(friendshipCache.isActiveFriend(2L, 1L));
+        verify(stringRedisTemplate).convertAndSend(FriendshipCache.INVALIDATION_CHANNEL, "1:2");
+    }
+
+    @Test
+    void testOnMessage_EvictsLocalEntry() {
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(2L, 1L, true))
+                .thenReturn(Optional.of(new Friendship()));
+
+        friendshipCache.isActiveFriend(2L, 1L);
+        friendshipCache.onMessage(new DefaultMessage(
+                FriendshipCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "1:2".getBytes(StandardCharsets.UTF_8)), null);
+        friendshipCache.isActiveFriend(2L, 1L);
+
+        verify(friendshipRepository, times(2)).findByUserIdAndFriendIdAndIsActive(2L, 1L, true);
+    }
+
+    @Test
+    void testOnMessage_MalformedBody_Ignored() {
+        assertDoesNotThrow(() -> friendshipCache.onMessage(new DefaultMessage(
+                FriendshipCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "oops".getBytes(StandardCharsets.UTF_8)), null));
+    }
+}
@@ -0,0 +1,79 @@
+package com.sg.nusiss.gamevaultbackend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class WebSocketMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final WebSocketMetrics metrics = new WebSocketMetrics(registry);
+
+    @Test
+    void testMonitor_ReportsQueueDepthAndRejections() throws Exception {
+        // Given - 1 个线程、队列容量 1
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        metrics.monitor("outbound", executor);
+        executor.initialize();
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            started.await();
+            executor.execute(() -> { });
+
+            // When - 第三个任务超出容量
+            assertThrows(TaskRejectedException.class, () -> executor.execute(() -> { }));
+
+            // Then
+            assertEquals(1.0, registry.get("websocket.channel.queue.size").tag("channel", "outbound").gauge().value());
+            assertEquals(1.0, registry.get("websocket.channel.active").tag("channel", "outbound").gauge().value());
+            assertEquals(1.0, registry.get("websocket.channel.rejected").tag("channel", "outbound").counter().count());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testDecorate_CountsSessionsAndSlowCloses() throws Exception {
+        // Given
+        WebSocketHandler delegate = mock(WebSocketHandler.class);
+        WebSocketSession fast = mock(WebSocketSession.class);
+        WebSocketSession slow = mock(WebSocketSession.class);
+        WebSocketHandler handler = metrics.decorate(delegate);
+
+        // When
+        handler.afterConnectionEstablished(fast);
+        handler.afterConnectionEstablished(slow);
+        assertEquals(2.0, registry.get("websocket.sessions.active").gauge().value());
+
+        handler.afterConnectionClosed(fast, CloseStatus.NORMAL);
+        handler.afterConnectionClosed(slow, CloseStatus.SESSION_NOT_RELIABLE);
+
+        // Then - 只有缓冲区溢出 / 发送超时关闭的会话计入慢会话
+        assertEquals(0.0, registry.get("websocket.sessions.active").gauge().value());
+        assertEquals(1.0, registry.get("websocket.sessions.slow.closed").counter().count());
+        verify(delegate).afterConnectionClosed(slow, CloseStatus.SESSION_NOT_RELIABLE);
+    }
+}
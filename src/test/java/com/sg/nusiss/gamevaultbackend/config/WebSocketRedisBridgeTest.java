@@ -0,0 +1,160 @@
+package com.sg.nusiss.gamevaultbackend.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 两个节点（各自的 SimpleBroker + SimpMessagingTemplate）通过模拟的 Redis 频道互相转发广播
+ */
+@ExtendWith(MockitoExtension.class)
+public class WebSocketRedisBridgeTest {
+
+    private static final String CHANNEL = "ws:broadcast";
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private Node nodeA;
+    private Node nodeB;
+
+    /**
+     * 单个应用节点：本地 broker + 发送模板 + 广播桥 + 收到的出站消息
+     */
+    private final class Node {
+        final ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        final ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        final SimpleBrokerMessageHandler broker = new SimpleBrokerMessageHandler(
+                new ExecutorSubscribableChannel(), clientOutbound, brokerChannel, List.of("/topic", "/queue"));
+        final SimpMessagingTemplate template = new SimpMessagingTemplate(brokerChannel);
+        final WebSocketRedisBridge bridge;
+        final List<Message<?>> delivered = new ArrayList<>();
+
+        Node() {
+            template.setMessageConverter(new MappingJackson2MessageConverter());
+            StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("template", template));
+            bridge = new WebSocketRedisBridge(stringRedisTemplate, beanFactory.getBeanProvider(SimpMessagingTemplate.class));
+            ReflectionTestUtils.setField(bridge, "channel", CHANNEL);
+            brokerChannel.addInterceptor(bridge);
+            clientOutbound.subscribe(delivered::add);
+            broker.start();
+        }
+
+        void subscribe(String sessionId, String destination) {
+            SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+            connect.setSessionId(sessionId);
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            accessor.setSessionId(sessionId);
+            accessor.setSubscriptionId("sub-" + sessionId);
+            accessor.setDestination(destination);
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+            // 忽略 CONNECT_ACK
+            delivered.clear();
+        }
+
+        String deliveredBody(int index) {
+            return new String((byte[]) delivered.get(index).getPayload(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        nodeA = new Node();
+        nodeB = new Node();
+
+        // 模拟 Redis 频道：发布即投递给所有节点（包括发布者自己）
+        lenient().doAnswer(invocation -> {
+            String body = invocation.getArgument(1);
+            DefaultMessage message = new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8),
+                    body.getBytes(StandardCharsets.UTF_8));
+            nodeA.bridge.onMessage(message, null);
+            nodeB.bridge.onMessage(message, null);
+            return 1L;
+        }).when(stringRedisTemplate).convertAndSend(eq(CHANNEL), anyString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.broker.stop();
+        nodeB.broker.stop();
+    }
+
+    @Test
+    void testTopicBroadcast_ReachesSubscribersOnBothNodes() {
+        // Given - 两个客户端分别连在不同节点上订阅同一个群聊
+        nodeA.subscribe("a1", "/topic/chat/1");
+        nodeB.subscribe("b1", "/topic/chat/1");
+
+        // When - 节点 A 广播
+        nodeA.template.convertAndSend("/topic/chat/1", Map.of("content", "你好"));
+
+        // Then - 两边各收到一次，没有回环重复
+        assertEquals(1, nodeA.delivered.size());
+        assertEquals(1, nodeB.delivered.size());
+        assertEquals("{\"content\":\"你好\"}", nodeB.deliveredBody(0));
+        assertEquals("b1", SimpMessageHeaderAccessor.getSessionId(nodeB.delivered.get(0).getHeaders()));
+        verify(stringRedisTemplate, times(1)).convertAndSend(eq(CHANNEL), anyString());
+    }
+
+    @Test
+    void testPrivateTopic_OnlyMatchingSubscriberReceives() {
+        // Given
+        nodeA.subscribe("a1", "/topic/private/7");
+        nodeB.subscribe("b1", "/topic/private/8");
+
+        // When
+        nodeA.template.convertAndSend("/topic/private/8", Map.of("content", "hi"));
+
+        // Then
+        assertTrue(nodeA.delivered.isEmpty());
+        assertEquals(1, nodeB.delivered.size());
+    }
+
+    @Test
+    void testQueueDestination_NotForwarded() {
+        // When
+        nodeA.template.convertAndSend("/queue/errors-usera1", Map.of("error", "x"));
+
+        // Then
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    void testRedisFailure_LocalDeliveryStillWorks() {
+        // Given
+        nodeA.subscribe("a1", "/topic/chat/1");
+        doThrow(new RuntimeException("redis down")).when(stringRedisTemplate).convertAndSend(eq(CHANNEL), anyString());
+
+        // When
+        nodeA.template.convertAndSend("/topic/chat/1", Map.of("content", "你好"));
+
+        // Then
+        assertEquals(1, nodeA.delivered.size());
+    }
+}
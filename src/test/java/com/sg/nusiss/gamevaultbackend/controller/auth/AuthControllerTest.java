@@ -1,5 +1,6 @@
 package com.sg.nusiss.gamevaultbackend.controller.auth;
 
+import com.sg.nusiss.gamevaultbackend.cache.UserProfileCache;
 import com.sg.nusiss.gamevaultbackend.dto.auth.LoginReq;
 import com.sg.nusiss.gamevaultbackend.dto.auth.RegisterReq;
 import com.sg.nusiss.gamevaultbackend.dto.settings.ChangeEmailReq;
@@ -43,6 +44,9 @@ public class AuthControllerTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private UserProfileCache userProfileCache;
+
     @InjectMocks
     private AuthController authController;
 
@@ -1,5 +1,6 @@
 package com.sg.nusiss.gamevaultbackend.controller.settings;
 
+import com.sg.nusiss.gamevaultbackend.cache.UserProfileCache;
 import com.sg.nusiss.gamevaultbackend.dto.settings.UpdateProfileReq;
 import com.sg.nusiss.gamevaultbackend.entity.auth.User;
 import com.sg.nusiss.gamevaultbackend.repository.auth.UserRepository;
@@ -42,6 +43,9 @@ public class ProfileControllerTest {
     @Mock
     private FileUploadService fileUploadService;
 
+    @Mock
+    private UserProfileCache userProfileCache;
+
     @InjectMocks
     private ProfileController profileController;
 
@@ -0,0 +1,138 @@
+package com.sg.nusiss.gamevaultbackend.security.auth;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CachingJwtDecoderTest {
+
+    private static final Instant NOW = Instant.parse("2025-10-05T12:00:00Z");
+
+    /**
+     * 可调整时间的时钟
+     */
+    private static final class MutableClock extends Clock {
+        private Instant instant = NOW;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+    private final MutableClock clock = new MutableClock();
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    private Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .subject("user")
+                .claim("uid", 1L)
+                .issuedAt(NOW.minusSeconds(60))
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    private CachingJwtDecoder decoder(int maxEntries, Instant expiresAt) {
+        JwtDecoder delegate = token -> {
+            verifications.incrementAndGet();
+            if (token.startsWith("bad")) {
+                throw new BadJwtException("invalid signature");
+            }
+            return jwt(token, expiresAt);
+        };
+        return new CachingJwtDecoder(delegate, maxEntries, Duration.ofMinutes(10), clock);
+    }
+
+    @Test
+    void testDecode_SameTokenVerifiedOnce() {
+        CachingJwtDecoder decoder = decoder(100, NOW.plusSeconds(3600));
+
+        Jwt first = decoder.decode("token-a");
+        Jwt second = decoder.decode("token-a");
+
+        assertSame(first, second);
+        assertEquals(1, verifications.get());
+    }
+
+    @Test
+    void testDecode_HonorsTokenExpiry() {
+        // Given - token 30 秒后过期，早于缓存上限 10 分钟
+        CachingJwtDecoder decoder = decoder(100, NOW.plusSeconds(30));
+        decoder.decode("token-a");
+
+        // When - 过期后再次使用
+        clock.instant = NOW.plusSeconds(31);
+        decoder.decode("token-a");
+
+        // Then - 重新交给底层解码器验证（由其决定是否拒绝）
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void testDecode_MaxTtlCapsLongLivedTokens() {
+        CachingJwtDecoder decoder = decoder(100, NOW.plusSeconds(24 * 3600));
+        decoder.decode("token-a");
+
+        clock.instant = NOW.plus(Duration.ofMinutes(11));
+        decoder.decode("token-a");
+
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void testDecode_InvalidTokenNotCached() {
+        CachingJwtDecoder decoder = decoder(100, NOW.plusSeconds(3600));
+
+        assertThrows(BadJwtException.class, () -> decoder.decode("bad-token"));
+        assertThrows(BadJwtException.class, () -> decoder.decode("bad-token"));
+
+        assertEquals(2, verifications.get());
+        assertEquals(0, decoder.size());
+    }
+
+    @Test
+    void testDecode_AlreadyExpiredTokenNotCached() {
+        CachingJwtDecoder decoder = decoder(100, NOW.minusSeconds(1));
+
+        decoder.decode("token-a");
+
+        assertEquals(0, decoder.size());
+    }
+
+    @Test
+    void testDecode_BoundedLru() {
+        CachingJwtDecoder decoder = decoder(2, NOW.plusSeconds(3600));
+
+        decoder.decode("token-a");
+        decoder.decode("token-b");
+        decoder.decode("token-a");
+        decoder.decode("token-c");
+
+        // token-b 最久未使用，被淘汰
+        assertEquals(2, decoder.size());
+        decoder.decode("token-a");
+        assertEquals(3, verifications.get());
+        decoder.decode("token-b");
+        assertEquals(4, verifications.get());
+    }
+}
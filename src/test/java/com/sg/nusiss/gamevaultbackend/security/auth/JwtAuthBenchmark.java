@@ -0,0 +1,64 @@
+package com.sg.nusiss.gamevaultbackend.security.auth;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+
+/**
+ * 每个请求的 JWT 认证开销对比（手动运行，不属于单元测试）
+ *
+ * 使用与 JwtKeyConfig 相同的 RS256 编解码器，对同一个 token 反复执行 JwtUtil.validateAndParseToken，
+ * 分别测量直接验签与经过 CachingJwtDecoder 时的平均耗时。
+ *
+ * 运行参数：-Dbench.iterations=200000 -Dbench.warmup=20000
+ */
+public class JwtAuthBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int iterations = Integer.getInteger("bench.iterations", 200_000);
+        int warmup = Integer.getInteger("bench.warmup", 20_000);
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        RSAKey rsaKey = new RSAKey.Builder((RSAPublicKey) keyPair.getPublic())
+                .privateKey((RSAPrivateKey) keyPair.getPrivate())
+                .build();
+
+        NimbusJwtEncoder encoder = new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(rsaKey)));
+        JwtDecoder plain = NimbusJwtDecoder.withPublicKey((RSAPublicKey) keyPair.getPublic()).build();
+        JwtDecoder cached = new CachingJwtDecoder(plain);
+
+        String token = new JwtUtil(encoder, plain, 120).generateToken(1L, "bench", "bench@example.com");
+
+        JwtUtil withoutCache = new JwtUtil(encoder, plain, 120);
+        JwtUtil withCache = new JwtUtil(encoder, cached, 120);
+
+        run("预热（无缓存）", withoutCache, token, warmup);
+        run("预热（有缓存）", withCache, token, warmup);
+        double plainNanos = run("无缓存", withoutCache, token, iterations);
+        double cachedNanos = run("有缓存", withCache, token, iterations);
+        System.out.printf("加速比: %.1fx%n", plainNanos / cachedNanos);
+    }
+
+    private static double run(String name, JwtUtil jwtUtil, String token, int iterations) {
+        long valid = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (jwtUtil.validateAndParseToken(token).valid) {
+                valid++;
+            }
+        }
+        double perOp = (System.nanoTime() - start) / (double) iterations;
+        System.out.printf("%s: %.2f µs/请求（有效 %d / %d）%n", name, perOp / 1000, valid, iterations);
+        return perOp;
+    }
+}
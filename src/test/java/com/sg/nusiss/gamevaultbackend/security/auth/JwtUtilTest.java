@@ -0,0 +1,55 @@
+package com.sg.nusiss.gamevaultbackend.security.auth;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JwtUtilTest {
+
+    @Mock
+    private JwtEncoder encoder;
+
+    @Mock
+    private JwtDecoder decoder;
+
+    @Test
+    void testValidateAndParseToken_DecodesOnce() {
+        // Given
+        JwtUtil jwtUtil = new JwtUtil(encoder, decoder, 120);
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .subject("alice")
+                .claim("uid", 7L)
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(3600))
+                .build();
+        when(decoder.decode("token")).thenReturn(jwt);
+
+        // When
+        JwtUtil.TokenInfo info = jwtUtil.validateAndParseToken("Bearer token");
+
+        // Then
+        assertTrue(info.valid);
+        assertEquals(7L, info.userId);
+        assertEquals("alice", info.username);
+        verify(decoder, times(1)).decode("token");
+    }
+
+    @Test
+    void testValidateAndParseToken_InvalidToken() {
+        JwtUtil jwtUtil = new JwtUtil(encoder, decoder, 120);
+        when(decoder.decode("bad")).thenThrow(new org.springframework.security.oauth2.jwt.BadJwtException("bad"));
+
+        assertFalse(jwtUtil.validateAndParseToken("bad").valid);
+    }
+}
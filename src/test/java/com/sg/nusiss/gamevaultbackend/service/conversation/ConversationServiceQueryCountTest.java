@@ -0,0 +1,163 @@
+package com.sg.nusiss.gamevaultbackend.service.conversation;
+
+import com.sg.nusiss.gamevaultbackend.cache.ChatMembershipCache;
+import com.sg.nusiss.gamevaultbackend.dto.conversation.response.ConversationListResponse;
+import com.sg.nusiss.gamevaultbackend.dto.conversation.response.MemberResponse;
+import com.sg.nusiss.gamevaultbackend.entity.auth.User;
+import com.sg.nusiss.gamevaultbackend.entity.conversation.Conversation;
+import com.sg.nusiss.gamevaultbackend.entity.conversation.Member;
+import com.sg.nusiss.gamevaultbackend.repository.auth.UserRepository;
+import com.sg.nusiss.gamevaultbackend.repository.conversation.MemberRepository;
+import com.sg.nusiss.gamevaultbackend.repository.friend.FriendshipRepository;
+import com.sg.nusiss.gamevaultbackend.repository.message.MessageRepository;
+import com.sg.nusiss.gamevaultbackend.service.message.ChatBroadcastService;
+import com.sg.nusiss.gamevaultbackend.service.message.MessageCacheService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ConversationService 读路径的 SQL 语句数测试（H2）
+ * Mockito 只能统计仓储方法的调用次数，发现不了实体关联懒加载产生的 N+1；
+ * 这里通过 Hibernate Statistics 统计真实执行的语句数，保证其与群聊数、成员数无关。
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class ConversationServiceQueryCountTest {
+
+    // 只加载聊天相关的实体与仓储，不扫描 MyBatis 映射器与其他组件
+    @Configuration
+    @EntityScan(basePackageClasses = {Conversation.class, User.class})
+    @EnableJpaRepositories(basePackageClasses = {MemberRepository.class, UserRepository.class})
+    @Import(ConversationService.class)
+    static class Config {
+    }
+
+    private static final int CONVERSATIONS = 20;
+    private static final int MEMBERS = 30;
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private MessageRepository messageRepository;
+
+    @MockitoBean
+    private FriendshipRepository friendshipRepository;
+
+    @MockitoBean
+    private ChatMembershipCache chatMembershipCache;
+
+    @MockitoBean
+    private MessageCacheService messageCacheService;
+
+    @MockitoBean
+    private ChatBroadcastService chatBroadcastService;
+
+    private Statistics statistics;
+    private User owner;
+    private Conversation bigGroup;
+
+    @BeforeEach
+    void setUp() {
+        owner = persistUser("owner");
+
+        // 用户加入 20 个群聊，其中一个已退出
+        for (int i = 0; i < CONVERSATIONS; i++) {
+            Conversation conversation = persistConversation("群聊" + i, 5L + i);
+            persistMember(conversation, owner, "owner", i != 0);
+            if (i == 1) {
+                bigGroup = conversation;
+            }
+        }
+
+        // 其中一个群聊再加入 30 个成员
+        for (int i = 0; i < MEMBERS; i++) {
+            persistMember(bigGroup, persistUser("user" + i), "member", true);
+        }
+
+        // 清空一级缓存，后续查询全部走数据库
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    private User persistUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@test.com");
+        user.setPassword("password");
+        user.setCreatedDate(LocalDateTime.now());
+        return entityManager.persist(user);
+    }
+
+    private Conversation persistConversation(String title, long nextSeq) {
+        return entityManager.persist(Conversation.builder()
+                .title(title)
+                .ownerId(1L)
+                .nextSeq(nextSeq)
+                .build());
+    }
+
+    private void persistMember(Conversation conversation, User user, String role, boolean active) {
+        entityManager.persist(Member.builder()
+                .conversation(conversation)
+                .user(user)
+                .role(role)
+                .isActive(active)
+                .joinedAt(LocalDateTime.now())
+                .lastReadSeq(0L)
+                .build());
+    }
+
+    @Test
+    void testGetUserConversations_SingleStatementRegardlessOfConversationCount() {
+        // When
+        List<ConversationListResponse> conversations = conversationService.getUserConversations(owner.getUserId());
+
+        // Then - 一条连接查询，不加载、不懒加载任何实体
+        assertEquals(CONVERSATIONS - 1, conversations.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(5, conversations.get(0).getUnreadCount());
+    }
+
+    @Test
+    void testGetMembers_ConstantStatementsRegardlessOfMemberCount() {
+        // When
+        List<MemberResponse> members = conversationService.getMembers(bigGroup.getId(), owner.getUserId());
+
+        // Then - 群聊、成员校验、成员列表各一条；成员的用户信息不逐个懒加载
+        assertEquals(MEMBERS + 1, members.size());
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityLoadCount());
+        assertEquals("owner", members.get(0).getUsername());
+    }
+}
@@ -3,6 +3,7 @@ package com.sg.nusiss.gamevaultbackend.service.forum;
 import com.sg.nusiss.gamevaultbackend.constant.forum.ForumRelationType;
 import com.sg.nusiss.gamevaultbackend.entity.forum.UserContentRelation;
 import com.sg.nusiss.gamevaultbackend.mapper.forum.ForumContentLikeMapper;
+import com.sg.nusiss.gamevaultbackend.mapper.forum.ForumContentMapper;
 import com.sg.nusiss.gamevaultbackend.mapper.forum.ForumMetricMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,6 +34,9 @@ class ForumContentLikeServiceTest {
     @Mock
     private ForumMetricMapper metricMapper;
 
+    @Mock
+    private ForumContentMapper contentMapper;
+
     @InjectMocks
     private ForumContentLikeService forumContentLikeService;
 
@@ -68,6 +72,7 @@ class ForumContentLikeServiceTest {
         assertTrue(result);
         verify(contentLikeMapper, times(1)).existsByUserAndContentAndType(testUserId, testContentId, ForumRelationType.LIKE);
         verify(contentLikeMapper, times(1)).insert(any(UserContentRelation.class));
+        verify(metricMapper, times(1)).incrementMetric(testContentId, "like_count", 1);
     }
 
     @Test
@@ -144,6 +149,7 @@ class ForumContentLikeServiceTest {
         assertTrue(result);
         verify(contentLikeMapper, times(1)).existsByUserAndContentAndType(testUserId, testContentId, ForumRelationType.LIKE);
         verify(contentLikeMapper, times(1)).deleteByUserAndContentAndType(testUserId, testContentId, ForumRelationType.LIKE);
+        verify(metricMapper, times(1)).incrementMetric(testContentId, "like_count", -1);
     }
 
     @Test
@@ -709,17 +715,35 @@ class ForumContentLikeServiceTest {
     void testBatchSyncLikeCounts_Success() {
         // Given
         List<Long> contentIds = Arrays.asList(1L, 2L, 3L);
-        when(contentLikeMapper.countByContentAndType(anyLong(), eq(ForumRelationType.LIKE)))
-            .thenReturn(5);
-        when(metricMapper.setMetricValue(anyLong(), eq("like_count"), anyInt()))
+        when(metricMapper.syncCountsFromRelations(contentIds, "like_count", ForumRelationType.LIKE))
+            .thenReturn(2);
+
+        // When
+        int corrected = forumContentLikeService.batchSyncLikeCounts(contentIds);
+
+        // Then - 一条语句完成整批，不再逐个统计
+        assertEquals(2, corrected);
+        verify(metricMapper, times(1)).syncCountsFromRelations(contentIds, "like_count", ForumRelationType.LIKE);
+        verify(contentLikeMapper, never()).countByContentAndType(anyLong(), any());
+        verify(metricMapper, never()).setMetricValue(anyLong(), anyString(), anyInt());
+    }
+
+    @Test
+    void testBatchSyncLikeCounts_LargeList_SplitIntoBatches() {
+        // Given
+        List<Long> contentIds = new ArrayList<>();
+        for (long id = 1; id <= ForumContentLikeService.SYNC_BATCH_SIZE * 2 + 5; id++) {
+            contentIds.add(id);
+        }
+        when(metricMapper.syncCountsFromRelations(anyList(), eq("like_count"), eq(ForumRelationType.LIKE)))
             .thenReturn(1);
 
         // When
-        forumContentLikeService.batchSyncLikeCounts(contentIds);
+        int corrected = forumContentLikeService.batchSyncLikeCounts(contentIds);
 
         // Then
-        verify(contentLikeMapper, times(3)).countByContentAndType(anyLong(), eq(ForumRelationType.LIKE));
-        verify(metricMapper, times(3)).setMetricValue(anyLong(), eq("like_count"), anyInt());
+        assertEquals(3, corrected);
+        verify(metricMapper, times(3)).syncCountsFromRelations(anyList(), eq("like_count"), eq(ForumRelationType.LIKE));
     }
 
     @Test
@@ -748,6 +772,44 @@ class ForumContentLikeServiceTest {
         verify(metricMapper, never()).setMetricValue(anyLong(), anyString(), anyInt());
     }
 
+    // ==================== reconcileLikeCounts 方法测试 ====================
+
+    @Test
+    void testReconcileLikeCounts_WalksContentIdsByKeyset() {
+        // Given - 第一批满批，第二批不足一批即结束
+        int batchSize = ForumContentLikeService.SYNC_BATCH_SIZE;
+        List<Long> firstBatch = new ArrayList<>();
+        for (long id = 1; id <= batchSize; id++) {
+            firstBatch.add(id);
+        }
+        List<Long> secondBatch = Arrays.asList(batchSize + 10L, batchSize + 20L);
+        when(contentMapper.findActiveContentIdsAfter(0L, batchSize)).thenReturn(firstBatch);
+        when(contentMapper.findActiveContentIdsAfter((long) batchSize, batchSize)).thenReturn(secondBatch);
+        when(metricMapper.syncCountsFromRelations(firstBatch, "like_count", ForumRelationType.LIKE)).thenReturn(3);
+        when(metricMapper.syncCountsFromRelations(secondBatch, "like_count", ForumRelationType.LIKE)).thenReturn(1);
+
+        // When
+        int corrected = forumContentLikeService.reconcileLikeCounts();
+
+        // Then
+        assertEquals(4, corrected);
+        verify(contentMapper, times(2)).findActiveContentIdsAfter(anyLong(), anyInt());
+    }
+
+    @Test
+    void testReconcileLikeCounts_NoContent_DoesNothing() {
+        // Given
+        when(contentMapper.findActiveContentIdsAfter(0L, ForumContentLikeService.SYNC_BATCH_SIZE))
+            .thenReturn(new ArrayList<>());
+
+        // When
+        int corrected = forumContentLikeService.reconcileLikeCounts();
+
+        // Then
+        assertEquals(0, corrected);
+        verify(metricMapper, never()).syncCountsFromRelations(anyList(), anyString(), any());
+    }
+
     // ==================== getTopLikedContents 方法测试 ====================
 
     @Test
@@ -0,0 +1,268 @@
+package com.sg.nusiss.gamevaultbackend.service.forum;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 论坛列表查询计数方式对比（手动运行，不属于单元测试，需要本地 PostgreSQL）
+ *
+ * 在独立的 schema 中生成帖子与点赞数据（默认 2 万帖子、100 万点赞，点赞集中在少量热门帖），
+ * 分别执行：
+ *   旧查询：每行关联子查询 COUNT(*) user_content_relations + content_metrics GROUP BY 透视；
+ *   新查询：按 (content_id, metric_id) 唯一索引直接读取维护好的计数，无聚合；
+ * 对比首页 / 深分页列表与详情的平均耗时，并计时一次全量点赞数对账（与 ForumMetricMapper.syncCountsFromRelations 相同的语句）。
+ * 表结构与 complete_schema.sql 一致但不建外键，运行结束后删除该 schema。
+ *
+ * 运行参数（系统属性）：
+ *   -Dbench.url=jdbc:postgresql://localhost:5432/gamevault
+ *   -Dbench.user=postgres -Dbench.password=postgres
+ *   -Dbench.posts=20000 -Dbench.likes=1000000 -Dbench.users=200000
+ *   -Dbench.iterations=200 -Dbench.pageSize=20
+ */
+public class ForumCounterBenchmark {
+
+    private static final String SCHEMA = "forum_counter_bench";
+
+    private static final String LEGACY_LIST = """
+            SELECT c.content_id, c.title, c.created_date,
+                   COALESCE(MAX(CASE WHEN md.metric_name = 'view_count' THEN cm.metric_value END), 0) as view_count,
+                   COALESCE((
+                       SELECT COUNT(*) FROM user_content_relations ucr
+                       WHERE ucr.content_id = c.content_id
+                         AND ucr.relation_type_id = (SELECT type_id FROM relationship_types WHERE type_name = 'like')
+                   ), 0) as like_count,
+                   COALESCE(MAX(CASE WHEN md.metric_name = 'reply_count' THEN cm.metric_value END), 0) as reply_count
+            FROM contents c
+                     LEFT JOIN content_metrics cm ON c.content_id = cm.content_id
+                     LEFT JOIN metric_definitions md ON cm.metric_id = md.metric_id
+            WHERE c.content_type = 'post' AND c.status = 'active'
+            GROUP BY c.content_id, c.content_type, c.title, c.body, c.body_plain,
+                     c.author_id, c.parent_id, c.status, c.created_date, c.updated_date
+            ORDER BY c.created_date DESC
+            LIMIT ? OFFSET ?""";
+
+    private static final String COUNTER_JOINS = """
+            LEFT JOIN content_metrics cm_view ON cm_view.content_id = c.content_id
+                AND cm_view.metric_id = (SELECT metric_id FROM metric_definitions WHERE metric_name = 'view_count')
+            LEFT JOIN content_metrics cm_like ON cm_like.content_id = c.content_id
+                AND cm_like.metric_id = (SELECT metric_id FROM metric_definitions WHERE metric_name = 'like_count')
+            LEFT JOIN content_metrics cm_reply ON cm_reply.content_id = c.content_id
+                AND cm_reply.metric_id = (SELECT metric_id FROM metric_definitions WHERE metric_name = 'reply_count')
+            """;
+
+    private static final String COUNTER_LIST = """
+            SELECT c.content_id, c.title, c.created_date,
+                   COALESCE(cm_view.metric_value, 0) as view_count,
+                   COALESCE(cm_like.metric_value, 0) as like_count,
+                   COALESCE(cm_reply.metric_value, 0) as reply_count
+            FROM contents c
+            """ + COUNTER_JOINS + """
+            WHERE c.content_type = 'post' AND c.status = 'active'
+            ORDER BY c.created_date DESC
+            LIMIT ? OFFSET ?""";
+
+    private static final String LEGACY_DETAIL = LEGACY_LIST
+            .replace("WHERE c.content_type = 'post' AND c.status = 'active'", "WHERE c.content_id = ? AND c.status = 'active'")
+            .replace("ORDER BY c.created_date DESC\nLIMIT ? OFFSET ?", "");
+
+    private static final String COUNTER_DETAIL = COUNTER_LIST
+            .replace("WHERE c.content_type = 'post' AND c.status = 'active'", "WHERE c.content_id = ? AND c.status = 'active'")
+            .replace("ORDER BY c.created_date DESC\nLIMIT ? OFFSET ?", "");
+
+    private static final String SYNC_LIKES = """
+            INSERT INTO content_metrics (content_id, metric_id, metric_value, updated_date)
+            SELECT c.content_id,
+                   (SELECT metric_id FROM metric_definitions WHERE metric_name = 'like_count'),
+                   COUNT(ucr.content_id),
+                   CURRENT_TIMESTAMP
+            FROM contents c
+            LEFT JOIN user_content_relations ucr
+                ON ucr.content_id = c.content_id AND ucr.relation_type_id = 1
+            WHERE c.content_id > ? AND c.content_id <= ?
+            GROUP BY c.content_id
+            ON CONFLICT (content_id, metric_id)
+            DO UPDATE SET metric_value = EXCLUDED.metric_value, updated_date = CURRENT_TIMESTAMP
+            WHERE content_metrics.metric_value IS DISTINCT FROM EXCLUDED.metric_value""";
+
+    public static void main(String[] args) throws SQLException {
+        String url = System.getProperty("bench.url", "jdbc:postgresql://localhost:5432/gamevault");
+        String user = System.getProperty("bench.user", "postgres");
+        String password = System.getProperty("bench.password", "postgres");
+        int posts = Integer.getInteger("bench.posts", 20_000);
+        int likes = Integer.getInteger("bench.likes", 1_000_000);
+        int users = Integer.getInteger("bench.users", 200_000);
+        int iterations = Integer.getInteger("bench.iterations", 200);
+        int pageSize = Integer.getInteger("bench.pageSize", 20);
+
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+                statement.execute("CREATE SCHEMA " + SCHEMA);
+                statement.execute("SET search_path TO " + SCHEMA);
+            }
+            try {
+                seed(connection, posts, likes, users);
+
+                long start = System.nanoTime();
+                int corrected = reconcile(connection, posts);
+                System.out.printf("全量对账 %,d 个帖子 / %,d 个点赞: %.1f ms，写入 %,d 行%n",
+                        posts, likes, (System.nanoTime() - start) / 1e6, corrected);
+                verifyCounts(connection);
+
+                int deepOffset = Math.max(0, posts / 2 / pageSize * pageSize);
+                System.out.printf("%-16s %12s %12s%n", "场景", "旧查询(ms)", "计数列(ms)");
+                compare(connection, "首页列表", LEGACY_LIST, COUNTER_LIST, iterations, pageSize, 0);
+                compare(connection, "第 " + (deepOffset / pageSize + 1) + " 页", LEGACY_LIST, COUNTER_LIST,
+                        Math.max(1, iterations / 10), pageSize, deepOffset);
+                compareDetail(connection, iterations, posts);
+
+                explain(connection, COUNTER_LIST, pageSize);
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+                }
+            }
+        }
+    }
+
+    private static void seed(Connection connection, int posts, int likes, int users) throws SQLException {
+        long start = System.nanoTime();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE contents (
+                        content_id BIGSERIAL PRIMARY KEY, content_type VARCHAR(20) NOT NULL, title VARCHAR(200),
+                        body TEXT, body_plain TEXT, author_id BIGINT, parent_id BIGINT,
+                        status VARCHAR(20) DEFAULT 'active',
+                        created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP, updated_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP)""");
+            statement.execute("""
+                    CREATE TABLE metric_definitions (
+                        metric_id SERIAL PRIMARY KEY, metric_name VARCHAR(50) UNIQUE NOT NULL, metric_type VARCHAR(20) NOT NULL)""");
+            statement.execute("""
+                    CREATE TABLE content_metrics (
+                        id SERIAL PRIMARY KEY, content_id BIGINT, metric_id INTEGER, metric_value INTEGER DEFAULT 0,
+                        updated_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP, UNIQUE(content_id, metric_id))""");
+            statement.execute("""
+                    CREATE TABLE relationship_types (type_id SERIAL PRIMARY KEY, type_name VARCHAR(50) UNIQUE NOT NULL)""");
+            statement.execute("""
+                    CREATE TABLE user_content_relations (
+                        id SERIAL PRIMARY KEY, user_id BIGINT, content_id BIGINT, relation_type_id INTEGER,
+                        created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP, UNIQUE(user_id, content_id, relation_type_id))""");
+
+            statement.execute("INSERT INTO metric_definitions (metric_name, metric_type) VALUES "
+                    + "('view_count', 'counter'), ('like_count', 'counter'), ('reply_count', 'counter')");
+            statement.execute("INSERT INTO relationship_types (type_name) VALUES ('like')");
+            statement.execute("INSERT INTO contents (content_type, title, body, body_plain, author_id, created_date) "
+                    + "SELECT 'post', '帖子 ' || g, repeat('正文 ', 40), repeat('正文 ', 40), g % 1000, "
+                    + "TIMESTAMP '2025-01-01' + g * INTERVAL '1 minute' FROM generate_series(1, " + posts + ") g");
+            statement.execute("INSERT INTO content_metrics (content_id, metric_id, metric_value) "
+                    + "SELECT c.content_id, md.metric_id, (random() * 500)::int FROM contents c, metric_definitions md "
+                    + "WHERE md.metric_name IN ('view_count', 'reply_count')");
+            // 点赞分布偏斜：平方使热门帖子集中在较小的 content_id 上
+            statement.execute("INSERT INTO user_content_relations (user_id, content_id, relation_type_id) "
+                    + "SELECT 1 + (random() * " + (users - 1) + ")::bigint, "
+                    + "1 + floor(power(random(), 2) * " + posts + ")::bigint, 1 "
+                    + "FROM generate_series(1, " + (long) likes * 11 / 10 + ") "
+                    + "ON CONFLICT DO NOTHING");
+            statement.execute("DELETE FROM user_content_relations WHERE id IN (SELECT id FROM user_content_relations "
+                    + "ORDER BY id OFFSET " + likes + ")");
+
+            statement.execute("CREATE INDEX ON contents(created_date DESC)");
+            statement.execute("CREATE INDEX ON contents(content_type, status)");
+            statement.execute("CREATE INDEX ON content_metrics(content_id)");
+            statement.execute("CREATE INDEX ON user_content_relations(content_id)");
+            statement.execute("CREATE INDEX ON user_content_relations(content_id, relation_type_id)");
+            statement.execute("ANALYZE");
+        }
+        System.out.printf("生成数据: %.1f s%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    private static int reconcile(Connection connection, int posts) throws SQLException {
+        int corrected = 0;
+        try (PreparedStatement statement = connection.prepareStatement(SYNC_LIKES)) {
+            for (long from = 0; from < posts; from += ForumContentLikeService.SYNC_BATCH_SIZE) {
+                statement.setLong(1, from);
+                statement.setLong(2, from + ForumContentLikeService.SYNC_BATCH_SIZE);
+                corrected += statement.executeUpdate();
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE content_metrics");
+        }
+        return corrected;
+    }
+
+    private static void verifyCounts(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("""
+                     SELECT COUNT(*) FROM contents c
+                     JOIN content_metrics cm ON cm.content_id = c.content_id
+                         AND cm.metric_id = (SELECT metric_id FROM metric_definitions WHERE metric_name = 'like_count')
+                     WHERE cm.metric_value <> (SELECT COUNT(*) FROM user_content_relations u WHERE u.content_id = c.content_id)""")) {
+            rs.next();
+            if (rs.getLong(1) != 0) {
+                throw new IllegalStateException("对账后仍有 " + rs.getLong(1) + " 个帖子点赞数不一致");
+            }
+        }
+    }
+
+    private static void compare(Connection connection, String label, String legacySql, String counterSql,
+                                int iterations, int pageSize, int offset) throws SQLException {
+        double legacy = timeList(connection, legacySql, iterations, pageSize, offset);
+        double counter = timeList(connection, counterSql, iterations, pageSize, offset);
+        System.out.printf("%-16s %12.3f %12.3f%n", label, legacy, counter);
+    }
+
+    private static double timeList(Connection connection, String sql, int iterations, int pageSize, int offset)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, pageSize);
+            statement.setInt(2, offset);
+            drain(statement);
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                drain(statement);
+            }
+            return (System.nanoTime() - start) / 1e6 / iterations;
+        }
+    }
+
+    private static void compareDetail(Connection connection, int iterations, int posts) throws SQLException {
+        double[] elapsed = new double[2];
+        String[] sqls = {LEGACY_DETAIL, COUNTER_DETAIL};
+        for (int s = 0; s < sqls.length; s++) {
+            try (PreparedStatement statement = connection.prepareStatement(sqls[s])) {
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    // 偏向热门帖子，与点赞分布一致
+                    statement.setLong(1, 1 + (long) i * 7 % Math.max(1, posts / 100));
+                    drain(statement);
+                }
+                elapsed[s] = (System.nanoTime() - start) / 1e6 / iterations;
+            }
+        }
+        System.out.printf("%-16s %12.3f %12.3f%n", "热门帖子详情", elapsed[0], elapsed[1]);
+    }
+
+    private static void explain(Connection connection, String sql, int pageSize) throws SQLException {
+        String explained = sql.replace("LIMIT ? OFFSET ?", "LIMIT " + pageSize + " OFFSET 0");
+        System.out.println("\n计数列首页执行计划：");
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) " + explained)) {
+            while (rs.next()) {
+                System.out.println("  " + rs.getString(1));
+            }
+        }
+    }
+
+    private static void drain(PreparedStatement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                rs.getLong(1);
+            }
+        }
+    }
+}
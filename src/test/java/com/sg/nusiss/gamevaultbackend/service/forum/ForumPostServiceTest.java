@@ -1,5 +1,7 @@
 package com.sg.nusiss.gamevaultbackend.service.forum;
 
+import com.sg.nusiss.gamevaultbackend.dto.forum.ForumCursor;
+import com.sg.nusiss.gamevaultbackend.dto.forum.ForumCursorPage;
 import com.sg.nusiss.gamevaultbackend.entity.forum.ForumContent;
 import com.sg.nusiss.gamevaultbackend.mapper.forum.ForumContentMapper;
 import com.sg.nusiss.gamevaultbackend.mapper.forum.ForumMetricMapper;
@@ -35,6 +37,9 @@ class ForumPostServiceTest {
     @Mock
     private ForumContentLikeService contentLikeService;
 
+    @Mock
+    private ViewCountBuffer viewCountBuffer;
+
     @InjectMocks
     private ForumPostService forumPostService;
 
@@ -401,15 +406,13 @@ class ForumPostServiceTest {
     void testIncrementViewCount_Success() {
         // Given
         Long postId = testPostId;
-        when(contentMapper.findById(postId)).thenReturn(testPost);
-        when(metricMapper.incrementMetric(postId, "view_count", 1)).thenReturn(1);
 
         // When
         forumPostService.incrementViewCount(postId);
 
-        // Then
-        verify(contentMapper, times(1)).findById(postId);
-        verify(metricMapper, times(1)).incrementMetric(postId, "view_count", 1);
+        // Then - 只在内存中累加，不再查询帖子或直接写统计表
+        verify(viewCountBuffer, times(1)).increment(postId);
+        verifyNoInteractions(contentMapper, metricMapper);
     }
 
     @Test
@@ -421,32 +424,9 @@ class ForumPostServiceTest {
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
             () -> forumPostService.incrementViewCount(postId));
         assertEquals("帖子ID不能为空", exception.getMessage());
+        verifyNoInteractions(viewCountBuffer);
     }
 
-    @Test
-    void testIncrementViewCount_PostNotFound_ThrowsException() {
-        // Given
-        Long postId = testPostId;
-        when(contentMapper.findById(postId)).thenReturn(null);
-
-        // When & Then
-        RuntimeException exception = assertThrows(RuntimeException.class, 
-            () -> forumPostService.incrementViewCount(postId));
-        assertEquals("帖子不存在", exception.getMessage());
-    }
-
-    @Test
-    void testIncrementViewCount_NotPost_ThrowsException() {
-        // Given
-        Long postId = testPostId;
-        testPost.setContentType("reply");
-        when(contentMapper.findById(postId)).thenReturn(testPost);
-
-        // When & Then
-        RuntimeException exception = assertThrows(RuntimeException.class, 
-            () -> forumPostService.incrementViewCount(postId));
-        assertEquals("帖子不存在", exception.getMessage());
-    }
 
     // ==================== deletePost 方法测试 ====================
 
@@ -940,4 +920,191 @@ class ForumPostServiceTest {
             () -> forumPostService.deleteReply(replyId, userId));
         assertEquals("没有权限删除此回复", exception.getMessage());
     }
+
+    // ==================== 游标分页测试 ====================
+
+    private static List<ForumContent> feedRows(long firstId, int count, LocalDateTime newest) {
+        List<ForumContent> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ForumContent content = new ForumContent();
+            content.setContentId(firstId - i);
+            content.setContentType("post");
+            content.setCreatedDate(newest.minusSeconds(i));
+            rows.add(content);
+        }
+        return rows;
+    }
+
+    @Test
+    void testGetPostFeed_FirstPage_HasMoreAndCursorPointsAtLastItem() {
+        // Given - 多查一条用于判断是否有下一页
+        LocalDateTime newest = LocalDateTime.of(2025, 10, 1, 12, 0, 0, 123_456_000);
+        when(contentMapper.findActivePostsByCursor(null, null, 3)).thenReturn(feedRows(100L, 3, newest));
+
+        // When
+        ForumCursorPage<ForumContent> page = forumPostService.getPostFeed(null, 2, false, null);
+
+        // Then
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+        assertNull(page.getTotal());
+        ForumCursor next = ForumCursor.decode(page.getNextCursor());
+        assertEquals(99L, next.getContentId());
+        assertEquals(newest.minusSeconds(1), next.getCreatedDate());
+        verify(contentMapper, never()).countActivePosts();
+        verifyNoInteractions(contentLikeService);
+    }
+
+    @Test
+    void testGetPostFeed_NextPage_UsesDecodedCursorAndBatchLikeStatus() {
+        // Given
+        LocalDateTime cursorDate = LocalDateTime.of(2025, 10, 1, 11, 59, 59, 123_456_000);
+        String cursor = new ForumCursor(cursorDate, 99L).encode();
+        List<ForumContent> rows = feedRows(98L, 2, cursorDate.minusSeconds(1));
+        when(contentMapper.findActivePostsByCursor(cursorDate, 99L, 21)).thenReturn(rows);
+        when(contentLikeService.batchCheckLikeStatus(testUserId, Arrays.asList(98L, 97L)))
+            .thenReturn(Map.of(98L, true));
+
+        // When
+        ForumCursorPage<ForumContent> page = forumPostService.getPostFeed(cursor, 20, false, testUserId);
+
+        // Then - 最后一页
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        assertTrue(page.getItems().get(0).getIsLikedByCurrentUser());
+        assertFalse(page.getItems().get(1).getIsLikedByCurrentUser());
+        verify(contentLikeService, times(1)).batchCheckLikeStatus(anyLong(), anyList());
+    }
+
+    @Test
+    void testGetPostFeed_WithTotal_CountCachedBetweenPages() {
+        // Given
+        when(contentMapper.findActivePostsByCursor(any(), any(), anyInt())).thenReturn(new ArrayList<>());
+        when(contentMapper.countActivePosts()).thenReturn(42);
+
+        // When
+        ForumCursorPage<ForumContent> first = forumPostService.getPostFeed(null, 20, true, null);
+        ForumCursorPage<ForumContent> second = forumPostService.getPostFeed(null, 20, true, null);
+
+        // Then - 缓存期内只 COUNT 一次
+        assertEquals(42, first.getTotal());
+        assertEquals(42, second.getTotal());
+        verify(contentMapper, times(1)).countActivePosts();
+    }
+
+    @Test
+    void testGetPostFeed_InvalidCursor_ThrowsException() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> forumPostService.getPostFeed("not-a-cursor", 20, false, null));
+        assertEquals("分页游标无效", exception.getMessage());
+        verify(contentMapper, never()).findActivePostsByCursor(any(), any(), anyInt());
+    }
+
+    @Test
+    void testGetPostFeedByAuthorId_WithTotal_UsesExactCount() {
+        // Given
+        when(contentMapper.selectActiveByAuthorIdByCursor(testUserId, null, null, 21))
+            .thenReturn(feedRows(10L, 1, LocalDateTime.now()));
+        when(contentMapper.countActiveByAuthorId(testUserId)).thenReturn(1);
+
+        // When
+        ForumCursorPage<ForumContent> page = forumPostService.getPostFeedByAuthorId(testUserId, null, 0, true, null);
+
+        // Then - 非法 size 回退为 20
+        assertEquals(1, page.getItems().size());
+        assertEquals(1, page.getTotal());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void testGetPostFeedByAuthorId_NullAuthorId_ThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+            () -> forumPostService.getPostFeedByAuthorId(null, null, 20, false, null));
+    }
+
+    @Test
+    void testGetReplyFeed_WithTotal_ReadsMaintainedReplyCount() {
+        // Given
+        when(contentMapper.findChildrenByCursor(testPostId, null, null, 21)).thenReturn(Arrays.asList(testReply));
+        when(metricMapper.getMetricValue(testPostId, "reply_count")).thenReturn(7);
+
+        // When
+        ForumCursorPage<ForumContent> page = forumPostService.getReplyFeed(testPostId, null, 20, true, null);
+
+        // Then - 总数来自父帖的 reply_count，不再 COUNT 回复
+        assertEquals(1, page.getItems().size());
+        assertEquals(7, page.getTotal());
+        verify(contentMapper, never()).countChildren(anyLong());
+    }
+
+    // ==================== 全文搜索（相关度游标分页）测试 ====================
+
+    private static List<ForumContent> searchRows(long firstId, float... ranks) {
+        List<ForumContent> rows = new ArrayList<>();
+        for (int i = 0; i < ranks.length; i++) {
+            ForumContent content = new ForumContent();
+            content.setContentId(firstId - i);
+            content.setContentType("post");
+            content.setSearchRank(ranks[i]);
+            rows.add(content);
+        }
+        return rows;
+    }
+
+    @Test
+    void testSearchPostsRanked_FirstPage_CursorCarriesExactRank() {
+        // Given - 相关度不是十进制下的精确值，游标必须原样带回
+        float lastRank = 0.0607927f;
+        when(contentMapper.searchPostsRanked("测试", null, null, 3))
+            .thenReturn(searchRows(50L, 0.6f, lastRank, 0.01f));
+
+        // When
+        ForumCursorPage<ForumContent> page = forumPostService.searchPostsRanked(" 测试 ", null, 2, false, null);
+
+        // Then
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+        ForumCursor next = ForumCursor.decode(page.getNextCursor());
+        assertEquals(lastRank, next.getRank());
+        assertEquals(49L, next.getContentId());
+        assertNull(next.getCreatedDate());
+        verify(contentMapper, never()).countSearchPosts(anyString());
+    }
+
+    @Test
+    void testSearchPostsRanked_NextPage_UsesRankCursorAndTotal() {
+        // Given
+        String cursor = ForumCursor.ofRank(0.25f, 49L).encode();
+        when(contentMapper.searchPostsRanked("测试", 0.25f, 49L, 21)).thenReturn(searchRows(30L, 0.25f));
+        when(contentMapper.countSearchPosts("测试")).thenReturn(3);
+        when(contentLikeService.batchCheckLikeStatus(testUserId, Arrays.asList(30L))).thenReturn(Map.of(30L, true));
+
+        // When
+        ForumCursorPage<ForumContent> page = forumPostService.searchPostsRanked("测试", cursor, 20, true, testUserId);
+
+        // Then
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        assertEquals(3, page.getTotal());
+        assertTrue(page.getItems().get(0).getIsLikedByCurrentUser());
+    }
+
+    @Test
+    void testSearchPostsRanked_FeedCursor_ThrowsException() {
+        // Given - 时间游标不能用于相关度排序
+        String cursor = new ForumCursor(LocalDateTime.of(2025, 10, 1, 12, 0), 99L).encode();
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> forumPostService.searchPostsRanked("测试", cursor, 20, false, null));
+        assertEquals("分页游标无效", exception.getMessage());
+        verifyNoInteractions(contentMapper);
+    }
+
+    @Test
+    void testSearchPostsRanked_EmptyKeyword_ThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+            () -> forumPostService.searchPostsRanked("  ", null, 20, false, null));
+        verifyNoInteractions(contentMapper);
+    }
 }
@@ -0,0 +1,255 @@
+package com.sg.nusiss.gamevaultbackend.service.forum;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 论坛帖子搜索方式对比（手动运行，不属于单元测试，需要本地 PostgreSQL）
+ *
+ * 在独立的 schema 中生成帖子（默认 100 万条，标题与正文由固定词表随机组合，中英文混合），
+ * 分别执行：
+ *   旧查询：title / body_plain ILIKE '%关键词%'，按时间倒序 LIMIT / OFFSET，并 COUNT 全部命中；
+ *   新查询：search_tsv GIN 索引匹配，按时间倒序（兼容旧接口）及按 ts_rank 相关度的游标分页（第 1 页与第 N 页）；
+ * 关键词覆盖高频词、低频词、中文短语与不存在的词。
+ * 表结构、chat_search_text 函数与生成列和 complete_schema.sql 一致，运行结束后删除该 schema。
+ *
+ * 运行参数（系统属性）：
+ *   -Dbench.url=jdbc:postgresql://localhost:5432/gamevault
+ *   -Dbench.user=postgres -Dbench.password=postgres
+ *   -Dbench.posts=1000000 -Dbench.iterations=20 -Dbench.pageSize=20 -Dbench.pages=10
+ */
+public class ForumSearchBenchmark {
+
+    private static final String SCHEMA = "forum_search_bench";
+
+    // 词表：前几个词出现频率远高于后面的词
+    private static final String[] WORDS = {
+            "game", "update", "patch", "guide", "review", "boss", "raid", "build", "speedrun", "mod",
+            "攻略", "更新", "评测", "副本", "装备", "联机", "存档", "成就", "皮肤", "剧情",
+            "elden", "zelda", "hollow", "stardew", "factorio", "celeste", "hades", "terraria", "rimworld", "witcher"
+    };
+
+    private static final String[] KEYWORDS = {"game", "factorio", "攻略", "联机存档", "hollow knight", "nonexistentword"};
+
+    private static final String SEARCH_QUERY = "websearch_to_tsquery('simple', chat_search_text(?))";
+
+    private static final String LEGACY_SEARCH = """
+            SELECT c.content_id, c.title, c.created_date
+            FROM contents c
+            WHERE c.content_type = 'post' AND c.status = 'active'
+              AND (c.title ILIKE CONCAT('%', ?, '%') OR c.body_plain ILIKE CONCAT('%', ?, '%'))
+            ORDER BY c.created_date DESC
+            LIMIT ? OFFSET 0""";
+
+    private static final String LEGACY_COUNT = """
+            SELECT COUNT(*) FROM contents
+            WHERE content_type = 'post' AND status = 'active'
+              AND (title ILIKE CONCAT('%', ?, '%') OR body_plain ILIKE CONCAT('%', ?, '%'))""";
+
+    private static final String FTS_SEARCH = """
+            SELECT c.content_id, c.title, c.created_date
+            FROM contents c
+            WHERE c.content_type = 'post' AND c.status = 'active'
+              AND c.search_tsv @@ %s
+            ORDER BY c.created_date DESC
+            LIMIT ? OFFSET 0""".formatted(SEARCH_QUERY);
+
+    private static final String FTS_COUNT = """
+            SELECT COUNT(*) FROM contents
+            WHERE content_type = 'post' AND status = 'active' AND search_tsv @@ %s""".formatted(SEARCH_QUERY);
+
+    // 与 ForumContentMapper.searchPostsRanked 相同的结构（省略计数列关联）
+    private static final String RANKED_SEARCH = """
+            SELECT c.content_id, c.title, p.search_rank
+            FROM (
+                SELECT m.content_id, m.search_rank
+                FROM (
+                    SELECT c.content_id, ts_rank(c.search_tsv, q.query) AS search_rank
+                    FROM contents c
+                    CROSS JOIN %s AS q(query)
+                    WHERE c.content_type = 'post' AND c.status = 'active' AND c.search_tsv @@ q.query
+                ) m
+                WHERE (m.search_rank, m.content_id) < (CAST(? AS REAL), ?)
+                ORDER BY m.search_rank DESC, m.content_id DESC
+                LIMIT ?
+            ) p
+            JOIN contents c ON c.content_id = p.content_id
+            ORDER BY p.search_rank DESC, p.content_id DESC""".formatted(SEARCH_QUERY);
+
+    public static void main(String[] args) throws SQLException {
+        String url = System.getProperty("bench.url", "jdbc:postgresql://localhost:5432/gamevault");
+        String user = System.getProperty("bench.user", "postgres");
+        String password = System.getProperty("bench.password", "postgres");
+        int posts = Integer.getInteger("bench.posts", 1_000_000);
+        int iterations = Integer.getInteger("bench.iterations", 20);
+        int pageSize = Integer.getInteger("bench.pageSize", 20);
+        int pages = Integer.getInteger("bench.pages", 10);
+
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+                statement.execute("CREATE SCHEMA " + SCHEMA);
+                statement.execute("SET search_path TO " + SCHEMA);
+            }
+            try {
+                seed(connection, posts);
+
+                System.out.printf("%-18s %10s %12s %12s %12s %12s %12s%n", "关键词", "命中数",
+                        "ILIKE页(ms)", "ILIKE数(ms)", "FTS页(ms)", "FTS数(ms)", "相关度第" + pages + "页(ms)");
+                for (String keyword : KEYWORDS) {
+                    long hits = count(connection, FTS_COUNT, keyword);
+                    double legacyPage = time(connection, LEGACY_SEARCH, iterations, keyword, keyword, pageSize);
+                    double legacyCount = time(connection, LEGACY_COUNT, Math.max(1, iterations / 5), keyword, keyword);
+                    double ftsPage = time(connection, FTS_SEARCH, iterations, keyword, pageSize);
+                    double ftsCount = time(connection, FTS_COUNT, iterations, keyword);
+                    double rankedDeep = timeRankedPages(connection, keyword, pageSize, pages, Math.max(1, iterations / 5));
+                    System.out.printf("%-18s %,10d %12.2f %12.2f %12.2f %12.2f %12.2f%n", keyword, hits,
+                            legacyPage, legacyCount, ftsPage, ftsCount, rankedDeep);
+                }
+
+                explain(connection, KEYWORDS[1], pageSize);
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+                }
+            }
+        }
+    }
+
+    private static void seed(Connection connection, int posts) throws SQLException {
+        long start = System.nanoTime();
+        StringBuilder words = new StringBuilder("ARRAY[");
+        for (int i = 0; i < WORDS.length; i++) {
+            words.append(i > 0 ? ", " : "").append('\'').append(WORDS[i]).append('\'');
+        }
+        words.append(']');
+        // 立方使低下标的词更常见；正文约 60 个词
+        String randomWord = "(" + words + ")[1 + floor(power(random(), 3) * " + WORDS.length + ")::int]";
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE OR REPLACE FUNCTION chat_search_text(t TEXT)
+                    RETURNS TEXT AS $$
+                        SELECT regexp_replace(coalesce(t, ''), '([\\u3400-\\u9fff\\uf900-\\ufaff])', '\\1' || chr(3), 'g');
+                    $$ LANGUAGE sql IMMUTABLE PARALLEL SAFE""");
+            statement.execute("""
+                    CREATE TABLE contents (
+                        content_id BIGSERIAL PRIMARY KEY, content_type VARCHAR(20) NOT NULL, title VARCHAR(200),
+                        body TEXT, body_plain TEXT, author_id BIGINT, parent_id BIGINT,
+                        status VARCHAR(20) DEFAULT 'active',
+                        created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP, updated_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP)""");
+            statement.execute("INSERT INTO contents (content_type, title, body_plain, author_id, created_date) "
+                    + "SELECT 'post', "
+                    + "(SELECT string_agg(" + randomWord + ", ' ') FROM generate_series(1, 4) w WHERE g > 0), "
+                    + "(SELECT string_agg(" + randomWord + ", ' ') FROM generate_series(1, 60) w WHERE g > 0), "
+                    + "g % 10000, TIMESTAMP '2024-01-01' + g * INTERVAL '10 second' "
+                    + "FROM generate_series(1, " + posts + ") g");
+            statement.execute("UPDATE contents SET body = body_plain");
+
+            long generated = System.nanoTime();
+            statement.execute("""
+                    ALTER TABLE contents ADD COLUMN search_tsv tsvector
+                        GENERATED ALWAYS AS (
+                            setweight(to_tsvector('simple', chat_search_text(title)), 'A') ||
+                            setweight(to_tsvector('simple', chat_search_text(body_plain)), 'B')
+                        ) STORED""");
+            statement.execute("CREATE INDEX ON contents USING GIN (search_tsv) WHERE content_type = 'post' AND status = 'active'");
+            statement.execute("CREATE INDEX ON contents(created_date DESC)");
+            statement.execute("VACUUM ANALYZE contents");
+            System.out.printf("生成 %,d 条帖子: %.1f s（其中生成列与 GIN 索引 %.1f s）%n", posts,
+                    (System.nanoTime() - start) / 1e9, (System.nanoTime() - generated) / 1e9);
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT pg_size_pretty(pg_relation_size(indexrelid)) FROM pg_index i "
+                             + "JOIN pg_class c ON c.oid = i.indexrelid WHERE c.relname LIKE '%search_tsv%'")) {
+            while (rs.next()) {
+                System.out.println("GIN 索引大小: " + rs.getString(1));
+            }
+        }
+    }
+
+    private static double time(Connection connection, String sql, int iterations, Object... params)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            drain(statement);
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                drain(statement);
+            }
+            return (System.nanoTime() - start) / 1e6 / iterations;
+        }
+    }
+
+    /**
+     * 按游标连续翻到第 pages 页，返回最后一页的平均耗时
+     */
+    private static double timeRankedPages(Connection connection, String keyword, int pageSize, int pages,
+                                          int iterations) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(RANKED_SEARCH)) {
+            float rank = Float.MAX_VALUE;
+            long contentId = Long.MAX_VALUE;
+            for (int page = 1; page < pages; page++) {
+                bindRanked(statement, keyword, rank, contentId, pageSize);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        contentId = rs.getLong(1);
+                        rank = rs.getFloat(3);
+                    }
+                }
+            }
+            bindRanked(statement, keyword, rank, contentId, pageSize);
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                drain(statement);
+            }
+            return (System.nanoTime() - start) / 1e6 / iterations;
+        }
+    }
+
+    private static void bindRanked(PreparedStatement statement, String keyword, float rank, long contentId,
+                                   int pageSize) throws SQLException {
+        statement.setString(1, keyword);
+        statement.setFloat(2, rank);
+        statement.setLong(3, contentId);
+        statement.setInt(4, pageSize);
+    }
+
+    private static long count(Connection connection, String sql, String keyword) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, keyword);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private static void explain(Connection connection, String keyword, int pageSize) throws SQLException {
+        System.out.println("\n相关度排序第一页执行计划（关键词: " + keyword + "）：");
+        try (PreparedStatement statement = connection.prepareStatement(
+                "EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) " + RANKED_SEARCH)) {
+            bindRanked(statement, keyword, Float.MAX_VALUE, Long.MAX_VALUE, pageSize);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    System.out.println("  " + rs.getString(1));
+                }
+            }
+        }
+    }
+
+    private static void drain(PreparedStatement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                rs.getLong(1);
+            }
+        }
+    }
+}
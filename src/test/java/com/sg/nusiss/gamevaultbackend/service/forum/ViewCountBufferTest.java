@@ -0,0 +1,219 @@
+package com.sg.nusiss.gamevaultbackend.service.forum;
+
+import com.sg.nusiss.gamevaultbackend.entity.forum.ContentMetric;
+import com.sg.nusiss.gamevaultbackend.mapper.forum.ForumMetricMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ViewCountBufferTest {
+
+    @Mock
+    private ForumMetricMapper metricMapper;
+
+    @InjectMocks
+    private ViewCountBuffer viewCountBuffer;
+
+    /**
+     * 捕获写入时的增量（mapper 收到的是子列表，需要在调用时复制）
+     */
+    private List<ContentMetric> captureFlushes() {
+        List<ContentMetric> written = new ArrayList<>();
+        when(metricMapper.batchIncrementMetric(anyList(), eq("view_count"))).thenAnswer(invocation -> {
+            List<ContentMetric> batch = invocation.getArgument(0);
+            written.addAll(batch);
+            return batch.size();
+        });
+        return written;
+    }
+
+    @Test
+    void testFlush_AggregatesViewsIntoOneUpsertSortedByPostId() {
+        // Given
+        List<ContentMetric> written = captureFlushes();
+        for (int i = 0; i < 1000; i++) {
+            viewCountBuffer.increment(7L);
+        }
+        viewCountBuffer.increment(3L);
+
+        // When
+        int posts = viewCountBuffer.flush();
+
+        // Then - 热门帖子的 1000 次浏览合并为一行增量
+        assertEquals(2, posts);
+        verify(metricMapper, times(1)).batchIncrementMetric(anyList(), eq("view_count"));
+        assertEquals(3L, written.get(0).getContentId());
+        assertEquals(1, written.get(0).getMetricValue());
+        assertEquals(7L, written.get(1).getContentId());
+        assertEquals(1000, written.get(1).getMetricValue());
+        verify(metricMapper, never()).incrementMetric(anyLong(), anyString(), anyInt());
+    }
+
+    @Test
+    void testFlush_NothingPending_NoDatabaseWrite() {
+        assertEquals(0, viewCountBuffer.flush());
+        verifyNoInteractions(metricMapper);
+    }
+
+    @Test
+    void testFlush_IdlePostsEvictedAfterIdleFlushes() {
+        // Given
+        captureFlushes();
+        viewCountBuffer.increment(1L);
+        viewCountBuffer.flush();
+
+        // When - 写入后计数清零，连续多个周期没有新增浏览才移除
+        for (int i = 1; i < ViewCountBuffer.EVICT_AFTER_IDLE_FLUSHES; i++) {
+            viewCountBuffer.flush();
+            assertEquals(1, viewCountBuffer.getPendingCount());
+        }
+        viewCountBuffer.flush();
+
+        // Then
+        assertEquals(0, viewCountBuffer.getPendingCount());
+        verify(metricMapper, times(1)).batchIncrementMetric(anyList(), eq("view_count"));
+    }
+
+    @Test
+    void testFlush_ViewDuringIdlePeriod_ResetsEviction() {
+        // Given
+        List<ContentMetric> written = captureFlushes();
+        viewCountBuffer.increment(1L);
+        viewCountBuffer.flush();
+        for (int i = 1; i < ViewCountBuffer.EVICT_AFTER_IDLE_FLUSHES; i++) {
+            viewCountBuffer.flush();
+        }
+
+        // When - 即将移除前又有浏览
+        viewCountBuffer.increment(1L);
+        viewCountBuffer.flush();
+        viewCountBuffer.flush();
+
+        // Then - 计数器保留，两次浏览都已写入
+        assertEquals(1, viewCountBuffer.getPendingCount());
+        assertEquals(2, written.stream().mapToInt(ContentMetric::getMetricValue).sum());
+    }
+
+    @Test
+    void testFlush_LargeBacklog_SplitIntoBatches() {
+        // Given
+        List<ContentMetric> written = captureFlushes();
+        for (long id = 1; id <= ViewCountBuffer.FLUSH_BATCH_SIZE + 1; id++) {
+            viewCountBuffer.increment(id);
+        }
+
+        // When
+        viewCountBuffer.flush();
+
+        // Then
+        verify(metricMapper, times(2)).batchIncrementMetric(anyList(), eq("view_count"));
+        assertEquals(ViewCountBuffer.FLUSH_BATCH_SIZE + 1, written.size());
+    }
+
+    @Test
+    void testFlush_DatabaseFailure_DeltasKeptForRetry() {
+        // Given
+        viewCountBuffer.increment(5L);
+        viewCountBuffer.increment(5L);
+        when(metricMapper.batchIncrementMetric(anyList(), eq("view_count")))
+                .thenThrow(new RuntimeException("db down"))
+                .thenReturn(1);
+
+        // When
+        assertEquals(0, viewCountBuffer.flush());
+        viewCountBuffer.increment(5L);
+        viewCountBuffer.flush();
+
+        // Then - 失败的 2 次与之后的 1 次一起写入
+        ArgumentCaptor<List<ContentMetric>> batches = ArgumentCaptor.forClass(List.class);
+        verify(metricMapper, times(2)).batchIncrementMetric(batches.capture(), eq("view_count"));
+        assertEquals(3, batches.getAllValues().get(1).get(0).getMetricValue());
+    }
+
+    @Test
+    void testFlushOnShutdown_WritesRemainingViews() {
+        // Given
+        List<ContentMetric> written = captureFlushes();
+        viewCountBuffer.increment(9L);
+
+        // When
+        viewCountBuffer.flushOnShutdown();
+
+        // Then
+        assertEquals(1, written.size());
+        assertEquals(9L, written.get(0).getContentId());
+    }
+
+    @Test
+    void testIncrement_ConcurrentWithFlush_NoViewsLost() throws Exception {
+        // Given
+        List<ContentMetric> written = captureFlushes();
+        int threads = 8;
+        int viewsPerThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When - 写入与浏览同时进行
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < viewsPerThread; i++) {
+                    viewCountBuffer.increment(42L);
+                }
+            });
+        }
+        while (!executor.awaitTermination(1, TimeUnit.MILLISECONDS)) {
+            viewCountBuffer.flush();
+            executor.shutdown();
+        }
+        viewCountBuffer.flush();
+
+        // Then
+        long total = written.stream().mapToLong(ContentMetric::getMetricValue).sum();
+        assertEquals((long) threads * viewsPerThread, total);
+    }
+
+    @Test
+    void testIncrement_ConcurrentWithEviction_NoViewsLost() throws Exception {
+        // Given - 浏览稀疏地分布在大量帖子上，写入频繁，计数器不断被移除又重建
+        List<ContentMetric> written = captureFlushes();
+        int threads = 8;
+        int viewsPerThread = 20_000;
+        int posts = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            executor.submit(() -> {
+                for (int i = 0; i < viewsPerThread; i++) {
+                    viewCountBuffer.increment((long) ((i * 31 + offset) % posts));
+                    if (i % 64 == 0) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        while (!executor.awaitTermination(0, TimeUnit.MILLISECONDS)) {
+            viewCountBuffer.flush();
+        }
+        viewCountBuffer.flush();
+
+        // Then - 移除与累加交错时，落在旧计数器上的浏览也被写入，且只写入一次
+        long total = written.stream().mapToLong(ContentMetric::getMetricValue).sum();
+        assertEquals((long) threads * viewsPerThread, total);
+    }
+}
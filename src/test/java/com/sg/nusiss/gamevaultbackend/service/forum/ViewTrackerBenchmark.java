@@ -0,0 +1,119 @@
+package com.sg.nusiss.gamevaultbackend.service.forum;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ViewTracker 吞吐量与内存占用（手动运行，不属于单元测试）
+ *
+ * 1. 吞吐量：多个线程随机 (用户, 帖子) 调用 shouldIncrementView，对比旧实现（字符串键 ConcurrentHashMap）；
+ * 2. 内存：写入 bench.entries 个不同的键（默认 1000 万）后强制 GC，统计堆占用与每条记录字节数；
+ *    旧实现默认只写入 100 万条再按比例估算，1000 万条需要数 GB 堆。
+ *
+ * 运行参数：-Xmx2g -Dbench.threads=8 -Dbench.seconds=5 -Dbench.users=100000 -Dbench.posts=20000
+ *          -Dbench.entries=10000000 -Dbench.legacyEntries=1000000
+ */
+public class ViewTrackerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int threads = Integer.getInteger("bench.threads", Runtime.getRuntime().availableProcessors());
+        int seconds = Integer.getInteger("bench.seconds", 5);
+        int users = Integer.getInteger("bench.users", 100_000);
+        int posts = Integer.getInteger("bench.posts", 20_000);
+        int entries = Integer.getInteger("bench.entries", 10_000_000);
+        int legacyEntries = Integer.getInteger("bench.legacyEntries", 1_000_000);
+
+        System.out.printf("吞吐量（%d 线程，%d 秒，%,d 用户 x %,d 帖子）%n", threads, seconds, users, posts);
+        ViewTracker tracker = new ViewTracker(null, "local", entries + entries / 10);
+        LegacyViewTracker legacy = new LegacyViewTracker();
+        // 预热
+        throughput(tracker::shouldIncrementView, threads, 1, users, posts);
+        throughput(legacy::shouldIncrementView, threads, 1, users, posts);
+        System.out.printf("  新实现: %,.0f ops/s%n", throughput(tracker::shouldIncrementView, threads, seconds, users, posts));
+        System.out.printf("  旧实现: %,.0f ops/s%n", throughput(legacy::shouldIncrementView, threads, seconds, users, posts));
+        tracker = null;
+        legacy = null;
+
+        System.out.printf("%n内存占用%n");
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        long before = usedHeap(memory);
+        ViewTracker filled = new ViewTracker(null, "local", entries + entries / 10);
+        for (long i = 0; i < entries; i++) {
+            filled.shouldIncrementView(i / posts + 1, null, i % posts + 1);
+        }
+        long used = usedHeap(memory) - before;
+        System.out.printf("  新实现: %,d 条, 堆 %,d MB, %.1f 字节/条 (哈希表 %,d MB)%n",
+                filled.getRecordCount(), used >> 20, (double) used / filled.getRecordCount(), filled.getTableBytes() >> 20);
+        filled = null;
+
+        before = usedHeap(memory);
+        LegacyViewTracker legacyFilled = new LegacyViewTracker();
+        for (long i = 0; i < legacyEntries; i++) {
+            legacyFilled.shouldIncrementView(i / posts + 1, null, i % posts + 1);
+        }
+        used = usedHeap(memory) - before;
+        double perEntry = (double) used / legacyFilled.viewRecords.size();
+        System.out.printf("  旧实现: %,d 条, 堆 %,d MB, %.1f 字节/条, 按比例 %,d 条约 %,d MB%n",
+                legacyFilled.viewRecords.size(), used >> 20, perEntry, entries, (long) (perEntry * entries) >> 20);
+    }
+
+    private interface Tracker {
+        boolean shouldIncrementView(Long userId, String sessionId, Long postId);
+    }
+
+    private static double throughput(Tracker tracker, int threads, int seconds, int users, int posts)
+            throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long local = 0;
+                while ((local & 1023) != 0 || System.nanoTime() < deadline) {
+                    tracker.shouldIncrementView((long) random.nextInt(users), null, (long) random.nextInt(posts));
+                    local++;
+                }
+                ops.add(local);
+                done.countDown();
+            });
+            thread.start();
+        }
+        done.await();
+        return ops.sum() / (double) seconds;
+    }
+
+    private static long usedHeap(MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * 旧实现：字符串键 + 时间戳
+     */
+    private static final class LegacyViewTracker {
+
+        private final Map<String, Long> viewRecords = new ConcurrentHashMap<>();
+
+        boolean shouldIncrementView(Long userId, String sessionId, Long postId) {
+            String key = (userId != null ? "user_" + userId : "session_" + sessionId) + "_post_" + postId;
+            long currentTime = System.currentTimeMillis();
+            Long lastViewTime = viewRecords.get(key);
+            if (lastViewTime == null || (currentTime - lastViewTime) > TimeUnit.MINUTES.toMillis(5)) {
+                viewRecords.put(key, currentTime);
+                return true;
+            }
+            return false;
+        }
+    }
+}
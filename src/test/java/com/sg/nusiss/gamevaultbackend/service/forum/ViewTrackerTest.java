@@ -0,0 +1,146 @@
+package com.sg.nusiss.gamevaultbackend.service.forum;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ViewTrackerTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toMillis(1000));
+
+    private ViewTracker localTracker(int maxEntries) {
+        return new ViewTracker(null, false, maxEntries, now::get);
+    }
+
+    @Test
+    void testShouldIncrementView_RepeatWithinWindow_NotCounted() {
+        // Given
+        ViewTracker tracker = localTracker(1000);
+
+        // When & Then
+        assertTrue(tracker.shouldIncrementView(1L, null, 100L));
+        now.addAndGet(TimeUnit.MINUTES.toMillis(4));
+        assertFalse(tracker.shouldIncrementView(1L, null, 100L));
+        // 其他用户、其他帖子互不影响
+        assertTrue(tracker.shouldIncrementView(2L, null, 100L));
+        assertTrue(tracker.shouldIncrementView(1L, null, 101L));
+        assertEquals(3, tracker.getRecordCount());
+    }
+
+    @Test
+    void testShouldIncrementView_AfterWindow_CountedAgain() {
+        // Given
+        ViewTracker tracker = localTracker(1000);
+        assertTrue(tracker.shouldIncrementView(1L, null, 100L));
+
+        // When - 超过 5 分钟窗口加一个桶
+        now.addAndGet(TimeUnit.MINUTES.toMillis(6) + 1);
+
+        // Then
+        assertTrue(tracker.shouldIncrementView(1L, null, 100L));
+    }
+
+    @Test
+    void testCleanExpiredRecords_DropsWholeBuckets() {
+        // Given
+        ViewTracker tracker = localTracker(1000);
+        for (long postId = 1; postId <= 200; postId++) {
+            tracker.shouldIncrementView(7L, null, postId);
+        }
+        assertEquals(200, tracker.getRecordCount());
+
+        // When
+        now.addAndGet(TimeUnit.MINUTES.toMillis(7));
+        tracker.cleanExpiredRecords();
+
+        // Then
+        assertEquals(0, tracker.getRecordCount());
+    }
+
+    @Test
+    void testShouldIncrementView_MemoryCapEnforced() {
+        // Given - 每个分段最多 2 条
+        ViewTracker tracker = localTracker(128);
+
+        // When
+        for (long userId = 1; userId <= 10_000; userId++) {
+            tracker.shouldIncrementView(userId, null, 1L);
+        }
+
+        // Then - 记录数不超过上限
+        assertTrue(tracker.getRecordCount() <= 128);
+    }
+
+    @Test
+    void testShouldIncrementView_AnonymousSessions_TrackedSeparately() {
+        ViewTracker tracker = localTracker(1000);
+
+        assertTrue(tracker.shouldIncrementView(null, "session-a", 100L));
+        assertFalse(tracker.shouldIncrementView(null, "session-a", 100L));
+        assertTrue(tracker.shouldIncrementView(null, "session-b", 100L));
+    }
+
+    @Test
+    void testBuildKey_PacksSmallIdsWithoutCollision() {
+        // Given - 登录用户键打包后互不相同，且与匿名键区分
+        Set<Long> keys = new HashSet<>();
+        for (long userId = 0; userId < 100; userId++) {
+            for (long postId = 0; postId < 100; postId++) {
+                assertTrue(keys.add(ViewTracker.buildKey(userId, null, postId)));
+            }
+        }
+
+        // Then
+        assertEquals((5L << 32) | 9L, ViewTracker.buildKey(5L, null, 9L));
+        assertTrue(ViewTracker.buildKey(null, "s", 9L) < 0);
+        assertTrue(ViewTracker.buildKey(Long.MAX_VALUE, null, 9L) >= 0);
+    }
+
+    @Test
+    void testRedisMode_SharedWindowViaSetNx() {
+        // Given
+        ViewTracker tracker = new ViewTracker(stringRedisTemplate, true, 1000, now::get);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        String key = ViewTracker.REDIS_KEY_PREFIX + Long.toHexString((1L << 32) | 100L);
+        when(valueOperations.setIfAbsent(key, "1", Duration.ofMinutes(5))).thenReturn(true, false);
+
+        // When & Then
+        assertTrue(tracker.shouldIncrementView(1L, null, 100L));
+        assertFalse(tracker.shouldIncrementView(1L, null, 100L));
+        assertEquals(0, tracker.getRecordCount());
+    }
+
+    @Test
+    void testRedisMode_RedisDown_FallsBackToLocal() {
+        // Given
+        ViewTracker tracker = new ViewTracker(stringRedisTemplate, true, 1000, now::get);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenThrow(new RuntimeException("redis down"));
+
+        // When & Then
+        assertTrue(tracker.shouldIncrementView(1L, null, 100L));
+        assertFalse(tracker.shouldIncrementView(1L, null, 100L));
+        assertEquals(1, tracker.getRecordCount());
+    }
+}
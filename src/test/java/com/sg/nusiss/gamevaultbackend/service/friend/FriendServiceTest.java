@@ -1,5 +1,6 @@
 package com.sg.nusiss.gamevaultbackend.service.friend;
 
+import com.sg.nusiss.gamevaultbackend.cache.FriendshipCache;
 import com.sg.nusiss.gamevaultbackend.common.ErrorCode;
 import com.sg.nusiss.gamevaultbackend.dto.friend.response.FriendRequestResponse;
 import com.sg.nusiss.gamevaultbackend.dto.friend.response.FriendResponse;
@@ -48,6 +49,9 @@ public class FriendServiceTest {
     @Mock
     private FriendshipRepository friendshipRepository;
 
+    @Mock
+    private FriendshipCache friendshipCache;
+
     @InjectMocks
     private FriendService friendService;
 
@@ -1003,6 +1007,7 @@ public class FriendServiceTest {
         verify(friendRequestRepository, times(1)).findById(requestId);
         verify(friendRequestRepository, times(1)).save(any(FriendRequest.class));
         verify(friendshipRepository, times(2)).save(any(Friendship.class)); // 双向关系
+        verify(friendshipCache).evict(1L, currentUserId); // 好友关系缓存失效
 
         // 验证 FriendRequest 更新
         ArgumentCaptor<FriendRequest> requestCaptor = ArgumentCaptor.forClass(FriendRequest.class);
@@ -1613,6 +1618,7 @@ public class FriendServiceTest {
         verify(friendshipRepository, times(1))
                 .findByUserIdAndFriendIdAndIsActive(friendId, userId, true);
         verify(friendshipRepository, times(2)).save(any(Friendship.class));
+        verify(friendshipCache).evict(userId, friendId);
 
         // 验证两个关系都被逻辑删除
         ArgumentCaptor<Friendship> captor = ArgumentCaptor.forClass(Friendship.class);
@@ -0,0 +1,92 @@
+package com.sg.nusiss.gamevaultbackend.service.message;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse;
+import com.sg.nusiss.gamevaultbackend.dto.websocket.ChatMessageDto;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+
+/**
+ * 每次聊天广播的内存分配对比（手动运行，不属于单元测试）
+ *
+ * 模拟私聊推送（接收方 + 发送方两个目的地）：
+ *   旧路径：逐字段构建 ChatMessageDto，对每个目的地调用 convertAndSend，各自序列化一次；
+ *   新路径：ChatMessageDto.from + ChatBroadcastService，只序列化一次并复用 byte[]。
+ * 使用 com.sun.management.ThreadMXBean 统计当前线程的分配字节数，消息通道不做任何处理，只测量广播本身。
+ *
+ * 运行参数：-Dbench.iterations=200000 -Dbench.warmup=50000 -Dbench.destinations=2
+ */
+public class ChatBroadcastAllocationBenchmark {
+
+    public static void main(String[] args) {
+        int iterations = Integer.getInteger("bench.iterations", 200_000);
+        int warmup = Integer.getInteger("bench.warmup", 50_000);
+        int destinationCount = Integer.getInteger("bench.destinations", 2);
+
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel();
+        channel.subscribe(message -> { });
+        SimpMessagingTemplate template = new SimpMessagingTemplate(channel);
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build());
+        template.setMessageConverter(converter);
+        ChatBroadcastService broadcastService = new ChatBroadcastService(template);
+
+        String[] destinations = new String[destinationCount];
+        for (int i = 0; i < destinationCount; i++) {
+            destinations[i] = "/topic/private/" + (i + 1);
+        }
+        MessageResponse response = MessageResponse.builder()
+                .id(11L)
+                .senderId(1L)
+                .receiverId(2L)
+                .senderUsername("alice")
+                .senderEmail("alice@example.com")
+                .content("今晚一起开黑吗？八点老地方见")
+                .messageType("text")
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        Runnable legacy = () -> {
+            ChatMessageDto dto = ChatMessageDto.builder()
+                    .id(response.getId())
+                    .senderId(response.getSenderId())
+                    .receiverId(response.getReceiverId())
+                    .senderUsername(response.getSenderUsername())
+                    .senderEmail(response.getSenderEmail())
+                    .content(response.getContent())
+                    .messageType(response.getMessageType())
+                    .timestamp(response.getCreatedAt())
+                    .build();
+            for (String destination : destinations) {
+                template.convertAndSend(destination, dto);
+            }
+        };
+        Runnable preSerialized = () -> broadcastService.broadcast(ChatMessageDto.from(response), destinations);
+
+        run("预热（逐目的地序列化）", legacy, warmup);
+        run("预热（预序列化）", preSerialized, warmup);
+        double legacyBytes = run("逐目的地序列化", legacy, iterations);
+        double preSerializedBytes = run("预序列化", preSerialized, iterations);
+        System.out.printf("分配减少: %.1f%%%n", 100 * (1 - preSerializedBytes / legacyBytes));
+    }
+
+    private static double run(String name, Runnable broadcast, int iterations) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long startBytes = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            broadcast.run();
+        }
+        double nanos = (System.nanoTime() - start) / (double) iterations;
+        double bytes = (threads.getThreadAllocatedBytes(threadId) - startBytes) / (double) iterations;
+        System.out.printf("%s: %.0f B/次, %.2f µs/次%n", name, bytes, nanos / 1000);
+        return bytes;
+    }
+}
@@ -0,0 +1,136 @@
+package com.sg.nusiss.gamevaultbackend.service.message;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse;
+import com.sg.nusiss.gamevaultbackend.dto.websocket.ChatMessageDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ChatBroadcastServiceTest {
+
+    private final List<Message<?>> sent = new ArrayList<>();
+    private MessageConverter converter;
+    private SimpMessagingTemplate messagingTemplate;
+    private ChatBroadcastService chatBroadcastService;
+
+    @BeforeEach
+    void setUp() {
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel();
+        channel.subscribe(sent::add);
+        messagingTemplate = new SimpMessagingTemplate(channel);
+        // 与 Spring Boot 为 STOMP 配置的转换器一致：支持 java.time，日期输出为 ISO 字符串
+        MappingJackson2MessageConverter jackson = new MappingJackson2MessageConverter();
+        jackson.setObjectMapper(Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build());
+        converter = spy(jackson);
+        messagingTemplate.setMessageConverter(converter);
+        chatBroadcastService = new ChatBroadcastService(messagingTemplate);
+    }
+
+    private static MessageResponse privateMessage() {
+        return MessageResponse.builder()
+                .id(11L)
+                .senderId(1L)
+                .receiverId(2L)
+                .senderUsername("alice")
+                .content("你好")
+                .messageType("file")
+                .createdAt(LocalDateTime.of(2025, 10, 5, 20, 30))
+                .attachment(MessageResponse.FileAttachment.builder()
+                        .fileId("f1")
+                        .fileName("a.png")
+                        .fileSize(10L)
+                        .build())
+                .build();
+    }
+
+    @Test
+    void testBroadcast_SerializesOnceForAllDestinations() throws Exception {
+        // When
+        chatBroadcastService.broadcast(ChatMessageDto.from(privateMessage()), "/topic/private/2", "/topic/private/1");
+
+        // Then - 只转换一次，两个目的地共用同一个 byte[]
+        verify(converter, times(1)).toMessage(any(), any());
+        assertEquals(2, sent.size());
+        assertSame(sent.get(0).getPayload(), sent.get(1).getPayload());
+        assertEquals("/topic/private/2", SimpMessageHeaderAccessor.getDestination(sent.get(0).getHeaders()));
+        assertEquals("/topic/private/1", SimpMessageHeaderAccessor.getDestination(sent.get(1).getHeaders()));
+        assertTrue(MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(
+                sent.get(0).getHeaders().get(MessageHeaders.CONTENT_TYPE, MimeType.class)));
+
+        JsonNode json = new ObjectMapper().readTree(new String((byte[]) sent.get(0).getPayload(), StandardCharsets.UTF_8));
+        assertEquals(2L, json.get("receiverId").asLong());
+        assertEquals("a.png", json.get("attachment").get("fileName").asText());
+        assertEquals("2025-10-05T20:30:00", json.get("timestamp").asText());
+        assertFalse(json.has("conversationId"));
+    }
+
+    @Test
+    void testBroadcast_MatchesConvertAndSendOutput() {
+        // Given
+        ChatMessageDto dto = ChatMessageDto.from(privateMessage());
+
+        // When
+        messagingTemplate.convertAndSend("/topic/chat/1", dto);
+        chatBroadcastService.broadcast(dto, "/topic/chat/1");
+
+        // Then - 与默认转换路径输出完全一致
+        assertArrayEquals((byte[]) sent.get(0).getPayload(), (byte[]) sent.get(1).getPayload());
+    }
+
+    @Test
+    void testBroadcast_NonBytePayload_FallsBackToConvertAndSend() {
+        // Given - 转换器输出字符串而非字节
+        StringMessageConverter stringConverter = new StringMessageConverter();
+        stringConverter.setSerializedPayloadClass(String.class);
+        messagingTemplate.setMessageConverter(stringConverter);
+
+        // When
+        chatBroadcastService.broadcast("hello", "/topic/a", "/topic/b");
+
+        // Then
+        assertEquals(2, sent.size());
+        assertEquals("hello", sent.get(1).getPayload());
+    }
+
+    @Test
+    void testFrom_GroupMessageWithoutAttachment() {
+        MessageResponse response = MessageResponse.builder()
+                .id(5L)
+                .conversationId(3L)
+                .seq(9L)
+                .senderId(1L)
+                .content("hi")
+                .messageType("text")
+                .build();
+
+        ChatMessageDto dto = ChatMessageDto.from(response);
+
+        assertEquals(3L, dto.getConversationId());
+        assertEquals(9L, dto.getSeq());
+        assertNull(dto.getReceiverId());
+        assertNull(dto.getAttachment());
+    }
+}
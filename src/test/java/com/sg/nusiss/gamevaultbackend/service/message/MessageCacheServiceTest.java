@@ -0,0 +1,314 @@
+package com.sg.nusiss.gamevaultbackend.service.message;
+
+import com.sg.nusiss.gamevaultbackend.cache.ChatMessageRedisSerializer;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MessageCacheServiceTest {
+
+    @Mock
+    private RedisTemplate<String, MessageResponse> redisTemplate;
+
+    @Mock
+    private ListOperations<String, MessageResponse> listOperations;
+
+    @InjectMocks
+    private MessageCacheService messageCacheService;
+
+    private final RedisSerializer<MessageResponse> valueSerializer = new RedisSerializer<>() {
+        @Override
+        public byte[] serialize(MessageResponse value) {
+            if (value == ChatMessageRedisSerializer.HISTORY_START) {
+                return "start".getBytes(StandardCharsets.UTF_8);
+            }
+            return ("msg:" + value.getId()).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public MessageResponse deserialize(byte[] bytes) {
+            return null;
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        lenient().doReturn(valueSerializer).when(redisTemplate).getValueSerializer();
+    }
+
+    private MessageResponse message(long id) {
+        return MessageResponse.builder().id(id).conversationId(1L).content("消息" + id).build();
+    }
+
+    private static String text(Object arg) {
+        return new StringRedisSerializer().deserialize((byte[]) arg);
+    }
+
+    @Test
+    void testCacheMessage_SingleScriptRoundTrip() {
+        // When
+        messageCacheService.cacheMessage(message(10L));
+
+        // Then - RPUSH + LTRIM + EXPIRE 合并为一次脚本调用
+        ArgumentCaptor<Object[]> argsCaptor = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate, times(1)).execute(same(MessageCacheService.APPEND_SCRIPT),
+                any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of("chat:messages:1")), argsCaptor.capture());
+
+        Object[] args = argsCaptor.getValue();
+        assertEquals(3, args.length);
+        assertEquals("100", text(args[0]));
+        assertEquals(String.valueOf(7 * 24 * 3600), text(args[1]));
+        assertEquals("msg:10", text(args[2]));
+
+        verify(redisTemplate, never()).opsForList();
+        verify(redisTemplate, never()).expire(anyString(), anyLong(), any());
+    }
+
+    @Test
+    void testCacheMessage_RedisFailure_DoesNotThrow() {
+        // Given
+        when(redisTemplate.execute(any(RedisScript.class), any(RedisSerializer.class), any(RedisSerializer.class),
+                anyList(), any(Object[].class))).thenThrow(new RuntimeException("redis down"));
+
+        // When & Then
+        assertDoesNotThrow(() -> messageCacheService.cacheMessage(message(10L)));
+    }
+
+    @Test
+    void testBatchCacheMessages_AtomicReplaceKeepsNewestHundred() {
+        // Given - 120 条消息，从旧到新
+        List<MessageResponse> messages = new ArrayList<>();
+        for (long id = 1; id <= 120; id++) {
+            messages.add(message(id));
+        }
+
+        // When
+        messageCacheService.batchCacheMessages(1L, messages);
+
+        // Then - 不再单独 DEL / 逐条 RPUSH
+        ArgumentCaptor<Object[]> argsCaptor = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate, times(1)).execute(same(MessageCacheService.REPLACE_SCRIPT),
+                any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of("chat:messages:1")), argsCaptor.capture());
+        verify(redisTemplate, never()).delete(anyString());
+        verify(redisTemplate, never()).opsForList();
+
+        Object[] args = argsCaptor.getValue();
+        assertEquals(101, args.length);
+        assertEquals("msg:21", text(args[1]));
+        assertEquals("msg:120", text(args[100]));
+    }
+
+    @Test
+    void testBatchCacheMessages_Empty_NoRedisCall() {
+        // When
+        messageCacheService.batchCacheMessages(1L, new ArrayList<>());
+
+        // Then
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void testGetCachedMessages_RangeWithoutLlen() {
+        // Given
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(listOperations.range("chat:messages:1", -2, -1))
+                .thenReturn(Arrays.asList(message(9L), message(10L)));
+
+        // When
+        List<MessageResponse> result = messageCacheService.getCachedMessages(1L, 2);
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals(9L, result.get(0).getId());
+        assertEquals(10L, result.get(1).getId());
+        verify(listOperations, never()).size(anyString());
+    }
+
+    @Test
+    void testGetCachedMessages_Missing_ReturnsEmpty() {
+        // Given
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(listOperations.range("chat:messages:1", -50, -1)).thenReturn(new ArrayList<>());
+
+        // When & Then
+        assertTrue(messageCacheService.getCachedMessages(1L, 50).isEmpty());
+    }
+
+    @Test
+    void testCachePrivateMessage_CanonicalPairKey() {
+        // Given - 发送方ID大于接收方ID
+        MessageResponse message = MessageResponse.builder().id(3L).senderId(9L).receiverId(4L).build();
+
+        // When
+        messageCacheService.cachePrivateMessage(message);
+
+        // Then - 双方共用 chat:private:{min}:{max}
+        verify(redisTemplate).execute(same(MessageCacheService.APPEND_SCRIPT),
+                any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of("chat:private:4:9")), any(Object[].class));
+    }
+
+    @Test
+    void testGetCachedPrivateMessages_SameKeyForBothUsers() {
+        // Given
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(listOperations.range("chat:private:4:9", -20, -1)).thenReturn(List.of(message(1L)));
+
+        // When & Then
+        assertEquals(1, messageCacheService.getCachedPrivateMessages(9L, 4L, 20).size());
+        assertEquals(1, messageCacheService.getCachedPrivateMessages(4L, 9L, 20).size());
+    }
+
+    @Test
+    void testBatchCacheMessages_Complete_WritesHistoryStartFirst() {
+        // When
+        messageCacheService.batchCacheMessages(1L, List.of(message(1L), message(2L)), true);
+
+        // Then
+        ArgumentCaptor<Object[]> argsCaptor = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate).execute(same(MessageCacheService.REPLACE_SCRIPT),
+                any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of("chat:messages:1")), argsCaptor.capture());
+        Object[] args = argsCaptor.getValue();
+        assertEquals(4, args.length);
+        assertEquals("start", text(args[1]));
+        assertEquals("msg:1", text(args[2]));
+    }
+
+    @Test
+    void testBatchCacheMessages_CompleteButTrimmed_NoHistoryStart() {
+        // Given - 超过缓存容量，更早的消息放不下
+        List<MessageResponse> messages = new ArrayList<>();
+        for (long id = 1; id <= 120; id++) {
+            messages.add(message(id));
+        }
+
+        // When
+        messageCacheService.batchCacheMessages(1L, messages, true);
+
+        // Then
+        ArgumentCaptor<Object[]> argsCaptor = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate).execute(same(MessageCacheService.REPLACE_SCRIPT),
+                any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of("chat:messages:1")), argsCaptor.capture());
+        assertEquals(101, argsCaptor.getValue().length);
+        assertEquals("msg:21", text(argsCaptor.getValue()[1]));
+    }
+
+    @Test
+    void testBatchCacheMessages_EmptyButComplete_CachesHistoryStartOnly() {
+        // When
+        messageCacheService.batchCachePrivateMessages(1L, 2L, new ArrayList<>(), true);
+
+        // Then - 空私聊也能命中缓存
+        ArgumentCaptor<Object[]> argsCaptor = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate).execute(same(MessageCacheService.REPLACE_SCRIPT),
+                any(RedisSerializer.class), any(RedisSerializer.class),
+                eq(List.of("chat:private:1:2")), argsCaptor.capture());
+        assertEquals(2, argsCaptor.getValue().length);
+        assertEquals("start", text(argsCaptor.getValue()[1]));
+    }
+
+    @Test
+    void testGetCachedPage_ExtraRow_HasMore() {
+        // Given - 多读的一条说明还有更早的消息
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(listOperations.range("chat:messages:1", -3, -1))
+                .thenReturn(Arrays.asList(message(8L), message(9L), message(10L)));
+
+        // When
+        MessageCacheService.CachedPage page = messageCacheService.getCachedPage(1L, 2);
+
+        // Then
+        assertEquals(List.of(9L, 10L), page.messages().stream().map(MessageResponse::getId).toList());
+        assertTrue(page.hasMore());
+        assertTrue(page.servable(2));
+    }
+
+    @Test
+    void testGetCachedPage_HistoryStart_CompleteEvenWhenShort() {
+        // Given
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(listOperations.range("chat:messages:1", -21, -1))
+                .thenReturn(Arrays.asList(ChatMessageRedisSerializer.HISTORY_START, message(1L)));
+
+        // When
+        MessageCacheService.CachedPage page = messageCacheService.getCachedPage(1L, 20);
+
+        // Then
+        assertEquals(1, page.messages().size());
+        assertFalse(page.hasMore());
+        assertTrue(page.servable(20));
+    }
+
+    @Test
+    void testGetCachedPage_ShortWithoutHistoryStart_NotServable() {
+        // Given - 缓存过期后只追加过一条消息
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(listOperations.range("chat:messages:1", -21, -1)).thenReturn(List.of(message(30L)));
+
+        // When & Then
+        assertFalse(messageCacheService.getCachedPage(1L, 20).servable(20));
+    }
+
+    @Test
+    void testGetCachedMessages_HistoryStartFiltered() {
+        // Given
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(listOperations.range("chat:messages:1", -50, -1))
+                .thenReturn(Arrays.asList(ChatMessageRedisSerializer.HISTORY_START, message(1L)));
+
+        // When & Then
+        assertEquals(List.of(1L), messageCacheService.getCachedMessages(1L, 50).stream()
+                .map(MessageResponse::getId).toList());
+    }
+
+    @Test
+    void testGetCachedPage_UndecodableEntry_NotServable() {
+        // Given - 序列化器对损坏条目返回 null
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(listOperations.range("chat:messages:1", -21, -1))
+                .thenReturn(Arrays.asList(ChatMessageRedisSerializer.HISTORY_START, null, message(2L)));
+
+        // When
+        MessageCacheService.CachedPage page = messageCacheService.getCachedPage(1L, 20);
+
+        // Then - 跳过坏条目且不当作完整历史，回源数据库
+        assertEquals(List.of(2L), page.messages().stream().map(MessageResponse::getId).toList());
+        assertFalse(page.servable(20));
+    }
+
+    @Test
+    void testGetCachedMessages_UndecodableEntryFiltered() {
+        // Given
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(listOperations.range("chat:messages:1", -3, -1))
+                .thenReturn(Arrays.asList(message(8L), null, message(10L)));
+
+        // When & Then
+        assertEquals(List.of(8L, 10L), messageCacheService.getCachedMessages(1L, 3).stream()
+                .map(MessageResponse::getId).toList());
+    }
+}
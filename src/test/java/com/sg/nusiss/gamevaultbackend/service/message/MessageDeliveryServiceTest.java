@@ -0,0 +1,219 @@
+package com.sg.nusiss.gamevaultbackend.service.message;
+
+import com.sg.nusiss.gamevaultbackend.common.ErrorCode;
+import com.sg.nusiss.gamevaultbackend.dto.message.request.AckRequest;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.CatchUpResponse;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse;
+import com.sg.nusiss.gamevaultbackend.entity.conversation.Conversation;
+import com.sg.nusiss.gamevaultbackend.entity.conversation.Member;
+import com.sg.nusiss.gamevaultbackend.entity.message.Message;
+import com.sg.nusiss.gamevaultbackend.exception.BusinessException;
+import com.sg.nusiss.gamevaultbackend.repository.conversation.MemberRepository;
+import com.sg.nusiss.gamevaultbackend.repository.message.MessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.*;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MessageDeliveryServiceTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private MemberRepository memberRepository;
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private MessageCacheService messageCacheService;
+
+    @Mock
+    private MessageResponseAssembler messageResponseAssembler;
+
+    @InjectMocks
+    private MessageDeliveryService deliveryService;
+
+    private final Map<Object, Object> cursors = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+        lenient().when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        lenient().when(hashOperations.entries("chat:delivery:1")).thenReturn(cursors);
+        lenient().when(memberRepository.findActiveByUserIdWithConversation(1L)).thenReturn(List.of());
+        lenient().when(zSetOperations.rangeWithScores("chat:dm:latest:1", 0, -1)).thenReturn(Set.of());
+    }
+
+    private static Member membership(long conversationId, long nextSeq, long lastReadSeq) {
+        Conversation conversation = new Conversation();
+        conversation.setId(conversationId);
+        conversation.setStatus("active");
+        conversation.setNextSeq(nextSeq);
+        Member member = new Member();
+        member.setConversation(conversation);
+        member.setIsActive(true);
+        member.setLastReadSeq(lastReadSeq);
+        return member;
+    }
+
+    private static List<MessageResponse> groupMessages(long fromSeq, long toSeq) {
+        List<MessageResponse> messages = new ArrayList<>();
+        LongStream.rangeClosed(fromSeq, toSeq).forEach(seq ->
+                messages.add(MessageResponse.builder().id(100 + seq).conversationId(1L).seq(seq).build()));
+        return messages;
+    }
+
+    private static MessageResponse privateMessage(long id) {
+        return MessageResponse.builder().id(id).senderId(8L).receiverId(1L).build();
+    }
+
+    @Test
+    void testAck_GroupAndPrivateInOneScript() {
+        // Given
+        when(stringRedisTemplate.execute(same(MessageDeliveryService.ACK_SCRIPT), eq(List.of("chat:delivery:1")),
+                any(Object[].class))).thenReturn(2L);
+
+        // When
+        int advanced = deliveryService.ack(1L, List.of(
+                new AckRequest.Ack(3L, 10L, null, null),
+                new AckRequest.Ack(null, null, 8L, 555L)));
+
+        // Then
+        assertEquals(2, advanced);
+        verify(stringRedisTemplate).execute(same(MessageDeliveryService.ACK_SCRIPT), eq(List.of("chat:delivery:1")),
+                eq("2592000"), eq("g3"), eq("10"), eq("p8"), eq("555"));
+    }
+
+    @Test
+    void testAck_InvalidEntry_Throws() {
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> deliveryService.ack(1L, List.of(new AckRequest.Ack(3L, null, null, null))));
+        assertEquals(ErrorCode.PARAMS_ERROR.getCode(), exception.getCode());
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    void testCatchUp_GroupCoveredByCache_NoDatabaseRead() {
+        // Given - 已确认到 7，最新为 10，缓存中为 5..10
+        cursors.put("g1", "7");
+        when(memberRepository.findActiveByUserIdWithConversation(1L)).thenReturn(List.of(membership(1L, 11L, 2L)));
+        when(messageCacheService.getCachedMessages(1L, MessageCacheService.CACHE_SIZE)).thenReturn(groupMessages(5, 10));
+
+        // When
+        CatchUpResponse response = deliveryService.catchUp(1L);
+
+        // Then
+        assertEquals(1, response.getBatches().size());
+        CatchUpResponse.Batch batch = response.getBatches().get(0);
+        assertEquals("group", batch.getChatType());
+        assertEquals(List.of(8L, 9L, 10L), batch.getMessages().stream().map(MessageResponse::getSeq).toList());
+        assertFalse(batch.isHasMore());
+        assertEquals(10L, batch.getLatestSeq());
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void testCatchUp_GroupBeyondCache_ReadsSeqRangeFromDatabase() {
+        // Given - 从未确认过，以已读游标 3 为起点；缓存只有 9..10
+        when(memberRepository.findActiveByUserIdWithConversation(1L)).thenReturn(List.of(membership(1L, 11L, 3L)));
+        when(messageCacheService.getCachedMessages(1L, MessageCacheService.CACHE_SIZE)).thenReturn(groupMessages(9, 10));
+        List<Message> rows = List.of(new Message(), new Message());
+        when(messageRepository.findBySeqRange(1L, 3L, 10L, PageRequest.of(0, MessageDeliveryService.CATCH_UP_LIMIT)))
+                .thenReturn(new SliceImpl<>(rows, PageRequest.of(0, MessageDeliveryService.CATCH_UP_LIMIT), true));
+        when(messageResponseAssembler.toResponses(rows, "group")).thenReturn(groupMessages(4, 5));
+
+        // When
+        CatchUpResponse.Batch batch = deliveryService.catchUp(1L).getBatches().get(0);
+
+        // Then
+        assertEquals(2, batch.getMessages().size());
+        assertTrue(batch.isHasMore());
+    }
+
+    @Test
+    void testCatchUp_UpToDateConversationsSkipped() {
+        // Given - 群聊 1 已确认到最新，群聊 2 已读到最新且无确认记录
+        cursors.put("g1", "10");
+        when(memberRepository.findActiveByUserIdWithConversation(1L)).thenReturn(List.of(membership(1L, 11L, 0L), membership(2L, 6L, 5L)));
+
+        // When
+        CatchUpResponse response = deliveryService.catchUp(1L);
+
+        // Then
+        assertTrue(response.getBatches().isEmpty());
+        verifyNoInteractions(messageCacheService, messageRepository);
+    }
+
+    @Test
+    void testCatchUp_PrivateFromCacheAfterCursor() {
+        // Given - 与用户 8 的最新消息为 20，已确认到 15
+        cursors.put("p8", "15");
+        when(zSetOperations.rangeWithScores("chat:dm:latest:1", 0, -1))
+                .thenReturn(Set.of(new DefaultTypedTuple<>("8", 20.0), new DefaultTypedTuple<>("9", 4.0)));
+        cursors.put("p9", "4");
+        when(messageCacheService.getCachedPrivateMessages(1L, 8L, MessageCacheService.CACHE_SIZE))
+                .thenReturn(List.of(privateMessage(12), privateMessage(15), privateMessage(18), privateMessage(20)));
+
+        // When
+        CatchUpResponse response = deliveryService.catchUp(1L);
+
+        // Then - 已追平的私聊不出现
+        assertEquals(1, response.getBatches().size());
+        CatchUpResponse.Batch batch = response.getBatches().get(0);
+        assertEquals("private", batch.getChatType());
+        assertEquals(8L, batch.getPeerId());
+        assertEquals(List.of(18L, 20L), batch.getMessages().stream().map(MessageResponse::getId).toList());
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void testCatchUp_PrivateNeverAckedWithoutCache_ReturnsLatestPage() {
+        // Given
+        when(zSetOperations.rangeWithScores("chat:dm:latest:1", 0, -1))
+                .thenReturn(Set.of(new DefaultTypedTuple<>("8", 30.0)));
+        when(messageCacheService.getCachedPrivateMessages(1L, 8L, MessageCacheService.CACHE_SIZE)).thenReturn(List.of());
+        List<Message> rows = List.of(new Message(), new Message());
+        when(messageRepository.findLatestPrivateMessages(1L, 8L, MessageDeliveryService.CATCH_UP_LIMIT + 1)).thenReturn(rows);
+        when(messageResponseAssembler.toResponses(rows, "private"))
+                .thenReturn(new ArrayList<>(List.of(privateMessage(30), privateMessage(29))));
+
+        // When
+        CatchUpResponse.Batch batch = deliveryService.catchUp(1L).getBatches().get(0);
+
+        // Then - 反转为从旧到新
+        assertEquals(List.of(29L, 30L), batch.getMessages().stream().map(MessageResponse::getId).toList());
+        assertFalse(batch.isHasMore());
+    }
+
+    @Test
+    void testRecordPrivateMessage_RedisFailure_DoesNotThrow() {
+        when(stringRedisTemplate.execute(same(MessageDeliveryService.RECORD_PRIVATE_SCRIPT), anyList(), any(Object[].class)))
+                .thenThrow(new RuntimeException("redis down"));
+
+        assertDoesNotThrow(() -> deliveryService.recordPrivateMessage(1L, 8L, 30L));
+    }
+}
@@ -0,0 +1,186 @@
+package com.sg.nusiss.gamevaultbackend.service.message;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sg.nusiss.gamevaultbackend.cache.ChatMembershipCache;
+import com.sg.nusiss.gamevaultbackend.cache.UserProfileCache;
+import com.sg.nusiss.gamevaultbackend.common.ErrorCode;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageExportRow;
+import com.sg.nusiss.gamevaultbackend.exception.BusinessException;
+import com.sg.nusiss.gamevaultbackend.repository.message.MessageRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MessageExportServiceTest {
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private ChatMembershipCache chatMembershipCache;
+
+    @Mock
+    private UserProfileCache userProfileCache;
+
+    @InjectMocks
+    private MessageExportService messageExportService;
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 10, 5, 20, 0);
+
+    private static MessageExportRow row(long id, long senderId, String content) {
+        return new MessageExportRow(id, id, senderId, "text", content, null, null, null, BASE_TIME.plusSeconds(id));
+    }
+
+    private static Map<Long, UserProfileCache.UserProfile> profilesFor(Collection<Long> ids) {
+        Map<Long, UserProfileCache.UserProfile> profiles = new HashMap<>();
+        for (Long id : ids) {
+            profiles.put(id, new UserProfileCache.UserProfile(id, "user" + id, null, null, null, 0L));
+        }
+        return profiles;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExport_MillionMessages_StreamsInBoundedChunks() throws Exception {
+        // Given - 100 万条消息由惰性 Stream 逐条生成，从不整体驻留内存
+        long total = 1_000_000L;
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<MessageExportRow> rows = LongStream.rangeClosed(1, total)
+                .mapToObj(id -> row(id, id % 50, "消息" + id))
+                .onClose(() -> closed.set(true));
+        when(messageRepository.streamForExport(1L)).thenReturn(rows);
+
+        AtomicInteger lookups = new AtomicInteger();
+        AtomicInteger maxBatch = new AtomicInteger();
+        when(userProfileCache.getAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            lookups.incrementAndGet();
+            return profilesFor(ids);
+        });
+
+        // 只统计字节数和行数，不保留输出
+        long[] bytes = new long[1];
+        long[] lines = new long[1];
+        OutputStream counting = new OutputStream() {
+            @Override
+            public void write(int b) {
+                bytes[0]++;
+                if (b == '\n') {
+                    lines[0]++;
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                bytes[0] += len;
+                for (int i = off; i < off + len; i++) {
+                    if (b[i] == '\n') {
+                        lines[0]++;
+                    }
+                }
+            }
+        };
+
+        // When
+        long exported = messageExportService.export(1L, MessageExportService.Format.NDJSON, false, counting);
+
+        // Then - 每 500 条批量解析一次发送者，查询 Stream 被关闭
+        assertEquals(total, exported);
+        assertEquals(total, lines[0]);
+        assertEquals(total / MessageExportService.CHUNK_SIZE, lookups.get());
+        assertTrue(closed.get());
+        assertTrue(bytes[0] > 0);
+    }
+
+    @Test
+    void testExport_Ndjson_ResolvesSenderNames() throws Exception {
+        // Given
+        when(messageRepository.streamForExport(1L)).thenReturn(Stream.of(row(1, 7, "你好"), row(2, 8, "hi")));
+        when(userProfileCache.getAll(anyCollection())).thenReturn(profilesFor(java.util.List.of(7L)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        messageExportService.export(1L, MessageExportService.Format.NDJSON, false, out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = new ObjectMapper().readTree(lines[0]);
+        assertEquals("user7", first.get("senderUsername").asText());
+        assertEquals("你好", first.get("content").asText());
+        assertEquals("2025-10-05T20:00:01", first.get("createdAt").asText());
+        assertEquals("未知用户", new ObjectMapper().readTree(lines[1]).get("senderUsername").asText());
+        verify(userProfileCache, times(1)).getAll(anyCollection());
+    }
+
+    @Test
+    void testExport_CsvGzip_EscapesFields() throws Exception {
+        // Given - 内容包含逗号、引号和换行
+        when(messageRepository.streamForExport(1L)).thenReturn(Stream.of(row(1, 7, "a,b \"c\"\nd")));
+        when(userProfileCache.getAll(anyCollection())).thenReturn(profilesFor(java.util.List.of(7L)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        messageExportService.export(1L, MessageExportService.Format.CSV, true, out);
+
+        // Then
+        String csv;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(csv.startsWith("id,seq,sender_id,sender_username,"));
+        assertTrue(csv.contains("1,1,7,user7,text,\"a,b \"\"c\"\"\nd\",,,,2025-10-05T20:00:01\n"));
+    }
+
+    @Test
+    void testExport_EmptyConversation_NoLookup() throws Exception {
+        when(messageRepository.streamForExport(1L)).thenReturn(Stream.empty());
+
+        long exported = messageExportService.export(1L, MessageExportService.Format.NDJSON, false,
+                new ByteArrayOutputStream());
+
+        assertEquals(0, exported);
+        verifyNoInteractions(userProfileCache);
+    }
+
+    @Test
+    void testCheckExportAccess_NotMember_Throws() {
+        when(chatMembershipCache.getStatus(1L)).thenReturn(Optional.of("active"));
+        when(chatMembershipCache.isActiveMember(1L, 9L)).thenReturn(false);
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> messageExportService.checkExportAccess(1L, 9L));
+        assertEquals(ErrorCode.NO_AUTH_ERROR.getCode(), exception.getCode());
+    }
+
+    @Test
+    void testFormatParse_Unsupported_Throws() {
+        assertEquals(MessageExportService.Format.CSV, MessageExportService.Format.parse("CSV"));
+        assertThrows(BusinessException.class, () -> MessageExportService.Format.parse("xml"));
+    }
+}
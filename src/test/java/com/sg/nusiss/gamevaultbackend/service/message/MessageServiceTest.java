@@ -1,8 +1,11 @@
 package com.sg.nusiss.gamevaultbackend.service.message;
 
+import com.sg.nusiss.gamevaultbackend.cache.ChatMembershipCache;
+import com.sg.nusiss.gamevaultbackend.cache.UserProfileCache;
 import com.sg.nusiss.gamevaultbackend.common.ErrorCode;
 import com.sg.nusiss.gamevaultbackend.dto.message.request.SendMessageRequest;
 import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageSliceResponse;
 import com.sg.nusiss.gamevaultbackend.entity.auth.User;
 import com.sg.nusiss.gamevaultbackend.entity.conversation.Conversation;
 import com.sg.nusiss.gamevaultbackend.entity.conversation.Member;
@@ -16,14 +19,17 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -59,7 +65,15 @@ public class MessageServiceTest {
     @Mock
     private MessageCacheService messageCacheService;
 
-    @InjectMocks
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private MessageWriteBehindService messageWriteBehindService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private MessageService messageService;
 
     private User testUser;
@@ -69,6 +83,12 @@ public class MessageServiceTest {
 
     @BeforeEach
     void setUp() {
+        // 使用真实的组装器和用户缓存（底层为 mock 的 UserRepository）
+        messageService = new MessageService(messageRepository, conversationRepository, memberRepository,
+                new MessageResponseAssembler(new UserProfileCache(userRepository)), messageCacheService,
+                new ChatMembershipCache(conversationRepository, memberRepository, stringRedisTemplate),
+                messageWriteBehindService, transactionManager);
+
         testUser = new User();
         testUser.setUserId(1L);
         testUser.setUsername("testUser");
@@ -94,6 +114,9 @@ public class MessageServiceTest {
         testRequest.setConversationId(1L);
         testRequest.setContent("测试消息");
         testRequest.setMessageType("text");
+
+        // 消息序号分配（失败路径不会走到这里，使用 lenient 避免严格桩校验）
+        lenient().when(conversationRepository.allocateSeqForMember(eq(1L), any(), any(), any())).thenReturn(7L);
     }
 
     // ==================== sendMessage 方法测试 ====================
@@ -145,6 +168,41 @@ public class MessageServiceTest {
         assertEquals("text", savedMessage.getMessageType(), "类型应该匹配");
         assertFalse(savedMessage.getIsDeleted(), "应该标记为未删除");
         assertNotNull(savedMessage.getCreatedAt(), "创建时间不应为null");
+        assertEquals(7L, savedMessage.getSeq(), "序号应为递增前的 next_seq");
+        assertEquals(7L, result.getSeq(), "响应应携带序号");
+    }
+
+    @Test
+    void testSendMessage_WriteBehind_ReturnsBeforePersisting() {
+        // Given - 异步落库模式
+        Long senderId = 1L;
+
+        when(messageWriteBehindService.isEnabled()).thenReturn(true);
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(testConversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(1L, senderId, true))
+                .thenReturn(Optional.of(testMember));
+        doAnswer(invocation -> {
+            Message msg = invocation.getArgument(0);
+            msg.setId(500L);
+            msg.setSeq(42L);
+            return null;
+        }).when(messageWriteBehindService).assignIdAndSeq(any(Message.class));
+        when(userRepository.findById(senderId)).thenReturn(Optional.of(testUser));
+
+        // When
+        MessageResponse result = messageService.sendMessage(testRequest, senderId);
+
+        // Then - 响应携带预分配的ID和序号，消息交给异步落库，不再同步写库
+        assertEquals(500L, result.getId());
+        assertEquals(42L, result.getSeq());
+        verify(messageWriteBehindService).submit(argThat(m -> m.getId() == 500L && "测试消息".equals(m.getContent())),
+                eq("测试消息"));
+        verify(messageRepository, never()).save(any());
+        verify(conversationRepository, never()).allocateSeqForMember(any(), any(), any(), any());
+        verify(memberRepository, never()).advanceLastReadSeq(any(), any(), any());
+        verify(messageCacheService).cacheMessage(result);
+        // 发送路径不开启数据库事务
+        verifyNoInteractions(transactionManager);
     }
 
     @Test
@@ -546,7 +604,7 @@ public class MessageServiceTest {
                 .thenReturn(Collections.emptyList()); // 缓存为空
         when(messageRepository.findByConversationId(eq(conversationId), any(Pageable.class)))
                 .thenReturn(messagePage);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(testUser));
         doNothing().when(messageCacheService).batchCacheMessages(eq(conversationId), anyList());
 
         // When
@@ -589,7 +647,7 @@ public class MessageServiceTest {
                 .thenReturn(Optional.of(testMember));
         when(messageRepository.findByConversationId(eq(conversationId), any(Pageable.class)))
                 .thenReturn(messagePage);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(testUser));
 
         // When
         List<MessageResponse> result = messageService.getMessages(conversationId, currentUserId, page, size);
@@ -693,7 +751,7 @@ public class MessageServiceTest {
                 .thenReturn(insufficientCache); // 缓存不够
         when(messageRepository.findByConversationId(eq(conversationId), any(Pageable.class)))
                 .thenReturn(messagePage);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(testUser));
         doNothing().when(messageCacheService).batchCacheMessages(eq(conversationId), anyList());
 
         // When
@@ -787,7 +845,7 @@ public class MessageServiceTest {
                 .thenReturn(Collections.emptyList());
         when(messageRepository.findByConversationId(eq(conversationId), any(Pageable.class)))
                 .thenReturn(messagePage);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(testUser));
         doNothing().when(messageCacheService).batchCacheMessages(eq(conversationId), anyList());
 
         // When
@@ -829,7 +887,7 @@ public class MessageServiceTest {
                 .thenReturn(Collections.emptyList());
         when(messageRepository.findByConversationId(eq(conversationId), any(Pageable.class)))
                 .thenReturn(messagePage);
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(testUser));
         doNothing().when(messageCacheService).batchCacheMessages(eq(conversationId), anyList());
 
         // When
@@ -907,7 +965,7 @@ public class MessageServiceTest {
                 .thenReturn(Collections.emptyList());
         when(messageRepository.findByConversationId(eq(conversationId), any(Pageable.class)))
                 .thenReturn(messagePage);
-        when(userRepository.findById(999L)).thenReturn(Optional.empty()); // 用户不存在
+        when(userRepository.findAllById(anyIterable())).thenReturn(Collections.emptyList()); // 用户不存在
         doNothing().when(messageCacheService).batchCacheMessages(eq(conversationId), anyList());
 
         // When
@@ -918,4 +976,431 @@ public class MessageServiceTest {
         assertEquals("未知用户", result.get(0).getSenderUsername());
         assertEquals("", result.get(0).getSenderEmail());
     }
+
+    @Test
+    void testGetMessages_HundredMessagePage_ResolvesSendersInOneQuery() {
+        // Given - 100 条消息，来自 5 个不同发送者
+        Long conversationId = 1L;
+        Long currentUserId = 1L;
+        int page = 0;
+        int size = 100;
+
+        List<User> senders = new java.util.ArrayList<>();
+        for (long uid = 1; uid <= 5; uid++) {
+            User user = new User();
+            user.setUserId(uid);
+            user.setUsername("user" + uid);
+            user.setEmail("user" + uid + "@example.com");
+            senders.add(user);
+        }
+
+        List<Message> pageContent = new java.util.ArrayList<>();
+        for (long i = 100; i >= 1; i--) {
+            pageContent.add(Message.builder()
+                    .id(i)
+                    .conversationId(conversationId)
+                    .senderId(i % 5 + 1)
+                    .content("消息" + i)
+                    .messageType("text")
+                    .createdAt(LocalDateTime.now().minusSeconds(100 - i))
+                    .isDeleted(false)
+                    .build());
+        }
+
+        Page<Message> messagePage = mock(Page.class);
+        when(messagePage.getContent()).thenReturn(pageContent);
+
+        when(conversationRepository.findById(conversationId)).thenReturn(Optional.of(testConversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(conversationId, currentUserId, true))
+                .thenReturn(Optional.of(testMember));
+        when(messageCacheService.getCachedMessages(conversationId, size))
+                .thenReturn(Collections.emptyList());
+        when(messageRepository.findByConversationId(eq(conversationId), any(Pageable.class)))
+                .thenReturn(messagePage);
+        when(userRepository.findAllById(anyIterable())).thenReturn(senders);
+
+        // When - 连续加载两次
+        List<MessageResponse> first = messageService.getMessages(conversationId, currentUserId, page, size);
+        List<MessageResponse> second = messageService.getMessages(conversationId, currentUserId, page, size);
+
+        // Then - 发送者资料只查询一次，且不再逐条 findById
+        assertEquals(100, first.size());
+        assertEquals(100, second.size());
+        assertEquals("user2", first.get(0).getSenderUsername(), "消息1的发送者应为 user2");
+        assertEquals("user1@example.com", first.get(99).getSenderEmail(), "消息100的发送者应为 user1");
+
+        ArgumentCaptor<Iterable<Long>> idsCaptor = ArgumentCaptor.forClass(Iterable.class);
+        verify(userRepository, times(1)).findAllById(idsCaptor.capture());
+        verify(userRepository, never()).findById(anyLong());
+
+        List<Long> requestedIds = new java.util.ArrayList<>();
+        idsCaptor.getValue().forEach(requestedIds::add);
+        assertEquals(5, requestedIds.size(), "应只查询去重后的发送者ID");
+    }
+
+    // ==================== getMessagesByCursor 方法测试 ====================
+
+    private Message buildGroupMessage(Long id) {
+        return Message.builder()
+                .id(id)
+                .conversationId(1L)
+                .senderId(1L)
+                .content("消息" + id)
+                .messageType("text")
+                .createdAt(LocalDateTime.now())
+                .isDeleted(false)
+                .build();
+    }
+
+    @Test
+    void testGetMessagesByCursor_Before_UsesKeysetSliceWithoutCount() {
+        // Given
+        Long conversationId = 1L;
+        Long currentUserId = 1L;
+
+        when(conversationRepository.findById(conversationId)).thenReturn(Optional.of(testConversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(conversationId, currentUserId, true))
+                .thenReturn(Optional.of(testMember));
+        when(messageRepository.findHistoryBeforeMessage(eq(conversationId), eq(50L), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(buildGroupMessage(49L), buildGroupMessage(48L)),
+                        PageRequest.of(0, 2), true));
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(testUser));
+
+        // When
+        MessageSliceResponse result = messageService.getMessagesByCursor(conversationId, currentUserId, 50L, null, 2);
+
+        // Then - 从旧到新排列，游标指向最旧一条
+        assertEquals(2, result.getMessages().size());
+        assertEquals(48L, result.getMessages().get(0).getId());
+        assertEquals(49L, result.getMessages().get(1).getId());
+        assertTrue(result.isHasMore());
+        assertEquals(48L, result.getOldestId());
+        assertEquals(49L, result.getNewestId());
+
+        verify(messageRepository, never()).findByConversationId(any(), any());
+        verify(messageCacheService, never()).getCachedMessages(anyLong(), anyInt());
+        verify(messageCacheService, never()).batchCacheMessages(anyLong(), anyList());
+    }
+
+    @Test
+    void testGetMessagesByCursor_After_ReturnsAscendingWithoutReverse() {
+        // Given
+        Long conversationId = 1L;
+        Long currentUserId = 1L;
+
+        when(conversationRepository.findById(conversationId)).thenReturn(Optional.of(testConversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(conversationId, currentUserId, true))
+                .thenReturn(Optional.of(testMember));
+        when(messageRepository.findHistoryAfterMessage(eq(conversationId), eq(10L), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(buildGroupMessage(11L), buildGroupMessage(12L)),
+                        PageRequest.of(0, 20), false));
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(testUser));
+
+        // When
+        MessageSliceResponse result = messageService.getMessagesByCursor(conversationId, currentUserId, null, 10L, 20);
+
+        // Then
+        assertEquals(11L, result.getMessages().get(0).getId());
+        assertEquals(12L, result.getMessages().get(1).getId());
+        assertFalse(result.isHasMore());
+        verify(messageRepository, never()).findHistoryBeforeMessage(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void testGetMessagesByCursor_LatestPage_FromCache() {
+        // Given
+        Long conversationId = 1L;
+        Long currentUserId = 1L;
+        List<MessageResponse> cached = Arrays.asList(
+                MessageResponse.builder().id(99L).build(),
+                MessageResponse.builder().id(100L).build());
+
+        when(conversationRepository.findById(conversationId)).thenReturn(Optional.of(testConversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(conversationId, currentUserId, true))
+                .thenReturn(Optional.of(testMember));
+        when(messageCacheService.getCachedPage(conversationId, 2))
+                .thenReturn(new MessageCacheService.CachedPage(cached, false));
+
+        // When
+        MessageSliceResponse result = messageService.getMessagesByCursor(conversationId, currentUserId, null, null, 2);
+
+        // Then
+        assertEquals(99L, result.getOldestId());
+        assertEquals(100L, result.getNewestId());
+        assertTrue(result.isHasMore());
+        verify(messageRepository, never()).findLatestByConversationId(anyLong(), any());
+    }
+
+    @Test
+    void testGetMessagesByCursor_LatestPage_CompleteCache_NoMore() {
+        // Given - 缓存包含全部历史，且不足一页
+        Long conversationId = 1L;
+        Long currentUserId = 1L;
+        List<MessageResponse> cached = List.of(MessageResponse.builder().id(7L).build());
+
+        when(conversationRepository.findById(conversationId)).thenReturn(Optional.of(testConversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(conversationId, currentUserId, true))
+                .thenReturn(Optional.of(testMember));
+        when(messageCacheService.getCachedPage(conversationId, 20))
+                .thenReturn(new MessageCacheService.CachedPage(cached, true));
+
+        // When
+        MessageSliceResponse result = messageService.getMessagesByCursor(conversationId, currentUserId, null, null, 20);
+
+        // Then - 不再多一次空的向上翻页
+        assertEquals(1, result.getMessages().size());
+        assertFalse(result.isHasMore());
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void testGetMessagesByCursor_LatestPage_FromDatabase_MarksCacheComplete() {
+        // Given - 缓存不足一页且不完整，数据库中也没有更多消息
+        Long conversationId = 1L;
+        Long currentUserId = 1L;
+        Message message = Message.builder().id(5L).conversationId(conversationId).senderId(1L)
+                .content("hi").createdAt(LocalDateTime.now()).build();
+
+        when(conversationRepository.findById(conversationId)).thenReturn(Optional.of(testConversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(conversationId, currentUserId, true))
+                .thenReturn(Optional.of(testMember));
+        when(messageCacheService.getCachedPage(conversationId, 20))
+                .thenReturn(new MessageCacheService.CachedPage(new ArrayList<>(), false));
+        when(messageRepository.findLatestByConversationId(eq(conversationId), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(message), PageRequest.of(0, 20), false));
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(testUser));
+
+        // When
+        MessageSliceResponse result = messageService.getMessagesByCursor(conversationId, currentUserId, null, null, 20);
+
+        // Then
+        assertFalse(result.isHasMore());
+        verify(messageCacheService).batchCacheMessages(conversationId, result.getMessages(), true);
+    }
+
+    @Test
+    void testGetMessagesByCursor_BothCursors_ThrowsException() {
+        // Given
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(testConversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(1L, 1L, true))
+                .thenReturn(Optional.of(testMember));
+
+        // When & Then
+        BusinessException exception = assertThrows(
+                BusinessException.class,
+                () -> messageService.getMessagesByCursor(1L, 1L, 10L, 5L, 20)
+        );
+        assertEquals(ErrorCode.PARAMS_ERROR.getCode(), exception.getCode());
+    }
+
+    // ==================== 消息序号测试 ====================
+
+    @Test
+    void testSendMessage_ConversationDeletedDuringSend_ThrowsException() {
+        // Given - 预检通过后会话行已不存在，递增影响 0 行，重新查询得到准确原因
+        when(conversationRepository.findById(1L))
+                .thenReturn(Optional.of(testConversation))
+                .thenReturn(Optional.empty());
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(1L, 1L, true))
+                .thenReturn(Optional.of(testMember));
+        when(conversationRepository.allocateSeqForMember(eq(1L), any(), any(), any())).thenReturn(null);
+
+        // When & Then
+        BusinessException exception = assertThrows(
+                BusinessException.class,
+                () -> messageService.sendMessage(testRequest, 1L)
+        );
+        assertEquals(ErrorCode.NOT_FOUND_ERROR.getCode(), exception.getCode());
+        verify(messageRepository, never()).save(any());
+    }
+
+    @Test
+    void testSyncMessages_ReturnsRangeAfterSeq() {
+        // Given - 已分配到序号 10
+        testConversation.setNextSeq(11L);
+        Message m4 = buildGroupMessage(40L);
+        m4.setSeq(4L);
+        Message m5 = buildGroupMessage(50L);
+        m5.setSeq(5L);
+
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(testConversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(1L, 1L, true))
+                .thenReturn(Optional.of(testMember));
+        when(messageRepository.findBySeqRange(eq(1L), eq(3L), eq(10L), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Arrays.asList(m4, m5), PageRequest.of(0, 2), true));
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(testUser));
+
+        // When
+        MessageSliceResponse result = messageService.syncMessages(1L, 1L, 3L, null, 2);
+
+        // Then
+        assertEquals(2, result.getMessages().size());
+        assertEquals(4L, result.getMessages().get(0).getSeq());
+        assertEquals(5L, result.getMessages().get(1).getSeq());
+        assertTrue(result.isHasMore());
+        assertEquals(10L, result.getLatestSeq());
+    }
+
+    @Test
+    void testSyncMessages_AlreadyUpToDate_SkipsQuery() {
+        // Given
+        testConversation.setNextSeq(6L);
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(testConversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(1L, 1L, true))
+                .thenReturn(Optional.of(testMember));
+
+        // When
+        MessageSliceResponse result = messageService.syncMessages(1L, 1L, 5L, null, 50);
+
+        // Then
+        assertTrue(result.getMessages().isEmpty());
+        assertFalse(result.isHasMore());
+        assertEquals(5L, result.getLatestSeq());
+        verify(messageRepository, never()).findBySeqRange(anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void testSyncMessages_GapRange_ClampedToLatestSeq() {
+        // Given - 客户端请求 (2, 100]，但群聊只到序号 4
+        testConversation.setNextSeq(5L);
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(testConversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(1L, 1L, true))
+                .thenReturn(Optional.of(testMember));
+        when(messageRepository.findBySeqRange(eq(1L), eq(2L), eq(4L), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(Collections.emptyList(), PageRequest.of(0, 50), false));
+
+        // When
+        MessageSliceResponse result = messageService.syncMessages(1L, 1L, 2L, 100L, 50);
+
+        // Then
+        assertFalse(result.isHasMore());
+        assertEquals(4L, result.getLatestSeq());
+    }
+
+    // ==================== 最后一条消息摘要 / 已读游标测试 ====================
+
+    @Test
+    void testSendMessage_UpdatesLastMessageSummaryAndSenderReadCursor() {
+        // Given
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(testConversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(1L, 1L, true))
+                .thenReturn(Optional.of(testMember));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        // When
+        messageService.sendMessage(testRequest, 1L);
+
+        // Then - 序号、摘要与发送者已读游标在同一条语句中写入：一次分配 + 一次插入
+        verify(conversationRepository).allocateSeqForMember(eq(1L), eq("测试消息"), eq(1L), any(LocalDateTime.class));
+        verify(conversationRepository, never()).findNextSeqById(any());
+        verify(memberRepository, never()).advanceLastReadSeq(any(), any(), any());
+        ArgumentCaptor<Message> saved = ArgumentCaptor.forClass(Message.class);
+        verify(messageRepository).save(saved.capture());
+        assertEquals(7L, saved.getValue().getSeq());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void testSendMessage_FileMessagePreview() {
+        // Given
+        testRequest.setMessageType("file");
+        testRequest.setContent(null);
+        testRequest.setFileId("f-1");
+        testRequest.setFileName("攻略.pdf");
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(testConversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(1L, 1L, true))
+                .thenReturn(Optional.of(testMember));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        // When
+        messageService.sendMessage(testRequest, 1L);
+
+        // Then
+        verify(conversationRepository).allocateSeqForMember(eq(1L), eq("[文件] 攻略.pdf"), eq(1L), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testSendMessage_LongContentPreviewTruncated() {
+        // Given
+        testRequest.setContent("长".repeat(150));
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(testConversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(1L, 1L, true))
+                .thenReturn(Optional.of(testMember));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        // When
+        messageService.sendMessage(testRequest, 1L);
+
+        // Then
+        verify(conversationRepository).allocateSeqForMember(eq(1L), eq("长".repeat(100)), eq(1L), any(LocalDateTime.class));
+    }
+
+    // ==================== 成员缓存测试 ====================
+
+    @Test
+    void testSendMessage_CachedMembership_SecondSendSkipsLookups() {
+        // Given
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(testConversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(1L, 1L, true))
+                .thenReturn(Optional.of(testMember));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        // When
+        messageService.sendMessage(testRequest, 1L);
+        messageService.sendMessage(testRequest, 1L);
+
+        // Then - 预检只查询一次，之后只剩分配序号的 UPDATE 和消息写入
+        verify(conversationRepository, times(1)).findById(1L);
+        verify(memberRepository, times(1)).findByConversationIdAndUserIdAndIsActive(1L, 1L, true);
+        verify(conversationRepository, times(2)).allocateSeqForMember(eq(1L), any(), eq(1L), any());
+        verify(messageRepository, times(2)).save(any(Message.class));
+    }
+
+    @Test
+    void testSendMessage_RemovedMemberWithStaleCache_Rejected() {
+        // Given - 第一次发送后成员被移除，但本节点缓存仍认为其是成员
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(testConversation));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(1L, 1L, true))
+                .thenReturn(Optional.of(testMember))
+                .thenReturn(Optional.empty());
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        messageService.sendMessage(testRequest, 1L);
+
+        // 数据库校验拒绝（成员已不活跃）
+        when(conversationRepository.allocateSeqForMember(eq(1L), any(), eq(1L), any())).thenReturn(null);
+
+        // When & Then
+        BusinessException exception = assertThrows(
+                BusinessException.class,
+                () -> messageService.sendMessage(testRequest, 1L)
+        );
+        assertEquals(ErrorCode.NO_AUTH_ERROR.getCode(), exception.getCode());
+        verify(messageRepository, times(1)).save(any(Message.class));
+    }
+
+    @Test
+    void testSendMessage_DissolvedWithStaleCache_Rejected() {
+        // Given - 缓存中群聊仍为 active，数据库中已解散
+        Conversation dissolved = Conversation.builder().id(1L).status("dissolved").ownerId(1L).build();
+        when(conversationRepository.findById(1L))
+                .thenReturn(Optional.of(testConversation))
+                .thenReturn(Optional.of(dissolved));
+        when(memberRepository.findByConversationIdAndUserIdAndIsActive(1L, 1L, true))
+                .thenReturn(Optional.of(testMember));
+        when(conversationRepository.allocateSeqForMember(eq(1L), any(), eq(1L), any())).thenReturn(null);
+
+        // When & Then
+        BusinessException exception = assertThrows(
+                BusinessException.class,
+                () -> messageService.sendMessage(testRequest, 1L)
+        );
+        assertEquals(ErrorCode.OPERATION_ERROR.getCode(), exception.getCode());
+        verify(messageRepository, never()).save(any());
+        verify(transactionManager).rollback(any());
+    }
 }
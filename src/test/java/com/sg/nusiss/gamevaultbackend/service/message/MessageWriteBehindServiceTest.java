@@ -0,0 +1,410 @@
+package com.sg.nusiss.gamevaultbackend.service.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sg.nusiss.gamevaultbackend.cache.ChatMembershipCache;
+import com.sg.nusiss.gamevaultbackend.common.ErrorCode;
+import com.sg.nusiss.gamevaultbackend.entity.message.Message;
+import com.sg.nusiss.gamevaultbackend.exception.BusinessException;
+import com.sg.nusiss.gamevaultbackend.repository.conversation.ConversationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class MessageWriteBehindServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private StreamOperations<String, Object, Object> streamOperations;
+
+    @Mock
+    private ConversationRepository conversationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ChatMembershipCache chatMembershipCache;
+
+    @Mock
+    private MessageCacheService messageCacheService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private MessageWriteBehindService writeBehindService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(writeBehindService, "enabled", true);
+        ReflectionTestUtils.setField(writeBehindService, "batchSize", 200);
+        ReflectionTestUtils.setField(writeBehindService, "idBlockSize", 100);
+        ReflectionTestUtils.setField(writeBehindService, "offerTimeoutMs", 0L);
+        ReflectionTestUtils.setField(writeBehindService, "queue", new ArrayBlockingQueue<>(10));
+        lenient().when(stringRedisTemplate.opsForStream()).thenReturn(streamOperations);
+        // 默认每条语句影响 1 行
+        lenient().when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenAnswer(invocation -> rowCounts(invocation.getArgument(1), 1));
+    }
+
+    private static int[][] rowCounts(Collection<?> rows, int count) {
+        int[] counts = new int[rows.size()];
+        Arrays.fill(counts, count);
+        return new int[][]{counts};
+    }
+
+    private static List<Long> ids(Collection<MessageWriteBehindService.PendingMessage> rows) {
+        return rows.stream().map(p -> p.message().getId()).toList();
+    }
+
+    private double counter(String name) {
+        return meterRegistry.counter(name).count();
+    }
+
+    private Message message(long id, long seq, long senderId) {
+        return Message.builder()
+                .id(id)
+                .conversationId(1L)
+                .senderId(senderId)
+                .seq(seq)
+                .content("消息" + seq)
+                .createdAt(LocalDateTime.of(2025, 10, 5, 20, 30))
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ParameterizedPreparedStatementSetter<T> captureBatch(String sqlPrefix, ArgumentCaptor<Collection<T>> rows) {
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<T>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(startsWith(sqlPrefix), rows.capture(), anyInt(), setter.capture());
+        return setter.getValue();
+    }
+
+    @Test
+    void testAssignIdAndSeq_SeedsFromDatabaseOnceThenRedisOnly() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(100))).thenReturn(List.of(11L, 12L));
+        when(conversationRepository.findNextSeqById(1L)).thenReturn(8L);
+        when(stringRedisTemplate.execute(same(MessageWriteBehindService.SEED_AND_INCR_SCRIPT),
+                eq(List.of("chat:seq:1")), any(Object[].class))).thenReturn(8L);
+        when(stringRedisTemplate.execute(same(MessageWriteBehindService.INCR_IF_EXISTS_SCRIPT),
+                eq(List.of("chat:seq:1")), any(Object[].class))).thenReturn(9L);
+
+        Message first = Message.builder().conversationId(1L).senderId(1L).build();
+        Message second = Message.builder().conversationId(1L).senderId(1L).build();
+
+        // When
+        writeBehindService.assignIdAndSeq(first);
+        writeBehindService.assignIdAndSeq(second);
+
+        // Then - 下限只查一次数据库，ID 按块预取
+        assertEquals(11L, first.getId());
+        assertEquals(8L, first.getSeq());
+        assertEquals(12L, second.getId());
+        assertEquals(9L, second.getSeq());
+        verify(conversationRepository, times(1)).findNextSeqById(1L);
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(Long.class), eq(100));
+        verify(stringRedisTemplate).execute(same(MessageWriteBehindService.SEED_AND_INCR_SCRIPT),
+                eq(List.of("chat:seq:1")), eq("7"));
+    }
+
+    @Test
+    void testAssignSeq_CounterLost_ReseedsFromDatabase() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(100))).thenReturn(List.of(1L, 2L));
+        when(conversationRepository.findNextSeqById(1L)).thenReturn(8L, 9L);
+        when(stringRedisTemplate.execute(same(MessageWriteBehindService.SEED_AND_INCR_SCRIPT),
+                eq(List.of("chat:seq:1")), any(Object[].class))).thenReturn(8L, 9L);
+        when(stringRedisTemplate.execute(same(MessageWriteBehindService.INCR_IF_EXISTS_SCRIPT),
+                eq(List.of("chat:seq:1")), any(Object[].class))).thenReturn(-1L);
+
+        Message first = Message.builder().conversationId(1L).build();
+        Message second = Message.builder().conversationId(1L).build();
+
+        // When - Redis 中的计数器被淘汰
+        writeBehindService.assignIdAndSeq(first);
+        writeBehindService.assignIdAndSeq(second);
+
+        // Then
+        assertEquals(9L, second.getSeq());
+        verify(conversationRepository, times(2)).findNextSeqById(1L);
+    }
+
+    @Test
+    void testSubmitThenFlush_JournalFirstThenSingleBatch() throws Exception {
+        // Given
+        when(streamOperations.add(any(MapRecord.class))).thenReturn(RecordId.of("1-0"), RecordId.of("2-0"));
+
+        // When - 提交时只写日志，不访问数据库
+        writeBehindService.submit(message(11L, 8L, 1L), "消息8");
+        writeBehindService.submit(message(12L, 9L, 2L), "消息9");
+        verifyNoInteractions(jdbcTemplate);
+
+        int flushed = writeBehindService.flushOnce();
+
+        // Then - 一次 JDBC batch 写入两条消息
+        assertEquals(2, flushed);
+
+        ArgumentCaptor<Collection<MessageWriteBehindService.PendingMessage>> inserted = ArgumentCaptor.forClass(Collection.class);
+        ParameterizedPreparedStatementSetter<MessageWriteBehindService.PendingMessage> insertSetter =
+                captureBatch("INSERT INTO messages", inserted);
+        assertEquals(2, inserted.getValue().size());
+
+        PreparedStatement ps = mock(PreparedStatement.class);
+        insertSetter.setValues(ps, inserted.getValue().iterator().next());
+        verify(ps).setLong(1, 11L);
+        verify(ps).setString(6, "消息8");
+
+        // 群聊摘要只按本批次最大序号更新一次
+        ArgumentCaptor<Collection<MessageWriteBehindService.PendingMessage>> summaries = ArgumentCaptor.forClass(Collection.class);
+        captureBatch("UPDATE conversations", summaries);
+        assertEquals(1, summaries.getValue().size());
+        assertEquals(9L, summaries.getValue().iterator().next().message().getSeq());
+
+        // 每个发送者推进一次已读游标
+        ArgumentCaptor<Collection<Object>> cursors = ArgumentCaptor.forClass(Collection.class);
+        captureBatch("UPDATE members", cursors);
+        assertEquals(2, cursors.getValue().size());
+
+        // 提交后删除日志
+        verify(streamOperations).delete(MessageWriteBehindService.JOURNAL_KEY, RecordId.of("1-0"), RecordId.of("2-0"));
+        assertEquals(0, writeBehindService.flushOnce());
+    }
+
+    @Test
+    void testSubmit_QueueFull_PersistsOnCallerThread() {
+        // Given - 队列容量为 1 且已满
+        ReflectionTestUtils.setField(writeBehindService, "queue", new ArrayBlockingQueue<>(1));
+        when(streamOperations.add(any(MapRecord.class))).thenReturn(RecordId.of("1-0"), RecordId.of("2-0"));
+        writeBehindService.submit(message(11L, 8L, 1L), "消息8");
+
+        // When
+        writeBehindService.submit(message(12L, 9L, 1L), "消息9");
+
+        // Then - 第二条由发送线程直接落库
+        ArgumentCaptor<Collection<MessageWriteBehindService.PendingMessage>> inserted = ArgumentCaptor.forClass(Collection.class);
+        captureBatch("INSERT INTO messages", inserted);
+        assertEquals(12L, inserted.getValue().iterator().next().message().getId());
+        verify(streamOperations).delete(MessageWriteBehindService.JOURNAL_KEY, RecordId.of("2-0"));
+    }
+
+    @Test
+    void testFlush_DatabaseFailure_KeepsJournal() {
+        // Given
+        when(streamOperations.add(any(MapRecord.class))).thenReturn(RecordId.of("1-0"));
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO messages"), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenThrow(new RuntimeException("db down"));
+        writeBehindService.submit(message(11L, 8L, 1L), "消息8");
+
+        // When & Then - 落库失败不删除日志，等待重试或重启后重放
+        assertThrows(RuntimeException.class, () -> writeBehindService.flushOnce());
+        verify(streamOperations, never()).delete(anyString(), any(RecordId[].class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRecover_ReplaysJournalEntries() throws Exception {
+        // Given - 崩溃前写入日志但未落库的消息
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        MapRecord<String, Object, Object> record = (MapRecord<String, Object, Object>) (MapRecord<?, ?, ?>) StreamRecords
+                .newRecord()
+                .in(MessageWriteBehindService.JOURNAL_KEY)
+                .withId(RecordId.of("5-0"))
+                .ofMap(Map.<Object, Object>of("m", objectMapper.writeValueAsString(message(11L, 8L, 1L)), "p", "消息8"));
+        when(streamOperations.reverseRange(eq(MessageWriteBehindService.JOURNAL_KEY), any(Range.class), any(Limit.class)))
+                .thenReturn(List.of(record));
+        when(streamOperations.range(eq(MessageWriteBehindService.JOURNAL_KEY), any(Range.class), any(Limit.class)))
+                .thenReturn(new ArrayList<>(List.of(record)));
+
+        // When
+        writeBehindService.recover();
+
+        // Then
+        ArgumentCaptor<Collection<MessageWriteBehindService.PendingMessage>> inserted = ArgumentCaptor.forClass(Collection.class);
+        captureBatch("INSERT INTO messages", inserted);
+        MessageWriteBehindService.PendingMessage replayed = inserted.getValue().iterator().next();
+        assertEquals(11L, replayed.message().getId());
+        assertEquals(8L, replayed.message().getSeq());
+        assertEquals("消息8", replayed.preview());
+        verify(streamOperations).delete(MessageWriteBehindService.JOURNAL_KEY, RecordId.of("5-0"));
+    }
+
+    @Test
+    void testRecover_EmptyJournal_NoDatabaseAccess() {
+        when(streamOperations.reverseRange(eq(MessageWriteBehindService.JOURNAL_KEY), any(Range.class), any(Limit.class)))
+                .thenReturn(List.of());
+
+        writeBehindService.recover();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    // ==================== 落库时的成员校验 / 约束冲突隔离 ====================
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_MembershipRecheckRejectsRow_ExcludedFromSummaryAndCounted() {
+        // Given - 第二条消息的发送者已被移出群聊，INSERT ... WHERE EXISTS 影响 0 行且数据库中不存在
+        when(streamOperations.add(any(MapRecord.class))).thenReturn(RecordId.of("1-0"), RecordId.of("2-0"));
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO messages"), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenReturn(new int[][]{{1, 0}});
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM messages"), eq(Long.class), any(Object[].class)))
+                .thenReturn(List.of());
+        writeBehindService.submit(message(11L, 8L, 1L), "消息8");
+        writeBehindService.submit(message(12L, 9L, 2L), "消息9");
+
+        // When
+        writeBehindService.flushOnce();
+
+        // Then - 摘要只按通过校验的消息更新，只推进其发送者的游标
+        ArgumentCaptor<Collection<MessageWriteBehindService.PendingMessage>> summaries = ArgumentCaptor.forClass(Collection.class);
+        captureBatch("UPDATE conversations", summaries);
+        assertEquals(List.of(11L), ids(summaries.getValue()));
+        ArgumentCaptor<Collection<Object>> cursors = ArgumentCaptor.forClass(Collection.class);
+        captureBatch("UPDATE members", cursors);
+        assertEquals(1, cursors.getValue().size());
+
+        // 被拒绝的消息计数、失效成员缓存与消息缓存，日志照常删除
+        assertEquals(1.0, counter("chat.write_behind.rejected"));
+        verify(chatMembershipCache).evictLocal(1L);
+        verify(messageCacheService).clearCache(1L);
+        verify(streamOperations).delete(MessageWriteBehindService.JOURNAL_KEY, RecordId.of("1-0"), RecordId.of("2-0"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_ReplayedDuplicate_NotTreatedAsRejected() {
+        // Given - 重放已落库的消息：ON CONFLICT 影响 0 行，但按ID能查到
+        when(streamOperations.add(any(MapRecord.class))).thenReturn(RecordId.of("1-0"));
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO messages"), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenReturn(new int[][]{{0}});
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM messages"), eq(Long.class), any(Object[].class)))
+                .thenReturn(List.of(11L));
+        writeBehindService.submit(message(11L, 8L, 1L), "消息8");
+
+        // When
+        writeBehindService.flushOnce();
+
+        // Then
+        assertEquals(0.0, counter("chat.write_behind.rejected"));
+        verifyNoInteractions(chatMembershipCache, messageCacheService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_ConstraintViolation_IsolatesPoisonRowToDeadLetter() {
+        // Given - 计数器丢失后重新分配的序号与已落库消息冲突，只有消息 13 违反 (conversation_id, seq) 唯一约束
+        when(streamOperations.add(any(MapRecord.class)))
+                .thenReturn(RecordId.of("1-0"), RecordId.of("2-0"), RecordId.of("3-0"), RecordId.of("4-0"));
+        List<List<Long>> insertAttempts = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO messages"), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenAnswer(invocation -> {
+            Collection<MessageWriteBehindService.PendingMessage> rows = invocation.getArgument(1);
+            insertAttempts.add(ids(rows));
+            if (ids(rows).contains(13L)) {
+                throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+            }
+            return rowCounts(rows, 1);
+        });
+        for (long id = 11; id <= 14; id++) {
+            writeBehindService.submit(message(id, id - 3, 1L), "消息" + id);
+        }
+
+        // When - 不抛异常，不阻塞后续批次
+        assertDoesNotThrow(() -> writeBehindService.flushOnce());
+
+        // Then - 二分定位：[11..14] → [11,12] 成功，[13,14] → [13] 死信，[14] 成功
+        assertEquals(List.of(List.of(11L, 12L, 13L, 14L), List.of(11L, 12L), List.of(13L, 14L), List.of(13L), List.of(14L)),
+                insertAttempts);
+        ArgumentCaptor<MapRecord<String, String, String>> deadLetter = ArgumentCaptor.forClass(MapRecord.class);
+        verify(streamOperations, times(5)).add(deadLetter.capture());
+        MapRecord<String, String, String> record = deadLetter.getValue();
+        assertEquals(MessageWriteBehindService.DEAD_LETTER_KEY, record.getStream());
+        assertTrue(record.getValue().get("m").contains("\"id\":13"));
+        assertEquals(1.0, counter("chat.write_behind.dead_letter"));
+
+        verify(streamOperations).delete(MessageWriteBehindService.JOURNAL_KEY, RecordId.of("1-0"), RecordId.of("2-0"));
+        verify(streamOperations).delete(MessageWriteBehindService.JOURNAL_KEY, RecordId.of("3-0"));
+        verify(streamOperations).delete(MessageWriteBehindService.JOURNAL_KEY, RecordId.of("4-0"));
+    }
+
+    @Test
+    void testSubmit_QueueFullAndRejectedByDatabase_ThrowsNoAuth() {
+        // Given - 队列已满，发送线程直接落库时数据库校验不通过
+        ReflectionTestUtils.setField(writeBehindService, "queue", new ArrayBlockingQueue<>(1));
+        when(streamOperations.add(any(MapRecord.class))).thenReturn(RecordId.of("1-0"), RecordId.of("2-0"));
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO messages"), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenReturn(new int[][]{{0}});
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM messages"), eq(Long.class), any(Object[].class)))
+                .thenReturn(List.of());
+        writeBehindService.submit(message(11L, 8L, 1L), "消息8");
+
+        // When & Then
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> writeBehindService.submit(message(12L, 9L, 2L), "消息9"));
+        assertEquals(ErrorCode.NO_AUTH_ERROR.getCode(), exception.getCode());
+    }
+
+    @Test
+    void testSubmit_QueueFullAndTransientDatabaseError_DeletesJournalAndFails() {
+        // Given - 队列已满，发送线程直接落库时数据库连接超时
+        ReflectionTestUtils.setField(writeBehindService, "queue", new ArrayBlockingQueue<>(1));
+        when(streamOperations.add(any(MapRecord.class))).thenReturn(RecordId.of("1-0"), RecordId.of("2-0"));
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO messages"), anyCollection(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new QueryTimeoutException("canceling statement due to statement timeout"));
+        writeBehindService.submit(message(11L, 8L, 1L), "消息8");
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> writeBehindService.submit(message(12L, 9L, 2L), "消息9"));
+
+        // Then - 发送者收到失败，日志中的该条消息被删除，下次启动不会重放；队列中的消息不受影响
+        assertEquals(ErrorCode.SYSTEM_ERROR.getCode(), exception.getCode());
+        verify(streamOperations).delete(MessageWriteBehindService.JOURNAL_KEY, RecordId.of("2-0"));
+        verify(streamOperations, never()).delete(eq(MessageWriteBehindService.JOURNAL_KEY), eq(RecordId.of("1-0")));
+        assertEquals(0.0, counter("chat.write_behind.dead_letter"));
+    }
+}
@@ -1,8 +1,11 @@
 package com.sg.nusiss.gamevaultbackend.service.message;
 
+import com.sg.nusiss.gamevaultbackend.cache.FriendshipCache;
+import com.sg.nusiss.gamevaultbackend.cache.UserProfileCache;
 import com.sg.nusiss.gamevaultbackend.common.ErrorCode;
 import com.sg.nusiss.gamevaultbackend.dto.message.request.SendPrivateMessageRequest;
 import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageResponse;
+import com.sg.nusiss.gamevaultbackend.dto.message.response.MessageSliceResponse;
 import com.sg.nusiss.gamevaultbackend.entity.auth.User;
 import com.sg.nusiss.gamevaultbackend.entity.friend.Friendship;
 import com.sg.nusiss.gamevaultbackend.entity.message.Message;
@@ -14,14 +17,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -50,7 +55,15 @@ class PrivateMessageServiceTest {
     @Mock
     private FriendshipRepository friendshipRepository;
 
-    @InjectMocks
+    @Mock
+    private MessageCacheService messageCacheService;
+
+    @Mock
+    private MessageDeliveryService messageDeliveryService;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
     private PrivateMessageService privateMessageService;
 
     private User sender;
@@ -60,6 +73,15 @@ class PrivateMessageServiceTest {
 
     @BeforeEach
     void setUp() {
+        // 使用真实的组装器、用户缓存和好友关系缓存（底层为 mock 的 Repository）
+        privateMessageService = new PrivateMessageService(messageRepository, userRepository, friendshipRepository,
+                new FriendshipCache(friendshipRepository, stringRedisTemplate),
+                new MessageResponseAssembler(new UserProfileCache(userRepository)), messageCacheService, messageDeliveryService);
+
+        // 默认 Redis 中没有可用的私聊缓存
+        lenient().when(messageCacheService.getCachedPrivatePage(anyLong(), anyLong(), anyInt()))
+                .thenReturn(new MessageCacheService.CachedPage(new ArrayList<>(), false));
+
         sender = new User();
         sender.setUserId(1L);
         sender.setUsername("sender");
@@ -438,8 +460,7 @@ class PrivateMessageServiceTest {
                 .thenReturn(Optional.of(friendship));
         when(messageRepository.findPrivateMessages(eq(userId), eq(friendId), any(Pageable.class)))
                 .thenReturn(messagePage);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(sender));
-        when(userRepository.findById(friendId)).thenReturn(Optional.of(receiver));
+        when(userRepository.findAllById(anyIterable())).thenReturn(Arrays.asList(sender, receiver));
 
         // When
         List<MessageResponse> result = privateMessageService.getPrivateMessages(userId, friendId, page, size);
@@ -534,7 +555,7 @@ class PrivateMessageServiceTest {
                 .thenReturn(Optional.of(friendship));
         when(messageRepository.findPrivateMessages(eq(userId), eq(friendId), any(Pageable.class)))
                 .thenReturn(messagePage);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(sender));
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(sender));
 
         // When
         List<MessageResponse> result = privateMessageService.getPrivateMessages(userId, friendId, page, size);
@@ -599,7 +620,7 @@ class PrivateMessageServiceTest {
                 .thenReturn(Optional.of(friendship));
         when(messageRepository.findPrivateMessages(eq(userId), eq(friendId), any(Pageable.class)))
                 .thenReturn(messagePage);
-        when(userRepository.findById(999L)).thenReturn(Optional.empty()); // 用户不存在
+        when(userRepository.findAllById(anyIterable())).thenReturn(Collections.emptyList()); // 用户不存在
 
         // When
         List<MessageResponse> result = privateMessageService.getPrivateMessages(userId, friendId, page, size);
@@ -637,7 +658,7 @@ class PrivateMessageServiceTest {
                 .thenReturn(Optional.of(friendship));
         when(messageRepository.findPrivateMessages(eq(userId), eq(friendId), any(Pageable.class)))
                 .thenReturn(messagePage);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(sender));
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(sender));
 
         // When
         List<MessageResponse> result = privateMessageService.getPrivateMessages(userId, friendId, page, size);
@@ -705,8 +726,7 @@ class PrivateMessageServiceTest {
                 .thenReturn(Optional.of(friendship));
         when(messageRepository.findPrivateMessages(eq(userId), eq(friendId), any(Pageable.class)))
                 .thenReturn(messagePage);
-        when(userRepository.findById(userId)).thenReturn(Optional.of(sender));
-        when(userRepository.findById(friendId)).thenReturn(Optional.of(receiver));
+        when(userRepository.findAllById(anyIterable())).thenReturn(Arrays.asList(sender, receiver));
 
         // When
         List<MessageResponse> result = privateMessageService.getPrivateMessages(userId, friendId, page, size);
@@ -721,4 +741,264 @@ class PrivateMessageServiceTest {
         assertEquals(2L, result.get(1).getId());
         assertEquals(3L, result.get(2).getId());
     }
-}
\ No newline at end of file
+
+    // ==================== getPrivateMessagesByCursor 方法测试 ====================
+
+    private List<Message> buildPrivateMessagesDesc(long newestId, int count) {
+        List<Message> messages = new java.util.ArrayList<>();
+        for (long id = newestId; id > newestId - count; id--) {
+            messages.add(Message.builder()
+                    .id(id)
+                    .senderId(id % 2 == 0 ? 1L : 2L)
+                    .receiverId(id % 2 == 0 ? 2L : 1L)
+                    .content("消息" + id)
+                    .messageType("text")
+                    .chatType("private")
+                    .createdAt(LocalDateTime.now())
+                    .isDeleted(false)
+                    .build());
+        }
+        return messages;
+    }
+
+    @Test
+    void testGetPrivateMessagesByCursor_Before_UsesCanonicalPairAndExtraRow() {
+        // Given - 当前用户ID大于好友ID，查询时应规范化为 (1, 2)
+        Long userId = 2L;
+        Long friendId = 1L;
+        Friendship reverse = new Friendship();
+        reverse.setUserId(2L);
+        reverse.setFriendId(1L);
+        reverse.setIsActive(true);
+
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(userId, friendId, true))
+                .thenReturn(Optional.of(reverse));
+        when(messageRepository.findPrivateMessagesBefore(1L, 2L, 50L, 21))
+                .thenReturn(buildPrivateMessagesDesc(49L, 21));
+        when(userRepository.findAllById(anyIterable())).thenReturn(Arrays.asList(sender, receiver));
+
+        // When
+        MessageSliceResponse result = privateMessageService.getPrivateMessagesByCursor(userId, friendId, 50L, null, 20);
+
+        // Then - 多取的一条只用于判断 hasMore
+        assertEquals(20, result.getMessages().size());
+        assertTrue(result.isHasMore());
+        assertEquals(30L, result.getOldestId());
+        assertEquals(49L, result.getNewestId());
+        assertEquals("private", result.getMessages().get(0).getChatType());
+        verify(messageRepository, never()).findPrivateMessages(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void testGetPrivateMessagesByCursor_After_NoMore() {
+        // Given
+        Long userId = 1L;
+        Long friendId = 2L;
+        List<Message> ascending = buildPrivateMessagesDesc(12L, 2);
+        Collections.reverse(ascending);
+
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(userId, friendId, true))
+                .thenReturn(Optional.of(friendship));
+        when(messageRepository.findPrivateMessagesAfter(1L, 2L, 10L, 21)).thenReturn(ascending);
+        when(userRepository.findAllById(anyIterable())).thenReturn(Arrays.asList(sender, receiver));
+
+        // When
+        MessageSliceResponse result = privateMessageService.getPrivateMessagesByCursor(userId, friendId, null, 10L, 20);
+
+        // Then
+        assertEquals(2, result.getMessages().size());
+        assertFalse(result.isHasMore());
+        assertEquals(11L, result.getMessages().get(0).getId());
+        assertEquals(12L, result.getMessages().get(1).getId());
+    }
+
+    @Test
+    void testGetPrivateMessagesByCursor_Latest_CompleteCacheShorterThanPage_NoMore() {
+        // Given - 私聊只有两条消息，缓存带有历史起点
+        List<MessageResponse> cached = Arrays.asList(
+                MessageResponse.builder().id(1L).chatType("private").build(),
+                MessageResponse.builder().id(2L).chatType("private").build());
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(1L, 2L, true))
+                .thenReturn(Optional.of(friendship));
+        when(messageCacheService.getCachedPrivatePage(1L, 2L, 20))
+                .thenReturn(new MessageCacheService.CachedPage(cached, true));
+
+        // When
+        MessageSliceResponse result = privateMessageService.getPrivateMessagesByCursor(1L, 2L, null, null, 20);
+
+        // Then
+        assertEquals(2, result.getMessages().size());
+        assertFalse(result.isHasMore());
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void testGetPrivateMessagesByCursor_Latest_FromDatabase_MarksCacheComplete() {
+        // Given
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(1L, 2L, true))
+                .thenReturn(Optional.of(friendship));
+        when(messageCacheService.getCachedPrivatePage(1L, 2L, 20))
+                .thenReturn(new MessageCacheService.CachedPage(new ArrayList<>(), false));
+        when(messageRepository.findLatestPrivateMessages(1L, 2L, 21)).thenReturn(buildPrivateMessagesDesc(3L, 3));
+        when(userRepository.findAllById(anyIterable())).thenReturn(Arrays.asList(sender, receiver));
+
+        // When
+        MessageSliceResponse result = privateMessageService.getPrivateMessagesByCursor(1L, 2L, null, null, 20);
+
+        // Then
+        assertFalse(result.isHasMore());
+        verify(messageCacheService).batchCachePrivateMessages(1L, 2L, result.getMessages(), true);
+    }
+
+    @Test
+    void testGetPrivateMessagesByCursor_NotFriends_ThrowsException() {
+        // Given
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(1L, 2L, true))
+                .thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(BusinessException.class,
+                () -> privateMessageService.getPrivateMessagesByCursor(1L, 2L, null, null, 20));
+        verify(messageRepository, never()).findLatestPrivateMessages(anyLong(), anyLong(), anyInt());
+    }
+
+    // ==================== 私聊最近消息缓存测试 ====================
+
+    @Test
+    void testSendPrivateMessage_AppendsToPrivateCache() {
+        // Given
+        when(userRepository.findById(2L)).thenReturn(Optional.of(receiver));
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(1L, 2L, true))
+                .thenReturn(Optional.of(friendship));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> {
+            Message msg = invocation.getArgument(0);
+            msg.setId(100L);
+            return msg;
+        });
+        when(userRepository.findById(1L)).thenReturn(Optional.of(sender));
+
+        // When
+        privateMessageService.sendPrivateMessage(testRequest, 1L);
+
+        // Then
+        ArgumentCaptor<MessageResponse> captor = ArgumentCaptor.forClass(MessageResponse.class);
+        verify(messageCacheService).cachePrivateMessage(captor.capture());
+        assertEquals(100L, captor.getValue().getId());
+        assertEquals(2L, captor.getValue().getReceiverId());
+    }
+
+    @Test
+    void testGetPrivateMessages_FirstPageFromCache_SkipsDatabase() {
+        // Given
+        List<MessageResponse> cached = Arrays.asList(
+                MessageResponse.builder().id(1L).chatType("private").build(),
+                MessageResponse.builder().id(2L).chatType("private").build());
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(1L, 2L, true))
+                .thenReturn(Optional.of(friendship));
+        when(messageCacheService.getCachedPrivatePage(1L, 2L, 2))
+                .thenReturn(new MessageCacheService.CachedPage(cached, false));
+
+        // When
+        List<MessageResponse> result = privateMessageService.getPrivateMessages(1L, 2L, 0, 2);
+
+        // Then
+        assertSame(cached, result);
+        verifyNoInteractions(messageRepository);
+        verify(userRepository, never()).findAllById(anyIterable());
+    }
+
+    @Test
+    void testGetPrivateMessages_FirstPageFromDatabase_WarmsCache() {
+        // Given
+        Message message = Message.builder()
+                .id(5L)
+                .senderId(1L)
+                .receiverId(2L)
+                .content("hi")
+                .chatType("private")
+                .createdAt(LocalDateTime.now())
+                .build();
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(1L, 2L, true))
+                .thenReturn(Optional.of(friendship));
+        when(messageRepository.findPrivateMessages(eq(1L), eq(2L), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(message)));
+        when(userRepository.findAllById(anyIterable())).thenReturn(List.of(sender));
+
+        // When
+        List<MessageResponse> result = privateMessageService.getPrivateMessages(1L, 2L, 0, 50);
+
+        // Then
+        assertEquals(1, result.size());
+        verify(messageCacheService).batchCachePrivateMessages(1L, 2L, result, true);
+    }
+
+    @Test
+    void testGetPrivateMessages_SecondPage_BypassesCache() {
+        // Given
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(1L, 2L, true))
+                .thenReturn(Optional.of(friendship));
+        when(messageRepository.findPrivateMessages(eq(1L), eq(2L), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Collections.emptyList()));
+
+        // When
+        privateMessageService.getPrivateMessages(1L, 2L, 1, 50);
+
+        // Then
+        verify(messageCacheService, never()).getCachedPrivatePage(anyLong(), anyLong(), anyInt());
+        verify(messageCacheService, never()).batchCachePrivateMessages(anyLong(), anyLong(), anyList(), anyBoolean());
+    }
+
+    @Test
+    void testGetPrivateMessages_ShortCompleteCache_SkipsDatabase() {
+        // Given - 私聊只有两条消息，缓存带有历史起点，不足一页也直接返回
+        List<MessageResponse> cached = Arrays.asList(
+                MessageResponse.builder().id(1L).chatType("private").build(),
+                MessageResponse.builder().id(2L).chatType("private").build());
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(1L, 2L, true))
+                .thenReturn(Optional.of(friendship));
+        when(messageCacheService.getCachedPrivatePage(1L, 2L, 50))
+                .thenReturn(new MessageCacheService.CachedPage(cached, true));
+
+        // When
+        List<MessageResponse> result = privateMessageService.getPrivateMessages(1L, 2L, 0, 50);
+
+        // Then - 不查库，也不重写缓存
+        assertEquals(2, result.size());
+        verifyNoInteractions(messageRepository);
+        verify(messageCacheService, never()).batchCachePrivateMessages(anyLong(), anyLong(), anyList(), anyBoolean());
+    }
+
+    @Test
+    void testGetPrivateMessages_EmptyConversation_CachedAsComplete() {
+        // Given
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(1L, 2L, true))
+                .thenReturn(Optional.of(friendship));
+        when(messageRepository.findPrivateMessages(eq(1L), eq(2L), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(Collections.emptyList()));
+
+        // When
+        privateMessageService.getPrivateMessages(1L, 2L, 0, 50);
+
+        // Then - 空会话也写入历史起点，下次打开不再查库
+        verify(messageCacheService).batchCachePrivateMessages(1L, 2L, Collections.emptyList(), true);
+    }
+
+    @Test
+    void testGetPrivateMessages_RepeatedOpen_FriendshipCheckedOnce() {
+        // Given
+        when(friendshipRepository.findByUserIdAndFriendIdAndIsActive(1L, 2L, true))
+                .thenReturn(Optional.of(friendship));
+        when(messageCacheService.getCachedPrivatePage(1L, 2L, 50))
+                .thenReturn(new MessageCacheService.CachedPage(new ArrayList<>(), true));
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            privateMessageService.getPrivateMessages(1L, 2L, 0, 50);
+            privateMessageService.getPrivateMessagesByCursor(1L, 2L, null, null, 50);
+        }
+
+        // Then
+        verify(friendshipRepository, times(1)).findByUserIdAndFriendIdAndIsActive(1L, 2L, true);
+        verifyNoInteractions(messageRepository);
+    }
+}
@@ -0,0 +1,244 @@
+package com.sg.nusiss.gamevaultbackend.service.presence;
+
+import com.sg.nusiss.gamevaultbackend.cache.ChatMembershipCache;
+import com.sg.nusiss.gamevaultbackend.cache.FriendshipCache;
+import com.sg.nusiss.gamevaultbackend.common.ErrorCode;
+import com.sg.nusiss.gamevaultbackend.dto.presence.response.PresenceResponse;
+import com.sg.nusiss.gamevaultbackend.dto.websocket.PresenceEventDto;
+import com.sg.nusiss.gamevaultbackend.exception.BusinessException;
+import com.sg.nusiss.gamevaultbackend.repository.conversation.MemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PresenceServiceTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private MemberRepository memberRepository;
+
+    @Mock
+    private ChatMembershipCache chatMembershipCache;
+
+    @Mock
+    private FriendshipCache friendshipCache;
+
+    @InjectMocks
+    private PresenceService presenceService;
+
+    private static final List<String> KEYS = List.of(PresenceService.SESSIONS_KEY, PresenceService.HEARTBEAT_KEY);
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+    }
+
+    private static Object[] row(long userId, long conversationId) {
+        return new Object[]{userId, conversationId};
+    }
+
+    private void stubConnect(Long... totals) {
+        when(stringRedisTemplate.execute(same(PresenceService.CONNECT_SCRIPT), eq(KEYS), any(Object[].class)))
+                .thenReturn(totals[0], Arrays.copyOfRange(totals, 1, totals.length));
+    }
+
+    @Test
+    void testConnected_FirstSession_BroadcastsOnlineToActiveConversations() {
+        // Given
+        stubConnect(1L);
+        when(memberRepository.findActiveConversationIdsByUserIds(Set.of(7L)))
+                .thenReturn(List.of(row(7L, 1L), row(7L, 4L)));
+
+        // When
+        presenceService.connected("s1", 7L);
+        presenceService.flushBroadcasts();
+
+        // Then - 推送到查询返回的每个活跃群聊（已退出、已解散的由查询过滤）
+        ArgumentCaptor<PresenceEventDto> event = ArgumentCaptor.forClass(PresenceEventDto.class);
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/chat/4"), any(PresenceEventDto.class));
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/chat/1"), event.capture());
+        assertEquals(PresenceEventDto.TYPE_PRESENCE, event.getValue().getMessageType());
+        assertEquals(7L, event.getValue().getUserId());
+        assertTrue(event.getValue().getOnline());
+
+        // 已推送的状态不会重复推送
+        presenceService.flushBroadcasts();
+        verifyNoMoreInteractions(messagingTemplate);
+    }
+
+    @Test
+    void testConnected_AdditionalSession_NoBroadcast() {
+        // Given - 用户在其他节点已有会话
+        stubConnect(2L);
+
+        // When
+        presenceService.connected("s1", 7L);
+        presenceService.connected("s1", 7L);
+        presenceService.flushBroadcasts();
+
+        // Then - 重复的连接事件只计一次
+        verify(stringRedisTemplate, times(1)).execute(same(PresenceService.CONNECT_SCRIPT), eq(KEYS), any(Object[].class));
+        verifyNoInteractions(memberRepository, messagingTemplate);
+    }
+
+    @Test
+    void testConnectThenDisconnect_WithinInterval_CoalescedToLastState() {
+        // Given
+        stubConnect(1L);
+        when(stringRedisTemplate.execute(same(PresenceService.DISCONNECT_SCRIPT), eq(KEYS), any(Object[].class)))
+                .thenReturn(0L);
+        when(memberRepository.findActiveConversationIdsByUserIds(Set.of(7L))).thenReturn(List.<Object[]>of(row(7L, 1L)));
+
+        // When - 同一广播周期内上线又下线
+        presenceService.connected("s1", 7L);
+        presenceService.disconnected("s1");
+        presenceService.disconnected("unknown");
+        presenceService.flushBroadcasts();
+
+        // Then - 只推送最后的离线状态
+        ArgumentCaptor<PresenceEventDto> event = ArgumentCaptor.forClass(PresenceEventDto.class);
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/chat/1"), event.capture());
+        assertFalse(event.getValue().getOnline());
+        verify(stringRedisTemplate, times(1)).execute(same(PresenceService.DISCONNECT_SCRIPT), eq(KEYS), any(Object[].class));
+    }
+
+    @Test
+    void testTyping_CoalescedPerUserAndConversation() {
+        // Given
+        when(chatMembershipCache.isActiveMember(1L, 7L)).thenReturn(true);
+        when(chatMembershipCache.isActiveMember(1L, 9L)).thenReturn(false);
+
+        // When - 连续按键只保留最后一次，非成员被忽略
+        presenceService.typing(1L, 7L, true);
+        presenceService.typing(1L, 7L, true);
+        presenceService.typing(1L, 7L, false);
+        presenceService.typing(1L, 9L, true);
+        presenceService.flushBroadcasts();
+
+        // Then
+        ArgumentCaptor<PresenceEventDto> event = ArgumentCaptor.forClass(PresenceEventDto.class);
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/chat/1"), event.capture());
+        assertEquals(PresenceEventDto.TYPE_TYPING, event.getValue().getMessageType());
+        assertEquals(7L, event.getValue().getUserId());
+        assertFalse(event.getValue().getTyping());
+    }
+
+    @Test
+    void testGetPresence_SingleRoundTripForManyUsers() {
+        // Given - 用户 1（本人）心跳新鲜，用户 2（群友）心跳过期，用户 3（好友）无记录
+        long now = System.currentTimeMillis();
+        when(memberRepository.findCoMemberUserIds(1L, List.of(2L, 3L))).thenReturn(List.of(2L));
+        when(friendshipCache.isActiveFriend(1L, 3L)).thenReturn(true);
+        when(zSetOperations.score(eq(PresenceService.HEARTBEAT_KEY), any(Object[].class)))
+                .thenReturn(Arrays.asList((double) now, (double) (now - 600_000), null));
+
+        // When - 重复的 ID 只查询一次
+        List<PresenceResponse> result = presenceService.getPresence(1L, List.of(1L, 2L, 3L, 1L));
+
+        // Then
+        assertEquals(3, result.size());
+        assertTrue(result.get(0).getOnline());
+        assertFalse(result.get(1).getOnline());
+        assertNotNull(result.get(1).getLastActiveAt());
+        assertFalse(result.get(2).getOnline());
+        assertNull(result.get(2).getLastActiveAt());
+        verify(zSetOperations, times(1)).score(PresenceService.HEARTBEAT_KEY, "1", "2", "3");
+    }
+
+    @Test
+    void testGetPresence_NeitherFriendNorCoMember_ReportedOfflineWithoutQuery() {
+        // Given - 用户 2 是好友，用户 3 是群友，用户 4 两者都不是（即使在线也不应暴露）
+        long now = System.currentTimeMillis();
+        when(memberRepository.findCoMemberUserIds(1L, List.of(2L, 3L, 4L))).thenReturn(List.of(3L));
+        when(friendshipCache.isActiveFriend(1L, 2L)).thenReturn(true);
+        when(friendshipCache.isActiveFriend(1L, 4L)).thenReturn(false);
+        when(zSetOperations.score(eq(PresenceService.HEARTBEAT_KEY), any(Object[].class)))
+                .thenReturn(Arrays.asList((double) now, (double) now));
+
+        // When
+        List<PresenceResponse> result = presenceService.getPresence(1L, List.of(2L, 3L, 4L));
+
+        // Then - 顺序与请求一致，陌生人显示离线且没有最近活跃时间，也不查询其心跳
+        assertEquals(List.of(2L, 3L, 4L), result.stream().map(PresenceResponse::getUserId).toList());
+        assertTrue(result.get(0).getOnline());
+        assertTrue(result.get(1).getOnline());
+        assertFalse(result.get(2).getOnline());
+        assertNull(result.get(2).getLastActiveAt());
+        verify(zSetOperations, times(1)).score(PresenceService.HEARTBEAT_KEY, "2", "3");
+    }
+
+    @Test
+    void testGetPresence_TooManyUsers_Throws() {
+        List<Long> ids = new ArrayList<>();
+        LongStream.rangeClosed(1, PresenceService.MAX_QUERY_SIZE + 1).forEach(ids::add);
+
+        BusinessException exception = assertThrows(BusinessException.class, () -> presenceService.getPresence(1L, ids));
+        assertEquals(ErrorCode.PARAMS_ERROR.getCode(), exception.getCode());
+    }
+
+    @Test
+    void testGetPresence_RedisDown_FallsBackToLocalSessions() {
+        // Given
+        stubConnect(1L);
+        presenceService.connected("s1", 7L);
+        when(memberRepository.findCoMemberUserIds(7L, List.of(8L))).thenReturn(List.of(8L));
+        when(zSetOperations.score(eq(PresenceService.HEARTBEAT_KEY), any(Object[].class)))
+                .thenThrow(new RuntimeException("redis down"));
+
+        // When
+        List<PresenceResponse> result = presenceService.getPresence(7L, List.of(7L, 8L));
+
+        // Then
+        assertTrue(result.get(0).getOnline());
+        assertFalse(result.get(1).getOnline());
+    }
+
+    @Test
+    void testHeartbeat_RefreshesLocalUsersAndExpiresStaleOnes() {
+        // Given - 用户 8 所在节点已宕机
+        stubConnect(1L);
+        presenceService.connected("s1", 7L);
+        when(stringRedisTemplate.execute(same(PresenceService.EXPIRE_SCRIPT), eq(KEYS), any(Object[].class)))
+                .thenReturn(List.of("8"));
+        when(memberRepository.findActiveConversationIdsByUserIds(Set.of(7L, 8L)))
+                .thenReturn(List.of(row(7L, 1L), row(8L, 1L)));
+
+        // When
+        presenceService.heartbeat();
+        presenceService.flushBroadcasts();
+
+        // Then - 本节点用户一次 ZADD 刷新，宕机节点上的用户补发下线；两个用户的群聊一次查询取回
+        verify(zSetOperations, times(1)).add(eq(PresenceService.HEARTBEAT_KEY), anySet());
+        verify(memberRepository, times(1)).findActiveConversationIdsByUserIds(anyCollection());
+        ArgumentCaptor<PresenceEventDto> events = ArgumentCaptor.forClass(PresenceEventDto.class);
+        verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/chat/1"), events.capture());
+        assertTrue(events.getAllValues().stream()
+                .anyMatch(e -> e.getUserId() == 8L && Boolean.FALSE.equals(e.getOnline())));
+    }
+}
@@ -0,0 +1,122 @@
+package com.sg.nusiss.gamevaultbackend.websocket;
+
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * STOMP 广播压测工具（手动运行，不属于单元测试）
+ *
+ * 对一个已启动的后端打开大量 STOMP 连接并订阅同一个群聊，由第一个连接发送消息，
+ * 统计每条广播从发出到所有订阅者收到的延迟分布。消息内容携带发送时刻（System.nanoTime），
+ * 因此发送方与订阅方必须在同一 JVM 中，即本工具内。
+ *
+ * 运行参数（系统属性）：
+ *   -Dws.url=ws://localhost:8080/ws/websocket   SockJS 端点的原生 WebSocket 地址
+ *   -Dws.token=...                               JWT（所有连接共用，用户须为群成员）
+ *   -Dws.conversationId=1
+ *   -Dws.clients=2000
+ *   -Dws.messages=200
+ *   -Dws.intervalMs=20                           两条消息之间的间隔
+ */
+public class StompBroadcastLoadHarness {
+
+    private static final String PREFIX = "lt:";
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("ws.url", "ws://localhost:8080/ws/websocket");
+        String token = System.getProperty("ws.token", "");
+        long conversationId = Long.getLong("ws.conversationId", 1L);
+        int clients = Integer.getInteger("ws.clients", 2000);
+        int messages = Integer.getInteger("ws.messages", 200);
+        long intervalMs = Long.getLong("ws.intervalMs", 20L);
+
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(4);
+        scheduler.initialize();
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        stompClient.setTaskScheduler(scheduler);
+        stompClient.setInboundMessageSizeLimit(1024 * 1024);
+
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + token);
+
+        ConcurrentLinkedQueue<Long> latenciesNanos = new ConcurrentLinkedQueue<>();
+        CountDownLatch received = new CountDownLatch(clients * messages);
+        String topic = "/topic/chat/" + conversationId;
+
+        // 1. 建立连接并订阅
+        long connectStart = System.nanoTime();
+        List<StompSession> sessions = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            StompSession session = stompClient
+                    .connectAsync(url, new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() { })
+                    .get(10, TimeUnit.SECONDS);
+            session.subscribe(topic, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return Map.class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    Object content = ((Map<?, ?>) payload).get("content");
+                    if (content instanceof String text && text.startsWith(PREFIX)) {
+                        latenciesNanos.add(System.nanoTime() - Long.parseLong(text.substring(PREFIX.length())));
+                        received.countDown();
+                    }
+                }
+            });
+            sessions.add(session);
+        }
+        System.out.printf("已建立 %d 个连接，耗时 %d ms%n", clients,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - connectStart));
+        Thread.sleep(1000);
+
+        // 2. 发送消息
+        StompSession sender = sessions.get(0);
+        for (int i = 0; i < messages; i++) {
+            sender.send("/app/chat.sendMessage", Map.of(
+                    "conversationId", conversationId,
+                    "content", PREFIX + System.nanoTime(),
+                    "messageType", "text"));
+            Thread.sleep(intervalMs);
+        }
+
+        // 3. 等待投递并输出统计
+        boolean complete = received.await(60, TimeUnit.SECONDS);
+        long[] sorted = latenciesNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("投递 %d / %d%s%n", sorted.length, (long) clients * messages, complete ? "" : "（超时）");
+        if (sorted.length > 0) {
+            System.out.printf("延迟 ms - p50: %.1f, p95: %.1f, p99: %.1f, max: %.1f, avg: %.1f%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    sorted[sorted.length - 1] / 1e6, Arrays.stream(sorted).average().orElse(0) / 1e6);
+        }
+
+        sessions.forEach(StompSession::disconnect);
+        stompClient.stop();
+        scheduler.shutdown();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}